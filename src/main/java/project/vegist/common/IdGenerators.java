@@ -0,0 +1,30 @@
+package project.vegist.common;
+
+import java.util.List;
+
+/**
+ * Table-backed pooled id generators for the high-volume child tables.
+ * Unlike IDENTITY they hand out ids before the insert, so Hibernate can batch the inserts;
+ * one row of {@link #TABLE} per generator is read and bumped once every {@link #ALLOCATION_SIZE} ids.
+ */
+public class IdGenerators {
+    public static final String TABLE = "id_generators";
+    public static final String SEGMENT_COLUMN = "sequence_name";
+    public static final String VALUE_COLUMN = "next_val";
+    public static final int ALLOCATION_SIZE = 50;
+
+    public static final String ORDER_DETAILS = "order_details";
+    public static final String CART_ITEMS = "cart_items";
+    public static final String USERS_ACTIONS = "users_actions";
+    public static final String PRODUCT_IMAGES = "product_images";
+    public static final String PRODUCT_UNITS = "product_units";
+    public static final String ORDERS = "orders";
+    public static final String PAYMENTS = "payments";
+    public static final String OUTBOX_EVENTS = "outbox_events";
+
+    // Each generator is named after the table it fills
+    public static final List<String> TABLES = List.of(ORDER_DETAILS, CART_ITEMS, USERS_ACTIONS, PRODUCT_IMAGES, PRODUCT_UNITS, ORDERS, PAYMENTS, OUTBOX_EVENTS);
+
+    private IdGenerators() {
+    }
+}
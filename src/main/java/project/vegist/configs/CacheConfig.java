@@ -0,0 +1,48 @@
+package project.vegist.configs;
+
+import com.github.benmanes.caffeine.cache.Caffeine;
+import org.springframework.cache.CacheManager;
+import org.springframework.cache.annotation.EnableCaching;
+import org.springframework.cache.caffeine.CaffeineCacheManager;
+import org.springframework.cache.transaction.TransactionAwareCacheManagerProxy;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.core.env.Environment;
+
+import java.util.List;
+
+/**
+ * Caches for small, rarely changing reference tables.
+ * They hold models, never entities: a write that points at a cached row takes a reference from its repository.
+ * Each cache reads its Caffeine spec from {@code cache.<name>.spec} and falls back to {@code cache.default.spec}.
+ */
+@EnableCaching
+@Configuration
+public class CacheConfig {
+    public static final String CATEGORIES = "categories";
+    public static final String LABELS = "labels";
+    public static final String UNITS = "units";
+    public static final String TAGS = "tags";
+    public static final String ROLES = "roles";
+    public static final String ROLES_BY_NAME = "rolesByName";
+
+    private static final List<String> CACHE_NAMES = List.of(CATEGORIES, LABELS, UNITS, TAGS, ROLES, ROLES_BY_NAME);
+    private static final String DEFAULT_SPEC = "maximumSize=1000,expireAfterWrite=30m";
+
+    @Bean
+    public CacheManager cacheManager(Environment environment) {
+        CaffeineCacheManager caffeineCacheManager = new CaffeineCacheManager();
+        caffeineCacheManager.setAllowNullValues(false);
+
+        String defaultSpec = environment.getProperty("cache.default.spec", DEFAULT_SPEC);
+        for (String cacheName : CACHE_NAMES) {
+            String spec = environment.getProperty("cache." + cacheName + ".spec", defaultSpec);
+            // recordStats feeds the cache.gets / cache.puts / cache.evictions meters exposed by actuator
+            caffeineCacheManager.registerCustomCache(cacheName, Caffeine.from(spec).recordStats().build());
+        }
+
+        // Evictions are deferred until the surrounding transaction commits, so a concurrent read
+        // cannot put the pre-commit row back into the cache
+        return new TransactionAwareCacheManagerProxy(caffeineCacheManager);
+    }
+}
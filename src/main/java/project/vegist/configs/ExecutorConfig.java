@@ -0,0 +1,72 @@
+package project.vegist.configs;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.scheduling.concurrent.ThreadPoolTaskExecutor;
+
+import java.util.concurrent.ThreadPoolExecutor;
+
+@Configuration
+public class ExecutorConfig {
+
+    // Bounded pool for file uploads; when the queue is full the request thread does the upload itself
+    @Bean(name = "uploadExecutor")
+    public ThreadPoolTaskExecutor uploadExecutor(@Value("${upload.executor.pool-size:8}") int poolSize,
+                                                 @Value("${upload.executor.queue-capacity:256}") int queueCapacity) {
+        ThreadPoolTaskExecutor executor = new ThreadPoolTaskExecutor();
+        executor.setCorePoolSize(poolSize);
+        executor.setMaxPoolSize(poolSize);
+        executor.setQueueCapacity(queueCapacity);
+        executor.setThreadNamePrefix("upload-");
+        executor.setRejectedExecutionHandler(new ThreadPoolExecutor.CallerRunsPolicy());
+        executor.setWaitForTasksToCompleteOnShutdown(true);
+        return executor;
+    }
+
+    // Runs StreamingResponseBody exports off the request thread; an export holds a connection while it streams
+    @Bean(name = "exportExecutor")
+    public ThreadPoolTaskExecutor exportExecutor(@Value("${export.executor.pool-size:4}") int poolSize,
+                                                 @Value("${export.executor.queue-capacity:16}") int queueCapacity) {
+        ThreadPoolTaskExecutor executor = new ThreadPoolTaskExecutor();
+        executor.setCorePoolSize(poolSize);
+        executor.setMaxPoolSize(poolSize);
+        executor.setQueueCapacity(queueCapacity);
+        executor.setThreadNamePrefix("export-");
+        return executor;
+    }
+
+    // Catalog imports run one job per thread, each job already stores its images on the upload pool
+    @Bean(name = "importExecutor")
+    public ThreadPoolTaskExecutor importExecutor(@Value("${catalog-import.executor.pool-size:2}") int poolSize) {
+        ThreadPoolTaskExecutor executor = new ThreadPoolTaskExecutor();
+        executor.setCorePoolSize(poolSize);
+        executor.setMaxPoolSize(poolSize);
+        executor.setThreadNamePrefix("import-");
+        return executor;
+    }
+
+    // Outbox workers; each runs a claim loop for the life of the application
+    @Bean(name = "outboxExecutor")
+    public ThreadPoolTaskExecutor outboxExecutor(@Value("${outbox.workers:2}") int workers) {
+        ThreadPoolTaskExecutor executor = new ThreadPoolTaskExecutor();
+        executor.setCorePoolSize(workers);
+        executor.setMaxPoolSize(workers);
+        executor.setThreadNamePrefix("outbox-");
+        executor.setWaitForTasksToCompleteOnShutdown(true);
+        executor.setAwaitTerminationSeconds(30);
+        return executor;
+    }
+
+    // The single thread that drains the user action buffer into the database
+    @Bean(name = "userActionExecutor")
+    public ThreadPoolTaskExecutor userActionExecutor() {
+        ThreadPoolTaskExecutor executor = new ThreadPoolTaskExecutor();
+        executor.setCorePoolSize(1);
+        executor.setMaxPoolSize(1);
+        executor.setThreadNamePrefix("user-action-");
+        executor.setWaitForTasksToCompleteOnShutdown(true);
+        executor.setAwaitTerminationSeconds(30);
+        return executor;
+    }
+}
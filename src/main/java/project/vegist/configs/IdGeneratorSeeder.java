@@ -0,0 +1,39 @@
+package project.vegist.configs;
+
+import jakarta.annotation.PostConstruct;
+import jakarta.persistence.EntityManagerFactory;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Component;
+import project.vegist.common.IdGenerators;
+
+/**
+ * Moves every id generator past the ids already in its table before the first insert.
+ * Rows written while the tables still used AUTO_INCREMENT would otherwise collide with the pooled ids.
+ */
+@Component
+public class IdGeneratorSeeder {
+    private static final Logger log = LoggerFactory.getLogger(IdGeneratorSeeder.class);
+
+    private final JdbcTemplate jdbcTemplate;
+
+    // The EntityManagerFactory dependency makes sure the schema update created the generator table first
+    public IdGeneratorSeeder(JdbcTemplate jdbcTemplate, EntityManagerFactory entityManagerFactory) {
+        this.jdbcTemplate = jdbcTemplate;
+    }
+
+    @PostConstruct
+    public void seed() {
+        String upsert = "INSERT INTO " + IdGenerators.TABLE + " (" + IdGenerators.SEGMENT_COLUMN + ", " + IdGenerators.VALUE_COLUMN + ") VALUES (?, ?)"
+                + " ON DUPLICATE KEY UPDATE " + IdGenerators.VALUE_COLUMN + " = GREATEST(" + IdGenerators.VALUE_COLUMN + ", ?)";
+
+        for (String table : IdGenerators.TABLES) {
+            Long maxId = jdbcTemplate.queryForObject("SELECT COALESCE(MAX(id), 0) FROM " + table, Long.class);
+            // The pooled optimizer hands out the ALLOCATION_SIZE ids below the stored value
+            long floor = maxId + IdGenerators.ALLOCATION_SIZE + 1;
+            jdbcTemplate.update(upsert, table, floor, floor);
+            log.debug("Id generator {} starts at or above {}", table, floor);
+        }
+    }
+}
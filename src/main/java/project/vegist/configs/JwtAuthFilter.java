@@ -9,15 +9,23 @@ import jakarta.servlet.http.HttpServletResponse;
 import org.jetbrains.annotations.NotNull;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
+import org.springframework.security.core.GrantedAuthority;
+import org.springframework.security.core.authority.SimpleGrantedAuthority;
 import org.springframework.security.core.context.SecurityContextHolder;
 import org.springframework.security.core.userdetails.UserDetails;
 import org.springframework.security.core.userdetails.UserDetailsService;
 import org.springframework.stereotype.Component;
 import org.springframework.web.filter.OncePerRequestFilter;
+import project.vegist.models.JwtUserDetail;
+import project.vegist.models.VerifiedToken;
 import project.vegist.repositories.UserRepository;
 import project.vegist.services.JwtService;
+import project.vegist.services.PrincipalCache;
 
 import java.io.IOException;
+import java.util.List;
+import java.util.Optional;
+import java.util.stream.Collectors;
 
 @Component
 public class JwtAuthFilter extends OncePerRequestFilter {
@@ -25,12 +33,14 @@ public class JwtAuthFilter extends OncePerRequestFilter {
     private final JwtService jwtService;
     private final UserRepository userRepository;
     private final UserDetailsService userDetailsService;
+    private final PrincipalCache principalCache;
 
     @Autowired
-    public JwtAuthFilter(JwtService jwtService, UserRepository userRepository, UserDetailsService userDetailsService) {
+    public JwtAuthFilter(JwtService jwtService, UserRepository userRepository, UserDetailsService userDetailsService, PrincipalCache principalCache) {
         this.jwtService = jwtService;
         this.userRepository = userRepository;
         this.userDetailsService = userDetailsService;
+        this.principalCache = principalCache;
     }
 
     @Override
@@ -39,13 +49,18 @@ public class JwtAuthFilter extends OncePerRequestFilter {
         String refreshToken = request.getHeader("Refresh-Token");
 
         try {
-            if (accessToken != null && jwtService.isTokenValid(accessToken)) {
-                Long userId = jwtService.getUserIdFromToken(accessToken);
+            // The signature is checked once here, later lookups of the same token hit the verified-token cache
+            Optional<VerifiedToken> verifiedAccessToken = accessToken != null ? jwtService.tryVerify(accessToken) : Optional.empty();
 
-                // Load user details by userId
-                UserDetails userDetails = userRepository.findById(userId)
-                        .map(user -> userDetailsService.loadUserByUsername(user.getEmail()))
-                        .orElseThrow(() -> new RuntimeException("User not found for ID: " + userId));
+            if (verifiedAccessToken.isPresent()) {
+                VerifiedToken token = verifiedAccessToken.get();
+                Long userId = token.getUserId();
+
+                // The roles claim is trusted unless the user's roles changed after the token was issued
+                UserDetails userDetails = principalCache.get(userId, token.getIssuedAt(), () ->
+                        principalCache.isStale(userId, token.getIssuedAt())
+                                ? loadUserDetails(userId)
+                                : buildUserDetails(token));
 
                 UsernamePasswordAuthenticationToken authToken = new UsernamePasswordAuthenticationToken(
                         userDetails, null, userDetails.getAuthorities());
@@ -79,4 +94,17 @@ public class JwtAuthFilter extends OncePerRequestFilter {
 
         filterChain.doFilter(request, response);
     }
+
+    private UserDetails buildUserDetails(VerifiedToken token) {
+        List<GrantedAuthority> authorities = token.getRoles().stream()
+                .map(SimpleGrantedAuthority::new)
+                .collect(Collectors.toList());
+        return new JwtUserDetail(token.getUserId(), token.getEmail(), authorities);
+    }
+
+    private UserDetails loadUserDetails(Long userId) {
+        return userRepository.findById(userId)
+                .map(user -> userDetailsService.loadUserByUsername(user.getEmail()))
+                .orElseThrow(() -> new RuntimeException("User not found for ID: " + userId));
+    }
 }
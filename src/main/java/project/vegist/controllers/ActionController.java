@@ -12,11 +12,13 @@ import project.vegist.exceptions.ResourceExistException;
 import project.vegist.exceptions.ResourceNotFoundException;
 import project.vegist.exceptions.UnauthorizedException;
 import project.vegist.models.ActionModel;
+import project.vegist.models.CursorPage;
 import project.vegist.repositories.ActionRepository;
 import project.vegist.responses.BaseResponse;
 import project.vegist.responses.ErrorResponse;
 import project.vegist.responses.SuccessResponse;
 import project.vegist.services.ActionService;
+import project.vegist.utils.ResponseUtils;
 
 import java.util.Collections;
 import java.util.List;
@@ -52,6 +54,14 @@ public class ActionController {
         }
     }
 
+    @GetMapping("/actions/cursor")
+    @PreAuthorize("hasAnyAuthority('ROLE_ADMIN')")
+    public ResponseEntity<BaseResponse<CursorPage<ActionModel>>> getActionsByCursor(
+            @RequestParam(name = "cursor", required = false) String cursor,
+            @RequestParam(name = "size", defaultValue = "10") int size) {
+        return ResponseUtils.createSuccessResponse(actionService.findAll(cursor, size));
+    }
+
     @GetMapping("/actions/{id}")
     @PreAuthorize("hasAnyAuthority('ROLE_ADMIN')")
     public ResponseEntity<BaseResponse<ActionModel>> getActionById(@PathVariable Long id) {
@@ -11,11 +11,13 @@ import project.vegist.exceptions.ResourceExistException;
 import project.vegist.exceptions.ResourceNotFoundException;
 import project.vegist.exceptions.UnauthorizedException;
 import project.vegist.models.AddressModel;
+import project.vegist.models.CursorPage;
 import project.vegist.repositories.UserRepository;
 import project.vegist.responses.BaseResponse;
 import project.vegist.responses.ErrorResponse;
 import project.vegist.responses.SuccessResponse;
 import project.vegist.services.AddressService;
+import project.vegist.utils.ResponseUtils;
 
 import java.util.Collections;
 import java.util.List;
@@ -49,6 +51,13 @@ public class AddressController {
         }
     }
 
+    @GetMapping("/user-addresses/cursor")
+    public ResponseEntity<BaseResponse<CursorPage<AddressModel>>> getUserAddressesByCursor(
+            @RequestParam(name = "cursor", required = false) String cursor,
+            @RequestParam(name = "size", defaultValue = "10") int size) {
+        return ResponseUtils.createSuccessResponse(addressService.findAll(cursor, size));
+    }
+
     @GetMapping("/user-addresses/{id}")
     public ResponseEntity<BaseResponse<AddressModel>> getUserAddressById(@PathVariable Long id) {
         try {
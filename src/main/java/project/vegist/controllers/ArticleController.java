@@ -8,11 +8,13 @@ import org.springframework.web.bind.annotation.*;
 import project.vegist.dtos.ArticleDTO;
 import project.vegist.exceptions.ResourceNotFoundException;
 import project.vegist.models.ArticleModel;
+import project.vegist.models.CursorPage;
 import project.vegist.repositories.UserRepository;
 import project.vegist.responses.BaseResponse;
 import project.vegist.responses.ErrorResponse;
 import project.vegist.responses.SuccessResponse;
 import project.vegist.services.ArticleService;
+import project.vegist.utils.ResponseUtils;
 
 import java.util.Collections;
 import java.util.List;
@@ -46,6 +48,13 @@ public class ArticleController {
         }
     }
 
+    @GetMapping("/articles/cursor")
+    public ResponseEntity<BaseResponse<CursorPage<ArticleModel>>> getArticlesByCursor(
+            @RequestParam(name = "cursor", required = false) String cursor,
+            @RequestParam(name = "size", defaultValue = "10") int size) {
+        return ResponseUtils.createSuccessResponse(articleService.findAll(cursor, size));
+    }
+
     @GetMapping("/articles/{id}")
     public ResponseEntity<BaseResponse<ArticleModel>> getArticleById(@PathVariable Long id) {
         try {
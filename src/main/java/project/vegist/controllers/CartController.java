@@ -6,8 +6,11 @@ import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
 import project.vegist.dtos.CartDTO;
+import project.vegist.dtos.CartItemQuantityDTO;
+import project.vegist.exceptions.BadRequestException;
 import project.vegist.exceptions.ResourceNotFoundException;
 import project.vegist.models.CartModel;
+import project.vegist.models.CursorPage;
 import project.vegist.repositories.CartItemRepository;
 import project.vegist.repositories.CartRepository;
 import project.vegist.repositories.ProductRepository;
@@ -17,10 +20,12 @@ import project.vegist.responses.ErrorResponse;
 import project.vegist.responses.SuccessResponse;
 import project.vegist.services.CartService;
 import project.vegist.services.JwtService;
+import project.vegist.utils.ResponseUtils;
 
 import java.util.Collections;
 import java.util.List;
 import java.util.Optional;
+import java.util.function.Supplier;
 
 @RestController
 @RequestMapping("/api/v1/public")
@@ -59,6 +64,13 @@ public class CartController {
         }
     }
 
+    @GetMapping("/carts/cursor")
+    public ResponseEntity<BaseResponse<CursorPage<CartModel>>> getCartsByCursor(
+            @RequestParam(name = "cursor", required = false) String cursor,
+            @RequestParam(name = "size", defaultValue = "10") int size) {
+        return ResponseUtils.createSuccessResponse(cartService.findAll(cursor, size));
+    }
+
     @GetMapping("/carts/{id}")
     public ResponseEntity<BaseResponse<CartModel>> getCartById(@PathVariable Long id) {
         try {
@@ -74,20 +86,63 @@ public class CartController {
         }
     }
 
+    // With a coupon code the totals are the ones checkout will charge with that coupon, before shipping
     @GetMapping("/my-pending-cart")
-    public ResponseEntity<BaseResponse<CartModel>> getMyPendingCart(@RequestHeader("Authorization") String token) {
+    public ResponseEntity<BaseResponse<CartModel>> getMyPendingCart(@RequestHeader("Authorization") String token,
+                                                                    @RequestParam(name = "couponCode", required = false) String couponCode) {
         try {
             Long userId = getUserIdFromToken(token);
-            Optional<CartModel> cartModel = cartService.findPendingCartByUserId(userId);
+            Optional<CartModel> cartModel = cartService.findPendingCartByUserId(userId, couponCode);
             return cartModel.map(value -> ResponseEntity.ok(new BaseResponse<>("success", null, value)))
                     .orElseGet(() -> ResponseEntity.status(HttpStatus.NOT_FOUND)
                             .body(new ErrorResponse<>(Collections.singletonList("Pending cart not found"))));
+        } catch (BadRequestException e) {
+            return ResponseEntity.status(HttpStatus.BAD_REQUEST)
+                    .body(new ErrorResponse<>(Collections.singletonList(e.getMessage())));
         } catch (Exception e) {
             return ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR)
                     .body(new ErrorResponse<>(Collections.singletonList(e.getMessage())));
         }
     }
 
+    @PostMapping("/my-pending-cart/items")
+    public ResponseEntity<BaseResponse<CartModel>> addMyCartItem(@RequestHeader("Authorization") String token,
+                                                                 @Valid @RequestBody CartItemQuantityDTO itemDTO) {
+        return changeMyCart(() -> cartService.addItems(getUserIdFromToken(token), Collections.singletonList(itemDTO)));
+    }
+
+    @PostMapping("/my-pending-cart/items/batch")
+    public ResponseEntity<BaseResponse<CartModel>> addMyCartItems(@RequestHeader("Authorization") String token,
+                                                                  @Valid @RequestBody List<CartItemQuantityDTO> itemDTOs) {
+        return changeMyCart(() -> cartService.addItems(getUserIdFromToken(token), itemDTOs));
+    }
+
+    @PutMapping("/my-pending-cart/items/{productId}")
+    public ResponseEntity<BaseResponse<CartModel>> setMyCartItemQuantity(@RequestHeader("Authorization") String token,
+                                                                         @PathVariable Long productId,
+                                                                         @RequestParam(name = "quantity") int quantity) {
+        return changeMyCart(() -> cartService.setItemQuantity(getUserIdFromToken(token), productId, quantity));
+    }
+
+    @DeleteMapping("/my-pending-cart/items/{productId}")
+    public ResponseEntity<BaseResponse<CartModel>> removeMyCartItem(@RequestHeader("Authorization") String token,
+                                                                    @PathVariable Long productId) {
+        return changeMyCart(() -> cartService.removeItem(getUserIdFromToken(token), productId));
+    }
+
+    private ResponseEntity<BaseResponse<CartModel>> changeMyCart(Supplier<CartModel> change) {
+        try {
+            return ResponseEntity.ok(new SuccessResponse<>(change.get()));
+        } catch (BadRequestException e) {
+            return ResponseEntity.status(HttpStatus.BAD_REQUEST).body(new ErrorResponse<>(e.getMessage()));
+        } catch (ResourceNotFoundException e) {
+            return ResponseEntity.status(e.getStatus()).body(new ErrorResponse<>(e.getMessage()));
+        } catch (Exception e) {
+            return ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR)
+                    .body(new ErrorResponse<>(e.getMessage()));
+        }
+    }
+
     private Long getUserIdFromToken(String token) {
         return jwtService.getUserIdFromToken(token);
     }
@@ -6,13 +6,19 @@ import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
 import project.vegist.dtos.CategoryDTO;
+import project.vegist.exceptions.BadRequestException;
 import project.vegist.exceptions.ResourceNotFoundException;
 import project.vegist.models.CategoryModel;
+import project.vegist.models.CategoryTreeModel;
+import project.vegist.models.CursorPage;
+import project.vegist.models.ProductModel;
 import project.vegist.repositories.CategoryRepository;
 import project.vegist.responses.BaseResponse;
 import project.vegist.responses.ErrorResponse;
 import project.vegist.responses.SuccessResponse;
 import project.vegist.services.CategoryService;
+import project.vegist.services.ProductService;
+import project.vegist.utils.ResponseUtils;
 
 import java.util.*;
 import java.util.stream.Collectors;
@@ -23,11 +29,13 @@ import java.util.stream.Stream;
 public class CategoryController {
     private final CategoryService categoryService;
     private final CategoryRepository categoryRepository;
+    private final ProductService productService;
 
     @Autowired
-    public CategoryController(CategoryService categoryService, CategoryRepository categoryRepository) {
+    public CategoryController(CategoryService categoryService, CategoryRepository categoryRepository, ProductService productService) {
         this.categoryService = categoryService;
         this.categoryRepository = categoryRepository;
+        this.productService = productService;
     }
 
     @GetMapping("/categories")
@@ -45,6 +53,13 @@ public class CategoryController {
         }
     }
 
+    @GetMapping("/categories/cursor")
+    public ResponseEntity<BaseResponse<CursorPage<CategoryModel>>> getCategoriesByCursor(
+            @RequestParam(name = "cursor", required = false) String cursor,
+            @RequestParam(name = "size", defaultValue = "10") int size) {
+        return ResponseUtils.createSuccessResponse(categoryService.findAll(cursor, size));
+    }
+
     @GetMapping("/categories/{id}")
     public ResponseEntity<BaseResponse<CategoryModel>> getCategoryById(@PathVariable Long id) {
         try {
@@ -60,6 +75,58 @@ public class CategoryController {
         }
     }
 
+    @GetMapping("/categories/tree")
+    public ResponseEntity<BaseResponse<List<CategoryTreeModel>>> getCategoryTree() {
+        try {
+            return ResponseEntity.ok(new SuccessResponse<>(categoryService.findTree()));
+        } catch (Exception e) {
+            return ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR)
+                    .body(new ErrorResponse<>(e.getMessage()));
+        }
+    }
+
+    @GetMapping("/categories/{id}/tree")
+    public ResponseEntity<BaseResponse<CategoryTreeModel>> getCategorySubtree(@PathVariable Long id) {
+        try {
+            return categoryService.findTree(id)
+                    .map(value -> ResponseEntity.ok((BaseResponse<CategoryTreeModel>) new SuccessResponse<>(value)))
+                    .orElseGet(() -> ResponseEntity.status(HttpStatus.NOT_FOUND)
+                            .body(new ErrorResponse<>("Category not found")));
+        } catch (Exception e) {
+            return ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR)
+                    .body(new ErrorResponse<>(e.getMessage()));
+        }
+    }
+
+    @GetMapping("/categories/{id}/breadcrumb")
+    public ResponseEntity<BaseResponse<List<CategoryTreeModel>>> getCategoryBreadcrumb(@PathVariable Long id) {
+        try {
+            List<CategoryTreeModel> breadcrumb = categoryService.findBreadcrumb(id);
+            return breadcrumb.isEmpty()
+                    ? ResponseEntity.status(HttpStatus.NOT_FOUND).body(new ErrorResponse<>("Category not found"))
+                    : ResponseEntity.ok(new SuccessResponse<>(breadcrumb));
+        } catch (Exception e) {
+            return ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR)
+                    .body(new ErrorResponse<>(e.getMessage()));
+        }
+    }
+
+    // Products of the category and of all its subcategories
+    @GetMapping("/categories/{id}/products")
+    public ResponseEntity<BaseResponse<List<ProductModel>>> getCategoryProducts(
+            @PathVariable Long id,
+            @RequestParam(name = "page", defaultValue = "0") int page,
+            @RequestParam(name = "size", defaultValue = "10") int size) {
+        try {
+            return ResponseEntity.ok(new SuccessResponse<>(productService.findByCategoryTree(id, page, size)));
+        } catch (ResourceNotFoundException e) {
+            return ResponseEntity.status(e.getStatus()).body(new ErrorResponse<>(e.getMessage()));
+        } catch (Exception e) {
+            return ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR)
+                    .body(new ErrorResponse<>(e.getMessage()));
+        }
+    }
+
     @PostMapping("/categories")
     public ResponseEntity<BaseResponse<CategoryModel>> createCategory(@Valid @RequestBody CategoryDTO categoryDTO) {
         try {
@@ -117,6 +184,8 @@ public class CategoryController {
                     .orElseGet(() -> ResponseEntity.status(HttpStatus.NOT_FOUND)
                             .body(new ErrorResponse<>(Collections.singletonList("Category not found"))));
 
+        } catch (BadRequestException e) {
+            return ResponseEntity.status(HttpStatus.BAD_REQUEST).body(new ErrorResponse<>(Collections.singletonList(e.getMessage())));
         } catch (Exception e) {
             return ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR)
                     .body(new ErrorResponse<>(Collections.singletonList(e.getMessage())));
@@ -128,6 +197,8 @@ public class CategoryController {
         try {
             List<CategoryModel> updatedCategories = categoryService.updateAll(categoryDTOMap);
             return ResponseEntity.ok(new SuccessResponse<>(updatedCategories, "Categories updated successfully"));
+        } catch (BadRequestException e) {
+            return ResponseEntity.status(HttpStatus.BAD_REQUEST).body(new ErrorResponse<>(Collections.singletonList(e.getMessage())));
         } catch (Exception e) {
             return ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR)
                     .body(new ErrorResponse<>(Collections.singletonList(e.getMessage())));
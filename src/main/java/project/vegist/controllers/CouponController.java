@@ -10,11 +10,13 @@ import project.vegist.dtos.CouponDTO;
 import project.vegist.exceptions.ResourceExistException;
 import project.vegist.exceptions.ResourceNotFoundException;
 import project.vegist.models.CouponModel;
+import project.vegist.models.CursorPage;
 import project.vegist.repositories.CouponRepository;
 import project.vegist.responses.BaseResponse;
 import project.vegist.responses.ErrorResponse;
 import project.vegist.responses.SuccessResponse;
 import project.vegist.services.CouponService;
+import project.vegist.utils.ResponseUtils;
 
 import java.util.Collections;
 import java.util.List;
@@ -49,6 +51,14 @@ public class CouponController {
         }
     }
 
+    @GetMapping("/coupons/cursor")
+    @PreAuthorize("hasAnyAuthority('ROLE_ADMIN')")
+    public ResponseEntity<BaseResponse<CursorPage<CouponModel>>> getCouponsByCursor(
+            @RequestParam(name = "cursor", required = false) String cursor,
+            @RequestParam(name = "size", defaultValue = "10") int size) {
+        return ResponseUtils.createSuccessResponse(couponService.findAll(cursor, size));
+    }
+
     @GetMapping("/coupons/{id}")
     @PreAuthorize("hasAnyAuthority('ROLE_ADMIN')")
     public ResponseEntity<BaseResponse<CouponModel>> getCouponById(@PathVariable Long id) {
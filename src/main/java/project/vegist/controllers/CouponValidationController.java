@@ -0,0 +1,28 @@
+package project.vegist.controllers;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.*;
+import project.vegist.models.CouponValidationModel;
+import project.vegist.responses.BaseResponse;
+import project.vegist.responses.SuccessResponse;
+import project.vegist.services.CouponIndex;
+
+import java.time.LocalDateTime;
+
+@RestController
+@RequestMapping("/api/v1/public")
+public class CouponValidationController {
+    private final CouponIndex couponIndex;
+
+    @Autowired
+    public CouponValidationController(CouponIndex couponIndex) {
+        this.couponIndex = couponIndex;
+    }
+
+    // Answered from the in-memory coupon index, the status tells why a code cannot be used
+    @GetMapping("/coupons/validate")
+    public ResponseEntity<BaseResponse<CouponValidationModel>> validateCoupon(@RequestParam(name = "code") String code) {
+        return ResponseEntity.ok(new SuccessResponse<>(couponIndex.validate(code, LocalDateTime.now())));
+    }
+}
@@ -6,6 +6,7 @@ import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
 import org.springframework.web.multipart.MultipartFile;
 import project.vegist.dtos.HocSinhDTO;
+import project.vegist.models.CursorPage;
 import project.vegist.models.HocSinhModel;
 import project.vegist.services.HocSinhService;
 
@@ -30,6 +31,13 @@ public class HocSinhController {
         return ResponseEntity.ok(hocSinhs);
     }
 
+    @GetMapping("/hoc-sinh/cursor")
+    public ResponseEntity<CursorPage<HocSinhModel>> findHocSinhsByCursor(
+            @RequestParam(name = "cursor", required = false) String cursor,
+            @RequestParam(name = "size", defaultValue = "10") int size) {
+        return ResponseEntity.ok(hocSinhService.findAll(cursor, size));
+    }
+
     @GetMapping("/hoc-sinh/{id}")
     public ResponseEntity<HocSinhModel> findHocSinhById(@PathVariable Long id) {
         Optional<HocSinhModel> hocSinhModel = hocSinhService.findById(id);
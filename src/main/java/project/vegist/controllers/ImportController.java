@@ -0,0 +1,74 @@
+package project.vegist.controllers;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.security.access.prepost.PreAuthorize;
+import org.springframework.web.bind.annotation.*;
+import org.springframework.web.multipart.MultipartFile;
+import project.vegist.exceptions.BadRequestException;
+import project.vegist.exceptions.ConflictException;
+import project.vegist.models.ImportJobModel;
+import project.vegist.responses.BaseResponse;
+import project.vegist.responses.ErrorResponse;
+import project.vegist.responses.SuccessResponse;
+import project.vegist.services.CatalogImportService;
+
+import java.util.Optional;
+
+@RestController
+@RequestMapping("/api/v1/private")
+public class ImportController {
+    private final CatalogImportService catalogImportService;
+
+    @Autowired
+    public ImportController(CatalogImportService catalogImportService) {
+        this.catalogImportService = catalogImportService;
+    }
+
+    @PostMapping("/imports/products")
+    @PreAuthorize("hasAnyAuthority('ROLE_ADMIN')")
+    public ResponseEntity<BaseResponse<ImportJobModel>> importProducts(
+            @RequestParam("file") MultipartFile file,
+            @RequestParam(name = "imageDirectory", required = false) String imageDirectory) {
+        try {
+            ImportJobModel importJob = catalogImportService.submit(file, imageDirectory);
+            return ResponseEntity.status(HttpStatus.ACCEPTED).body(new SuccessResponse<>(importJob, "Import started"));
+        } catch (BadRequestException e) {
+            return ResponseEntity.status(HttpStatus.BAD_REQUEST).body(new ErrorResponse<>(e.getMessage()));
+        } catch (Exception e) {
+            return ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR)
+                    .body(new ErrorResponse<>(e.getMessage()));
+        }
+    }
+
+    @GetMapping("/imports/{id}")
+    @PreAuthorize("hasAnyAuthority('ROLE_ADMIN')")
+    public ResponseEntity<BaseResponse<ImportJobModel>> getImportJob(@PathVariable Long id) {
+        try {
+            Optional<ImportJobModel> importJob = catalogImportService.findById(id);
+            return importJob.map(value -> ResponseEntity.ok(new BaseResponse<>("success", null, value)))
+                    .orElseGet(() -> ResponseEntity.status(HttpStatus.NOT_FOUND)
+                            .body(new BaseResponse<>("failed", "Import job not found", null)));
+        } catch (Exception e) {
+            return ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR)
+                    .body(new ErrorResponse<>(e.getMessage()));
+        }
+    }
+
+    @PutMapping("/imports/{id}/resume")
+    @PreAuthorize("hasAnyAuthority('ROLE_ADMIN')")
+    public ResponseEntity<BaseResponse<ImportJobModel>> resumeImportJob(@PathVariable Long id) {
+        try {
+            Optional<ImportJobModel> importJob = catalogImportService.resume(id);
+            return importJob.map(value -> ResponseEntity.ok(new BaseResponse<>("success", null, value)))
+                    .orElseGet(() -> ResponseEntity.status(HttpStatus.NOT_FOUND)
+                            .body(new BaseResponse<>("failed", "Import job not found", null)));
+        } catch (ConflictException e) {
+            return ResponseEntity.status(HttpStatus.CONFLICT).body(new ErrorResponse<>(e.getMessage()));
+        } catch (Exception e) {
+            return ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR)
+                    .body(new ErrorResponse<>(e.getMessage()));
+        }
+    }
+}
@@ -8,12 +8,14 @@ import org.springframework.security.access.prepost.PreAuthorize;
 import org.springframework.web.bind.annotation.*;
 import project.vegist.dtos.InventoryDTO;
 import project.vegist.exceptions.ResourceNotFoundException;
+import project.vegist.models.CursorPage;
 import project.vegist.models.InventoryModel;
 import project.vegist.repositories.InventoryRepository;
 import project.vegist.responses.BaseResponse;
 import project.vegist.responses.ErrorResponse;
 import project.vegist.responses.SuccessResponse;
 import project.vegist.services.InventoryService;
+import project.vegist.utils.ResponseUtils;
 
 import java.io.IOException;
 import java.util.Collections;
@@ -50,6 +52,14 @@ public class InventoryController {
         }
     }
 
+    @GetMapping("/inventories/cursor")
+    @PreAuthorize("hasAnyAuthority('ROLE_ADMIN')")
+    public ResponseEntity<BaseResponse<CursorPage<InventoryModel>>> getInventoriesByCursor(
+            @RequestParam(name = "cursor", required = false) String cursor,
+            @RequestParam(name = "size", defaultValue = "10") int size) {
+        return ResponseUtils.createSuccessResponse(inventoryService.findAll(cursor, size));
+    }
+
     @GetMapping("/inventories/{id}")
     @PreAuthorize("hasAnyAuthority('ROLE_ADMIN')")
     public ResponseEntity<BaseResponse<InventoryModel>> getInventoryById(@PathVariable Long id) {
@@ -8,12 +8,14 @@ import org.springframework.web.bind.annotation.*;
 import project.vegist.dtos.LabelDTO;
 import project.vegist.exceptions.NotReadableException;
 import project.vegist.exceptions.ResourceExistException;
+import project.vegist.models.CursorPage;
 import project.vegist.models.LabelModel;
 import project.vegist.repositories.LabelRepository;
 import project.vegist.responses.BaseResponse;
 import project.vegist.responses.ErrorResponse;
 import project.vegist.responses.SuccessResponse;
 import project.vegist.services.LabelService;
+import project.vegist.utils.ResponseUtils;
 
 import java.util.Collections;
 import java.util.List;
@@ -45,6 +47,13 @@ public class LabelController {
         }
     }
 
+    @GetMapping("/labels/cursor")
+    public ResponseEntity<BaseResponse<CursorPage<LabelModel>>> getLabelsByCursor(
+            @RequestParam(name = "cursor", required = false) String cursor,
+            @RequestParam(name = "size", defaultValue = "10") int size) {
+        return ResponseUtils.createSuccessResponse(labelService.findAll(cursor, size));
+    }
+
     @GetMapping("/labels/{id}")
     public ResponseEntity<BaseResponse<LabelModel>> getLabelById(@PathVariable Long id) {
         try {
@@ -1,22 +1,37 @@
 package project.vegist.controllers;
 
+import io.jsonwebtoken.JwtException;
+import jakarta.servlet.http.HttpServletResponse;
 import jakarta.validation.Valid;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.format.annotation.DateTimeFormat;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
+import org.springframework.security.access.prepost.PreAuthorize;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.context.request.async.WebAsyncTask;
 import project.vegist.dtos.OrderDTO;
+import project.vegist.enums.ExportFormat;
+import project.vegist.enums.OrderStatus;
+import project.vegist.exceptions.BadRequestException;
 import project.vegist.exceptions.NotReadableException;
 import project.vegist.exceptions.ResourceExistException;
 import project.vegist.exceptions.ResourceNotFoundException;
 import project.vegist.exceptions.UnauthorizedException;
+import project.vegist.models.CursorPage;
 import project.vegist.models.OrderModel;
+import project.vegist.models.OrderSummaryModel;
+import project.vegist.models.VerifiedToken;
 import project.vegist.responses.BaseResponse;
 import project.vegist.responses.ErrorResponse;
 import project.vegist.responses.SuccessResponse;
+import project.vegist.services.JwtService;
 import project.vegist.services.OrderService;
+import project.vegist.utils.ExportResponses;
+import project.vegist.utils.ResponseUtils;
 
 import java.io.IOException;
+import java.time.LocalDateTime;
 import java.util.Collections;
 import java.util.List;
 import java.util.Optional;
@@ -25,10 +40,14 @@ import java.util.Optional;
 @RequestMapping("/api/v1/public")
 public class OrderController {
     private final OrderService orderService;
+    private final JwtService jwtService;
+    private final ExportResponses exportResponses;
 
     @Autowired
-    public OrderController(OrderService orderService) {
+    public OrderController(OrderService orderService, JwtService jwtService, ExportResponses exportResponses) {
         this.orderService = orderService;
+        this.jwtService = jwtService;
+        this.exportResponses = exportResponses;
     }
 
     @GetMapping("/orders")
@@ -46,6 +65,59 @@ public class OrderController {
         }
     }
 
+    @GetMapping("/orders/cursor")
+    public ResponseEntity<BaseResponse<CursorPage<OrderModel>>> getOrdersByCursor(
+            @RequestParam(name = "cursor", required = false) String cursor,
+            @RequestParam(name = "size", defaultValue = "10") int size) {
+        return ResponseUtils.createSuccessResponse(orderService.findAll(cursor, size));
+    }
+
+    // Order history of the signed in user, newest first
+    @GetMapping("/orders/my-orders")
+    public ResponseEntity<BaseResponse<CursorPage<OrderSummaryModel>>> getMyOrders(
+            @RequestHeader("Authorization") String token,
+            @RequestParam(name = "cursor", required = false) String cursor,
+            @RequestParam(name = "size", defaultValue = "10") int size) {
+        try {
+            Long userId = jwtService.getUserIdFromToken(token);
+            return ResponseEntity.ok(new SuccessResponse<>(orderService.findHistory(userId, cursor, size)));
+        } catch (BadRequestException e) {
+            return ResponseEntity.status(HttpStatus.BAD_REQUEST).body(new ErrorResponse<>(e.getMessage()));
+        } catch (Exception e) {
+            return ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR)
+                    .body(new ErrorResponse<>(e.getMessage()));
+        }
+    }
+
+    @GetMapping("/orders/search")
+    @PreAuthorize("hasAnyAuthority('ROLE_ADMIN')")
+    public ResponseEntity<BaseResponse<CursorPage<OrderSummaryModel>>> searchOrders(
+            @RequestParam(name = "status", required = false) OrderStatus status,
+            @RequestParam(name = "userId", required = false) Long userId,
+            @RequestParam(name = "couponId", required = false) Long couponId,
+            @RequestParam(name = "from", required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) LocalDateTime from,
+            @RequestParam(name = "to", required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) LocalDateTime to,
+            @RequestParam(name = "cursor", required = false) String cursor,
+            @RequestParam(name = "size", defaultValue = "10") int size) {
+        try {
+            return ResponseEntity.ok(new SuccessResponse<>(orderService.searchSummaries(status, userId, couponId, from, to, cursor, size)));
+        } catch (BadRequestException e) {
+            return ResponseEntity.status(HttpStatus.BAD_REQUEST).body(new ErrorResponse<>(e.getMessage()));
+        } catch (Exception e) {
+            return ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR)
+                    .body(new ErrorResponse<>(e.getMessage()));
+        }
+    }
+
+    @GetMapping("/orders/export")
+    @PreAuthorize("hasAnyAuthority('ROLE_ADMIN')")
+    public WebAsyncTask<Void> exportOrders(
+            @RequestParam(name = "format", defaultValue = "ndjson") String format, HttpServletResponse response) {
+        ExportFormat exportFormat = ExportFormat.fromValue(format)
+                .orElseThrow(() -> new BadRequestException("Unsupported export format " + format));
+        return exportResponses.stream(response, "orders", exportFormat, outputStream -> orderService.export(exportFormat, outputStream));
+    }
+
     @GetMapping("/orders/{id}")
     public ResponseEntity<BaseResponse<OrderModel>> getOrderById(@PathVariable Long id) {
         try {
@@ -61,9 +133,39 @@ public class OrderController {
         }
     }
 
+    // Cancelling gives the order's stock and coupon back, so only its owner or an admin may do it
+    @PutMapping("/orders/{id}/cancel")
+    @PreAuthorize("hasAnyAuthority('ROLE_USER', 'ROLE_ADMIN')")
+    public ResponseEntity<BaseResponse<OrderModel>> cancelOrder(@RequestHeader("Authorization") String token,
+                                                                @PathVariable Long id) {
+        try {
+            VerifiedToken caller = jwtService.verify(token);
+            Long ownerId = caller.getRoles().contains("ROLE_ADMIN") ? null : caller.getUserId();
+            Optional<OrderModel> cancelledOrder = orderService.cancel(id, ownerId);
+            return cancelledOrder.map(value -> ResponseEntity.ok(new BaseResponse<>("success", null, value)))
+                    .orElseGet(() -> ResponseEntity.status(HttpStatus.NOT_FOUND)
+                            .body(new BaseResponse<>("failed", "Order not found", null)));
+        } catch (UnauthorizedException e) {
+            return ResponseEntity.status(e.getStatus()).body(new BaseResponse<>("failed", e.getMessage(), null));
+        } catch (JwtException | IllegalArgumentException e) {
+            return ResponseEntity.status(HttpStatus.UNAUTHORIZED).body(new BaseResponse<>("failed", "Invalid token", null));
+        } catch (Exception e) {
+            return ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR)
+                    .body(new BaseResponse<>("failed", e.getMessage(), null));
+        }
+    }
+
+    // Retrying with the same Idempotency-Key returns the order already placed instead of a second one
     @PostMapping("/orders")
-    public ResponseEntity<BaseResponse<OrderModel>> checkout(@Valid @RequestBody OrderDTO orderDTO) {
+    public ResponseEntity<BaseResponse<OrderModel>> checkout(@Valid @RequestBody OrderDTO orderDTO,
+                                                             @RequestHeader(name = "Idempotency-Key", required = false) String idempotencyKey) {
         try {
+            if (idempotencyKey != null) {
+                if (idempotencyKey.length() > 64) {
+                    throw new BadRequestException("Idempotency key must be less than or equal to 64 characters");
+                }
+                orderDTO.setIdempotencyKey(idempotencyKey);
+            }
             Optional<OrderModel> createdOrder = orderService.create(orderDTO);
             return createdOrder.map(value -> ResponseEntity.ok(new BaseResponse<>("success", null, value)))
                     .orElseGet(() -> ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR)
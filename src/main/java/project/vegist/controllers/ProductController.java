@@ -1,18 +1,25 @@
 package project.vegist.controllers;
 
+import jakarta.servlet.http.HttpServletResponse;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
 import org.springframework.security.access.prepost.PreAuthorize;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.context.request.async.WebAsyncTask;
 import org.springframework.web.multipart.MultipartFile;
 import project.vegist.dtos.ProductDTO;
+import project.vegist.enums.ExportFormat;
+import project.vegist.exceptions.BadRequestException;
 import project.vegist.exceptions.ResourceNotFoundException;
+import project.vegist.models.CursorPage;
 import project.vegist.models.ProductModel;
 import project.vegist.responses.BaseResponse;
 import project.vegist.responses.ErrorResponse;
 import project.vegist.responses.SuccessResponse;
 import project.vegist.services.ProductService;
+import project.vegist.utils.ExportResponses;
+import project.vegist.utils.ResponseUtils;
 
 import java.math.BigDecimal;
 import java.util.Collections;
@@ -23,10 +30,12 @@ import java.util.Optional;
 @RequestMapping("/api/v1/private")
 public class ProductController {
     private final ProductService productService;
+    private final ExportResponses exportResponses;
 
     @Autowired
-    public ProductController(ProductService productService) {
+    public ProductController(ProductService productService, ExportResponses exportResponses) {
         this.productService = productService;
+        this.exportResponses = exportResponses;
     }
 
     @GetMapping("/products")
@@ -46,6 +55,39 @@ public class ProductController {
         }
     }
 
+    @GetMapping("/products/cursor")
+    @PreAuthorize("hasAnyAuthority('ROLE_ADMIN')")
+    public ResponseEntity<BaseResponse<CursorPage<ProductModel>>> getProductsByCursor(
+            @RequestParam(name = "cursor", required = false) String cursor,
+            @RequestParam(name = "size", defaultValue = "10") int size) {
+        return ResponseUtils.createSuccessResponse(productService.findAll(cursor, size));
+    }
+
+    @GetMapping("/products/export")
+    @PreAuthorize("hasAnyAuthority('ROLE_ADMIN')")
+    public WebAsyncTask<Void> exportProducts(
+            @RequestParam(name = "format", defaultValue = "ndjson") String format, HttpServletResponse response) {
+        ExportFormat exportFormat = ExportFormat.fromValue(format)
+                .orElseThrow(() -> new BadRequestException("Unsupported export format " + format));
+        return exportResponses.stream(response, "products", exportFormat, outputStream -> productService.export(exportFormat, outputStream));
+    }
+
+    @GetMapping("/products/search")
+    @PreAuthorize("hasAnyAuthority('ROLE_ADMIN')")
+    public ResponseEntity<BaseResponse<List<ProductModel>>> searchProducts(
+            @RequestParam(name = "keywords") String keywords,
+            @RequestParam(name = "page", defaultValue = "0") int page,
+            @RequestParam(name = "size", defaultValue = "10") int size
+    ) {
+        try {
+            List<ProductModel> products = productService.search(keywords, page, size);
+            return ResponseEntity.ok(new SuccessResponse<>(products));
+        } catch (Exception e) {
+            return ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR)
+                    .body(new ErrorResponse<>(e.getMessage()));
+        }
+    }
+
     @GetMapping("/products/{id}")
     @PreAuthorize("hasAnyAuthority('ROLE_ADMIN')")
     public ResponseEntity<BaseResponse<ProductModel>> getProductById(@PathVariable Long id) {
@@ -0,0 +1,28 @@
+package project.vegist.controllers;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.*;
+import project.vegist.responses.BaseResponse;
+import project.vegist.services.ProductCounterService;
+
+@RestController
+@RequestMapping("/api/v1/public")
+public class ProductViewController {
+    private final ProductCounterService productCounterService;
+
+    @Autowired
+    public ProductViewController(ProductCounterService productCounterService) {
+        this.productCounterService = productCounterService;
+    }
+
+    // Storefront beacon, the view is counted in memory and written with the next counter flush
+    @PostMapping("/products/{id}/views")
+    public ResponseEntity<BaseResponse<Void>> countProductView(@PathVariable Long id) {
+        if (productCounterService.incrementViews(id)) {
+            return ResponseEntity.status(HttpStatus.ACCEPTED).body(new BaseResponse<>("success", null, null));
+        }
+        return ResponseEntity.status(HttpStatus.NOT_FOUND).body(new BaseResponse<>("failed", "Product not found", null));
+    }
+}
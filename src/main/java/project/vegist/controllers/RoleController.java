@@ -8,12 +8,14 @@ import org.springframework.web.bind.annotation.*;
 import project.vegist.dtos.RoleDTO;
 import project.vegist.exceptions.NotReadableException;
 import project.vegist.exceptions.ResourceExistException;
+import project.vegist.models.CursorPage;
 import project.vegist.models.RoleModel;
 import project.vegist.repositories.RoleRepository;
 import project.vegist.responses.BaseResponse;
 import project.vegist.responses.ErrorResponse;
 import project.vegist.responses.SuccessResponse;
 import project.vegist.services.RoleService;
+import project.vegist.utils.ResponseUtils;
 
 import java.util.Collections;
 import java.util.List;
@@ -45,6 +47,13 @@ public class RoleController {
         }
     }
 
+    @GetMapping("/roles/cursor")
+    public ResponseEntity<BaseResponse<CursorPage<RoleModel>>> getRolesByCursor(
+            @RequestParam(name = "cursor", required = false) String cursor,
+            @RequestParam(name = "size", defaultValue = "10") int size) {
+        return ResponseUtils.createSuccessResponse(roleService.findAll(cursor, size));
+    }
+
     @GetMapping("/roles/{id}")
     public ResponseEntity<BaseResponse<RoleModel>> getRoleById(@PathVariable Long id) {
         try {
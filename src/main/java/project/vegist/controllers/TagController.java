@@ -10,12 +10,14 @@ import project.vegist.dtos.TagDTO;
 import project.vegist.exceptions.NotReadableException;
 import project.vegist.exceptions.ResourceExistException;
 import project.vegist.exceptions.ResourceNotFoundException;
+import project.vegist.models.CursorPage;
 import project.vegist.models.TagModel;
 import project.vegist.repositories.TagRepository;
 import project.vegist.responses.BaseResponse;
 import project.vegist.responses.ErrorResponse;
 import project.vegist.responses.SuccessResponse;
 import project.vegist.services.TagService;
+import project.vegist.utils.ResponseUtils;
 
 import java.util.Collections;
 import java.util.List;
@@ -50,6 +52,14 @@ public class TagController {
         }
     }
 
+    @GetMapping("/tags/cursor")
+    @PreAuthorize("hasAnyAuthority('ROLE_ADMIN')")
+    public ResponseEntity<BaseResponse<CursorPage<TagModel>>> getTagsByCursor(
+            @RequestParam(name = "cursor", required = false) String cursor,
+            @RequestParam(name = "size", defaultValue = "10") int size) {
+        return ResponseUtils.createSuccessResponse(tagService.findAll(cursor, size));
+    }
+
     @GetMapping("/tags/{id}")
     @PreAuthorize("hasAnyAuthority('ROLE_ADMIN')")
     public ResponseEntity<BaseResponse<TagModel>> getTagById(@PathVariable Long id) {
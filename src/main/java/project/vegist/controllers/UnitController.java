@@ -10,12 +10,14 @@ import project.vegist.dtos.UnitDTO;
 import project.vegist.exceptions.NotReadableException;
 import project.vegist.exceptions.ResourceExistException;
 import project.vegist.exceptions.ResourceNotFoundException;
+import project.vegist.models.CursorPage;
 import project.vegist.models.UnitModel;
 import project.vegist.repositories.UnitRepository;
 import project.vegist.responses.BaseResponse;
 import project.vegist.responses.ErrorResponse;
 import project.vegist.responses.SuccessResponse;
 import project.vegist.services.UnitService;
+import project.vegist.utils.ResponseUtils;
 
 import java.util.Collections;
 import java.util.List;
@@ -49,6 +51,14 @@ public class UnitController {
         }
     }
 
+    @GetMapping("/units/cursor")
+    @PreAuthorize("hasAnyAuthority('ROLE_ADMIN')")
+    public ResponseEntity<BaseResponse<CursorPage<UnitModel>>> getUnitsByCursor(
+            @RequestParam(name = "cursor", required = false) String cursor,
+            @RequestParam(name = "size", defaultValue = "10") int size) {
+        return ResponseUtils.createSuccessResponse(unitService.findAll(cursor, size));
+    }
+
     @GetMapping("/units/{id}")
     @PreAuthorize("hasAnyAuthority('ROLE_ADMIN')")
     public ResponseEntity<BaseResponse<UnitModel>> getUnitById(@PathVariable Long id) {
@@ -1,16 +1,21 @@
 package project.vegist.controllers;
 
+import jakarta.servlet.http.HttpServletResponse;
 import jakarta.validation.Valid;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
 import org.springframework.security.access.prepost.PreAuthorize;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.context.request.async.WebAsyncTask;
 import project.vegist.dtos.UserActionDTO;
+import project.vegist.enums.ExportFormat;
+import project.vegist.exceptions.BadRequestException;
 import project.vegist.exceptions.NotReadableException;
 import project.vegist.exceptions.ResourceExistException;
 import project.vegist.exceptions.ResourceNotFoundException;
 import project.vegist.exceptions.UnauthorizedException;
+import project.vegist.models.CursorPage;
 import project.vegist.models.UserActionModel;
 import project.vegist.repositories.ActionRepository;
 import project.vegist.repositories.UserActionRepository;
@@ -19,6 +24,8 @@ import project.vegist.responses.BaseResponse;
 import project.vegist.responses.ErrorResponse;
 import project.vegist.responses.SuccessResponse;
 import project.vegist.services.UserActionService;
+import project.vegist.utils.ExportResponses;
+import project.vegist.utils.ResponseUtils;
 
 import java.util.Collections;
 import java.util.List;
@@ -31,13 +38,16 @@ public class UserActionController {
     private final UserActionRepository userActionRepository;
     private final UserRepository userRepository;
     private final ActionRepository actionRepository;
+    private final ExportResponses exportResponses;
 
     @Autowired
-    public UserActionController(UserActionService userActionService, UserActionRepository userActionRepository, UserRepository userRepository, ActionRepository actionRepository) {
+    public UserActionController(UserActionService userActionService, UserActionRepository userActionRepository, UserRepository userRepository, ActionRepository actionRepository,
+                                ExportResponses exportResponses) {
         this.userActionService = userActionService;
         this.userActionRepository = userActionRepository;
         this.userRepository = userRepository;
         this.actionRepository = actionRepository;
+        this.exportResponses = exportResponses;
     }
 
     @GetMapping("private/user-actions")
@@ -56,6 +66,23 @@ public class UserActionController {
         }
     }
 
+    @GetMapping("private/user-actions/cursor")
+    @PreAuthorize("hasAnyAuthority('ROLE_ADMIN')")
+    public ResponseEntity<BaseResponse<CursorPage<UserActionModel>>> getUserActionsByCursor(
+            @RequestParam(name = "cursor", required = false) String cursor,
+            @RequestParam(name = "size", defaultValue = "10") int size) {
+        return ResponseUtils.createSuccessResponse(userActionService.findAll(cursor, size));
+    }
+
+    @GetMapping("private/user-actions/export")
+    @PreAuthorize("hasAnyAuthority('ROLE_ADMIN')")
+    public WebAsyncTask<Void> exportUserActions(
+            @RequestParam(name = "format", defaultValue = "ndjson") String format, HttpServletResponse response) {
+        ExportFormat exportFormat = ExportFormat.fromValue(format)
+                .orElseThrow(() -> new BadRequestException("Unsupported export format " + format));
+        return exportResponses.stream(response, "user-actions", exportFormat, outputStream -> userActionService.export(exportFormat, outputStream));
+    }
+
     @GetMapping("public/user-actions/{id}")
     public ResponseEntity<BaseResponse<UserActionModel>> getUserActionById(@PathVariable Long id) {
         try {
@@ -81,6 +108,15 @@ public class UserActionController {
         }
     }
 
+    @PostMapping("public/user-actions/track")
+    public ResponseEntity<BaseResponse<Void>> trackUserAction(@Valid @RequestBody UserActionDTO userActionDTO) {
+        if (userActionService.track(userActionDTO)) {
+            return ResponseEntity.status(HttpStatus.ACCEPTED).body(new BaseResponse<>("success", null, null));
+        }
+        // The ingestion buffer is full, the client may retry later
+        return ResponseEntity.status(HttpStatus.SERVICE_UNAVAILABLE).body(new ErrorResponse<>("User action was dropped, try again later"));
+    }
+
     @PutMapping("/private/user-actions/{id}")
     @PreAuthorize("hasAnyAuthority('ROLE_ADMIN')")
     public ResponseEntity<BaseResponse<UserActionModel>> updateUserAction(@PathVariable Long id, @Valid @RequestBody UserActionDTO userActionDTO) {
@@ -7,12 +7,14 @@ import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
 import project.vegist.dtos.UserWishlistDTO;
 import project.vegist.exceptions.ResourceNotFoundException;
+import project.vegist.models.CursorPage;
 import project.vegist.models.UserWishlistModel;
 import project.vegist.repositories.UserWishlistRepository;
 import project.vegist.responses.BaseResponse;
 import project.vegist.responses.ErrorResponse;
 import project.vegist.responses.SuccessResponse;
 import project.vegist.services.UserWishlistService;
+import project.vegist.utils.ResponseUtils;
 
 import java.util.Collections;
 import java.util.List;
@@ -45,6 +47,13 @@ public class UserWishlistController {
         }
     }
 
+    @GetMapping("/user-wishlists/cursor")
+    public ResponseEntity<BaseResponse<CursorPage<UserWishlistModel>>> getUserWishlistsByCursor(
+            @RequestParam(name = "cursor", required = false) String cursor,
+            @RequestParam(name = "size", defaultValue = "10") int size) {
+        return ResponseUtils.createSuccessResponse(userWishlistService.findAll(cursor, size));
+    }
+
     @GetMapping("/user-wishlists/{id}")
     public ResponseEntity<BaseResponse<UserWishlistModel>> getUserWishlistById(@PathVariable Long id) {
         try {
@@ -0,0 +1,20 @@
+package project.vegist.dtos;
+
+import jakarta.validation.constraints.Min;
+import jakarta.validation.constraints.NotNull;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+// One item change of the pending cart; the price is taken from the product, not from the client
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class CartItemQuantityDTO {
+    @NotNull(message = "Product ID cannot be null")
+    private Long productId;
+
+    @NotNull(message = "Quantity cannot be null")
+    @Min(value = 1, message = "Quantity must be greater than 0")
+    private Integer quantity;
+}
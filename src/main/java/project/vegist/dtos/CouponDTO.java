@@ -2,6 +2,7 @@ package project.vegist.dtos;
 
 import jakarta.validation.constraints.NotBlank;
 import jakarta.validation.constraints.NotNull;
+import jakarta.validation.constraints.Positive;
 import jakarta.validation.constraints.PositiveOrZero;
 import lombok.AllArgsConstructor;
 import lombok.Data;
@@ -25,4 +26,9 @@ public class CouponDTO {
     @NotNull(message = "End date cannot be null")
     private LocalDateTime endDate;
 
+    @Positive(message = "Max redemptions must be positive")
+    private Integer maxRedemptions; // null for no limit
+
+    @Positive(message = "Max redemptions per user must be positive")
+    private Integer maxRedemptionsPerUser; // null for no limit
 }
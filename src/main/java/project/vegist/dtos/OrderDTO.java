@@ -2,6 +2,7 @@ package project.vegist.dtos;
 
 import jakarta.validation.constraints.NotNull;
 import jakarta.validation.constraints.Positive;
+import jakarta.validation.constraints.Size;
 import lombok.AllArgsConstructor;
 import lombok.Data;
 import lombok.NoArgsConstructor;
@@ -19,10 +20,16 @@ public class OrderDTO {
 
     private Long couponId;
 
+    @Size(max = 255, message = "Coupon code must be less than or equal to 255 characters")
+    private String couponCode; // takes precedence over couponId
+
     @NotNull(message = "Shipping amount cannot be null")
     @Positive(message = "Shipping amount must be positive")
     private BigDecimal shippingAmount;
 
     private PaymentMethod paymentMethod; // e.g., CREDIT_CARD, MOMO, CASH
     private Status paymentStatus; // e.g., pending, success, failure, etc.
+
+    @Size(max = 64, message = "Idempotency key must be less than or equal to 64 characters")
+    private String idempotencyKey; // also accepted as the Idempotency-Key header
 }
@@ -18,7 +18,8 @@ import java.time.LocalDateTime;
 @Entity
 @Table(name = "addresses", indexes = {
         @Index(name = "idx_addresses_user_id", columnList = "id"),
-        @Index(name = "idx_addresses_address_type", columnList = "address_type")
+        @Index(name = "idx_addresses_address_type", columnList = "address_type"),
+        @Index(name = "idx_addresses_created_at_id", columnList = "created_at, id")
 })
 public class Address {
     @Id
@@ -17,7 +17,14 @@ import java.util.List;
 @AllArgsConstructor
 @ToString
 @Entity
-@Table(name = "articles")
+@Table(name = "articles", indexes = {
+        @Index(name = "idx_articles_created_at_id", columnList = "created_at, id")
+})
+@NamedEntityGraph(name = "Articles.tags", attributeNodes = {
+        @NamedAttributeNode(value = "articleTags", subgraph = "articleTags.tag")
+}, subgraphs = {
+        @NamedSubgraph(name = "articleTags.tag", attributeNodes = @NamedAttributeNode("tag"))
+})
 public class Articles {
     @Id
     @GeneratedValue(strategy = GenerationType.IDENTITY)
@@ -40,7 +47,7 @@ public class Articles {
     @JoinColumn(name = "creator_id", nullable = false, foreignKey = @ForeignKey(name = "fk_articles_creator"))
     private User creator;
 
-    @OneToMany(mappedBy = "articles", cascade = CascadeType.ALL, orphanRemoval = false, fetch = FetchType.EAGER)
+    @OneToMany(mappedBy = "articles", cascade = CascadeType.ALL, orphanRemoval = false, fetch = FetchType.LAZY)
     private List<ArticleTag> articleTags;
 
     @CreationTimestamp
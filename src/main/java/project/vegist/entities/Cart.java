@@ -17,7 +17,10 @@ import java.util.List;
 @AllArgsConstructor
 @ToString
 @Entity
-@Table(name = "carts", indexes = {@Index(name = "idx_carts_user_id", columnList = "user_id")})
+@Table(name = "carts", indexes = {
+        @Index(name = "idx_carts_user_id", columnList = "user_id"),
+        @Index(name = "idx_carts_created_at_id", columnList = "created_at, id")
+})
 public class Cart {
     @Id
     @GeneratedValue(strategy = GenerationType.IDENTITY)
@@ -27,7 +30,8 @@ public class Cart {
     @JoinColumn(name = "user_id", nullable = false, foreignKey = @ForeignKey(name = "fk_carts_users"))
     private User user;
 
-    @OneToMany(mappedBy = "cart", cascade = CascadeType.ALL, orphanRemoval = true, fetch = FetchType.EAGER)
+    // Lazy so that changing one item does not load the whole cart
+    @OneToMany(mappedBy = "cart", cascade = CascadeType.ALL, orphanRemoval = true, fetch = FetchType.LAZY)
     private List<CartItem> cartItems;
 
     @Enumerated(EnumType.STRING)
@@ -18,7 +18,9 @@ import java.util.List;
 @Entity
 @Table(name = "categories", indexes = {
         @Index(name = "idx_categories_id", columnList = "id"),
-        @Index(name = "idx_categories_name", columnList = "name")
+        @Index(name = "idx_categories_name", columnList = "name"),
+        @Index(name = "idx_categories_path", columnList = "path"),
+        @Index(name = "idx_categories_created_at_id", columnList = "created_at, id")
 })
 public class Category {
     @Id
@@ -29,10 +31,14 @@ public class Category {
 
     private Boolean status;
 
-    @ManyToOne
+    @ManyToOne(fetch = FetchType.LAZY)
     @JoinColumn(name = "parent_id", nullable = true, foreignKey = @ForeignKey(name = "fk_category_categories"))
     private Category parent;
 
+    // Ids from the root down to this category, e.g. "/1/5/12/"; a subtree is every path starting with its root's path
+    @Column(length = 500)
+    private String path;
+
     @Column(name = "seo_title")
     private String seoTitle;
 
@@ -42,7 +48,7 @@ public class Category {
     @Column(name = "meta_desc")
     private String metaDesc;
 
-    @OneToMany(mappedBy = "category", cascade = CascadeType.ALL, orphanRemoval = true, fetch = FetchType.EAGER)
+    @OneToMany(mappedBy = "category", cascade = CascadeType.ALL, orphanRemoval = true, fetch = FetchType.LAZY)
     private List<Product> products;
 
     @CreationTimestamp
@@ -0,0 +1,27 @@
+package project.vegist.entities;
+
+import jakarta.persistence.*;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+import lombok.ToString;
+
+import java.time.LocalDateTime;
+
+// One row per applied counter flush, so a flush retried after an unknown outcome is not applied twice
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+@ToString
+@Entity
+@Table(name = "counter_flushes", indexes = {
+        @Index(name = "idx_counter_flushes_flushed_at", columnList = "flushed_at")
+})
+public class CounterFlush {
+    @Id
+    @Column(length = 36)
+    private String id;
+
+    @Column(name = "flushed_at", nullable = false)
+    private LocalDateTime flushedAt;
+}
@@ -33,6 +33,17 @@ public class Coupon {
     @Column(name = "end_date")
     private LocalDateTime endDate;
 
+    // Orders that may use the coupon in total and per user, null for no limit
+    @Column(name = "max_redemptions")
+    private Integer maxRedemptions;
+
+    @Column(name = "max_redemptions_per_user")
+    private Integer maxRedemptionsPerUser;
+
+    // Orders placed with the coupon; only CouponRedemptionService changes it, with conditional updates
+    @Column(name = "redeemed", nullable = false, insertable = false, updatable = false, columnDefinition = "int not null default 0")
+    private int redeemed;
+
     @OneToMany(mappedBy = "coupon", cascade = CascadeType.ALL, orphanRemoval = true, fetch = FetchType.LAZY)
     private List<Order> orders;
 }
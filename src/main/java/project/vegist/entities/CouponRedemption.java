@@ -0,0 +1,33 @@
+package project.vegist.entities;
+
+import jakarta.persistence.*;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+import lombok.ToString;
+
+import java.time.LocalDateTime;
+
+// One row per order placed with a coupon; the redemption counts of coupons and users are counted from here
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+@ToString
+@Entity
+@Table(name = "coupon_redemptions", indexes = {
+        @Index(name = "idx_coupon_redemptions_coupon_user", columnList = "coupon_id, user_id")
+})
+public class CouponRedemption {
+    @Id
+    @Column(name = "order_id")
+    private Long orderId;
+
+    @Column(name = "coupon_id", nullable = false)
+    private Long couponId;
+
+    @Column(name = "user_id", nullable = false)
+    private Long userId;
+
+    @Column(name = "redeemed_at", nullable = false)
+    private LocalDateTime redeemedAt;
+}
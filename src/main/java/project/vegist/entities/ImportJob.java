@@ -0,0 +1,73 @@
+package project.vegist.entities;
+
+import jakarta.persistence.*;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+import lombok.ToString;
+import org.hibernate.annotations.ColumnDefault;
+import org.hibernate.annotations.CreationTimestamp;
+import org.hibernate.annotations.DynamicUpdate;
+import org.hibernate.annotations.UpdateTimestamp;
+import project.vegist.enums.ExportFormat;
+import project.vegist.enums.ImportStatus;
+
+import java.time.LocalDateTime;
+
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+@ToString
+@Entity
+@DynamicUpdate
+@Table(name = "import_jobs")
+public class ImportJob {
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    private Long id;
+
+    @Column(name = "source_name", nullable = false)
+    private String sourceName;
+
+    @Enumerated(EnumType.STRING)
+    @Column(nullable = false, length = 10)
+    private ExportFormat format;
+
+    // The uploaded catalog, kept until the job completes so a failed job can be resumed
+    @Column(name = "catalog_path", nullable = false, length = 500)
+    private String catalogPath;
+
+    @Column(name = "image_directory", length = 500)
+    private String imageDirectory;
+
+    @Enumerated(EnumType.STRING)
+    @Column(nullable = false, length = 20)
+    private ImportStatus status;
+
+    // Data rows up to this one (1-based) are committed, a resumed job starts after it
+    @ColumnDefault("0")
+    @Column(name = "last_committed_row", nullable = false)
+    private long lastCommittedRow;
+
+    @ColumnDefault("0")
+    @Column(name = "imported_rows", nullable = false)
+    private long importedRows;
+
+    @ColumnDefault("0")
+    @Column(name = "failed_rows", nullable = false)
+    private long failedRows;
+
+    @Column(name = "last_error", length = 1000)
+    private String lastError;
+
+    @Column(name = "finished_at")
+    private LocalDateTime finishedAt;
+
+    @CreationTimestamp
+    @Column(name = "created_at", updatable = false, nullable = false)
+    private LocalDateTime createdAt;
+
+    @UpdateTimestamp
+    @Column(name = "updated_at", nullable = false)
+    private LocalDateTime updatedAt;
+}
@@ -5,6 +5,7 @@ import lombok.AllArgsConstructor;
 import lombok.Data;
 import lombok.NoArgsConstructor;
 import lombok.ToString;
+import org.hibernate.annotations.ColumnDefault;
 import org.hibernate.annotations.CreationTimestamp;
 import org.hibernate.annotations.UpdateTimestamp;
 
@@ -16,7 +17,8 @@ import java.time.LocalDateTime;
 @ToString
 @Entity
 @Table(name = "inventories", indexes = {
-        @Index(name = "idx_inventories_product_id", columnList = "product_id")
+        @Index(name = "idx_inventories_product_id", columnList = "product_id"),
+        @Index(name = "idx_inventories_created_at_id", columnList = "created_at, id")
 })
 public class Inventory {
     @Id
@@ -27,8 +29,19 @@ public class Inventory {
     @JoinColumn(name = "product_id", nullable = false, foreignKey = @ForeignKey(name = "fk_inventories_products"))
     private Product product;
 
+    // Stock that can still be reserved
     private Integer quantity;
 
+    // Stock held by orders that have not been committed or released yet
+    @ColumnDefault("0")
+    @Column(nullable = false)
+    private Integer reserved = 0;
+
+    // Bumped by the conditional stock updates too, so a stale admin edit fails instead of overwriting them
+    @Version
+    @ColumnDefault("0")
+    private Long version;
+
     @CreationTimestamp
     @Column(name = "created_at", updatable = false, nullable = false)
     private LocalDateTime createdAt;
@@ -0,0 +1,53 @@
+package project.vegist.entities;
+
+import jakarta.persistence.*;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+import lombok.ToString;
+import org.hibernate.annotations.CreationTimestamp;
+import org.hibernate.annotations.DynamicUpdate;
+import org.hibernate.annotations.UpdateTimestamp;
+import project.vegist.enums.ReservationStatus;
+
+import java.time.LocalDateTime;
+
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+@ToString
+@Entity
+@DynamicUpdate
+@Table(name = "inventory_reservations", indexes = {
+        @Index(name = "idx_inventory_reservations_order_id", columnList = "order_id"),
+        @Index(name = "idx_inventory_reservations_status_created_at", columnList = "status, created_at")
+})
+public class InventoryReservation {
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    private Long id;
+
+    @ManyToOne(fetch = FetchType.LAZY)
+    @JoinColumn(name = "inventory_id", nullable = false, foreignKey = @ForeignKey(name = "fk_inventory_reservations_inventories"))
+    private Inventory inventory;
+
+    // Null only for a reservation whose checkout never wrote its order, the sweeper releases those
+    @ManyToOne(fetch = FetchType.LAZY)
+    @JoinColumn(name = "order_id", foreignKey = @ForeignKey(name = "fk_inventory_reservations_orders"))
+    private Order order;
+
+    @Column(nullable = false)
+    private Integer quantity;
+
+    @Enumerated(EnumType.STRING)
+    @Column(nullable = false, length = 20)
+    private ReservationStatus status;
+
+    @CreationTimestamp
+    @Column(name = "created_at", updatable = false, nullable = false)
+    private LocalDateTime createdAt;
+
+    @UpdateTimestamp
+    @Column(name = "updated_at", nullable = false)
+    private LocalDateTime updatedAt;
+}
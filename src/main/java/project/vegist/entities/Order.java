@@ -7,6 +7,7 @@ import lombok.NoArgsConstructor;
 import lombok.ToString;
 import org.hibernate.annotations.CreationTimestamp;
 import org.hibernate.annotations.UpdateTimestamp;
+import project.vegist.common.IdGenerators;
 import project.vegist.enums.OrderStatus;
 
 import java.math.BigDecimal;
@@ -18,10 +19,20 @@ import java.util.List;
 @AllArgsConstructor
 @ToString
 @Entity
-@Table(name = "orders")
+@Table(name = "orders", uniqueConstraints = {
+        @UniqueConstraint(columnNames = {"user_id", "idempotency_key"}, name = "unique_orders_idempotency_key")
+}, indexes = {
+        // Order history of a user and admin search by status, both newest first
+        @Index(name = "idx_orders_user_created", columnList = "user_id, created_at"),
+        @Index(name = "idx_orders_status_created", columnList = "order_status, created_at"),
+        @Index(name = "idx_orders_created_at_id", columnList = "created_at, id")
+})
 public class Order {
+    // Pooled ids let checkout write the payment, the order and its details in one flush
     @Id
-    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    @GeneratedValue(strategy = GenerationType.TABLE, generator = IdGenerators.ORDERS)
+    @TableGenerator(name = IdGenerators.ORDERS, table = IdGenerators.TABLE, pkColumnName = IdGenerators.SEGMENT_COLUMN,
+            valueColumnName = IdGenerators.VALUE_COLUMN, pkColumnValue = IdGenerators.ORDERS, allocationSize = IdGenerators.ALLOCATION_SIZE)
     private Long id;
 
     @ManyToOne
@@ -43,6 +54,10 @@ public class Order {
     @Column(name = "order_status", nullable = false)
     private OrderStatus orderStatus;
 
+    // Client supplied key of the checkout request; a retried request returns the order it already placed
+    @Column(name = "idempotency_key", length = 64)
+    private String idempotencyKey;
+
     @OneToMany(mappedBy = "order", cascade = CascadeType.ALL, orphanRemoval = true, fetch = FetchType.EAGER)
     private List<OrderDetail> orderDetails;
 
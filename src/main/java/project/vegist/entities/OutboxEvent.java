@@ -0,0 +1,65 @@
+package project.vegist.entities;
+
+import jakarta.persistence.*;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+import lombok.ToString;
+import org.hibernate.annotations.ColumnDefault;
+import org.hibernate.annotations.CreationTimestamp;
+import project.vegist.common.IdGenerators;
+import project.vegist.enums.OutboxStatus;
+
+import java.time.LocalDateTime;
+
+// A side effect to run once the transaction that wrote it has committed, see OutboxDispatcher
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+@ToString
+@Entity
+@Table(name = "outbox_events", indexes = {
+        @Index(name = "idx_outbox_events_status_available_at", columnList = "status, available_at")
+})
+public class OutboxEvent {
+    // Pooled ids let an event go out in the same insert batch as the order that raised it
+    @Id
+    @GeneratedValue(strategy = GenerationType.TABLE, generator = IdGenerators.OUTBOX_EVENTS)
+    @TableGenerator(name = IdGenerators.OUTBOX_EVENTS, table = IdGenerators.TABLE, pkColumnName = IdGenerators.SEGMENT_COLUMN,
+            valueColumnName = IdGenerators.VALUE_COLUMN, pkColumnValue = IdGenerators.OUTBOX_EVENTS, allocationSize = IdGenerators.ALLOCATION_SIZE)
+    private Long id;
+
+    @Column(name = "event_type", nullable = false, length = 50)
+    private String eventType;
+
+    @Column(name = "aggregate_id", nullable = false)
+    private Long aggregateId;
+
+    @Column(columnDefinition = "TEXT")
+    private String payload;
+
+    @Enumerated(EnumType.STRING)
+    @Column(nullable = false, length = 20)
+    private OutboxStatus status;
+
+    // When a pending event may be claimed; for a claimed event, when its lease runs out
+    @Column(name = "available_at", nullable = false)
+    private LocalDateTime availableAt;
+
+    @Column(name = "lease_owner", length = 64)
+    private String leaseOwner;
+
+    @ColumnDefault("0")
+    @Column(nullable = false)
+    private int attempts;
+
+    @Column(name = "last_error", length = 1000)
+    private String lastError;
+
+    @CreationTimestamp
+    @Column(name = "created_at", updatable = false, nullable = false)
+    private LocalDateTime createdAt;
+
+    @Column(name = "processed_at")
+    private LocalDateTime processedAt;
+}
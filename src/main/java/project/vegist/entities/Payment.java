@@ -7,6 +7,7 @@ import lombok.NoArgsConstructor;
 import lombok.ToString;
 import org.hibernate.annotations.CreationTimestamp;
 import org.hibernate.annotations.UpdateTimestamp;
+import project.vegist.common.IdGenerators;
 import project.vegist.enums.PaymentMethod;
 import project.vegist.enums.Status;
 
@@ -22,7 +23,9 @@ import java.util.List;
 @Table(name = "payments")
 public class Payment {
     @Id
-    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    @GeneratedValue(strategy = GenerationType.TABLE, generator = IdGenerators.PAYMENTS)
+    @TableGenerator(name = IdGenerators.PAYMENTS, table = IdGenerators.TABLE, pkColumnName = IdGenerators.SEGMENT_COLUMN,
+            valueColumnName = IdGenerators.VALUE_COLUMN, pkColumnValue = IdGenerators.PAYMENTS, allocationSize = IdGenerators.ALLOCATION_SIZE)
     private Long id;
 
     @Enumerated(EnumType.STRING)
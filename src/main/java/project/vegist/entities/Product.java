@@ -21,7 +21,13 @@ import java.util.List;
         @Index(name = "idx_products_id", columnList = "id"),
         @Index(name = "idx_products_product_name", columnList = "product_name"),
         @Index(name = "idx_products_category_id", columnList = "category_id"),
-        @Index(name = "idx_products_label_id", columnList = "label_id")
+        @Index(name = "idx_products_label_id", columnList = "label_id"),
+        @Index(name = "idx_products_created_at_id", columnList = "created_at, id")
+})
+@NamedEntityGraph(name = "Product.units", attributeNodes = {
+        @NamedAttributeNode(value = "productUnits", subgraph = "productUnits.unit")
+}, subgraphs = {
+        @NamedSubgraph(name = "productUnits.unit", attributeNodes = @NamedAttributeNode("unit"))
 })
 public class Product {
     @Id
@@ -44,17 +50,18 @@ public class Product {
     @Column(name = "thumbnail", length = 255)
     private String thumbnail;
 
-    @Column(name = "view_count")
+    // Counters are only written on insert and by ProductCounterService, a product update cannot overwrite them
+    @Column(name = "view_count", updatable = false)
     private Integer viewCount;
 
-    @Column(name = "wishlist_count")
+    @Column(name = "wishlist_count", updatable = false)
     private Integer wishlistCount;
 
-    @ManyToOne
+    @ManyToOne(fetch = FetchType.LAZY)
     @JoinColumn(name = "category_id", nullable = false, foreignKey = @ForeignKey(name = "fk_products_categories"))
     private Category category;
 
-    @ManyToOne
+    @ManyToOne(fetch = FetchType.LAZY)
     @JoinColumn(name = "label_id", nullable = false, foreignKey = @ForeignKey(name = "fk_products_labels"))
     private Label label;
 
@@ -80,25 +87,25 @@ public class Product {
     @Column(name = "updated_at", nullable = false)
     private LocalDateTime updatedAt;
 
-    @OneToMany(mappedBy = "product", cascade = CascadeType.ALL, orphanRemoval = true, fetch = FetchType.EAGER)
+    @OneToMany(mappedBy = "product", cascade = CascadeType.ALL, orphanRemoval = true, fetch = FetchType.LAZY)
     private List<ProductImage> productImages;
 
-    @OneToMany(mappedBy = "product", cascade = CascadeType.ALL, orphanRemoval = true, fetch = FetchType.EAGER)
+    @OneToMany(mappedBy = "product", cascade = CascadeType.ALL, orphanRemoval = true, fetch = FetchType.LAZY)
     private List<Review> productReviews;
 
-    @OneToMany(mappedBy = "product", cascade = CascadeType.ALL, orphanRemoval = true, fetch = FetchType.EAGER)
+    @OneToMany(mappedBy = "product", cascade = CascadeType.ALL, orphanRemoval = true, fetch = FetchType.LAZY)
     private List<ProductUnit> productUnits;
 
-    @OneToMany(mappedBy = "product", cascade = CascadeType.ALL, orphanRemoval = true, fetch = FetchType.EAGER)
+    @OneToMany(mappedBy = "product", cascade = CascadeType.ALL, orphanRemoval = true, fetch = FetchType.LAZY)
     private List<Inventory> inventories;
 
-    @OneToMany(mappedBy = "product", cascade = CascadeType.ALL, orphanRemoval = true, fetch = FetchType.EAGER)
+    @OneToMany(mappedBy = "product", cascade = CascadeType.ALL, orphanRemoval = true, fetch = FetchType.LAZY)
     private List<UserWishlist> userWishlists;
 
-    @OneToMany(mappedBy = "product", cascade = CascadeType.ALL, orphanRemoval = true, fetch = FetchType.EAGER)
+    @OneToMany(mappedBy = "product", cascade = CascadeType.ALL, orphanRemoval = true, fetch = FetchType.LAZY)
     private List<CartItem> cartItems;
 
-    @OneToMany(mappedBy = "product", cascade = CascadeType.ALL, orphanRemoval = true, fetch = FetchType.EAGER)
+    @OneToMany(mappedBy = "product", cascade = CascadeType.ALL, orphanRemoval = true, fetch = FetchType.LAZY)
     private List<OrderDetail> orderDetails;
 }
 
@@ -0,0 +1,54 @@
+package project.vegist.entities;
+
+import jakarta.persistence.*;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+import lombok.ToString;
+import org.hibernate.annotations.ColumnDefault;
+
+import java.time.LocalDateTime;
+
+// Review count, rating sum and per-star histogram of a product, kept up to date by review writes
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+@ToString
+@Entity
+@Table(name = "product_rating_summaries")
+public class ProductRatingSummary {
+    @Id
+    @Column(name = "product_id")
+    private Long productId;
+
+    @ColumnDefault("0")
+    @Column(name = "rating_count", nullable = false)
+    private Long ratingCount;
+
+    @ColumnDefault("0")
+    @Column(name = "rating_sum", nullable = false)
+    private Long ratingSum;
+
+    @ColumnDefault("0")
+    @Column(name = "stars_1", nullable = false)
+    private Long stars1;
+
+    @ColumnDefault("0")
+    @Column(name = "stars_2", nullable = false)
+    private Long stars2;
+
+    @ColumnDefault("0")
+    @Column(name = "stars_3", nullable = false)
+    private Long stars3;
+
+    @ColumnDefault("0")
+    @Column(name = "stars_4", nullable = false)
+    private Long stars4;
+
+    @ColumnDefault("0")
+    @Column(name = "stars_5", nullable = false)
+    private Long stars5;
+
+    @Column(name = "updated_at", nullable = false)
+    private LocalDateTime updatedAt;
+}
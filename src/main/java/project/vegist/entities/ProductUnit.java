@@ -6,6 +6,7 @@ import lombok.AllArgsConstructor;
 import lombok.Data;
 import lombok.NoArgsConstructor;
 import lombok.ToString;
+import project.vegist.common.IdGenerators;
 
 @Data
 @NoArgsConstructor
@@ -15,7 +16,9 @@ import lombok.ToString;
 @Table(name = "product_units")
 public class ProductUnit {
     @Id
-    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    @GeneratedValue(strategy = GenerationType.TABLE, generator = IdGenerators.PRODUCT_UNITS)
+    @TableGenerator(name = IdGenerators.PRODUCT_UNITS, table = IdGenerators.TABLE, pkColumnName = IdGenerators.SEGMENT_COLUMN,
+            valueColumnName = IdGenerators.VALUE_COLUMN, pkColumnValue = IdGenerators.PRODUCT_UNITS, allocationSize = IdGenerators.ALLOCATION_SIZE)
     private Long id;
 
     @ManyToOne
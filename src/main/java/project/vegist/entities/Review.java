@@ -20,7 +20,8 @@ import java.time.LocalDateTime;
         @UniqueConstraint(columnNames = {"user_id", "product_id"}, name = "unique_review")
 }, indexes = {
         @Index(name = "idx_reviews_user_id", columnList = "id"),
-        @Index(name = "idx_reviews_product_id", columnList = "product_id")
+        @Index(name = "idx_reviews_product_id", columnList = "product_id"),
+        @Index(name = "idx_reviews_created_at_id", columnList = "created_at, id")
 })
 public class Review {
     @Id
@@ -7,6 +7,7 @@ import lombok.NoArgsConstructor;
 import lombok.ToString;
 import org.hibernate.annotations.CreationTimestamp;
 import org.hibernate.annotations.UpdateTimestamp;
+import project.vegist.common.IdGenerators;
 
 import java.time.LocalDateTime;
 
@@ -15,10 +16,14 @@ import java.time.LocalDateTime;
 @AllArgsConstructor
 @ToString
 @Entity
-@Table(name = "users_actions")
+@Table(name = "users_actions", indexes = {
+        @Index(name = "idx_users_actions_created_at_id", columnList = "created_at, id")
+})
 public class UserAction {
     @Id
-    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    @GeneratedValue(strategy = GenerationType.TABLE, generator = IdGenerators.USERS_ACTIONS)
+    @TableGenerator(name = IdGenerators.USERS_ACTIONS, table = IdGenerators.TABLE, pkColumnName = IdGenerators.SEGMENT_COLUMN,
+            valueColumnName = IdGenerators.VALUE_COLUMN, pkColumnValue = IdGenerators.USERS_ACTIONS, allocationSize = IdGenerators.ALLOCATION_SIZE)
     private Long id;
 
     @ManyToOne
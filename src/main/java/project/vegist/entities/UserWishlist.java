@@ -13,7 +13,9 @@ import java.time.LocalDateTime;
 @NoArgsConstructor
 @AllArgsConstructor
 @Entity
-@Table(name = "user_wishlist")
+@Table(name = "user_wishlist", indexes = {
+        @Index(name = "idx_user_wishlist_created_at_id", columnList = "created_at, id")
+})
 public class UserWishlist {
     @Id
     @GeneratedValue(strategy = GenerationType.IDENTITY)
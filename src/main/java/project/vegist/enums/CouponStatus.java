@@ -0,0 +1,8 @@
+package project.vegist.enums;
+
+public enum CouponStatus {
+    VALID,
+    NOT_FOUND,
+    NOT_STARTED,
+    EXPIRED
+}
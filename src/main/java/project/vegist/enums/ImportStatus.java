@@ -0,0 +1,8 @@
+package project.vegist.enums;
+
+public enum ImportStatus {
+    PENDING,
+    RUNNING,
+    COMPLETED,
+    FAILED
+}
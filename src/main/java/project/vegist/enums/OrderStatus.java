@@ -3,5 +3,6 @@ package project.vegist.enums;
 public enum OrderStatus {
     PREPARING,
     DELIVERING,
-    DELIVERED
+    DELIVERED,
+    CANCELLED
 }
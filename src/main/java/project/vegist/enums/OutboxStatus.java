@@ -0,0 +1,8 @@
+package project.vegist.enums;
+
+public enum OutboxStatus {
+    PENDING,
+    PROCESSING,
+    DONE,
+    FAILED
+}
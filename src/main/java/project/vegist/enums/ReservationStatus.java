@@ -0,0 +1,7 @@
+package project.vegist.enums;
+
+public enum ReservationStatus {
+    RESERVED,
+    COMMITTED,
+    RELEASED
+}
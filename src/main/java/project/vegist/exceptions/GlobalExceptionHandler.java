@@ -16,6 +16,8 @@ import org.springframework.web.bind.annotation.RestControllerAdvice;
 import org.springframework.web.context.request.WebRequest;
 import project.vegist.responses.ErrorResponse;
 
+import java.util.concurrent.RejectedExecutionException;
+
 @RestControllerAdvice
 public class GlobalExceptionHandler {
 
@@ -127,4 +129,12 @@ public class GlobalExceptionHandler {
         return new ResponseEntity<>(errorResponse, HttpStatus.BAD_REQUEST);
     }
 
+    // The export pool and its queue are full
+    @ExceptionHandler(RejectedExecutionException.class)
+    public ResponseEntity<ErrorResponse<Void>> handleRejectedExecution(RejectedExecutionException ex) {
+        log.warn("Rejected execution:", ex);
+        ErrorResponse<Void> errorResponse = new ErrorResponse<>("Too many exports running, try again later");
+        return new ResponseEntity<>(errorResponse, HttpStatus.SERVICE_UNAVAILABLE);
+    }
+
 }
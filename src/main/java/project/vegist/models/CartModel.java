@@ -5,6 +5,7 @@ import lombok.Data;
 import lombok.NoArgsConstructor;
 import project.vegist.enums.CartStatus;
 
+import java.math.BigDecimal;
 import java.time.LocalDateTime;
 import java.util.List;
 
@@ -18,5 +19,9 @@ public class CartModel {
     private CartStatus status;
     private String createdAt;
     private String updatedAt;
+    // Priced like checkout: items at their products' current prices less the coupon, shipping is added at checkout
+    private String couponCode;
+    private BigDecimal discountAmount;
+    private BigDecimal totalAmount;
 }
 
@@ -0,0 +1,18 @@
+package project.vegist.models;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.List;
+
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class CategoryTreeModel {
+    private Long id;
+    private String name;
+    private Long parentId;
+    private Long productCount; // gồm cả sản phẩm của các danh mục con
+    private List<CategoryTreeModel> children;
+}
@@ -13,5 +13,7 @@ public class CouponModel {
     private int percent;
     private String startDate;
     private String endDate;
+    private Integer maxRedemptions;
+    private Integer maxRedemptionsPerUser;
 }
 
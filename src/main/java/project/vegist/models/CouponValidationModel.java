@@ -0,0 +1,20 @@
+package project.vegist.models;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+import project.vegist.enums.CouponStatus;
+
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class CouponValidationModel {
+    private CouponStatus status;
+    private Long couponId; // null khi không tìm thấy mã
+    private String value;
+    private Integer percent;
+    private String startDate;
+    private String endDate;
+    private Integer maxRedemptions;
+    private Integer maxRedemptionsPerUser;
+}
@@ -0,0 +1,19 @@
+package project.vegist.models;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+import lombok.ToString;
+
+import java.util.List;
+
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+@ToString
+public class CursorPage<T> {
+    private List<T> items;
+    // Opaque cursor for the next page, null on the last page
+    private String nextCursor;
+    private boolean hasNext;
+}
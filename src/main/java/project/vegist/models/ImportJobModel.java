@@ -0,0 +1,24 @@
+package project.vegist.models;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+import lombok.ToString;
+
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+@ToString
+public class ImportJobModel {
+    private Long id;
+    private String sourceName;
+    private String format;
+    private String status;
+    private long lastCommittedRow;
+    private long importedRows;
+    private long failedRows;
+    private String lastError;
+    private String finishedAt;
+    private String createdAt;
+    private String updatedAt;
+}
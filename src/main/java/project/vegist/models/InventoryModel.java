@@ -11,6 +11,7 @@ public class InventoryModel {
     private Long id;
     private Long productId;
     private Integer quantity;
+    private Integer reserved;
     private String createdAt;
     private String updatedAt;
 }
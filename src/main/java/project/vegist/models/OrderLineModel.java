@@ -0,0 +1,17 @@
+package project.vegist.models;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.math.BigDecimal;
+
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class OrderLineModel {
+    private Long productId;
+    private String productName;
+    private BigDecimal productPrice;
+    private Integer quantity;
+}
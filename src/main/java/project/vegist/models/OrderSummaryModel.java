@@ -0,0 +1,23 @@
+package project.vegist.models;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+import project.vegist.enums.OrderStatus;
+
+import java.math.BigDecimal;
+import java.util.List;
+
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class OrderSummaryModel {
+    private Long id;
+    private Long userId;
+    private OrderStatus orderStatus;
+    private Long couponId;
+    private BigDecimal shippingAmount;
+    private BigDecimal totalAmount; // amount of the order's payment
+    private List<OrderLineModel> lines;
+    private String createdAt;
+}
@@ -31,5 +31,6 @@ public class ProductModel {
     private String updatedAt;
     private List<ProductImageModel> productImages;
     private List<ProductUnitModel> productUnits;
+    private ProductRatingModel rating;
 
 }
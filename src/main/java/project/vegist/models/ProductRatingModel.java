@@ -0,0 +1,16 @@
+package project.vegist.models;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.List;
+
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class ProductRatingModel {
+    private Long ratingCount;
+    private Double averageRating; // 0 khi chưa có đánh giá
+    private List<Long> starCounts; // starCounts.get(0) là số đánh giá 1 sao
+}
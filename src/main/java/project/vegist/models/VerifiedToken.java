@@ -0,0 +1,17 @@
+package project.vegist.models;
+
+import lombok.Value;
+
+import java.time.Instant;
+import java.util.Set;
+
+// Claims of a token whose signature and expiry have already been checked
+@Value
+public class VerifiedToken {
+    Long userId;
+    String email;
+    String subject;
+    Set<String> roles;
+    Instant issuedAt;
+    Instant expiration;
+}
@@ -0,0 +1,12 @@
+package project.vegist.projections;
+
+// Id, parent and name of a category, enough to build the category tree without loading entities
+public interface CategoryNode {
+    Long getId();
+
+    Long getParentId();
+
+    String getName();
+
+    String getPath();
+}
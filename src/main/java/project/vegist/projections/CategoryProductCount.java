@@ -0,0 +1,7 @@
+package project.vegist.projections;
+
+public interface CategoryProductCount {
+    Long getCategoryId();
+
+    Long getProductCount();
+}
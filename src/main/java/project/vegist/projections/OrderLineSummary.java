@@ -0,0 +1,15 @@
+package project.vegist.projections;
+
+import java.math.BigDecimal;
+
+public interface OrderLineSummary {
+    Long getOrderId();
+
+    Long getProductId();
+
+    String getProductName();
+
+    BigDecimal getProductPrice();
+
+    Integer getQuantity();
+}
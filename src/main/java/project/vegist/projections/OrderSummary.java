@@ -0,0 +1,22 @@
+package project.vegist.projections;
+
+import project.vegist.enums.OrderStatus;
+
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+
+public interface OrderSummary {
+    Long getId();
+
+    Long getUserId();
+
+    OrderStatus getOrderStatus();
+
+    Long getCouponId();
+
+    BigDecimal getShippingAmount();
+
+    BigDecimal getTotalAmount();
+
+    LocalDateTime getCreatedAt();
+}
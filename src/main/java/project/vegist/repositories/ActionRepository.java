@@ -2,9 +2,18 @@ package project.vegist.repositories;
 
 import org.springframework.data.jpa.repository.JpaRepository;
 import org.springframework.data.jpa.repository.JpaSpecificationExecutor;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 import project.vegist.entities.Action;
+
+import java.util.Collection;
+import java.util.List;
+
 @Repository
 public interface ActionRepository extends JpaRepository<Action, Long>, JpaSpecificationExecutor<Action> {
     boolean existsByActionName(String name);
+
+    @Query("SELECT a.id FROM Action a WHERE a.id IN :ids")
+    List<Long> findExistingIds(@Param("ids") Collection<Long> ids);
 }
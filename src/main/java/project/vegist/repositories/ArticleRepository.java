@@ -1,10 +1,28 @@
 package project.vegist.repositories;
 
+import org.springframework.data.jpa.domain.Specification;
+import org.springframework.data.jpa.repository.EntityGraph;
 import org.springframework.data.jpa.repository.JpaRepository;
 import org.springframework.data.jpa.repository.JpaSpecificationExecutor;
 import org.springframework.stereotype.Repository;
 import project.vegist.entities.Articles;
 
+import java.util.List;
+import java.util.Optional;
+
 @Repository
 public interface ArticleRepository extends JpaRepository<Articles, Long>, JpaSpecificationExecutor<Articles> {
+    // ArticleModel needs the tag ids, fetch them in the same query.
+    // Paged findAll is left without the graph and relies on batch fetching.
+    @Override
+    @EntityGraph(value = "Articles.tags")
+    List<Articles> findAll();
+
+    @Override
+    @EntityGraph(value = "Articles.tags")
+    Optional<Articles> findById(Long id);
+
+    @Override
+    @EntityGraph(value = "Articles.tags")
+    List<Articles> findAll(Specification<Articles> spec);
 }
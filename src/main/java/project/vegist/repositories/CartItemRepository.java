@@ -4,10 +4,12 @@ import org.springframework.data.jpa.repository.JpaRepository;
 import org.springframework.data.jpa.repository.JpaSpecificationExecutor;
 import org.springframework.data.jpa.repository.Modifying;
 import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 import org.springframework.transaction.annotation.Transactional;
 import project.vegist.entities.CartItem;
 
+import java.util.Collection;
 import java.util.List;
 
 @Repository
@@ -16,6 +18,13 @@ public interface CartItemRepository extends JpaRepository<CartItem, Long>, JpaSp
 
     List<CartItem> findByCartIdIn(List<Long> ids);
 
+    List<CartItem> findByCartId(Long cartId);
+
+    @Query("SELECT ci FROM CartItem ci JOIN FETCH ci.product WHERE ci.cart.id = :cartId")
+    List<CartItem> findWithProductByCartId(@Param("cartId") Long cartId);
+
+    List<CartItem> findByCartIdAndProductIdIn(Long cartId, Collection<Long> productIds);
+
     @Transactional
     @Modifying
     @Query(value = "DELETE FROM cart_items WHERE cart_id = :cartId", nativeQuery = true)
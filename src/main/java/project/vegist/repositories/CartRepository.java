@@ -4,6 +4,7 @@ import org.springframework.data.jpa.repository.JpaRepository;
 import org.springframework.data.jpa.repository.JpaSpecificationExecutor;
 import org.springframework.data.jpa.repository.Modifying;
 import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 import org.springframework.transaction.annotation.Transactional;
 import project.vegist.entities.Cart;
@@ -15,6 +16,14 @@ import java.util.Optional;
 public interface CartRepository extends JpaRepository<Cart, Long>, JpaSpecificationExecutor<Cart> {
     Optional<Cart> findByUserIdAndStatus(Long user_id, CartStatus status);
 
+    // Finds and locks the user's pending cart in one round trip; item changes of the same cart are serialized on it
+    @Query(value = "SELECT id FROM carts WHERE user_id = :userId AND status = 'PENDING' ORDER BY id LIMIT 1 FOR UPDATE", nativeQuery = true)
+    Optional<Long> lockPendingCartId(@Param("userId") Long userId);
+
+    @Modifying
+    @Query("UPDATE Cart c SET c.status = :status WHERE c.id = :id")
+    int updateStatus(@Param("id") Long id, @Param("status") CartStatus status);
+
     @Transactional
     @Modifying
     @Query(value = "DELETE FROM carts WHERE id = :cartId", nativeQuery = true)
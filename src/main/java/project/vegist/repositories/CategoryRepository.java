@@ -2,12 +2,34 @@ package project.vegist.repositories;
 
 import org.springframework.data.jpa.repository.JpaRepository;
 import org.springframework.data.jpa.repository.JpaSpecificationExecutor;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 import project.vegist.entities.Category;
+import project.vegist.projections.CategoryNode;
+
+import java.util.List;
 
 @Repository
 public interface CategoryRepository extends JpaRepository<Category, Long>, JpaSpecificationExecutor<Category> {
     boolean existsByName(String name);
 
     boolean existsByNameAndParentId(String name, Long parentId);
+
+    @Query("SELECT c.id AS id, p.id AS parentId, c.name AS name, c.path AS path FROM Category c LEFT JOIN c.parent p")
+    List<CategoryNode> findAllNodes();
+
+    @Query("SELECT c.path FROM Category c WHERE c.id = :id")
+    String findPathById(@Param("id") Long id);
+
+    @Modifying
+    @Query("UPDATE Category c SET c.path = :path WHERE c.id = :id")
+    int updatePath(@Param("id") Long id, @Param("path") String path);
+
+    // Re-roots the descendants of a moved category: their paths swap the old path prefix for the new one
+    @Modifying
+    @Query("UPDATE Category c SET c.path = CONCAT(:newPath, SUBSTRING(c.path, :oldPathLength + 1)) "
+            + "WHERE c.path LIKE CONCAT(:oldPath, '%') AND c.path <> :oldPath")
+    int moveDescendants(@Param("oldPath") String oldPath, @Param("oldPathLength") int oldPathLength, @Param("newPath") String newPath);
 }
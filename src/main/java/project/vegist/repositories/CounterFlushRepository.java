@@ -0,0 +1,17 @@
+package project.vegist.repositories;
+
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+import project.vegist.entities.CounterFlush;
+
+import java.time.LocalDateTime;
+
+@Repository
+public interface CounterFlushRepository extends JpaRepository<CounterFlush, String> {
+    @Modifying
+    @Query("DELETE FROM CounterFlush f WHERE f.flushedAt < :before")
+    int deleteFlushedBefore(@Param("before") LocalDateTime before);
+}
@@ -0,0 +1,31 @@
+package project.vegist.repositories;
+
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+import project.vegist.entities.CouponRedemption;
+
+import java.time.LocalDateTime;
+import java.util.Collection;
+import java.util.List;
+
+@Repository
+public interface CouponRedemptionRepository extends JpaRepository<CouponRedemption, Long> {
+    // Read on the checkout's connection after it locked the user's cart, so it sees what earlier checkouts committed
+    long countByCouponIdAndUserId(Long couponId, Long userId);
+
+    // A plain insert, save() would look the assigned id up first
+    @Modifying
+    @Query(value = "INSERT INTO coupon_redemptions (order_id, coupon_id, user_id, redeemed_at) " +
+            "VALUES (:orderId, :couponId, :userId, :redeemedAt)", nativeQuery = true)
+    void insert(@Param("orderId") Long orderId, @Param("couponId") Long couponId,
+                @Param("userId") Long userId, @Param("redeemedAt") LocalDateTime redeemedAt);
+
+    List<CouponRedemption> findByOrderIdIn(Collection<Long> orderIds);
+
+    @Modifying
+    @Query("DELETE FROM CouponRedemption r WHERE r.couponId IN :couponIds")
+    int deleteByCouponIds(@Param("couponIds") Collection<Long> couponIds);
+}
@@ -2,10 +2,34 @@ package project.vegist.repositories;
 
 import org.springframework.data.jpa.repository.JpaRepository;
 import org.springframework.data.jpa.repository.JpaSpecificationExecutor;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 import project.vegist.entities.Coupon;
 
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.Optional;
+
 @Repository
 public interface CouponRepository extends JpaRepository<Coupon, Long>, JpaSpecificationExecutor<Coupon> {
     boolean existsByValue(String name);
+
+    // Coupons without an end date never expire
+    @Query("SELECT c FROM Coupon c WHERE c.endDate IS NULL OR c.endDate > :since")
+    List<Coupon> findEndingAfter(@Param("since") LocalDateTime since);
+
+    @Query("SELECT c.redeemed FROM Coupon c WHERE c.id = :id")
+    Optional<Integer> findRedeemedById(@Param("id") Long id);
+
+    // The limit check and the increment are one statement, so no instance can redeem past the limit
+    @Modifying
+    @Query(value = "UPDATE coupons SET redeemed = redeemed + 1 " +
+            "WHERE id = :id AND (max_redemptions IS NULL OR redeemed < max_redemptions)", nativeQuery = true)
+    int redeem(@Param("id") Long id);
+
+    @Modifying
+    @Query(value = "UPDATE coupons SET redeemed = GREATEST(redeemed - :count, 0) WHERE id = :id", nativeQuery = true)
+    int unredeem(@Param("id") Long id, @Param("count") long count);
 }
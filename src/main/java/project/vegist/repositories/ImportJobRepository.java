@@ -0,0 +1,35 @@
+package project.vegist.repositories;
+
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+import project.vegist.entities.ImportJob;
+import project.vegist.enums.ImportStatus;
+
+import java.util.Collection;
+
+@Repository
+public interface ImportJobRepository extends JpaRepository<ImportJob, Long> {
+    // Only one worker can start a job, a second start or resume of the same job is a no-op
+    @Modifying
+    @Query("UPDATE ImportJob j SET j.status = :to, j.updatedAt = CURRENT_TIMESTAMP WHERE j.id = :id AND j.status IN :from")
+    int transition(@Param("id") Long id, @Param("from") Collection<ImportStatus> from, @Param("to") ImportStatus to);
+
+    // Committed together with the chunk it reports, so lastCommittedRow never runs ahead of the products
+    @Modifying
+    @Query("UPDATE ImportJob j SET j.lastCommittedRow = :row, j.importedRows = j.importedRows + :imported, j.failedRows = j.failedRows + :failed, "
+            + "j.lastError = COALESCE(:error, j.lastError), j.updatedAt = CURRENT_TIMESTAMP WHERE j.id = :id")
+    int recordProgress(@Param("id") Long id, @Param("row") long row, @Param("imported") long imported,
+                       @Param("failed") long failed, @Param("error") String error);
+
+    @Modifying
+    @Query("UPDATE ImportJob j SET j.status = :status, j.lastError = COALESCE(:error, j.lastError), j.finishedAt = CURRENT_TIMESTAMP, "
+            + "j.updatedAt = CURRENT_TIMESTAMP WHERE j.id = :id")
+    int finish(@Param("id") Long id, @Param("status") ImportStatus status, @Param("error") String error);
+
+    @Modifying
+    @Query("UPDATE ImportJob j SET j.status = :to, j.lastError = :error, j.updatedAt = CURRENT_TIMESTAMP WHERE j.status = :from")
+    int transitionAll(@Param("from") ImportStatus from, @Param("to") ImportStatus to, @Param("error") String error);
+}
@@ -2,9 +2,37 @@ package project.vegist.repositories;
 
 import org.springframework.data.jpa.repository.JpaRepository;
 import org.springframework.data.jpa.repository.JpaSpecificationExecutor;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 import project.vegist.entities.Inventory;
 
+import java.util.List;
+
 @Repository
 public interface InventoryRepository extends JpaRepository<Inventory, Long>, JpaSpecificationExecutor<Inventory> {
+    @Query("SELECT i.id FROM Inventory i WHERE i.product.id = :productId AND i.quantity >= :quantity ORDER BY i.quantity DESC")
+    List<Long> findIdsWithStock(@Param("productId") Long productId, @Param("quantity") int quantity);
+
+    // The stock check and the decrement are one statement, so concurrent checkouts can never oversell
+    @Modifying
+    @Query("UPDATE Inventory i SET i.quantity = i.quantity - :quantity, i.reserved = i.reserved + :quantity, " +
+            "i.version = i.version + 1, i.updatedAt = CURRENT_TIMESTAMP WHERE i.id = :id AND i.quantity >= :quantity")
+    int reserve(@Param("id") Long id, @Param("quantity") int quantity);
+
+    @Modifying
+    @Query("UPDATE Inventory i SET i.reserved = i.reserved - :quantity, " +
+            "i.version = i.version + 1, i.updatedAt = CURRENT_TIMESTAMP WHERE i.id = :id")
+    int commitReserved(@Param("id") Long id, @Param("quantity") int quantity);
+
+    @Modifying
+    @Query("UPDATE Inventory i SET i.quantity = i.quantity + :quantity, i.reserved = i.reserved - :quantity, " +
+            "i.version = i.version + 1, i.updatedAt = CURRENT_TIMESTAMP WHERE i.id = :id")
+    int releaseReserved(@Param("id") Long id, @Param("quantity") int quantity);
+
+    @Modifying
+    @Query("UPDATE Inventory i SET i.quantity = i.quantity + :quantity, " +
+            "i.version = i.version + 1, i.updatedAt = CURRENT_TIMESTAMP WHERE i.id = :id")
+    int restock(@Param("id") Long id, @Param("quantity") int quantity);
 }
@@ -0,0 +1,24 @@
+package project.vegist.repositories;
+
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+import project.vegist.entities.InventoryReservation;
+import project.vegist.enums.ReservationStatus;
+
+import java.time.LocalDateTime;
+import java.util.List;
+
+@Repository
+public interface InventoryReservationRepository extends JpaRepository<InventoryReservation, Long> {
+    List<InventoryReservation> findByOrder_Id(Long orderId);
+
+    List<InventoryReservation> findByStatusAndCreatedAtBefore(ReservationStatus status, LocalDateTime createdAt);
+
+    // Only one caller can move a reservation out of a given status, which makes commit/release idempotent
+    @Modifying
+    @Query("UPDATE InventoryReservation r SET r.status = :to, r.updatedAt = CURRENT_TIMESTAMP WHERE r.id = :id AND r.status = :from")
+    int transition(@Param("id") Long id, @Param("from") ReservationStatus from, @Param("to") ReservationStatus to);
+}
@@ -2,9 +2,20 @@ package project.vegist.repositories;
 
 import org.springframework.data.jpa.repository.JpaRepository;
 import org.springframework.data.jpa.repository.JpaSpecificationExecutor;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 import project.vegist.entities.OrderDetail;
+import project.vegist.projections.OrderLineSummary;
+
+import java.util.Collection;
+import java.util.List;
 
 @Repository
 public interface OrderDetailRepository extends JpaRepository<OrderDetail, Long>, JpaSpecificationExecutor<OrderDetail> {
+    // Lines of a whole page of orders in one query
+    @Query("SELECT d.order.id AS orderId, p.id AS productId, p.productName AS productName, " +
+            "d.productPrice AS productPrice, d.quantity AS quantity " +
+            "FROM OrderDetail d JOIN d.product p WHERE d.order.id IN :orderIds ORDER BY d.order.id, d.id")
+    List<OrderLineSummary> findLineSummariesByOrderIds(@Param("orderIds") Collection<Long> orderIds);
 }
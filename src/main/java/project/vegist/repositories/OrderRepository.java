@@ -1,10 +1,61 @@
 package project.vegist.repositories;
 
+import jakarta.persistence.QueryHint;
+import org.hibernate.jpa.HibernateHints;
+import org.springframework.data.domain.Pageable;
 import org.springframework.data.jpa.repository.JpaRepository;
 import org.springframework.data.jpa.repository.JpaSpecificationExecutor;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
+import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 import project.vegist.entities.Order;
+import project.vegist.enums.OrderStatus;
+import project.vegist.projections.OrderSummary;
+
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.Optional;
+import java.util.stream.Stream;
 
 @Repository
 public interface OrderRepository extends JpaRepository<Order, Long>, JpaSpecificationExecutor<Order> {
+    // Forward-only read for exports, see ProductRepository.streamAll
+    @QueryHints({
+            @QueryHint(name = HibernateHints.HINT_FETCH_SIZE, value = "500"),
+            @QueryHint(name = HibernateHints.HINT_READ_ONLY, value = "true")
+    })
+    @Query("SELECT o FROM Order o ORDER BY o.id")
+    Stream<Order> streamAll();
+
+    Optional<Order> findByUser_IdAndIdempotencyKey(Long userId, String idempotencyKey);
+
+    String SUMMARY_SELECT = "SELECT o.id AS id, o.user.id AS userId, o.orderStatus AS orderStatus, o.coupon.id AS couponId, " +
+            "o.shippingAmount AS shippingAmount, p.amount AS totalAmount, o.createdAt AS createdAt FROM Order o JOIN o.payment p ";
+
+    // Keyset page over (created_at, id) newest first; walks idx_orders_user_created from the cursor on
+    @Query(SUMMARY_SELECT + "WHERE o.user.id = :userId " +
+            "AND (:afterCreatedAt IS NULL OR o.createdAt < :afterCreatedAt OR (o.createdAt = :afterCreatedAt AND o.id < :afterId)) " +
+            "ORDER BY o.createdAt DESC, o.id DESC")
+    List<OrderSummary> findSummariesByUserId(@Param("userId") Long userId,
+                                             @Param("afterCreatedAt") LocalDateTime afterCreatedAt,
+                                             @Param("afterId") Long afterId,
+                                             Pageable pageable);
+
+    // Filters left null are not applied; a status filter walks idx_orders_status_created
+    @Query(SUMMARY_SELECT + "WHERE (:status IS NULL OR o.orderStatus = :status) " +
+            "AND (:userId IS NULL OR o.user.id = :userId) " +
+            "AND (:couponId IS NULL OR o.coupon.id = :couponId) " +
+            "AND (:from IS NULL OR o.createdAt >= :from) " +
+            "AND (:to IS NULL OR o.createdAt < :to) " +
+            "AND (:afterCreatedAt IS NULL OR o.createdAt < :afterCreatedAt OR (o.createdAt = :afterCreatedAt AND o.id < :afterId)) " +
+            "ORDER BY o.createdAt DESC, o.id DESC")
+    List<OrderSummary> searchSummaries(@Param("status") OrderStatus status,
+                                       @Param("userId") Long userId,
+                                       @Param("couponId") Long couponId,
+                                       @Param("from") LocalDateTime from,
+                                       @Param("to") LocalDateTime to,
+                                       @Param("afterCreatedAt") LocalDateTime afterCreatedAt,
+                                       @Param("afterId") Long afterId,
+                                       Pageable pageable);
 }
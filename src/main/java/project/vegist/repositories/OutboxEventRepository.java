@@ -0,0 +1,49 @@
+package project.vegist.repositories;
+
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+import project.vegist.entities.OutboxEvent;
+import project.vegist.enums.OutboxStatus;
+
+import java.time.LocalDateTime;
+import java.util.Collection;
+import java.util.List;
+
+@Repository
+public interface OutboxEventRepository extends JpaRepository<OutboxEvent, Long> {
+    // Pending events that are due and claimed events whose lease ran out; rows another worker holds are skipped, not waited for
+    @Query(value = "SELECT id FROM outbox_events WHERE status IN ('PENDING', 'PROCESSING') AND available_at <= :now " +
+            "ORDER BY available_at, id LIMIT :limit FOR UPDATE SKIP LOCKED", nativeQuery = true)
+    List<Long> lockClaimable(@Param("now") LocalDateTime now, @Param("limit") int limit);
+
+    @Modifying
+    @Query("UPDATE OutboxEvent e SET e.status = :status, e.leaseOwner = :owner, e.availableAt = :leaseUntil, " +
+            "e.attempts = e.attempts + 1 WHERE e.id IN :ids")
+    int lease(@Param("ids") Collection<Long> ids, @Param("status") OutboxStatus status,
+              @Param("owner") String owner, @Param("leaseUntil") LocalDateTime leaseUntil);
+
+    // Only the worker still holding the lease may finish an event
+    @Modifying
+    @Query("UPDATE OutboxEvent e SET e.status = :status, e.processedAt = :processedAt, e.leaseOwner = NULL " +
+            "WHERE e.id = :id AND e.leaseOwner = :owner")
+    int complete(@Param("id") Long id, @Param("owner") String owner,
+                 @Param("status") OutboxStatus status, @Param("processedAt") LocalDateTime processedAt);
+
+    @Modifying
+    @Query("UPDATE OutboxEvent e SET e.status = :status, e.availableAt = :availableAt, e.lastError = :error, e.leaseOwner = NULL " +
+            "WHERE e.id = :id AND e.leaseOwner = :owner")
+    int reschedule(@Param("id") Long id, @Param("owner") String owner, @Param("status") OutboxStatus status,
+                   @Param("availableAt") LocalDateTime availableAt, @Param("error") String error);
+
+    @Query("SELECT MIN(e.createdAt) FROM OutboxEvent e WHERE e.status IN :statuses")
+    LocalDateTime findOldestCreatedAt(@Param("statuses") Collection<OutboxStatus> statuses);
+
+    long countByStatusIn(Collection<OutboxStatus> statuses);
+
+    @Modifying
+    @Query("DELETE FROM OutboxEvent e WHERE e.status = :status AND e.processedAt < :before")
+    int deleteProcessedBefore(@Param("status") OutboxStatus status, @Param("before") LocalDateTime before);
+}
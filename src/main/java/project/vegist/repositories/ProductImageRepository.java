@@ -9,12 +9,15 @@ import org.springframework.stereotype.Repository;
 import org.springframework.transaction.annotation.Transactional;
 import project.vegist.entities.ProductImage;
 
+import java.util.Collection;
 import java.util.List;
 
 @Repository
 public interface ProductImageRepository extends JpaRepository<ProductImage, Long>, JpaSpecificationExecutor<ProductImage> {
     List<ProductImage> findByProduct_Id(Long productId);
 
+    List<ProductImage> findByProduct_IdIn(Collection<Long> productIds);
+
     @Transactional
     @Modifying
     void deleteByProductIdAndImagePathIn(Long productId, List<String> imagePaths);
@@ -0,0 +1,41 @@
+package project.vegist.repositories;
+
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+import project.vegist.entities.ProductRatingSummary;
+
+import java.util.Collection;
+
+@Repository
+public interface ProductRatingSummaryRepository extends JpaRepository<ProductRatingSummary, Long> {
+    // Adds the deltas to the product's row in one statement, creating the row on the product's first review
+    @Modifying
+    @Query(value = "INSERT INTO product_rating_summaries "
+            + "(product_id, rating_count, rating_sum, stars_1, stars_2, stars_3, stars_4, stars_5, updated_at) "
+            + "VALUES (:productId, :count, :sum, :stars1, :stars2, :stars3, :stars4, :stars5, NOW()) "
+            + "ON DUPLICATE KEY UPDATE rating_count = rating_count + VALUES(rating_count), "
+            + "rating_sum = rating_sum + VALUES(rating_sum), "
+            + "stars_1 = stars_1 + VALUES(stars_1), stars_2 = stars_2 + VALUES(stars_2), "
+            + "stars_3 = stars_3 + VALUES(stars_3), stars_4 = stars_4 + VALUES(stars_4), "
+            + "stars_5 = stars_5 + VALUES(stars_5), updated_at = NOW()", nativeQuery = true)
+    int addDeltas(@Param("productId") Long productId, @Param("count") long count, @Param("sum") long sum,
+                  @Param("stars1") long stars1, @Param("stars2") long stars2, @Param("stars3") long stars3,
+                  @Param("stars4") long stars4, @Param("stars5") long stars5);
+
+    // Aggregates the reviews of products that have no summary yet, e.g. reviews written before summaries existed
+    @Modifying
+    @Query(value = "INSERT IGNORE INTO product_rating_summaries "
+            + "(product_id, rating_count, rating_sum, stars_1, stars_2, stars_3, stars_4, stars_5, updated_at) "
+            + "SELECT r.product_id, COUNT(*), SUM(r.rating), SUM(r.rating = 1), SUM(r.rating = 2), SUM(r.rating = 3), "
+            + "SUM(r.rating = 4), SUM(r.rating = 5), NOW() FROM reviews r "
+            + "WHERE r.rating BETWEEN 1 AND 5 AND NOT EXISTS (SELECT 1 FROM product_rating_summaries s WHERE s.product_id = r.product_id) "
+            + "GROUP BY r.product_id", nativeQuery = true)
+    int insertMissing();
+
+    @Modifying
+    @Query("DELETE FROM ProductRatingSummary s WHERE s.productId IN :productIds")
+    int deleteByProductIds(@Param("productIds") Collection<Long> productIds);
+}
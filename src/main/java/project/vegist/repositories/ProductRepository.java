@@ -1,11 +1,44 @@
 package project.vegist.repositories;
 
+import jakarta.persistence.QueryHint;
+import org.hibernate.jpa.HibernateHints;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.jpa.repository.EntityGraph;
 import org.springframework.data.jpa.repository.JpaRepository;
 import org.springframework.data.jpa.repository.JpaSpecificationExecutor;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
+import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 import project.vegist.entities.Product;
+import project.vegist.projections.CategoryProductCount;
 
+import java.util.Collection;
+import java.util.List;
+import java.util.Optional;
+import java.util.stream.Stream;
 
 @Repository
 public interface ProductRepository extends JpaRepository<Product, Long>, JpaSpecificationExecutor<Product> {
+    // Used by update, which diffs the product units
+    @EntityGraph(value = "Product.units")
+    Optional<Product> findWithUnitsById(Long id);
+
+    // Forward-only read for exports; with useCursorFetch the driver pulls 500 rows per round trip instead of buffering them all
+    @QueryHints({
+            @QueryHint(name = HibernateHints.HINT_FETCH_SIZE, value = "500"),
+            @QueryHint(name = HibernateHints.HINT_READ_ONLY, value = "true")
+    })
+    @Query("SELECT p FROM Product p ORDER BY p.id")
+    Stream<Product> streamAll();
+
+    @Query("SELECT p.SKU FROM Product p WHERE p.SKU IN :skus")
+    List<String> findExistingSkus(@Param("skus") Collection<String> skus);
+
+    // Products of a category and all of its descendants in one query on the materialized category path
+    @Query("SELECT p FROM Product p WHERE p.category.path LIKE CONCAT(:path, '%') ORDER BY p.id")
+    List<Product> findByCategoryPath(@Param("path") String path, Pageable pageable);
+
+    @Query("SELECT p.category.id AS categoryId, COUNT(p) AS productCount FROM Product p GROUP BY p.category.id")
+    List<CategoryProductCount> countByCategory();
 }
@@ -5,9 +5,12 @@ import org.springframework.data.jpa.repository.JpaSpecificationExecutor;
 import org.springframework.stereotype.Repository;
 import project.vegist.entities.ProductUnit;
 
+import java.util.Collection;
 import java.util.List;
 
 @Repository
 public interface ProductUnitRepository extends JpaRepository<ProductUnit, Long>, JpaSpecificationExecutor<ProductUnit> {
     List<ProductUnit> findByProduct_Id(Long id);
+
+    List<ProductUnit> findByProduct_IdIn(Collection<Long> productIds);
 }
@@ -5,6 +5,10 @@ import org.springframework.data.jpa.repository.JpaSpecificationExecutor;
 import org.springframework.stereotype.Repository;
 import project.vegist.entities.Review;
 
+import java.util.Collection;
+import java.util.List;
+
 @Repository
 public interface ReviewRepository extends JpaRepository<Review, Long>, JpaSpecificationExecutor<Review> {
+    List<Review> findByUser_IdIn(Collection<Long> userIds);
 }
@@ -1,11 +1,25 @@
 package project.vegist.repositories;
 
+import jakarta.persistence.QueryHint;
+import org.hibernate.jpa.HibernateHints;
 import org.springframework.data.jpa.repository.JpaRepository;
 import org.springframework.data.jpa.repository.JpaSpecificationExecutor;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
 import org.springframework.stereotype.Repository;
 import project.vegist.entities.UserAction;
 
+import java.util.stream.Stream;
+
 @Repository
 public interface UserActionRepository extends JpaRepository<UserAction, Long>, JpaSpecificationExecutor<UserAction> {
     boolean existsByUserIdAndActionId(Long userId, Long actionId);
+
+    // Forward-only read for exports, see ProductRepository.streamAll
+    @QueryHints({
+            @QueryHint(name = HibernateHints.HINT_FETCH_SIZE, value = "500"),
+            @QueryHint(name = HibernateHints.HINT_READ_ONLY, value = "true")
+    })
+    @Query("SELECT ua FROM UserAction ua ORDER BY ua.id")
+    Stream<UserAction> streamAll();
 }
@@ -2,10 +2,19 @@ package project.vegist.repositories;
 
 import org.springframework.data.jpa.repository.JpaRepository;
 import org.springframework.data.jpa.repository.JpaSpecificationExecutor;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 import project.vegist.entities.UserWishlist;
 
+import java.util.Collection;
+import java.util.List;
+
 @Repository
 public interface UserWishlistRepository extends JpaRepository<UserWishlist, Long>, JpaSpecificationExecutor<UserWishlist> {
     boolean existsByUserIdAndProductId(Long userId, Long productId);
+
+    // One entry per wishlist row, a product wished by several of the users comes back once for each
+    @Query("SELECT w.product.id FROM UserWishlist w WHERE w.user.id IN :userIds")
+    List<Long> findProductIdsByUserIdIn(@Param("userIds") Collection<Long> userIds);
 }
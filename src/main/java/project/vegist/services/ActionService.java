@@ -2,15 +2,16 @@ package project.vegist.services;
 
 import org.apache.commons.lang3.StringUtils;
 import org.springframework.beans.factory.annotation.Autowired;
-import org.springframework.data.domain.PageRequest;
 import org.springframework.data.domain.Pageable;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 import project.vegist.dtos.ActionDTO;
 import project.vegist.entities.Action;
 import project.vegist.models.ActionModel;
+import project.vegist.models.CursorPage;
 import project.vegist.repositories.ActionRepository;
 import project.vegist.services.impls.CrudService;
+import project.vegist.utils.KeysetPager;
 import project.vegist.utils.SpecificationsBuilder;
 
 import java.util.List;
@@ -23,10 +24,12 @@ import java.util.stream.Collectors;
 @Service
 public class ActionService implements CrudService<Action, ActionDTO, ActionModel> {
     private final ActionRepository actionRepository;
+    private final KeysetPager keysetPager;
 
     @Autowired
-    public ActionService(ActionRepository actionRepository) {
+    public ActionService(ActionRepository actionRepository, KeysetPager keysetPager) {
         this.actionRepository = actionRepository;
+        this.keysetPager = keysetPager;
     }
 
     @Override
@@ -40,12 +43,18 @@ public class ActionService implements CrudService<Action, ActionDTO, ActionModel
     @Override
     @Transactional(readOnly = true)
     public List<ActionModel> findAll(int page, int size) {
-        Pageable pageable = PageRequest.of(page, size);
+        Pageable pageable = KeysetPager.pageRequest(page, size);
         return actionRepository.findAll(pageable).getContent().stream()
                 .map(this::convertToModel)
                 .collect(Collectors.toList());
     }
 
+    @Override
+    @Transactional(readOnly = true)
+    public CursorPage<ActionModel> findAll(String cursor, int size) {
+        return keysetPager.page(Action.class, cursor, size, this::convertToModel);
+    }
+
     @Override
     @Transactional(readOnly = true)
     public Optional<ActionModel> findById(Long id) {
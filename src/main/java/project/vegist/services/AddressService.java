@@ -3,7 +3,6 @@ package project.vegist.services;
 import org.apache.commons.lang3.StringUtils;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.data.domain.Page;
-import org.springframework.data.domain.PageRequest;
 import org.springframework.data.domain.Pageable;
 import org.springframework.http.HttpStatus;
 import org.springframework.stereotype.Service;
@@ -13,10 +12,12 @@ import project.vegist.entities.Address;
 import project.vegist.entities.User;
 import project.vegist.exceptions.ResourceNotFoundException;
 import project.vegist.models.AddressModel;
+import project.vegist.models.CursorPage;
 import project.vegist.repositories.AddressRepository;
 import project.vegist.repositories.UserRepository;
 import project.vegist.services.impls.CrudService;
 import project.vegist.utils.DateTimeUtils;
+import project.vegist.utils.KeysetPager;
 import project.vegist.utils.SpecificationsBuilder;
 
 import java.util.ArrayList;
@@ -29,11 +30,13 @@ import java.util.stream.Collectors;
 public class AddressService implements CrudService<Address, AddressDTO, AddressModel> {
     private final AddressRepository addressRepository;
     private final UserRepository userRepository;
+    private final KeysetPager keysetPager;
 
     @Autowired
-    public AddressService(AddressRepository addressRepository, UserRepository userRepository) {
+    public AddressService(AddressRepository addressRepository, UserRepository userRepository, KeysetPager keysetPager) {
         this.addressRepository = addressRepository;
         this.userRepository = userRepository;
+        this.keysetPager = keysetPager;
     }
 
     @Override
@@ -48,13 +51,19 @@ public class AddressService implements CrudService<Address, AddressDTO, AddressM
     @Override
     @Transactional(readOnly = true)
     public List<AddressModel> findAll(int page, int size) {
-        Pageable pageable = PageRequest.of(page, size);
+        Pageable pageable = KeysetPager.pageRequest(page, size);
         Page<Address> addressPage = addressRepository.findAll(pageable);
         return addressPage.getContent().stream()
                 .map(this::convertToModel)
                 .collect(Collectors.toList());
     }
 
+    @Override
+    @Transactional(readOnly = true)
+    public CursorPage<AddressModel> findAll(String cursor, int size) {
+        return keysetPager.page(Address.class, cursor, size, this::convertToModel);
+    }
+
     @Override
     @Transactional(readOnly = true)
     public Optional<AddressModel> findById(Long id) {
@@ -3,7 +3,6 @@ package project.vegist.services;
 import org.apache.commons.lang3.StringUtils;
 import org.springframework.beans.BeanUtils;
 import org.springframework.beans.factory.annotation.Autowired;
-import org.springframework.data.domain.PageRequest;
 import org.springframework.data.domain.Pageable;
 import org.springframework.http.HttpStatus;
 import org.springframework.stereotype.Service;
@@ -15,12 +14,13 @@ import project.vegist.entities.Tag;
 import project.vegist.entities.User;
 import project.vegist.exceptions.ResourceNotFoundException;
 import project.vegist.models.ArticleModel;
+import project.vegist.models.CursorPage;
 import project.vegist.repositories.ArticleRepository;
 import project.vegist.repositories.ArticleTagRepository;
-import project.vegist.repositories.TagRepository;
 import project.vegist.repositories.UserRepository;
 import project.vegist.services.impls.CrudService;
 import project.vegist.utils.DateTimeUtils;
+import project.vegist.utils.KeysetPager;
 import project.vegist.utils.SpecificationsBuilder;
 
 import java.util.*;
@@ -30,15 +30,17 @@ import java.util.stream.Collectors;
 public class ArticleService implements CrudService<Articles, ArticleDTO, ArticleModel> {
     private final ArticleRepository articleRepository;
     private final UserRepository userRepository;
-    private final TagRepository tagRepository;
+    private final TagService tagService;
     private final ArticleTagRepository articleTagRepository;
+    private final KeysetPager keysetPager;
 
     @Autowired
-    public ArticleService(ArticleRepository articleRepository, UserRepository userRepository, TagRepository tagRepository, ArticleTagRepository articleTagRepository) {
+    public ArticleService(ArticleRepository articleRepository, UserRepository userRepository, TagService tagService, ArticleTagRepository articleTagRepository, KeysetPager keysetPager) {
         this.articleRepository = articleRepository;
         this.userRepository = userRepository;
-        this.tagRepository = tagRepository;
+        this.tagService = tagService;
         this.articleTagRepository = articleTagRepository;
+        this.keysetPager = keysetPager;
     }
 
     @Override
@@ -52,12 +54,18 @@ public class ArticleService implements CrudService<Articles, ArticleDTO, Article
     @Override
     @Transactional(readOnly = true)
     public List<ArticleModel> findAll(int page, int size) {
-        Pageable pageable = PageRequest.of(page, size);
+        Pageable pageable = KeysetPager.pageRequest(page, size);
         return articleRepository.findAll(pageable).getContent().stream()
                 .map(this::convertToModel)
                 .collect(Collectors.toList());
     }
 
+    @Override
+    @Transactional(readOnly = true)
+    public CursorPage<ArticleModel> findAll(String cursor, int size) {
+        return keysetPager.page(Articles.class, cursor, size, this::convertToModel);
+    }
+
     @Override
     @Transactional(readOnly = true)
     public Optional<ArticleModel> findById(Long id) {
@@ -83,7 +91,8 @@ public class ArticleService implements CrudService<Articles, ArticleDTO, Article
                 .stream()
                 .filter(tagId -> !existingTagIds.contains(tagId))
                 .map(tagId -> {
-                    Tag tag = tagRepository.findById(tagId)
+                    Tag tag = tagService.findById(tagId)
+                            .map(found -> tagService.getReference(found.getId()))
                             .orElseThrow(() -> new ResourceNotFoundException("Tag", tagId, HttpStatus.NOT_FOUND));
                     ArticleTag newArticleTag = new ArticleTag();
                     newArticleTag.setArticles(savedArticle);
@@ -149,7 +158,7 @@ public class ArticleService implements CrudService<Articles, ArticleDTO, Article
             Articles updatedArticle = articleRepository.save(existingArticle);
 
             tagsToAdd.forEach(tagId -> {
-                Tag tag = tagRepository.findById(tagId).orElseThrow(() -> new ResourceNotFoundException("Tag", tagId, HttpStatus.CONFLICT));
+                Tag tag = tagService.findById(tagId).map(found -> tagService.getReference(found.getId())).orElseThrow(() -> new ResourceNotFoundException("Tag", tagId, HttpStatus.CONFLICT));
                 ArticleTag articleTag = new ArticleTag();
                 articleTag.setTag(tag);
                 articleTag.setArticles(updatedArticle);
@@ -160,7 +169,7 @@ public class ArticleService implements CrudService<Articles, ArticleDTO, Article
             BeanUtils.copyProperties(updatedArticle, newArticle);
             List<ArticleTag> newArticleTags = existingTagIds.stream()
                     .map(tagId -> {
-                        Tag tag = tagRepository.findById(tagId).orElseThrow(() -> new ResourceNotFoundException("Tag", tagId, HttpStatus.CONFLICT));
+                        Tag tag = tagService.findById(tagId).map(found -> tagService.getReference(found.getId())).orElseThrow(() -> new ResourceNotFoundException("Tag", tagId, HttpStatus.CONFLICT));
                         ArticleTag articleTag = new ArticleTag();
                         articleTag.setTag(tag);
                         articleTag.setArticles(newArticle);
@@ -261,7 +270,8 @@ public class ArticleService implements CrudService<Articles, ArticleDTO, Article
                 .orElse(Collections.emptyList())
                 .stream()
                 .map(tagId -> {
-                    Tag tag = tagRepository.findById(tagId)
+                    Tag tag = tagService.findById(tagId)
+                            .map(found -> tagService.getReference(found.getId()))
                             .orElseThrow(() -> new ResourceNotFoundException("Tag", tagId, HttpStatus.NOT_FOUND));
                     ArticleTag articleTag = new ArticleTag();
                     articleTag.setTag(tag);
@@ -1,47 +1,76 @@
 package project.vegist.services;
 
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
 import org.apache.commons.lang3.StringUtils;
 import org.springframework.beans.factory.annotation.Autowired;
-import org.springframework.data.domain.PageRequest;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.data.domain.Pageable;
 import org.springframework.http.HttpStatus;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 import project.vegist.dtos.CartDTO;
 import project.vegist.dtos.CartItemDTO;
+import project.vegist.dtos.CartItemQuantityDTO;
 import project.vegist.entities.Cart;
 import project.vegist.entities.CartItem;
+import project.vegist.entities.Product;
 import project.vegist.entities.User;
+import project.vegist.exceptions.BadRequestException;
 import project.vegist.exceptions.ResourceNotFoundException;
 import project.vegist.models.CartItemModel;
 import project.vegist.models.CartModel;
+import project.vegist.models.CouponValidationModel;
+import project.vegist.models.CursorPage;
 import project.vegist.repositories.CartItemRepository;
 import project.vegist.repositories.CartRepository;
 import project.vegist.repositories.ProductRepository;
 import project.vegist.repositories.UserRepository;
 import project.vegist.services.impls.CrudService;
 import project.vegist.utils.DateTimeUtils;
+import project.vegist.utils.KeysetPager;
+import project.vegist.utils.PricingEngine;
 import project.vegist.utils.SpecificationsBuilder;
+import project.vegist.utils.TransactionUtils;
 
 import java.io.IOException;
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
 import java.util.*;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Function;
 import java.util.stream.Collectors;
 
 import static project.vegist.enums.CartStatus.PENDING;
 
 @Service
 public class CartService implements CrudService<Cart, CartDTO, CartModel> {
+    private static final int GENERATION_STRIPES = 1024;
+
     private final CartRepository cartRepository;
     private final CartItemRepository cartItemRepository;
     private final ProductRepository productRepository;
     private final UserRepository userRepository;
+    private final KeysetPager keysetPager;
+    private final CouponIndex couponIndex;
+    // userId -> pending cart, per instance; entries written by another instance expire with the spec
+    private final Cache<Long, CartModel> pendingCarts;
+    // Bumped before a user's entry is evicted or replaced, so a read that loaded the cart earlier cannot cache it
+    private final AtomicLong[] cacheGenerations = new AtomicLong[GENERATION_STRIPES];
 
     @Autowired
-    public CartService(CartRepository cartRepository, CartItemRepository cartItemRepository, ProductRepository productRepository, UserRepository userRepository) {
+    public CartService(CartRepository cartRepository, CartItemRepository cartItemRepository, ProductRepository productRepository, UserRepository userRepository, KeysetPager keysetPager,
+                       CouponIndex couponIndex, @Value("${cart.cache.spec:maximumSize=10000,expireAfterWrite=5m}") String cacheSpec) {
         this.cartRepository = cartRepository;
         this.cartItemRepository = cartItemRepository;
         this.productRepository = productRepository;
         this.userRepository = userRepository;
+        this.keysetPager = keysetPager;
+        this.couponIndex = couponIndex;
+        this.pendingCarts = Caffeine.from(cacheSpec).build();
+        for (int i = 0; i < cacheGenerations.length; i++) {
+            cacheGenerations[i] = new AtomicLong();
+        }
     }
 
 
@@ -56,12 +85,18 @@ public class CartService implements CrudService<Cart, CartDTO, CartModel> {
     @Override
     @Transactional(readOnly = true)
     public List<CartModel> findAll(int page, int size) {
-        Pageable pageable = PageRequest.of(page, size);
+        Pageable pageable = KeysetPager.pageRequest(page, size);
         return cartRepository.findAll(pageable).getContent().stream()
                 .map(this::convertToModel)
                 .collect(Collectors.toList());
     }
 
+    @Override
+    @Transactional(readOnly = true)
+    public CursorPage<CartModel> findAll(String cursor, int size) {
+        return keysetPager.page(Cart.class, cursor, size, this::convertToModel);
+    }
+
     @Override
     @Transactional(readOnly = true)
     public Optional<CartModel> findById(Long id) {
@@ -84,6 +119,7 @@ public class CartService implements CrudService<Cart, CartDTO, CartModel> {
             convertToEntity(cartDTO, newCart);
             newCart.setStatus(PENDING);
             newCart = cartRepository.save(newCart);
+            TransactionUtils.afterCommit(() -> evictPendingCart(userId));
             return Optional.ofNullable(convertToModel(newCart));
         }
     }
@@ -99,6 +135,7 @@ public class CartService implements CrudService<Cart, CartDTO, CartModel> {
             newCart = cartRepository.save(newCart);
             CartModel createdCartModel = convertToModel(newCart);
             createdCarts.add(createdCartModel);
+            TransactionUtils.afterCommit(() -> evictPendingCart(createdCartModel.getUserId()));
         }
 
         return createdCarts;
@@ -111,42 +148,222 @@ public class CartService implements CrudService<Cart, CartDTO, CartModel> {
             updateCartItems(existingCart, cartDTO.getCartItems());
 
             Cart updatedCart = cartRepository.save(existingCart);
+            Long userId = updatedCart.getUser().getId();
+            TransactionUtils.afterCommit(() -> evictPendingCart(userId));
 
             return convertToModel(updatedCart);
         });
     }
 
+    // Diffs the items by product id; the products of new items are loaded with one IN query
     private void updateCartItems(Cart cart, List<CartItemDTO> cartItemDTOs) {
-        for (CartItemDTO cartItemDTO : cartItemDTOs) {
-            Long productId = cartItemDTO.getProductId();
-            Optional<CartItem> existingCartItem = findCartItemByProductId(cart.getCartItems(), productId);
+        Map<Long, CartItem> existingItemsByProductId = cart.getCartItems().stream()
+                .collect(Collectors.toMap(cartItem -> cartItem.getProduct().getId(), Function.identity(), (first, second) -> first));
+
+        List<CartItemDTO> newItemDTOs = cartItemDTOs.stream()
+                .filter(cartItemDTO -> !existingItemsByProductId.containsKey(cartItemDTO.getProductId()))
+                .collect(Collectors.toList());
+        Map<Long, Product> productsById = findProducts(newItemDTOs);
 
-            if (existingCartItem.isPresent()) {
-                updateCartItemByDTO(existingCartItem.get(), cartItemDTO);
+        for (CartItemDTO cartItemDTO : cartItemDTOs) {
+            CartItem existingCartItem = existingItemsByProductId.get(cartItemDTO.getProductId());
+            if (existingCartItem != null) {
+                updateCartItemByDTO(existingCartItem, cartItemDTO);
             } else {
-                CartItem newCartItem = convertCartItemDTOToEntity(cartItemDTO, cart);
+                CartItem newCartItem = convertCartItemDTOToEntity(cartItemDTO, cart, productsById);
                 cart.getCartItems().add(newCartItem);
+                existingItemsByProductId.put(cartItemDTO.getProductId(), newCartItem);
             }
         }
 
-        cart.getCartItems().removeIf(cartItem -> !containsCartItemByProductId(cartItemDTOs, cartItem.getProduct().getId()));
+        Set<Long> requestedProductIds = cartItemDTOs.stream().map(CartItemDTO::getProductId).collect(Collectors.toSet());
+        cart.getCartItems().removeIf(cartItem -> !requestedProductIds.contains(cartItem.getProduct().getId()));
     }
 
-    private Optional<CartItem> findCartItemByProductId(List<CartItem> cartItems, Long productId) {
-        return cartItems.stream()
-                .filter(cartItem -> Objects.equals(cartItem.getProduct().getId(), productId))
-                .findFirst();
-    }
-
-
     private void updateCartItemByDTO(CartItem cartItem, CartItemDTO cartItemDTO) {
         cartItem.setQuantity(cartItemDTO.getQuantity());
         cartItem.setPrice(cartItemDTO.getPrice());
     }
 
+    /**
+     * Adds the quantities to the user's pending cart, creating the cart on the first item.
+     * Only the rows of the given products are read and written: the cart row is locked, the items are matched with
+     * one query on (cart_id, product_id) and the products are loaded with one IN query.
+     */
+    @Transactional
+    public CartModel addItems(Long userId, List<CartItemQuantityDTO> itemDTOs) {
+        Map<Long, Integer> quantitiesByProductId = new LinkedHashMap<>();
+        for (CartItemQuantityDTO itemDTO : itemDTOs) {
+            if (itemDTO.getQuantity() == null || itemDTO.getQuantity() < 1) {
+                throw new BadRequestException("Quantity must be greater than 0");
+            }
+            quantitiesByProductId.merge(itemDTO.getProductId(), itemDTO.getQuantity(), Integer::sum);
+        }
+
+        Long cartId = lockOrCreatePendingCart(userId);
+        Map<Long, CartItem> itemsByProductId = findItems(cartId, quantitiesByProductId.keySet());
+        Map<Long, Product> productsById = productRepository.findAllById(quantitiesByProductId.keySet()).stream()
+                .collect(Collectors.toMap(Product::getId, Function.identity()));
+
+        Map<Long, CartItem> changedItems = new LinkedHashMap<>();
+        quantitiesByProductId.forEach((productId, quantity) -> {
+            Product product = productsById.get(productId);
+            if (product == null) {
+                throw new ResourceNotFoundException("Product", productId, HttpStatus.NOT_FOUND);
+            }
+            CartItem cartItem = itemsByProductId.get(productId);
+            if (cartItem == null) {
+                cartItem = new CartItem();
+                cartItem.setCart(cartRepository.getReferenceById(cartId));
+                cartItem.setProduct(product);
+            }
+            int currentQuantity = cartItem.getQuantity() != null ? cartItem.getQuantity() : 0;
+            cartItem.setQuantity(currentQuantity + quantity);
+            cartItem.setPrice(unitPriceOf(product));
+            changedItems.put(productId, cartItemRepository.save(cartItem));
+        });
+
+        return applyItemChanges(userId, cartId, changedItems);
+    }
+
+    // Sets the quantity of one product in the pending cart; zero removes it
+    @Transactional
+    public CartModel setItemQuantity(Long userId, Long productId, int quantity) {
+        if (quantity < 0) {
+            throw new BadRequestException("Quantity cannot be negative");
+        }
+        if (quantity == 0) {
+            return removeItem(userId, productId);
+        }
+
+        Long cartId = lockOrCreatePendingCart(userId);
+        CartItem cartItem = findItems(cartId, Collections.singletonList(productId)).get(productId);
+        if (cartItem == null) {
+            Product product = productRepository.findById(productId)
+                    .orElseThrow(() -> new ResourceNotFoundException("Product", productId, HttpStatus.NOT_FOUND));
+            cartItem = new CartItem();
+            cartItem.setCart(cartRepository.getReferenceById(cartId));
+            cartItem.setProduct(product);
+            cartItem.setPrice(unitPriceOf(product));
+        }
+        cartItem.setQuantity(quantity);
+
+        Map<Long, CartItem> changedItems = new HashMap<>();
+        changedItems.put(productId, cartItemRepository.save(cartItem));
+        return applyItemChanges(userId, cartId, changedItems);
+    }
+
+    @Transactional
+    public CartModel removeItem(Long userId, Long productId) {
+        Long cartId = cartRepository.lockPendingCartId(userId)
+                .orElseThrow(() -> new ResourceNotFoundException("Pending cart for user", userId, HttpStatus.NOT_FOUND));
+        CartItem cartItem = findItems(cartId, Collections.singletonList(productId)).get(productId);
+        if (cartItem != null) {
+            cartItemRepository.delete(cartItem);
+        }
+
+        Map<Long, CartItem> changedItems = new HashMap<>();
+        changedItems.put(productId, null);
+        return applyItemChanges(userId, cartId, changedItems);
+    }
+
+    public void evictPendingCart(Long userId) {
+        generationOf(userId).incrementAndGet();
+        pendingCarts.invalidate(userId);
+    }
+
+    private void evictAllPendingCarts() {
+        for (AtomicLong generation : cacheGenerations) {
+            generation.incrementAndGet();
+        }
+        pendingCarts.invalidateAll();
+    }
 
-    private boolean containsCartItemByProductId(List<CartItemDTO> cartItemDTOs, Long productId) {
-        return cartItemDTOs.stream().anyMatch(cartItemDTO -> Objects.equals(cartItemDTO.getProductId(), productId));
+    private AtomicLong generationOf(Long userId) {
+        return cacheGenerations[Math.floorMod(userId.hashCode(), cacheGenerations.length)];
+    }
+
+    /**
+     * The user row is locked before the cart is probed. A locking read that finds no cart takes a gap lock, which
+     * two first clicks of the same user would both get before deadlocking on their inserts; behind the user lock
+     * only one of them probes and inserts at a time.
+     */
+    private Long lockOrCreatePendingCart(Long userId) {
+        userRepository.lockById(userId)
+                .orElseThrow(() -> new ResourceNotFoundException("User", userId, HttpStatus.NOT_FOUND));
+        return cartRepository.lockPendingCartId(userId).orElseGet(() -> {
+            Cart newCart = new Cart();
+            newCart.setUser(userRepository.getReferenceById(userId));
+            newCart.setStatus(PENDING);
+            newCart.setCartItems(new ArrayList<>());
+            return cartRepository.save(newCart).getId();
+        });
+    }
+
+    private Map<Long, CartItem> findItems(Long cartId, Collection<Long> productIds) {
+        return cartItemRepository.findByCartIdAndProductIdIn(cartId, productIds).stream()
+                .collect(Collectors.toMap(cartItem -> cartItem.getProduct().getId(), Function.identity(), (first, second) -> first));
+    }
+
+    /**
+     * Builds the cart after the change from the cached cart when there is one, otherwise from one query on its items.
+     * The cached cart is replaced only if no other change replaced it meanwhile; a lost race just evicts it.
+     */
+    private CartModel applyItemChanges(Long userId, Long cartId, Map<Long, CartItem> changedItems) {
+        // Writes the changed rows now so new items carry their timestamps
+        cartItemRepository.flush();
+
+        CartModel cached = pendingCarts.getIfPresent(userId);
+        CartModel updated;
+        if (cached != null && cached.getId().equals(cartId)) {
+            Map<Long, CartItemModel> itemsByProductId = new LinkedHashMap<>();
+            cached.getCartItems().forEach(item -> itemsByProductId.put(item.getProductId(), item));
+            changedItems.forEach((productId, cartItem) -> {
+                if (cartItem == null) {
+                    itemsByProductId.remove(productId);
+                } else {
+                    itemsByProductId.put(productId, convertCartItemToModel(cartItem));
+                }
+            });
+            List<CartItemModel> cartItems = new ArrayList<>(itemsByProductId.values());
+            updated = new CartModel(cartId, userId, cartItems, PENDING,
+                    cached.getCreatedAt(), cached.getUpdatedAt(), null, BigDecimal.ZERO, totalAmountOf(cartItems));
+        } else {
+            Cart cart = cartRepository.getReferenceById(cartId);
+            updated = convertToModel(cart, cartItemRepository.findByCartId(cartId));
+        }
+
+        TransactionUtils.afterCommit(() -> {
+            generationOf(userId).incrementAndGet();
+            boolean replaced = cached != null
+                    ? pendingCarts.asMap().replace(userId, cached, updated)
+                    : pendingCarts.asMap().putIfAbsent(userId, updated) == null;
+            if (!replaced) {
+                pendingCarts.invalidate(userId);
+            }
+        });
+        return updated;
+    }
+
+    // Lowest of the list price, the sale price and the discounted list price
+    private static BigDecimal unitPriceOf(Product product) {
+        return PricingEngine.toDecimal(PricingEngine.unitPrice(product));
+    }
+
+    private static BigDecimal totalAmountOf(List<CartItemModel> cartItems) {
+        return PricingEngine.toDecimal(totalsOf(cartItems, 0).total());
+    }
+
+    /**
+     * The totals checkout would charge for these items before shipping: the item prices are the products' current
+     * unit prices (see convertCartItemToModel) and the coupon percentage comes off their sum.
+     */
+    static PricingEngine.Totals totalsOf(List<CartItemModel> cartItems, int couponPercent) {
+        PricingEngine.Totals totals = new PricingEngine.Totals().couponPercent(couponPercent);
+        for (CartItemModel cartItem : cartItems) {
+            totals.addLine(PricingEngine.toMinor(cartItem.getPrice()), cartItem.getQuantity() == null ? 0 : cartItem.getQuantity());
+        }
+        return totals;
     }
 
     @Override
@@ -159,9 +376,14 @@ public class CartService implements CrudService<Cart, CartDTO, CartModel> {
             CartDTO cartDTO = entry.getValue();
 
             cartRepository.findById(cartId).ifPresent(existingCart -> {
+                Long previousUserId = existingCart.getUser().getId();
                 convertToEntity(cartDTO, existingCart);
                 Cart updatedCart = cartRepository.save(existingCart);
                 updatedCarts.add(convertToModel(updatedCart));
+                TransactionUtils.afterCommit(() -> {
+                    evictPendingCart(previousUserId);
+                    evictPendingCart(updatedCart.getUser().getId());
+                });
             });
         }
 
@@ -173,6 +395,8 @@ public class CartService implements CrudService<Cart, CartDTO, CartModel> {
     public boolean deleteById(Long id) {
         int deletedCartItems = cartItemRepository.deleteCartItemsByCartId(id);
         int deletedCart = cartRepository.deleteCartById(id);
+        // The owner is not known without loading the cart, deletes are rare admin operations
+        TransactionUtils.afterCommit(this::evictAllPendingCarts);
 
         return deletedCartItems > 0 && deletedCart > 0;
     }
@@ -182,6 +406,7 @@ public class CartService implements CrudService<Cart, CartDTO, CartModel> {
     public boolean deleteAll(List<Long> ids) {
         int cartItemsDeleted = cartItemRepository.deleteCartItemsByCartIds(ids);
         int cartsDeleted = cartRepository.deleteAllCartById(ids);
+        TransactionUtils.afterCommit(this::evictAllPendingCarts);
 
         return cartItemsDeleted > 0 && cartsDeleted > 0;
     }
@@ -207,7 +432,11 @@ public class CartService implements CrudService<Cart, CartDTO, CartModel> {
 
     @Override
     public CartModel convertToModel(Cart cart) {
-        List<CartItemModel> cartItemModels = cart.getCartItems().stream()
+        return convertToModel(cart, cart.getCartItems());
+    }
+
+    private CartModel convertToModel(Cart cart, List<CartItem> cartItems) {
+        List<CartItemModel> cartItemModels = cartItems.stream()
                 .map(this::convertCartItemToModel)
                 .collect(Collectors.toList());
 
@@ -217,17 +446,21 @@ public class CartService implements CrudService<Cart, CartDTO, CartModel> {
                 cartItemModels,
                 cart.getStatus(),
                 DateTimeUtils.formatLocalDateTime(cart.getCreatedAt()),
-                DateTimeUtils.formatLocalDateTime(cart.getUpdatedAt())
+                DateTimeUtils.formatLocalDateTime(cart.getUpdatedAt()),
+                null,
+                BigDecimal.ZERO,
+                totalAmountOf(cartItemModels)
         );
     }
 
+    // The price shown is what checkout charges now, not the price the item was added with
     private CartItemModel convertCartItemToModel(CartItem cartItem) {
         return new CartItemModel(
                 cartItem.getId(),
                 cartItem.getCart().getId(),
                 cartItem.getProduct().getId(),
                 cartItem.getQuantity(),
-                cartItem.getPrice(),
+                unitPriceOf(cartItem.getProduct()),
                 DateTimeUtils.formatLocalDateTime(cartItem.getCreatedAt()),
                 DateTimeUtils.formatLocalDateTime(cartItem.getUpdatedAt())
         );
@@ -245,19 +478,28 @@ public class CartService implements CrudService<Cart, CartDTO, CartModel> {
 
         cart.setUser(user);
 
-        List<CartItem> cartItems = Optional.ofNullable(cartDTO.getCartItems())
-                .orElse(Collections.emptyList())
-                .stream()
-                .map(cartItemDTO -> convertCartItemDTOToEntity(cartItemDTO, cart))
+        List<CartItemDTO> cartItemDTOs = Optional.ofNullable(cartDTO.getCartItems()).orElse(Collections.emptyList());
+        Map<Long, Product> productsById = findProducts(cartItemDTOs);
+        List<CartItem> cartItems = cartItemDTOs.stream()
+                .map(cartItemDTO -> convertCartItemDTOToEntity(cartItemDTO, cart, productsById))
                 .collect(Collectors.toList());
 
         cart.setCartItems(cartItems);
     }
 
-    private CartItem convertCartItemDTOToEntity(CartItemDTO cartItemDTO, Cart cart) {
+    private Map<Long, Product> findProducts(List<CartItemDTO> cartItemDTOs) {
+        if (cartItemDTOs.isEmpty()) {
+            return Collections.emptyMap();
+        }
+        Set<Long> productIds = cartItemDTOs.stream().map(CartItemDTO::getProductId).collect(Collectors.toSet());
+        return productRepository.findAllById(productIds).stream()
+                .collect(Collectors.toMap(Product::getId, Function.identity()));
+    }
+
+    private CartItem convertCartItemDTOToEntity(CartItemDTO cartItemDTO, Cart cart, Map<Long, Product> productsById) {
         CartItem cartItem = new CartItem();
         cartItem.setCart(cart);
-        cartItem.setProduct(productRepository.findById(cartItemDTO.getProductId())
+        cartItem.setProduct(Optional.ofNullable(productsById.get(cartItemDTO.getProductId()))
                 .orElseThrow(() -> new NoSuchElementException("Product not found")));
         cartItem.setQuantity(cartItemDTO.getQuantity());
         cartItem.setPrice(cartItemDTO.getPrice());
@@ -265,14 +507,53 @@ public class CartService implements CrudService<Cart, CartDTO, CartModel> {
     }
 
 
+    /**
+     * The pending cart priced with the coupon as checkout would price it.
+     * Throws {@link BadRequestException} when the coupon cannot be used now.
+     */
+    @Transactional(readOnly = true)
+    public Optional<CartModel> findPendingCartByUserId(Long userId, String couponCode) {
+        Optional<CartModel> pendingCart = findPendingCartByUserId(userId);
+        if (StringUtils.isBlank(couponCode) || pendingCart.isEmpty()) {
+            return pendingCart;
+        }
+
+        CouponValidationModel coupon = CouponIndex.requireValid(couponIndex.validate(couponCode, LocalDateTime.now()));
+        CartModel cart = pendingCart.get();
+        PricingEngine.Totals totals = totalsOf(cart.getCartItems(), coupon.getPercent());
+        return Optional.of(new CartModel(cart.getId(), cart.getUserId(), cart.getCartItems(), cart.getStatus(),
+                cart.getCreatedAt(), cart.getUpdatedAt(), coupon.getValue(),
+                PricingEngine.toDecimal(totals.couponDiscount()), PricingEngine.toDecimal(totals.total())));
+    }
+
+    /**
+     * Served from the per-user cache; the user is only looked up when there is no pending cart.
+     * A loaded cart is cached only if no change of the user's cart committed since the load started, and is taken
+     * out again if one committed while it was being put.
+     */
+    @Transactional(readOnly = true)
     public Optional<CartModel> findPendingCartByUserId(Long userId) {
         Objects.requireNonNull(userId, "User ID must not be null");
 
-        Optional<User> user = userRepository.findById(userId);
-        if (user.isPresent()) {
-            return cartRepository.findByUserIdAndStatus(userId, PENDING).map(this::convertToModel);
-        } else {
+        CartModel cached = pendingCarts.getIfPresent(userId);
+        if (cached != null) {
+            return Optional.of(cached);
+        }
+
+        AtomicLong generation = generationOf(userId);
+        long loadedAt = generation.get();
+        Optional<CartModel> pendingCart = cartRepository.findByUserIdAndStatus(userId, PENDING).map(this::convertToModel);
+        if (pendingCart.isPresent()) {
+            CartModel loaded = pendingCart.get();
+            if (generation.get() == loadedAt && pendingCarts.asMap().putIfAbsent(userId, loaded) == null
+                    && generation.get() != loadedAt) {
+                pendingCarts.asMap().remove(userId, loaded);
+            }
+            return pendingCart;
+        }
+        if (!userRepository.existsById(userId)) {
             throw new ResourceNotFoundException("User ", userId, HttpStatus.CONFLICT);
         }
+        return Optional.empty();
     }
 }
\ No newline at end of file
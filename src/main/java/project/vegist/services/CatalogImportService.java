@@ -0,0 +1,455 @@
+package project.vegist.services;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.PersistenceContext;
+import org.apache.commons.lang3.StringUtils;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionTemplate;
+import org.springframework.web.multipart.MultipartFile;
+import project.vegist.entities.*;
+import project.vegist.enums.ExportFormat;
+import project.vegist.enums.ImportStatus;
+import project.vegist.exceptions.BadRequestException;
+import project.vegist.exceptions.ConflictException;
+import project.vegist.models.ImportJobModel;
+import project.vegist.repositories.*;
+import project.vegist.utils.CatalogReader;
+import project.vegist.utils.DateTimeUtils;
+import project.vegist.utils.FileUtils;
+import project.vegist.utils.TransactionUtils;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.math.BigDecimal;
+import java.nio.file.*;
+import java.util.*;
+import java.util.concurrent.Executor;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+
+/**
+ * Bulk product import from a CSV or NDJSON catalog plus a server-side image directory.
+ * The catalog is read as a stream and imported in chunks: each chunk is validated with one query per
+ * reference table, its images are stored in parallel, and its products are persisted in one short transaction
+ * that also records the job's progress. A failed or interrupted job resumes after its last committed row.
+ * Invalid rows, including NDJSON lines that do not parse, are counted and skipped, they do not fail the job.
+ */
+@Service
+public class CatalogImportService {
+    private static final Logger log = LoggerFactory.getLogger(CatalogImportService.class);
+
+    private static final int MAX_ERROR_LENGTH = 1000;
+    private static final List<ImportStatus> STARTABLE = List.of(ImportStatus.PENDING, ImportStatus.FAILED);
+
+    private final ImportJobRepository importJobRepository;
+    private final ProductRepository productRepository;
+    private final ProductImageRepository productImageRepository;
+    private final ProductUnitRepository productUnitRepository;
+    private final CategoryRepository categoryRepository;
+    private final LabelRepository labelRepository;
+    private final UnitRepository unitRepository;
+    private final ProductSearchIndex productSearchIndex;
+    private final FileUtils fileUtils;
+    private final ObjectMapper objectMapper;
+    private final TransactionTemplate transactionTemplate;
+    private final Executor importExecutor;
+    private final int chunkSize;
+    private final Path workDirectory;
+    private final Path imageRoot;
+
+    @PersistenceContext
+    private EntityManager entityManager;
+
+    @Autowired
+    public CatalogImportService(ImportJobRepository importJobRepository, ProductRepository productRepository,
+                                ProductImageRepository productImageRepository, ProductUnitRepository productUnitRepository,
+                                CategoryRepository categoryRepository, LabelRepository labelRepository, UnitRepository unitRepository,
+                                ProductSearchIndex productSearchIndex, FileUtils fileUtils, ObjectMapper objectMapper,
+                                TransactionTemplate transactionTemplate, @Qualifier("importExecutor") Executor importExecutor,
+                                @Value("${catalog-import.chunk-size:500}") int chunkSize,
+                                @Value("${catalog-import.work-directory:imports}") String workDirectory,
+                                @Value("${catalog-import.image-root:imports/images}") String imageRoot) {
+        this.importJobRepository = importJobRepository;
+        this.productRepository = productRepository;
+        this.productImageRepository = productImageRepository;
+        this.productUnitRepository = productUnitRepository;
+        this.categoryRepository = categoryRepository;
+        this.labelRepository = labelRepository;
+        this.unitRepository = unitRepository;
+        this.productSearchIndex = productSearchIndex;
+        this.fileUtils = fileUtils;
+        this.objectMapper = objectMapper;
+        this.transactionTemplate = transactionTemplate;
+        this.importExecutor = importExecutor;
+        this.chunkSize = chunkSize;
+        this.workDirectory = Paths.get(workDirectory).toAbsolutePath().normalize();
+        this.imageRoot = Paths.get(imageRoot).toAbsolutePath().normalize();
+    }
+
+    /**
+     * Saves the catalog next to the other pending imports and starts importing it in the background.
+     * {@code imageDirectory} is relative to {@code catalog-import.image-root}; catalog rows name their images inside it.
+     */
+    public ImportJobModel submit(MultipartFile catalog, String imageDirectory) throws IOException {
+        String sourceName = Objects.requireNonNullElse(catalog.getOriginalFilename(), "catalog");
+        ExportFormat format = formatOf(sourceName);
+        Path images = resolveImageDirectory(imageDirectory);
+
+        Files.createDirectories(workDirectory);
+        Path catalogPath = workDirectory.resolve(UUID.randomUUID() + "." + format.getExtension());
+        try (InputStream inputStream = catalog.getInputStream()) {
+            Files.copy(inputStream, catalogPath);
+        }
+
+        ImportJob job = new ImportJob();
+        job.setSourceName(sourceName);
+        job.setFormat(format);
+        job.setCatalogPath(catalogPath.toString());
+        job.setImageDirectory(images != null ? images.toString() : null);
+        job.setStatus(ImportStatus.PENDING);
+        ImportJob savedJob = importJobRepository.save(job);
+
+        start(savedJob.getId());
+        return convertToModel(savedJob);
+    }
+
+    @Transactional(readOnly = true)
+    public Optional<ImportJobModel> findById(Long id) {
+        return importJobRepository.findById(id).map(this::convertToModel);
+    }
+
+    // Restarts a failed job after its last committed row
+    public Optional<ImportJobModel> resume(Long id) {
+        Optional<ImportJob> job = importJobRepository.findById(id);
+        job.ifPresent(existingJob -> {
+            if (!STARTABLE.contains(existingJob.getStatus())) {
+                throw new ConflictException("Import job " + id + " is " + existingJob.getStatus());
+            }
+            start(id);
+        });
+        return job.map(this::convertToModel);
+    }
+
+    // A job that was running when the application stopped can only be resumed by hand
+    @EventListener(ApplicationReadyEvent.class)
+    @Transactional
+    public void failInterruptedJobs() {
+        int interrupted = importJobRepository.transitionAll(ImportStatus.RUNNING, ImportStatus.FAILED, "Interrupted by a restart");
+        if (interrupted > 0) {
+            log.warn("{} catalog import(s) were interrupted and can be resumed", interrupted);
+        }
+    }
+
+    private void start(Long jobId) {
+        importExecutor.execute(() -> run(jobId));
+    }
+
+    private void run(Long jobId) {
+        Integer claimed = transactionTemplate.execute(status -> importJobRepository.transition(jobId, STARTABLE, ImportStatus.RUNNING));
+        if (claimed == null || claimed == 0) {
+            return;
+        }
+
+        ImportJob job = importJobRepository.findById(jobId).orElseThrow();
+        Path images = job.getImageDirectory() != null ? Paths.get(job.getImageDirectory()) : null;
+        long start = System.currentTimeMillis();
+        try (CatalogReader reader = new CatalogReader(Paths.get(job.getCatalogPath()), job.getFormat(), objectMapper)) {
+            reader.skip(job.getLastCommittedRow());
+
+            List<CatalogRow> chunk = new ArrayList<>(chunkSize);
+            while (true) {
+                CatalogRow row;
+                try {
+                    Map<String, String> values = reader.next();
+                    if (values == null) {
+                        break;
+                    }
+                    row = new CatalogRow(reader.getRowNumber(), values, null);
+                } catch (CatalogReader.MalformedRowException e) {
+                    // Goes through the chunk like any invalid row, so the checkpoint moves past it
+                    row = new CatalogRow(reader.getRowNumber(), null, e.getMessage());
+                }
+                chunk.add(row);
+                if (chunk.size() == chunkSize) {
+                    importChunk(jobId, chunk, images);
+                    chunk.clear();
+                }
+            }
+            if (!chunk.isEmpty()) {
+                importChunk(jobId, chunk, images);
+            }
+
+            transactionTemplate.executeWithoutResult(status -> importJobRepository.finish(jobId, ImportStatus.COMPLETED, null));
+            Files.deleteIfExists(Paths.get(job.getCatalogPath()));
+            log.info("Catalog import {} completed in {} ms", jobId, System.currentTimeMillis() - start);
+        } catch (Exception e) {
+            log.error("Catalog import {} failed", jobId, e);
+            transactionTemplate.executeWithoutResult(status -> importJobRepository.finish(jobId, ImportStatus.FAILED, truncate(e.getMessage())));
+        }
+    }
+
+    private void importChunk(Long jobId, List<CatalogRow> rows, Path images) {
+        List<String> errors = new ArrayList<>();
+        List<PendingProduct> pending = validate(rows, images, errors);
+
+        // Every file of the chunk is stored in parallel before the transaction starts
+        List<Path> files = pending.stream()
+                .flatMap(product -> product.files().stream())
+                .collect(Collectors.toList());
+        List<String> storedFiles = fileUtils.storeFiles(files);
+
+        long lastRow = rows.get(rows.size() - 1).rowNumber();
+        String lastError = errors.isEmpty() ? null : truncate(errors.get(errors.size() - 1));
+        try {
+            transactionTemplate.executeWithoutResult(status -> {
+                List<Product> products = new ArrayList<>(pending.size());
+                List<ProductUnit> productUnits = new ArrayList<>();
+                List<ProductImage> productImages = new ArrayList<>();
+
+                int offset = 0;
+                for (PendingProduct pendingProduct : pending) {
+                    List<String> productFiles = storedFiles.subList(offset, offset + pendingProduct.files().size());
+                    offset += pendingProduct.files().size();
+
+                    Product product = pendingProduct.product();
+                    product.setCategory(categoryRepository.getReferenceById(pendingProduct.categoryId()));
+                    product.setLabel(labelRepository.getReferenceById(pendingProduct.labelId()));
+                    product.setThumbnail(pendingProduct.thumbnail() != null ? productFiles.get(0) : null);
+                    products.add(productRepository.save(product));
+
+                    pendingProduct.unitIds().forEach(unitId -> productUnits.add(new ProductUnit(product, unitRepository.getReferenceById(unitId))));
+                    productFiles.subList(pendingProduct.thumbnail() != null ? 1 : 0, productFiles.size())
+                            .forEach(imagePath -> productImages.add(new ProductImage(product, imagePath)));
+                }
+
+                // Units and images use pooled ids, so these go out as JDBC batches
+                productUnitRepository.saveAll(productUnits);
+                productImageRepository.saveAll(productImages);
+                importJobRepository.recordProgress(jobId, lastRow, products.size(), errors.size(), lastError);
+
+                entityManager.flush();
+                entityManager.clear();
+                TransactionUtils.afterCommit(() -> products.forEach(productSearchIndex::index));
+            });
+        } catch (RuntimeException e) {
+            // Nothing references the stored files when the chunk did not commit
+            storedFiles.forEach(fileUtils::deleteFile);
+            throw e;
+        }
+        log.debug("Catalog import {} committed rows up to {}", jobId, lastRow);
+    }
+
+    // Checks every row of the chunk; references and SKUs are looked up with one query per table for the whole chunk
+    private List<PendingProduct> validate(List<CatalogRow> rows, Path images, List<String> errors) {
+        List<PendingProduct> parsed = new ArrayList<>(rows.size());
+        for (CatalogRow row : rows) {
+            if (row.error() != null) {
+                errors.add("Row " + row.rowNumber() + ": " + row.error());
+                continue;
+            }
+            try {
+                parsed.add(parse(row, images));
+            } catch (IllegalArgumentException e) {
+                errors.add("Row " + row.rowNumber() + ": " + e.getMessage());
+            }
+        }
+
+        Set<Long> categoryIds = existingIds(parsed, product -> List.of(product.categoryId()), categoryRepository::findAllById, Category::getId);
+        Set<Long> labelIds = existingIds(parsed, product -> List.of(product.labelId()), labelRepository::findAllById, Label::getId);
+        Set<Long> unitIds = existingIds(parsed, PendingProduct::unitIds, unitRepository::findAllById, Unit::getId);
+        Set<String> chunkSkus = parsed.stream()
+                .map(product -> product.product().getSKU())
+                .collect(Collectors.toSet());
+        Set<String> skus = chunkSkus.isEmpty() ? new HashSet<>() : new HashSet<>(productRepository.findExistingSkus(chunkSkus));
+
+        List<PendingProduct> valid = new ArrayList<>(parsed.size());
+        for (PendingProduct product : parsed) {
+            String error = null;
+            if (!categoryIds.contains(product.categoryId())) {
+                error = "Category " + product.categoryId() + " not found";
+            } else if (!labelIds.contains(product.labelId())) {
+                error = "Label " + product.labelId() + " not found";
+            } else if (!unitIds.containsAll(product.unitIds())) {
+                error = "Unit not found";
+            } else if (!skus.add(product.product().getSKU())) {
+                // Already in the database or earlier in the catalog
+                error = "SKU " + product.product().getSKU() + " already exists";
+            }
+
+            if (error != null) {
+                errors.add("Row " + product.rowNumber() + ": " + error);
+            } else {
+                valid.add(product);
+            }
+        }
+
+        errors.forEach(error -> log.warn("Catalog import skipped {}", error));
+        return valid;
+    }
+
+    private PendingProduct parse(CatalogRow row, Path images) {
+        Map<String, String> values = row.values();
+
+        Product product = new Product();
+        product.setProductName(required(values, "productName"));
+        product.setDescription(required(values, "description"));
+        product.setPrice(decimal(values, "price", true));
+        product.setSalePrice(decimal(values, "salePrice", false));
+        product.setSKU(required(values, "sku"));
+        product.setDiscount(Optional.ofNullable(number(values, "discount", false)).map(Long::intValue).orElse(0));
+        product.setViewCount(0);
+        product.setWishlistCount(0);
+        product.setIframeVideo(values.get("iframeVideo"));
+        product.setSeoTitle(values.get("seoTitle"));
+        product.setMetaKeys(values.get("metaKeys"));
+        product.setMetaDesc(values.get("metaDesc"));
+        if (product.getProductName().length() > 255) {
+            throw new IllegalArgumentException("productName must be less than or equal to 255 characters");
+        }
+
+        List<Long> unitIds = list(values, "unitIds").stream()
+                .map(unitId -> parseLong("unitIds", unitId))
+                .collect(Collectors.toList());
+
+        Path thumbnail = StringUtils.isBlank(values.get("thumbnail")) ? null : imageFile(images, values.get("thumbnail"));
+        List<Path> productImages = list(values, "images").stream()
+                .map(fileName -> imageFile(images, fileName))
+                .collect(Collectors.toList());
+
+        return new PendingProduct(row.rowNumber(), product, number(values, "categoryId", true), number(values, "labelId", true),
+                unitIds, thumbnail, productImages);
+    }
+
+    private Path imageFile(Path images, String fileName) {
+        if (images == null) {
+            throw new IllegalArgumentException("image " + fileName + " given but the import has no image directory");
+        }
+        Path file = images.resolve(fileName.trim()).normalize();
+        if (!file.startsWith(images) || !Files.isRegularFile(file)) {
+            throw new IllegalArgumentException("image " + fileName + " not found");
+        }
+        if (!FileUtils.isImageFile(FileUtils.getFileExtension(file.getFileName().toString()))) {
+            throw new IllegalArgumentException(fileName + " is not an image");
+        }
+        return file;
+    }
+
+    private Path resolveImageDirectory(String imageDirectory) {
+        if (StringUtils.isBlank(imageDirectory)) {
+            return null;
+        }
+        Path images = imageRoot.resolve(imageDirectory).normalize();
+        if (!images.startsWith(imageRoot) || !Files.isDirectory(images)) {
+            throw new BadRequestException("Image directory " + imageDirectory + " not found");
+        }
+        return images;
+    }
+
+    private static ExportFormat formatOf(String fileName) {
+        String extension = FileUtils.getFileExtension(fileName);
+        if (extension.equals("jsonl")) {
+            return ExportFormat.NDJSON;
+        }
+        return ExportFormat.fromValue(extension)
+                .orElseThrow(() -> new BadRequestException("Catalog must be a .csv or .ndjson file"));
+    }
+
+    private static <E> Set<Long> existingIds(List<PendingProduct> products, Function<PendingProduct, List<Long>> ids,
+                                             Function<Set<Long>, List<E>> loader, Function<E, Long> idOf) {
+        Set<Long> requested = products.stream()
+                .flatMap(product -> ids.apply(product).stream())
+                .collect(Collectors.toSet());
+        if (requested.isEmpty()) {
+            return Collections.emptySet();
+        }
+        return loader.apply(requested).stream()
+                .map(idOf)
+                .collect(Collectors.toSet());
+    }
+
+    private static String required(Map<String, String> values, String column) {
+        String value = values.get(column);
+        if (StringUtils.isBlank(value)) {
+            throw new IllegalArgumentException(column + " cannot be blank");
+        }
+        return value.trim();
+    }
+
+    private static BigDecimal decimal(Map<String, String> values, String column, boolean required) {
+        String value = required ? required(values, column) : values.get(column);
+        if (StringUtils.isBlank(value)) {
+            return null;
+        }
+        try {
+            BigDecimal decimal = new BigDecimal(value.trim());
+            if (decimal.signum() <= 0) {
+                throw new IllegalArgumentException(column + " must be greater than 0");
+            }
+            return decimal;
+        } catch (NumberFormatException e) {
+            throw new IllegalArgumentException(column + " is not a number");
+        }
+    }
+
+    private static Long number(Map<String, String> values, String column, boolean required) {
+        String value = required ? required(values, column) : values.get(column);
+        return StringUtils.isBlank(value) ? null : parseLong(column, value);
+    }
+
+    private static Long parseLong(String column, String value) {
+        try {
+            return Long.parseLong(value.trim());
+        } catch (NumberFormatException e) {
+            throw new IllegalArgumentException(column + " is not a number");
+        }
+    }
+
+    private static List<String> list(Map<String, String> values, String column) {
+        String value = values.get(column);
+        if (StringUtils.isBlank(value)) {
+            return Collections.emptyList();
+        }
+        return Arrays.stream(StringUtils.split(value, CatalogReader.LIST_SEPARATOR))
+                .map(String::trim)
+                .filter(item -> !item.isEmpty())
+                .collect(Collectors.toList());
+    }
+
+    private static String truncate(String message) {
+        return message == null || message.length() <= MAX_ERROR_LENGTH ? message : message.substring(0, MAX_ERROR_LENGTH);
+    }
+
+    private ImportJobModel convertToModel(ImportJob job) {
+        return new ImportJobModel(job.getId(), job.getSourceName(), job.getFormat().name(), job.getStatus().name(),
+                job.getLastCommittedRow(), job.getImportedRows(), job.getFailedRows(), job.getLastError(),
+                job.getFinishedAt() != null ? DateTimeUtils.formatLocalDateTime(job.getFinishedAt()) : null,
+                job.getCreatedAt() != null ? DateTimeUtils.formatLocalDateTime(job.getCreatedAt()) : null,
+                job.getUpdatedAt() != null ? DateTimeUtils.formatLocalDateTime(job.getUpdatedAt()) : null);
+    }
+
+    // A row that could not be read has no values and the reason in error
+    private record CatalogRow(long rowNumber, Map<String, String> values, String error) {
+    }
+
+    // A validated row whose files are not stored yet; the thumbnail, when present, is the first of files()
+    private record PendingProduct(long rowNumber, Product product, Long categoryId, Long labelId, List<Long> unitIds,
+                                  Path thumbnail, List<Path> images) {
+        List<Path> files() {
+            List<Path> files = new ArrayList<>();
+            if (thumbnail != null) {
+                files.add(thumbnail);
+            }
+            files.addAll(images);
+            return files;
+        }
+    }
+}
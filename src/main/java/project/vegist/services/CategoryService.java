@@ -2,18 +2,28 @@ package project.vegist.services;
 
 import org.apache.commons.lang3.StringUtils;
 import org.springframework.beans.factory.annotation.Autowired;
-import org.springframework.data.domain.PageRequest;
+import org.springframework.cache.annotation.CacheEvict;
+import org.springframework.cache.annotation.Cacheable;
 import org.springframework.data.domain.Pageable;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
+import project.vegist.configs.CacheConfig;
 import project.vegist.dtos.CategoryDTO;
 import project.vegist.entities.Category;
+import project.vegist.exceptions.BadRequestException;
 import project.vegist.models.CategoryModel;
+import project.vegist.models.CategoryTreeModel;
+import project.vegist.models.CursorPage;
+import project.vegist.projections.CategoryProductCount;
 import project.vegist.repositories.CategoryRepository;
+import project.vegist.repositories.ProductRepository;
 import project.vegist.services.impls.CrudService;
 import project.vegist.utils.DateTimeUtils;
+import project.vegist.utils.KeysetPager;
 import project.vegist.utils.SpecificationsBuilder;
+import project.vegist.utils.TransactionUtils;
 
+import java.util.Collections;
 import java.util.List;
 import java.util.Map;
 import java.util.Objects;
@@ -23,10 +33,17 @@ import java.util.stream.Collectors;
 @Service
 public class CategoryService implements CrudService<Category, CategoryDTO, CategoryModel> {
     private final CategoryRepository categoryRepository;
+    private final KeysetPager keysetPager;
+    private final CategoryTreeIndex categoryTreeIndex;
+    private final ProductRepository productRepository;
 
     @Autowired
-    public CategoryService(CategoryRepository categoryRepository) {
+    public CategoryService(CategoryRepository categoryRepository, KeysetPager keysetPager, CategoryTreeIndex categoryTreeIndex,
+                           ProductRepository productRepository) {
         this.categoryRepository = categoryRepository;
+        this.keysetPager = keysetPager;
+        this.categoryTreeIndex = categoryTreeIndex;
+        this.productRepository = productRepository;
     }
 
     @Override
@@ -38,29 +55,45 @@ public class CategoryService implements CrudService<Category, CategoryDTO, Categ
     @Override
     @Transactional(readOnly = true)
     public List<CategoryModel> findAll(int page, int size) {
-        Pageable pageable = PageRequest.of(page, size);
+        Pageable pageable = KeysetPager.pageRequest(page, size);
         return categoryRepository.findAll(pageable).getContent().stream().map(this::convertToModel).collect(Collectors.toList());
     }
 
     @Override
     @Transactional(readOnly = true)
+    public CursorPage<CategoryModel> findAll(String cursor, int size) {
+        return keysetPager.page(Category.class, cursor, size, this::convertToModel);
+    }
+
+    @Override
+    @Cacheable(cacheNames = CacheConfig.CATEGORIES, key = "#id", unless = "#result == null")
+    @Transactional(readOnly = true)
     public Optional<CategoryModel> findById(Long id) {
         return categoryRepository.findById(id).map(this::convertToModel);
     }
 
+    public Category getReference(Long id) {
+        return categoryRepository.getReferenceById(id);
+    }
+
     @Override
     @Transactional
+    @CacheEvict(cacheNames = CacheConfig.CATEGORIES, allEntries = true)
     public Optional<CategoryModel> create(CategoryDTO categoryDTO) {
         Objects.requireNonNull(categoryDTO, "categoryDTO must not be null");
 
         Category newCategory = new Category();
         convertToEntity(categoryDTO, newCategory);
-        return Optional.ofNullable(convertToModel(categoryRepository.save(newCategory)));
+        Category savedCategory = categoryRepository.save(newCategory);
+        assignPath(savedCategory);
+        TransactionUtils.afterCommit(categoryTreeIndex::refresh);
+        return Optional.ofNullable(convertToModel(savedCategory));
     }
 
 
     @Override
     @Transactional
+    @CacheEvict(cacheNames = CacheConfig.CATEGORIES, allEntries = true)
     public List<CategoryModel> createAll(List<CategoryDTO> categoryDTOS) {
         List<Category> newCategories = categoryDTOS.stream()
                 .map(categoryDTO -> {
@@ -73,24 +106,31 @@ public class CategoryService implements CrudService<Category, CategoryDTO, Categ
                 .collect(Collectors.toList());
 
         List<Category> savedCategories = categoryRepository.saveAll(newCategories);
+        savedCategories.forEach(this::assignPath);
+        TransactionUtils.afterCommit(categoryTreeIndex::refresh);
         return savedCategories.stream().map(this::convertToModel).collect(Collectors.toList());
     }
 
 
     @Override
     @Transactional
+    @CacheEvict(cacheNames = CacheConfig.CATEGORIES, allEntries = true)
     public Optional<CategoryModel> update(Long id, CategoryDTO categoryDTO) {
         return categoryRepository.findById(id)
                 .map(existingCategory -> {
                     convertToEntity(categoryDTO, existingCategory);
-                    return convertToModel(categoryRepository.save(existingCategory));
+                    Category savedCategory = categoryRepository.save(existingCategory);
+                    assignPath(savedCategory);
+                    TransactionUtils.afterCommit(categoryTreeIndex::refresh);
+                    return convertToModel(savedCategory);
                 });
     }
 
     @Override
     @Transactional
+    @CacheEvict(cacheNames = CacheConfig.CATEGORIES, allEntries = true)
     public List<CategoryModel> updateAll(Map<Long, CategoryDTO> longCategoryDTOMap) {
-        return longCategoryDTOMap.entrySet().stream()
+        List<CategoryModel> updatedCategories = longCategoryDTOMap.entrySet().stream()
                 .map(entry -> {
                     Long id = entry.getKey();
                     CategoryDTO categoryDTO = entry.getValue();
@@ -107,22 +147,30 @@ public class CategoryService implements CrudService<Category, CategoryDTO, Categ
                 })
                 .filter(Objects::nonNull)
                 .map(categoryRepository::save)
-                .map(this::convertToModel)
+                .map(savedCategory -> {
+                    assignPath(savedCategory);
+                    return convertToModel(savedCategory);
+                })
                 .collect(Collectors.toList());
+        TransactionUtils.afterCommit(categoryTreeIndex::refresh);
+        return updatedCategories;
     }
 
     @Override
     @Transactional
+    @CacheEvict(cacheNames = CacheConfig.CATEGORIES, allEntries = true)
     public boolean deleteById(Long id) {
         return categoryRepository.existsById(id) && performDelete(id);
     }
 
     @Override
     @Transactional
+    @CacheEvict(cacheNames = CacheConfig.CATEGORIES, allEntries = true)
     public boolean deleteAll(List<Long> ids) {
         List<Category> categoriesToDelete = categoryRepository.findAllById(ids);
         if (!categoriesToDelete.isEmpty()) {
             categoryRepository.deleteAll(categoriesToDelete);
+            TransactionUtils.afterCommit(categoryTreeIndex::refresh);
             return true;
         }
         return false;
@@ -175,9 +223,74 @@ public class CategoryService implements CrudService<Category, CategoryDTO, Categ
 
     private boolean performDelete(Long id) {
         categoryRepository.deleteById(id);
+        TransactionUtils.afterCommit(categoryTreeIndex::refresh);
         return true;
     }
 
+    // Whole tree from the in-memory snapshot; product counts include descendants and come from one grouped query
+    @Transactional(readOnly = true)
+    public List<CategoryTreeModel> findTree() {
+        Map<Long, Long> productCounts = countProductsByCategory();
+        return categoryTreeIndex.roots().stream()
+                .map(node -> toTreeModel(node, productCounts))
+                .collect(Collectors.toList());
+    }
+
+    @Transactional(readOnly = true)
+    public Optional<CategoryTreeModel> findTree(Long id) {
+        return categoryTreeIndex.findById(id)
+                .map(node -> toTreeModel(node, countProductsByCategory()));
+    }
+
+    public Optional<String> findPath(Long id) {
+        return categoryTreeIndex.findById(id).map(CategoryTreeIndex.Node::path);
+    }
+
+    // Root first; an O(depth) walk up the snapshot
+    public List<CategoryTreeModel> findBreadcrumb(Long id) {
+        return categoryTreeIndex.breadcrumb(id).stream()
+                .map(node -> new CategoryTreeModel(node.id(), node.name(), node.parentId(), null, Collections.emptyList()))
+                .collect(Collectors.toList());
+    }
+
+    private Map<Long, Long> countProductsByCategory() {
+        return productRepository.countByCategory().stream()
+                .collect(Collectors.toMap(CategoryProductCount::getCategoryId, CategoryProductCount::getProductCount));
+    }
+
+    private CategoryTreeModel toTreeModel(CategoryTreeIndex.Node node, Map<Long, Long> productCounts) {
+        List<CategoryTreeModel> children = categoryTreeIndex.children(node).stream()
+                .map(child -> toTreeModel(child, productCounts))
+                .collect(Collectors.toList());
+        long productCount = productCounts.getOrDefault(node.id(), 0L)
+                + children.stream().mapToLong(CategoryTreeModel::getProductCount).sum();
+        return new CategoryTreeModel(node.id(), node.name(), node.parentId(), productCount, children);
+    }
+
+    // Stores the category's path and, when the category moved, re-roots the paths of its descendants
+    private void assignPath(Category category) {
+        String parentPath = pathOf(category.getParent());
+        if (parentPath.contains("/" + category.getId() + "/")) {
+            throw new BadRequestException("A category cannot be moved under itself or one of its subcategories");
+        }
+
+        String newPath = parentPath + category.getId() + "/";
+        // Read from the database: an earlier move in the same batch may have re-rooted this category already
+        String oldPath = categoryRepository.findPathById(category.getId());
+        if (oldPath != null && !oldPath.equals(newPath)) {
+            categoryRepository.moveDescendants(oldPath, oldPath.length(), newPath);
+        }
+        category.setPath(newPath);
+    }
+
+    private String pathOf(Category category) {
+        if (category == null) {
+            return CategoryTreeIndex.ROOT_PATH;
+        }
+        String path = categoryRepository.findPathById(category.getId());
+        return path != null ? path : pathOf(category.getParent()) + category.getId() + "/";
+    }
+
     private Long getParentId(Category parent) {
         return (parent != null) ? parent.getId() : null;
     }
@@ -0,0 +1,135 @@
+package project.vegist.services;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+import project.vegist.projections.CategoryNode;
+import project.vegist.repositories.CategoryRepository;
+
+import java.util.*;
+
+/**
+ * Immutable in-memory snapshot of the category tree.
+ * Readers walk the current snapshot without locking: a breadcrumb is an O(depth) walk up the parent links and a
+ * subtree is a walk down the child lists. {@link CategoryService} swaps in a fresh snapshot after every committed
+ * category change; categories are few, so the snapshot is rebuilt from one projection query.
+ */
+@Service
+public class CategoryTreeIndex {
+    private static final Logger log = LoggerFactory.getLogger(CategoryTreeIndex.class);
+
+    public static final String ROOT_PATH = "/";
+
+    private final CategoryRepository categoryRepository;
+    private volatile Snapshot snapshot = new Snapshot(Collections.emptyMap(), Collections.emptyList());
+
+    @Autowired
+    public CategoryTreeIndex(CategoryRepository categoryRepository) {
+        this.categoryRepository = categoryRepository;
+    }
+
+    // Fills in the paths of categories created before paths were stored, then loads the snapshot
+    @EventListener(ApplicationReadyEvent.class)
+    @Transactional
+    public void repairPathsAndRefresh() {
+        Snapshot loaded = load();
+        int repaired = 0;
+        for (Node node : loaded.nodes.values()) {
+            if (!node.path.equals(node.storedPath)) {
+                categoryRepository.updatePath(node.id, node.path);
+                repaired++;
+            }
+        }
+        if (repaired > 0) {
+            log.info("Repaired the paths of {} categories", repaired);
+        }
+        snapshot = loaded;
+        log.info("Category tree loaded with {} categories", loaded.nodes.size());
+    }
+
+    // Runs after the category change committed, so it reads on its own transaction
+    @Transactional(propagation = Propagation.REQUIRES_NEW, readOnly = true)
+    public synchronized void refresh() {
+        snapshot = load();
+    }
+
+    public Optional<Node> findById(Long id) {
+        return Optional.ofNullable(snapshot.nodes.get(id));
+    }
+
+    public List<Node> roots() {
+        Snapshot current = snapshot;
+        return current.rootIds.stream().map(current.nodes::get).toList();
+    }
+
+    public List<Node> children(Node node) {
+        Snapshot current = snapshot;
+        return node.childIds.stream().map(current.nodes::get).filter(Objects::nonNull).toList();
+    }
+
+    // From the root down to the category, empty for an unknown category
+    public List<Node> breadcrumb(Long id) {
+        Snapshot current = snapshot;
+        LinkedList<Node> breadcrumb = new LinkedList<>();
+        Node node = current.nodes.get(id);
+        while (node != null) {
+            breadcrumb.addFirst(node);
+            node = node.parentId == null ? null : current.nodes.get(node.parentId);
+        }
+        return breadcrumb;
+    }
+
+    private Snapshot load() {
+        Map<Long, CategoryNode> rowsById = new HashMap<>();
+        categoryRepository.findAllNodes().forEach(row -> rowsById.put(row.getId(), row));
+
+        Map<Long, String> paths = new HashMap<>();
+        rowsById.keySet().forEach(id -> pathOf(id, rowsById, paths, new HashSet<>()));
+
+        // A category is linked under its parent only when the paths agree, so a looping parent chain ends in a root
+        Map<Long, Long> parentIds = new HashMap<>();
+        Map<Long, List<Long>> childIdsById = new HashMap<>();
+        List<Long> rootIds = new ArrayList<>();
+        rowsById.values().stream().map(CategoryNode::getId).sorted().forEach(id -> {
+            Long parentId = rowsById.get(id).getParentId();
+            if (parentId != null && paths.get(id).equals(paths.get(parentId) + id + "/")) {
+                parentIds.put(id, parentId);
+                childIdsById.computeIfAbsent(parentId, key -> new ArrayList<>()).add(id);
+            } else {
+                rootIds.add(id);
+            }
+        });
+
+        Map<Long, Node> nodes = new HashMap<>();
+        rowsById.values().forEach(row -> nodes.put(row.getId(), new Node(row.getId(), parentIds.get(row.getId()), row.getName(),
+                paths.get(row.getId()), row.getPath(), List.copyOf(childIdsById.getOrDefault(row.getId(), Collections.emptyList())))));
+        return new Snapshot(Map.copyOf(nodes), List.copyOf(rootIds));
+    }
+
+    // A parent already on the walk means the chain loops back; the category is then treated as a root
+    private static String pathOf(Long id, Map<Long, CategoryNode> rowsById, Map<Long, String> paths, Set<Long> walking) {
+        String known = paths.get(id);
+        if (known != null) {
+            return known;
+        }
+        walking.add(id);
+        Long parentId = rowsById.get(id).getParentId();
+        String parentPath = parentId == null || !rowsById.containsKey(parentId) || walking.contains(parentId)
+                ? ROOT_PATH
+                : pathOf(parentId, rowsById, paths, walking);
+        String path = parentPath + id + "/";
+        paths.put(id, path);
+        return path;
+    }
+
+    public record Node(Long id, Long parentId, String name, String path, String storedPath, List<Long> childIds) {
+    }
+
+    private record Snapshot(Map<Long, Node> nodes, List<Long> rootIds) {
+    }
+}
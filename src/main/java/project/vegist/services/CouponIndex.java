@@ -0,0 +1,214 @@
+package project.vegist.services;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import project.vegist.entities.Coupon;
+import project.vegist.enums.CouponStatus;
+import project.vegist.exceptions.BadRequestException;
+import project.vegist.models.CouponValidationModel;
+import project.vegist.repositories.CouponRepository;
+import project.vegist.utils.DateTimeUtils;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * In-memory index of the coupons that are running, scheduled or recently ended, keyed by code.
+ * Validating a code is one map lookup plus a check of its time window, so checkout never reads the coupons table.
+ * {@link CouponService} applies its changes once they commit. Expired coupons stay for the retention period, so a
+ * late code is reported as expired rather than unknown, and are then dropped in end date order from a heap.
+ * The whole index is reloaded periodically as a safety net for changes made outside the service.
+ */
+@Service
+public class CouponIndex {
+    private static final Logger log = LoggerFactory.getLogger(CouponIndex.class);
+
+    private final CouponRepository couponRepository;
+    private final Duration retention;
+
+    // Replaced on reload, mutated in place under the lock otherwise; readers never lock
+    private volatile State state = new State();
+
+    // Guarded by this
+    private final PriorityQueue<Expiry> expiries = new PriorityQueue<>();
+    private Map<Long, Optional<Entry>> changesDuringReload;
+
+    @Autowired
+    public CouponIndex(CouponRepository couponRepository,
+                       @Value("${coupon-index.retention-days:30}") long retentionDays) {
+        this.couponRepository = couponRepository;
+        this.retention = Duration.ofDays(retentionDays);
+    }
+
+    public CouponValidationModel validate(String code, LocalDateTime now) {
+        Entry entry = code == null ? null : state.byCode.get(code.trim());
+        return toModel(entry, now);
+    }
+
+    public CouponValidationModel validate(Long couponId, LocalDateTime now) {
+        Entry entry = couponId == null ? null : state.byId.get(couponId);
+        return toModel(entry, now);
+    }
+
+    // Throws BadRequestException unless the coupon can be used now
+    public static CouponValidationModel requireValid(CouponValidationModel validation) {
+        switch (validation.getStatus()) {
+            case NOT_FOUND -> throw new BadRequestException("Coupon not found");
+            case NOT_STARTED -> throw new BadRequestException("Coupon " + validation.getValue() + " is not active yet");
+            case EXPIRED -> throw new BadRequestException("Coupon " + validation.getValue() + " has expired");
+            default -> {
+                return validation;
+            }
+        }
+    }
+
+    public int size() {
+        return state.byId.size();
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void load() {
+        reload();
+        log.info("Coupon index loaded with {} coupons", size());
+    }
+
+    @Scheduled(initialDelayString = "${coupon-index.reload-interval-ms:600000}", fixedDelayString = "${coupon-index.reload-interval-ms:600000}")
+    public void reload() {
+        synchronized (this) {
+            if (changesDuringReload != null) {
+                return;
+            }
+            changesDuringReload = new HashMap<>();
+        }
+
+        List<Coupon> coupons;
+        try {
+            coupons = couponRepository.findEndingAfter(LocalDateTime.now().minus(retention));
+        } catch (RuntimeException e) {
+            synchronized (this) {
+                changesDuringReload = null;
+            }
+            throw e;
+        }
+
+        synchronized (this) {
+            State loaded = new State();
+            expiries.clear();
+            coupons.forEach(coupon -> put(loaded, Entry.of(coupon)));
+            // A change that committed while the rows were read may be missing from them, it is replayed on top
+            changesDuringReload.forEach((id, change) -> {
+                if (change.isPresent()) {
+                    put(loaded, change.get());
+                } else {
+                    remove(loaded, id);
+                }
+            });
+            changesDuringReload = null;
+            state = loaded;
+        }
+    }
+
+    // Called after the coupon was saved and committed
+    public synchronized void put(Coupon coupon) {
+        Entry entry = Entry.of(coupon);
+        put(state, entry);
+        if (changesDuringReload != null) {
+            changesDuringReload.put(entry.id, Optional.of(entry));
+        }
+    }
+
+    // Called after the coupon was deleted and committed
+    public synchronized void remove(Long couponId) {
+        remove(state, couponId);
+        if (changesDuringReload != null) {
+            changesDuringReload.put(couponId, Optional.empty());
+        }
+    }
+
+    // Drops the coupons that ended before the retention period, earliest end date first
+    @Scheduled(fixedDelayString = "${coupon-index.purge-interval-ms:60000}")
+    public synchronized void purgeExpired() {
+        LocalDateTime cutoff = LocalDateTime.now().minus(retention);
+        State current = state;
+        int purged = 0;
+        while (!expiries.isEmpty() && expiries.peek().endDate.isBefore(cutoff)) {
+            Expiry expiry = expiries.poll();
+            Entry entry = current.byId.get(expiry.couponId);
+            // The heap is never searched, an expiry left behind by an update or delete is skipped here
+            if (entry != null && expiry.endDate.equals(entry.endDate)) {
+                remove(current, expiry.couponId);
+                purged++;
+            }
+        }
+        if (purged > 0) {
+            log.debug("Purged {} expired coupons from the index", purged);
+        }
+    }
+
+    private void put(State target, Entry entry) {
+        Entry previous = target.byId.put(entry.id, entry);
+        if (previous != null && previous.value != null && !previous.value.equals(entry.value)) {
+            target.byCode.remove(previous.value, previous);
+        }
+        if (entry.value != null) {
+            target.byCode.put(entry.value, entry);
+        }
+        if (entry.endDate != null) {
+            expiries.add(new Expiry(entry.endDate, entry.id));
+        }
+    }
+
+    private static void remove(State target, Long couponId) {
+        Entry removed = target.byId.remove(couponId);
+        if (removed != null && removed.value != null) {
+            target.byCode.remove(removed.value, removed);
+        }
+    }
+
+    private static CouponValidationModel toModel(Entry entry, LocalDateTime now) {
+        if (entry == null) {
+            return new CouponValidationModel(CouponStatus.NOT_FOUND, null, null, null, null, null, null, null);
+        }
+        CouponStatus status;
+        if (entry.startDate != null && now.isBefore(entry.startDate)) {
+            status = CouponStatus.NOT_STARTED;
+        } else if (entry.endDate != null && !now.isBefore(entry.endDate)) {
+            status = CouponStatus.EXPIRED;
+        } else {
+            status = CouponStatus.VALID;
+        }
+        return new CouponValidationModel(status, entry.id, entry.value, entry.percent,
+                entry.startDate == null ? null : DateTimeUtils.formatLocalDateTime(entry.startDate),
+                entry.endDate == null ? null : DateTimeUtils.formatLocalDateTime(entry.endDate),
+                entry.maxRedemptions, entry.maxRedemptionsPerUser);
+    }
+
+    private static final class State {
+        private final Map<Long, Entry> byId = new ConcurrentHashMap<>();
+        private final Map<String, Entry> byCode = new ConcurrentHashMap<>();
+    }
+
+    private record Entry(Long id, String value, int percent, LocalDateTime startDate, LocalDateTime endDate,
+                         Integer maxRedemptions, Integer maxRedemptionsPerUser) {
+        private static Entry of(Coupon coupon) {
+            return new Entry(coupon.getId(), coupon.getValue() == null ? null : coupon.getValue().trim(),
+                    coupon.getPercent(), coupon.getStartDate(), coupon.getEndDate(),
+                    coupon.getMaxRedemptions(), coupon.getMaxRedemptionsPerUser());
+        }
+    }
+
+    private record Expiry(LocalDateTime endDate, Long couponId) implements Comparable<Expiry> {
+        @Override
+        public int compareTo(Expiry other) {
+            return endDate.compareTo(other.endDate);
+        }
+    }
+}
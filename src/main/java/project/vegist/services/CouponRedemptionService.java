@@ -0,0 +1,361 @@
+package project.vegist.services;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+import project.vegist.entities.CouponRedemption;
+import project.vegist.exceptions.ConflictException;
+import project.vegist.models.CouponValidationModel;
+import project.vegist.repositories.CouponRedemptionRepository;
+import project.vegist.repositories.CouponRepository;
+import project.vegist.utils.TransactionUtils;
+
+import java.time.LocalDateTime;
+import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.stream.Collectors;
+
+/**
+ * Redemption limits of coupons, in total and per user.
+ * The database decides: placing an order bumps {@code coupons.redeemed} with one conditional update that fails at the
+ * limit, and the user's redemptions are counted from {@code coupon_redemptions} after the checkout locked the user's
+ * cart, so both limits hold exactly however many instances run. Everything runs on the checkout's own connection.
+ * In front of that the redemptions left of each limited coupon are kept in striped counters, as a hint only: a coupon
+ * this instance saw run out is rejected without a round trip. The hint is refreshed from the table periodically; a
+ * redemption given back on another instance is seen at the next refresh.
+ */
+@Service
+public class CouponRedemptionService {
+    private static final Logger log = LoggerFactory.getLogger(CouponRedemptionService.class);
+
+    private final CouponRedemptionRepository couponRedemptionRepository;
+    private final CouponRepository couponRepository;
+    private final CouponIndex couponIndex;
+    private final int stripeCount;
+
+    // Hints of limited coupons only
+    private final Map<Long, Counter> counters = new ConcurrentHashMap<>();
+
+    @Autowired
+    public CouponRedemptionService(CouponRedemptionRepository couponRedemptionRepository, CouponRepository couponRepository,
+                                   CouponIndex couponIndex, @Value("${coupon-redemption.stripes:16}") int stripeCount) {
+        this.couponRedemptionRepository = couponRedemptionRepository;
+        this.couponRepository = couponRepository;
+        this.couponIndex = couponIndex;
+        this.stripeCount = Math.max(1, stripeCount);
+    }
+
+    /**
+     * Checks that the coupon can still be used by the user, in the checkout's transaction after the cart was locked.
+     * Throws {@link ConflictException} when the coupon or the user's share of it is used up.
+     * The reservation must be recorded with the order, then committed, or released if the order is not placed.
+     */
+    @Transactional(propagation = Propagation.MANDATORY)
+    public Reservation reserve(Long couponId, Long userId) {
+        CouponValidationModel coupon = couponIndex.validate(couponId, LocalDateTime.now());
+        Counter counter = coupon.getMaxRedemptions() == null ? null : counterOf(couponId, coupon.getMaxRedemptions());
+
+        int stripe = -1;
+        if (counter != null) {
+            counter.begin();
+            stripe = counter.tryAcquire();
+            if (stripe < 0) {
+                counter.end();
+                throw fullyRedeemed(coupon);
+            }
+        }
+
+        Integer perUserLimit = coupon.getMaxRedemptionsPerUser();
+        if (perUserLimit != null && couponRedemptionRepository.countByCouponIdAndUserId(couponId, userId) >= perUserLimit) {
+            if (counter != null) {
+                counter.giveBack(stripe);
+                counter.end();
+            }
+            throw new ConflictException("Coupon " + coupon.getValue() + " was already used the maximum number of times");
+        }
+        return new Reservation(couponId, userId, coupon.getValue(), counter, stripe);
+    }
+
+    /**
+     * Takes the redemption in the database and writes its row, in the transaction placing the order.
+     * Called late in the checkout, so the coupon row stays locked only until the commit.
+     * Throws {@link ConflictException} when the coupon ran out meanwhile, which rolls the order back.
+     */
+    @Transactional(propagation = Propagation.MANDATORY)
+    public void record(Reservation reservation, Long orderId) {
+        if (couponRepository.redeem(reservation.couponId) == 0) {
+            if (reservation.counter != null) {
+                // Used up, possibly on another instance; the hint stays empty until the next refresh
+                reservation.counter.drain();
+                reservation.drained = true;
+            }
+            throw new ConflictException("Coupon " + reservation.couponValue + " has been fully redeemed");
+        }
+        couponRedemptionRepository.insert(orderId, reservation.couponId, reservation.userId, LocalDateTime.now());
+    }
+
+    // The order committed, the hint already counts the redemption
+    public void commit(Reservation reservation) {
+        if (reservation.counter != null) {
+            reservation.counter.end();
+        }
+    }
+
+    // The order was not placed; the database change rolled back with it, the hint gets its permit back
+    public void release(Reservation reservation) {
+        Counter counter = reservation.counter;
+        if (counter != null) {
+            synchronized (counter) {
+                if (!reservation.drained) {
+                    counter.giveBack(reservation.stripe);
+                }
+                counter.end();
+            }
+        }
+    }
+
+    /**
+     * Called when orders are cancelled or deleted, in their transaction; their coupons can be used again once it
+     * commits. The hints involved are marked busy before the commit, so a refresh cannot count a redemption that is
+     * already gone from the table and then get it back a second time.
+     */
+    public void releaseOrders(Collection<Long> orderIds) {
+        List<CouponRedemption> redemptions = couponRedemptionRepository.findByOrderIdIn(orderIds);
+        if (redemptions.isEmpty()) {
+            return;
+        }
+
+        Map<Long, Long> countsByCouponId = redemptions.stream()
+                .collect(Collectors.groupingBy(CouponRedemption::getCouponId, Collectors.counting()));
+        Map<Counter, Long> touched = new HashMap<>();
+        countsByCouponId.forEach((couponId, count) -> {
+            Counter counter = counters.get(couponId);
+            if (counter != null) {
+                counter.begin();
+                touched.put(counter, count);
+            }
+        });
+
+        couponRedemptionRepository.deleteAllInBatch(redemptions);
+        countsByCouponId.forEach(couponRepository::unredeem);
+
+        TransactionUtils.afterCommit(() -> touched.forEach((counter, count) -> {
+            synchronized (counter) {
+                counter.adjust(count);
+                counter.end();
+            }
+        }));
+        TransactionUtils.afterRollback(() -> touched.keySet().forEach(counter -> {
+            synchronized (counter) {
+                counter.end();
+            }
+        }));
+    }
+
+    // Called when coupons are deleted, in their transaction
+    public void deleteByCouponIds(Collection<Long> couponIds) {
+        couponRedemptionRepository.deleteByCouponIds(couponIds);
+        TransactionUtils.afterCommit(() -> couponIds.forEach(counters::remove));
+    }
+
+    /**
+     * Sets the hints to what the coupons table says is left.
+     * A hint is recomputed under its lock and only when no checkout or release used it while the table was read.
+     * Hints of coupons that are no longer limited or left the coupon index are dropped.
+     */
+    @Scheduled(fixedDelayString = "${coupon-redemption.reconcile-interval-ms:60000}")
+    public void reconcile() {
+        LocalDateTime now = LocalDateTime.now();
+        counters.forEach((couponId, counter) -> {
+            Integer limit = couponIndex.validate(couponId, now).getMaxRedemptions();
+            if (limit == null) {
+                counters.remove(couponId, counter);
+                return;
+            }
+            synchronized (counter) {
+                long version = counter.version.get();
+                if (counter.inFlight.get() != 0) {
+                    return;
+                }
+                Optional<Integer> redeemed = couponRepository.findRedeemedById(couponId);
+                if (redeemed.isEmpty()) {
+                    counters.remove(couponId, counter);
+                    return;
+                }
+                if (counter.inFlight.get() != 0 || counter.version.get() != version) {
+                    return;
+                }
+                counter.applyLimit(limit);
+                long drift = Math.max(limit - redeemed.get(), 0) - counter.left();
+                if (drift != 0) {
+                    counter.adjust(drift);
+                    log.debug("Refreshed the redemption hint of coupon {} by {}", couponId, drift);
+                }
+            }
+        });
+    }
+
+    // Seeded from the coupons table on the checkout's connection the first time the coupon is used here
+    private Counter counterOf(Long couponId, int limit) {
+        Counter counter = counters.get(couponId);
+        if (counter == null) {
+            Counter loaded = new Counter(stripeCount, couponRepository.findRedeemedById(couponId).orElse(0), limit);
+            counter = counters.putIfAbsent(couponId, loaded);
+            if (counter == null) {
+                counter = loaded;
+            }
+        }
+        counter.applyLimit(limit);
+        return counter;
+    }
+
+    private static ConflictException fullyRedeemed(CouponValidationModel coupon) {
+        return new ConflictException("Coupon " + coupon.getValue() + " has been fully redeemed");
+    }
+
+    // The hint it took a permit from, if the coupon is limited, goes along so the permit returns to the same one
+    public static final class Reservation {
+        private final Long couponId;
+        private final Long userId;
+        private final String couponValue;
+        private final Counter counter;
+        private final int stripe;
+        private volatile boolean drained;
+
+        private Reservation(Long couponId, Long userId, String couponValue, Counter counter, int stripe) {
+            this.couponId = couponId;
+            this.userId = userId;
+            this.couponValue = couponValue;
+            this.counter = counter;
+            this.stripe = stripe;
+        }
+    }
+
+    private static final class Counter {
+        // Redemptions believed left, spread over the stripes; a lowered limit that outran them is owed in debt
+        private final AtomicLong[] stripes;
+        private final AtomicLong debt = new AtomicLong();
+        private final AtomicInteger inFlight = new AtomicInteger();
+        private final AtomicLong version = new AtomicLong();
+        private volatile long limit;
+
+        private Counter(int stripeCount, long redeemed, long limit) {
+            this.stripes = new AtomicLong[stripeCount];
+            for (int i = 0; i < stripeCount; i++) {
+                stripes[i] = new AtomicLong();
+            }
+            this.limit = limit;
+            adjust(Math.max(limit - redeemed, 0));
+        }
+
+        private void begin() {
+            inFlight.incrementAndGet();
+            version.incrementAndGet();
+        }
+
+        private void end() {
+            inFlight.decrementAndGet();
+            version.incrementAndGet();
+        }
+
+        private void applyLimit(long target) {
+            if (target == limit) {
+                return;
+            }
+            synchronized (this) {
+                if (target != limit) {
+                    adjust(target - limit);
+                    limit = target;
+                }
+            }
+        }
+
+        private long left() {
+            long left = -debt.get();
+            for (AtomicLong stripe : stripes) {
+                left += stripe.get();
+            }
+            return left;
+        }
+
+        // Starts at a random stripe so racing checkouts spread out; -1 when every stripe is empty
+        private int tryAcquire() {
+            int start = ThreadLocalRandom.current().nextInt(stripes.length);
+            for (int i = 0; i < stripes.length; i++) {
+                int index = (start + i) % stripes.length;
+                AtomicLong stripe = stripes[index];
+                long left = stripe.get();
+                while (left > 0) {
+                    if (stripe.compareAndSet(left, left - 1)) {
+                        return index;
+                    }
+                    left = stripe.get();
+                }
+            }
+            return -1;
+        }
+
+        private void giveBack(int stripe) {
+            while (true) {
+                long owed = debt.get();
+                if (owed <= 0) {
+                    stripes[stripe].incrementAndGet();
+                    return;
+                }
+                if (debt.compareAndSet(owed, owed - 1)) {
+                    return;
+                }
+            }
+        }
+
+        private synchronized void drain() {
+            for (AtomicLong stripe : stripes) {
+                stripe.set(0);
+            }
+        }
+
+        // Adds (or, when negative, takes away) redemptions left
+        private synchronized void adjust(long delta) {
+            while (delta > 0) {
+                long owed = debt.get();
+                if (owed <= 0) {
+                    break;
+                }
+                long paid = Math.min(owed, delta);
+                if (debt.compareAndSet(owed, owed - paid)) {
+                    delta -= paid;
+                }
+            }
+            if (delta > 0) {
+                for (int i = 0; i < stripes.length; i++) {
+                    stripes[i].addAndGet(delta / stripes.length + (i == 0 ? delta % stripes.length : 0));
+                }
+                return;
+            }
+
+            long needed = -delta;
+            for (int i = 0; i < stripes.length && needed > 0; i++) {
+                AtomicLong stripe = stripes[i];
+                long left = stripe.get();
+                while (left > 0 && needed > 0) {
+                    long taken = Math.min(left, needed);
+                    if (stripe.compareAndSet(left, left - taken)) {
+                        needed -= taken;
+                    }
+                    left = stripe.get();
+                }
+            }
+            if (needed > 0) {
+                debt.addAndGet(needed);
+            }
+        }
+    }
+}
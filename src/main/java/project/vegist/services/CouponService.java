@@ -2,7 +2,6 @@ package project.vegist.services;
 
 import org.apache.commons.lang3.StringUtils;
 import org.springframework.beans.factory.annotation.Autowired;
-import org.springframework.data.domain.PageRequest;
 import org.springframework.data.domain.Pageable;
 import org.springframework.data.jpa.domain.Specification;
 import org.springframework.stereotype.Service;
@@ -10,10 +9,13 @@ import org.springframework.transaction.annotation.Transactional;
 import project.vegist.dtos.CouponDTO;
 import project.vegist.entities.Coupon;
 import project.vegist.models.CouponModel;
+import project.vegist.models.CursorPage;
 import project.vegist.repositories.CouponRepository;
 import project.vegist.services.impls.CrudService;
 import project.vegist.utils.DateTimeUtils;
+import project.vegist.utils.KeysetPager;
 import project.vegist.utils.SpecificationsBuilder;
+import project.vegist.utils.TransactionUtils;
 
 import java.util.List;
 import java.util.Map;
@@ -24,10 +26,17 @@ import java.util.stream.Collectors;
 @Service
 public class CouponService implements CrudService<Coupon, CouponDTO, CouponModel> {
     private final CouponRepository couponRepository;
+    private final KeysetPager keysetPager;
+    private final CouponIndex couponIndex;
+    private final CouponRedemptionService couponRedemptionService;
 
     @Autowired
-    public CouponService(CouponRepository couponRepository) {
+    public CouponService(CouponRepository couponRepository, KeysetPager keysetPager, CouponIndex couponIndex,
+                         CouponRedemptionService couponRedemptionService) {
         this.couponRepository = couponRepository;
+        this.keysetPager = keysetPager;
+        this.couponIndex = couponIndex;
+        this.couponRedemptionService = couponRedemptionService;
     }
 
     @Override
@@ -41,12 +50,18 @@ public class CouponService implements CrudService<Coupon, CouponDTO, CouponModel
     @Override
     @Transactional(readOnly = true)
     public List<CouponModel> findAll(int page, int size) {
-        Pageable pageable = PageRequest.of(page, size);
+        Pageable pageable = KeysetPager.pageRequest(page, size);
         return couponRepository.findAll(pageable).getContent().stream()
                 .map(this::convertToModel)
                 .collect(Collectors.toList());
     }
 
+    @Override
+    @Transactional(readOnly = true)
+    public CursorPage<CouponModel> findAll(String cursor, int size) {
+        return keysetPager.page(Coupon.class, cursor, size, this::convertToModel);
+    }
+
     @Override
     @Transactional(readOnly = true)
     public Optional<CouponModel> findById(Long id) {
@@ -60,7 +75,9 @@ public class CouponService implements CrudService<Coupon, CouponDTO, CouponModel
 
         Coupon newCoupon = new Coupon();
         convertToEntity(couponDTO, newCoupon);
-        return Optional.ofNullable(convertToModel(couponRepository.save(newCoupon)));
+        Coupon savedCoupon = couponRepository.save(newCoupon);
+        indexAfterCommit(savedCoupon);
+        return Optional.ofNullable(convertToModel(savedCoupon));
     }
 
     @Override
@@ -77,7 +94,10 @@ public class CouponService implements CrudService<Coupon, CouponDTO, CouponModel
                 .collect(Collectors.toList());
 
         return couponRepository.saveAll(newCoupons)
-                .stream().map(this::convertToModel)
+                .stream().map(savedCoupon -> {
+                    indexAfterCommit(savedCoupon);
+                    return convertToModel(savedCoupon);
+                })
                 .collect(Collectors.toList());
     }
 
@@ -89,7 +109,9 @@ public class CouponService implements CrudService<Coupon, CouponDTO, CouponModel
                     Objects.requireNonNull(couponDTO, "couponDTO must not be null");
 
                     convertToEntity(couponDTO, existingCoupon);
-                    return convertToModel(couponRepository.save(existingCoupon));
+                    Coupon updatedCoupon = couponRepository.save(existingCoupon);
+                    indexAfterCommit(updatedCoupon);
+                    return convertToModel(updatedCoupon);
                 });
     }
 
@@ -106,6 +128,7 @@ public class CouponService implements CrudService<Coupon, CouponDTO, CouponModel
                                 .map(existingCoupon -> {
                                     convertToEntity(couponDTO, existingCoupon);
                                     Coupon updatedCoupon = couponRepository.save(existingCoupon);
+                                    indexAfterCommit(updatedCoupon);
                                     return convertToModel(updatedCoupon);
                                 })
                                 .orElse(null);
@@ -128,6 +151,9 @@ public class CouponService implements CrudService<Coupon, CouponDTO, CouponModel
         List<Coupon> couponsToDelete = couponRepository.findAllById(ids);
         if (!couponsToDelete.isEmpty()) {
             couponRepository.deleteAll(couponsToDelete);
+            List<Long> deletedIds = couponsToDelete.stream().map(Coupon::getId).toList();
+            couponRedemptionService.deleteByCouponIds(deletedIds);
+            TransactionUtils.afterCommit(() -> deletedIds.forEach(couponIndex::remove));
             return true;
         }
         return false;
@@ -159,7 +185,8 @@ public class CouponService implements CrudService<Coupon, CouponDTO, CouponModel
         Objects.requireNonNull(coupon, "coupon must not be null");
 
         return new CouponModel(coupon.getId(), coupon.getValue(), coupon.getPercent(),
-                DateTimeUtils.formatLocalDateTime(coupon.getStartDate()), DateTimeUtils.formatLocalDateTime(coupon.getEndDate()));
+                DateTimeUtils.formatLocalDateTime(coupon.getStartDate()), DateTimeUtils.formatLocalDateTime(coupon.getEndDate()),
+                coupon.getMaxRedemptions(), coupon.getMaxRedemptionsPerUser());
     }
 
     @Override
@@ -171,10 +198,19 @@ public class CouponService implements CrudService<Coupon, CouponDTO, CouponModel
         coupon.setPercent(couponDTO.getPercent());
         coupon.setStartDate(couponDTO.getStartDate());
         coupon.setEndDate(couponDTO.getEndDate());
+        coupon.setMaxRedemptions(couponDTO.getMaxRedemptions());
+        coupon.setMaxRedemptionsPerUser(couponDTO.getMaxRedemptionsPerUser());
     }
 
     private boolean performDelete(Long id) {
         couponRepository.deleteById(id);
+        couponRedemptionService.deleteByCouponIds(List.of(id));
+        TransactionUtils.afterCommit(() -> couponIndex.remove(id));
         return true;
     }
+
+    // A rolled back change never reaches the index
+    private void indexAfterCommit(Coupon coupon) {
+        TransactionUtils.afterCommit(() -> couponIndex.put(coupon));
+    }
 }
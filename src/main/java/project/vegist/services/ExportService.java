@@ -0,0 +1,110 @@
+package project.vegist.services;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.PersistenceContext;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Service;
+import project.vegist.enums.ExportFormat;
+
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.List;
+import java.util.function.Function;
+import java.util.stream.Stream;
+
+/**
+ * Writes a stream of entities as NDJSON or CSV without holding more than one batch in memory.
+ * Rows are converted a batch at a time (so batch converters keep their IN queries), written,
+ * and then detached from the persistence context together with whatever the conversion loaded.
+ * Must run inside the read-only transaction that opened the stream.
+ */
+@Service
+public class ExportService {
+    private static final int BATCH_SIZE = 200;
+
+    private final ObjectMapper objectMapper;
+
+    @PersistenceContext
+    private EntityManager entityManager;
+
+    @Autowired
+    public ExportService(ObjectMapper objectMapper) {
+        this.objectMapper = objectMapper;
+    }
+
+    public <E, M> long write(Stream<E> rows, Function<List<E>, List<M>> converter, ExportFormat format, OutputStream outputStream) throws IOException {
+        Writer writer = new BufferedWriter(new OutputStreamWriter(outputStream, StandardCharsets.UTF_8));
+        List<String> csvHeader = null;
+        long count = 0;
+
+        List<E> batch = new ArrayList<>(BATCH_SIZE);
+        Iterator<E> iterator = rows.iterator();
+        while (iterator.hasNext()) {
+            batch.add(iterator.next());
+            if (batch.size() < BATCH_SIZE && iterator.hasNext()) {
+                continue;
+            }
+
+            for (M model : converter.apply(batch)) {
+                if (format == ExportFormat.CSV) {
+                    JsonNode node = objectMapper.valueToTree(model);
+                    if (csvHeader == null) {
+                        csvHeader = new ArrayList<>();
+                        node.fieldNames().forEachRemaining(csvHeader::add);
+                        writeCsvLine(writer, csvHeader);
+                    }
+                    List<String> values = new ArrayList<>(csvHeader.size());
+                    for (String column : csvHeader) {
+                        values.add(csvValue(node.get(column)));
+                    }
+                    writeCsvLine(writer, values);
+                } else {
+                    writer.write(objectMapper.writeValueAsString(model));
+                    writer.write('\n');
+                }
+                count++;
+            }
+
+            // Detaches the batch together with the associations loaded while converting it
+            entityManager.clear();
+            batch.clear();
+            writer.flush();
+        }
+
+        writer.flush();
+        return count;
+    }
+
+    // Scalars are written as text, nested objects and lists as their JSON
+    private String csvValue(JsonNode value) throws IOException {
+        if (value == null || value.isNull()) {
+            return "";
+        }
+        return value.isValueNode() ? value.asText() : objectMapper.writeValueAsString(value);
+    }
+
+    private static void writeCsvLine(Writer writer, List<String> values) throws IOException {
+        for (int i = 0; i < values.size(); i++) {
+            if (i > 0) {
+                writer.write(',');
+            }
+            writer.write(escapeCsv(values.get(i)));
+        }
+        writer.write("\r\n");
+    }
+
+    private static String escapeCsv(String value) {
+        if (value.indexOf(',') < 0 && value.indexOf('"') < 0 && value.indexOf('\n') < 0 && value.indexOf('\r') < 0) {
+            return value;
+        }
+        return '"' + value.replace("\"", "\"\"") + '"';
+    }
+}
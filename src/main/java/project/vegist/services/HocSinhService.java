@@ -2,16 +2,23 @@ package project.vegist.services;
 
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.web.multipart.MultipartFile;
 import project.vegist.dtos.HocSinhDTO;
 import project.vegist.entities.AlbumHocSinh;
 import project.vegist.entities.HocSinh;
+import project.vegist.models.CursorPage;
 import project.vegist.models.HocSinhModel;
 import project.vegist.repositories.AlbumHocSinhRepository;
 import project.vegist.repositories.HocSinhRepository;
 import project.vegist.services.impls.CrudService;
 import project.vegist.utils.FileUtils;
+import project.vegist.utils.KeysetPager;
+import project.vegist.utils.TransactionUtils;
 
 import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.util.ArrayList;
 import java.util.List;
 import java.util.Map;
 import java.util.Objects;
@@ -23,12 +30,14 @@ public class HocSinhService implements CrudService<HocSinh, HocSinhDTO, HocSinhM
     private final HocSinhRepository hocSinhRepository;
     private final AlbumHocSinhRepository albumHocSinhRepository;
     private final FileUtils fileUtils;
+    private final KeysetPager keysetPager;
 
     @Autowired
-    public HocSinhService(HocSinhRepository hocSinhRepository, AlbumHocSinhRepository albumHocSinhRepository, FileUtils fileUtils) {
+    public HocSinhService(HocSinhRepository hocSinhRepository, AlbumHocSinhRepository albumHocSinhRepository, FileUtils fileUtils, KeysetPager keysetPager) {
         this.hocSinhRepository = hocSinhRepository;
         this.albumHocSinhRepository = albumHocSinhRepository;
         this.fileUtils = fileUtils;
+        this.keysetPager = keysetPager;
     }
 
     @Override
@@ -39,8 +48,17 @@ public class HocSinhService implements CrudService<HocSinh, HocSinhDTO, HocSinhM
     }
 
     @Override
+    @Transactional(readOnly = true)
     public List<HocSinhModel> findAll(int page, int size) {
-        return null;
+        return hocSinhRepository.findAll(KeysetPager.pageRequest(page, size)).getContent().stream()
+                .map(this::convertToModel)
+                .collect(Collectors.toList());
+    }
+
+    @Override
+    @Transactional(readOnly = true)
+    public CursorPage<HocSinhModel> findAll(String cursor, int size) {
+        return keysetPager.page(HocSinh.class, cursor, size, this::convertToModel);
     }
 
     @Override
@@ -51,9 +69,10 @@ public class HocSinhService implements CrudService<HocSinh, HocSinhDTO, HocSinhM
     }
 
     @Override
+    @Transactional
     public Optional<HocSinhModel> create(HocSinhDTO hocSinhDTO) throws IOException {
         // Upload avatar and get file name (checking for duplicate content)
-        String avatarFileName = fileUtils.uploadFile(hocSinhDTO.getAvatar(), true);
+        String avatarFileName = upload(hocSinhDTO.getAvatar());
 
         // Save HocSinh information
         HocSinh hocSinh = new HocSinh();
@@ -63,38 +82,78 @@ public class HocSinhService implements CrudService<HocSinh, HocSinhDTO, HocSinhM
 
         // Process files in the album if any
         if (hocSinhDTO.getAlbumFiles() != null && !hocSinhDTO.getAlbumFiles().isEmpty()) {
-            HocSinh finalHocSinh = hocSinh;
-            List<AlbumHocSinh> albumFiles = hocSinhDTO.getAlbumFiles().stream()
-                    .map(albumFile -> {
-                        try {
-                            String albumFileName = fileUtils.uploadFile(albumFile, true);
-                            AlbumHocSinh albumHocSinh = new AlbumHocSinh();
-                            albumHocSinh.setAssetsPath(albumFileName);
-                            albumHocSinh.setHocsinh(finalHocSinh);
-                            return albumHocSinh;
-                        } catch (IOException e) {
-                            e.printStackTrace();
-                            return null;
-                        }
-                    })
-                    .filter(Objects::nonNull)
-                    .collect(Collectors.toList());
-
-            // Link HocSinh with files in the album and save them
-            albumHocSinhRepository.saveAll(albumFiles);
+            saveAlbum(hocSinh, hocSinhDTO.getAlbumFiles());
         }
 
         return Optional.ofNullable(convertToModel(hocSinh));
     }
 
+    // Uploads a file for a row written in the current transaction; the reference is released again if it rolls back
+    private String upload(MultipartFile file) throws IOException {
+        String fileName = fileUtils.uploadFile(file, true);
+        TransactionUtils.afterRollback(() -> fileUtils.deleteFile(fileName));
+        return fileName;
+    }
+
+    private void saveAlbum(HocSinh hocSinh, List<MultipartFile> files) {
+        List<AlbumHocSinh> albumFiles = files.stream()
+                .map(albumFile -> {
+                    try {
+                        String albumFileName = upload(albumFile);
+                        AlbumHocSinh albumHocSinh = new AlbumHocSinh();
+                        albumHocSinh.setAssetsPath(albumFileName);
+                        albumHocSinh.setHocsinh(hocSinh);
+                        return albumHocSinh;
+                    } catch (IOException e) {
+                        e.printStackTrace();
+                        return null;
+                    }
+                })
+                .filter(Objects::nonNull)
+                .collect(Collectors.toList());
+
+        // Link HocSinh with files in the album and save them
+        albumHocSinhRepository.saveAll(albumFiles);
+    }
+
     @Override
     public List<HocSinhModel> createAll(List<HocSinhDTO> hocSinhDTOS) {
         return null;
     }
 
+    /**
+     * Updates the name and age; a new avatar or album replaces the stored one.
+     * The replaced files are released once the update commits, the uploaded ones if it rolls back.
+     */
     @Override
+    @Transactional
     public Optional<HocSinhModel> update(Long id, HocSinhDTO hocSinhDTO) {
-        return Optional.empty();
+        return hocSinhRepository.findById(id).map(hocSinh -> {
+            convertToEntity(hocSinhDTO, hocSinh);
+            List<String> releasedFilePaths = new ArrayList<>();
+            try {
+                if (hocSinhDTO.getAvatar() != null && !hocSinhDTO.getAvatar().isEmpty()) {
+                    if (hocSinh.getAvatarPath() != null) {
+                        releasedFilePaths.add(hocSinh.getAvatarPath());
+                    }
+                    hocSinh.setAvatarPath(upload(hocSinhDTO.getAvatar()));
+                }
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
+            if (hocSinhDTO.getAlbumFiles() != null && !hocSinhDTO.getAlbumFiles().isEmpty()) {
+                List<AlbumHocSinh> replacedAlbum = albumHocSinhRepository.findByHocsinh_Id(id);
+                replacedAlbum.forEach(albumHocSinh -> releasedFilePaths.add(albumHocSinh.getAssetsPath()));
+                if (hocSinh.getAlbums() != null) {
+                    hocSinh.getAlbums().clear();
+                }
+                albumHocSinhRepository.deleteAll(replacedAlbum);
+                saveAlbum(hocSinh, hocSinhDTO.getAlbumFiles());
+            }
+            HocSinh updatedHocSinh = hocSinhRepository.save(hocSinh);
+            TransactionUtils.afterCommit(() -> releasedFilePaths.forEach(fileUtils::deleteFile));
+            return convertToModel(updatedHocSinh);
+        });
     }
 
     @Override
@@ -103,6 +162,7 @@ public class HocSinhService implements CrudService<HocSinh, HocSinhDTO, HocSinhM
     }
 
     @Override
+    @Transactional
     public boolean deleteById(Long id) {
         if (hocSinhRepository.existsById(id)) {
             // Retrieve the HocSinh entity
@@ -112,11 +172,16 @@ public class HocSinhService implements CrudService<HocSinh, HocSinhDTO, HocSinhM
 
                 // Delete associated AlbumHocSinh records
                 List<AlbumHocSinh> albumHocSinhs = albumHocSinhRepository.findByHocsinh_Id(id);
-                // FileUtils.deleteFile(FileUtils.joinPaths(uploadDirectory, albumHocSinh.getAssetsPath()));
                 albumHocSinhRepository.deleteAll(albumHocSinhs);
 
                 // Delete HocSinh
                 hocSinhRepository.deleteById(id);
+
+                // Release the stored files once nothing in the database points at them any more
+                List<String> releasedFilePaths = new ArrayList<>();
+                releasedFilePaths.add(hocSinh.getAvatarPath());
+                albumHocSinhs.forEach(albumHocSinh -> releasedFilePaths.add(albumHocSinh.getAssetsPath()));
+                TransactionUtils.afterCommit(() -> releasedFilePaths.forEach(fileUtils::deleteFile));
                 return true;
             }
         }
@@ -2,39 +2,131 @@ package project.vegist.services;
 
 import org.apache.commons.lang3.StringUtils;
 import org.springframework.beans.factory.annotation.Autowired;
-import org.springframework.data.domain.PageRequest;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.data.domain.Pageable;
 import org.springframework.data.jpa.domain.Specification;
 import org.springframework.http.HttpStatus;
+import org.springframework.scheduling.annotation.Scheduled;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Propagation;
 import org.springframework.transaction.annotation.Transactional;
 import project.vegist.dtos.InventoryDTO;
 import project.vegist.entities.Inventory;
+import project.vegist.entities.InventoryReservation;
+import project.vegist.entities.Order;
 import project.vegist.entities.Product;
+import project.vegist.enums.ReservationStatus;
+import project.vegist.exceptions.ConflictException;
 import project.vegist.exceptions.ResourceNotFoundException;
+import project.vegist.models.CursorPage;
 import project.vegist.models.InventoryModel;
 import project.vegist.repositories.InventoryRepository;
+import project.vegist.repositories.InventoryReservationRepository;
 import project.vegist.repositories.ProductRepository;
 import project.vegist.services.impls.CrudService;
 import project.vegist.utils.DateTimeUtils;
+import project.vegist.utils.KeysetPager;
 import project.vegist.utils.SpecificationsBuilder;
 
 import java.io.IOException;
-import java.util.List;
-import java.util.Map;
-import java.util.Objects;
-import java.util.Optional;
+import java.time.LocalDateTime;
+import java.util.*;
 import java.util.stream.Collectors;
 
 @Service
 public class InventoryService implements CrudService<Inventory, InventoryDTO, InventoryModel> {
     private final InventoryRepository inventoryRepository;
     private final ProductRepository productRepository;
+    private final InventoryReservationRepository inventoryReservationRepository;
+    private final long reservationTimeoutMinutes;
+    private final KeysetPager keysetPager;
 
     @Autowired
-    public InventoryService(InventoryRepository inventoryRepository, ProductRepository productRepository) {
+    public InventoryService(InventoryRepository inventoryRepository, ProductRepository productRepository,
+                            InventoryReservationRepository inventoryReservationRepository,
+                            @Value("${inventory.reservation.timeout-minutes:15}") long reservationTimeoutMinutes, KeysetPager keysetPager) {
         this.inventoryRepository = inventoryRepository;
         this.productRepository = productRepository;
+        this.inventoryReservationRepository = inventoryReservationRepository;
+        this.reservationTimeoutMinutes = reservationTimeoutMinutes;
+        this.keysetPager = keysetPager;
+    }
+
+    /**
+     * Takes the requested quantities out of stock for the order, in the checkout's transaction.
+     * Each product is one conditional update, so the stock check needs no read lock and a checkout never holds
+     * a second connection; a checkout that rolls back puts the stock back with it. The updates lock the product's
+     * stock rows until the commit, so the checkout calls this once everything else of the order has been written.
+     * Throws {@link ConflictException} when any product is short.
+     */
+    @Transactional(propagation = Propagation.MANDATORY)
+    public void reserve(Map<Long, Integer> quantitiesByProductId, Order order) {
+        // Always lock products in id order so two checkouts cannot wait on each other crosswise
+        new TreeMap<>(quantitiesByProductId).forEach((productId, quantity) -> {
+            InventoryReservation reservation = new InventoryReservation();
+            reservation.setInventory(reserveFrom(productId, quantity));
+            reservation.setOrder(order);
+            reservation.setQuantity(quantity);
+            reservation.setStatus(ReservationStatus.RESERVED);
+            inventoryReservationRepository.save(reservation);
+        });
+    }
+
+    private Inventory reserveFrom(Long productId, int quantity) {
+        for (Long inventoryId : inventoryRepository.findIdsWithStock(productId, quantity)) {
+            if (inventoryRepository.reserve(inventoryId, quantity) == 1) {
+                return inventoryRepository.getReferenceById(inventoryId);
+            }
+        }
+        throw new ConflictException("Not enough stock for product with id: " + productId);
+    }
+
+    // Commits what a placed order still has reserved; cancelled or already committed reservations are left alone
+    @Transactional
+    public void commitOrder(Long orderId) {
+        inventoryReservationRepository.findByOrder_Id(orderId).forEach(this::commitReservation);
+    }
+
+    // Puts back the stock of a cancelled or deleted order, whether it was still reserved or already committed
+    @Transactional
+    public void releaseOrder(Long orderId) {
+        inventoryReservationRepository.findByOrder_Id(orderId).forEach(this::releaseReservation);
+    }
+
+    @Transactional
+    public void removeOrderReservations(Long orderId) {
+        List<InventoryReservation> reservations = inventoryReservationRepository.findByOrder_Id(orderId);
+        reservations.forEach(this::releaseReservation);
+        inventoryReservationRepository.deleteAll(reservations);
+    }
+
+    // Recovers reservations whose checkout died between reserving and committing
+    @Scheduled(fixedDelayString = "${inventory.reservation.sweep-interval-ms:60000}")
+    @Transactional
+    public void sweepExpiredReservations() {
+        LocalDateTime expiredBefore = LocalDateTime.now().minusMinutes(reservationTimeoutMinutes);
+        for (InventoryReservation reservation : inventoryReservationRepository.findByStatusAndCreatedAtBefore(ReservationStatus.RESERVED, expiredBefore)) {
+            if (reservation.getOrder() != null) {
+                commitReservation(reservation);
+            } else {
+                releaseReservation(reservation);
+            }
+        }
+    }
+
+    private void commitReservation(InventoryReservation reservation) {
+        if (inventoryReservationRepository.transition(reservation.getId(), ReservationStatus.RESERVED, ReservationStatus.COMMITTED) == 1) {
+            inventoryRepository.commitReserved(reservation.getInventory().getId(), reservation.getQuantity());
+        }
+    }
+
+    private void releaseReservation(InventoryReservation reservation) {
+        Long inventoryId = reservation.getInventory().getId();
+        if (inventoryReservationRepository.transition(reservation.getId(), ReservationStatus.RESERVED, ReservationStatus.RELEASED) == 1) {
+            inventoryRepository.releaseReserved(inventoryId, reservation.getQuantity());
+        } else if (inventoryReservationRepository.transition(reservation.getId(), ReservationStatus.COMMITTED, ReservationStatus.RELEASED) == 1) {
+            inventoryRepository.restock(inventoryId, reservation.getQuantity());
+        }
     }
 
     @Override
@@ -48,12 +140,18 @@ public class InventoryService implements CrudService<Inventory, InventoryDTO, In
     @Override
     @Transactional(readOnly = true)
     public List<InventoryModel> findAll(int page, int size) {
-        Pageable pageable = PageRequest.of(page, size);
+        Pageable pageable = KeysetPager.pageRequest(page, size);
         return inventoryRepository.findAll(pageable).getContent().stream()
                 .map(this::convertToModel)
                 .collect(Collectors.toList());
     }
 
+    @Override
+    @Transactional(readOnly = true)
+    public CursorPage<InventoryModel> findAll(String cursor, int size) {
+        return keysetPager.page(Inventory.class, cursor, size, this::convertToModel);
+    }
+
     @Override
     @Transactional(readOnly = true)
     public Optional<InventoryModel> findById(Long id) {
@@ -164,7 +262,7 @@ public class InventoryService implements CrudService<Inventory, InventoryDTO, In
     }
     @Override
     public InventoryModel convertToModel(Inventory inventory) {
-        return new InventoryModel(inventory.getId(), inventory.getProduct().getId(), inventory.getQuantity(),
+        return new InventoryModel(inventory.getId(), inventory.getProduct().getId(), inventory.getQuantity(), inventory.getReserved(),
                 DateTimeUtils.formatLocalDateTime(inventory.getCreatedAt()), DateTimeUtils.formatLocalDateTime(inventory.getUpdatedAt()));
     }
 
@@ -1,6 +1,10 @@
 package project.vegist.services;
 
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.github.benmanes.caffeine.cache.Expiry;
 import io.jsonwebtoken.Claims;
+import io.jsonwebtoken.JwtParser;
 import io.jsonwebtoken.Jwts;
 import io.jsonwebtoken.SignatureAlgorithm;
 import io.jsonwebtoken.security.Keys;
@@ -16,11 +20,16 @@ import org.springframework.web.context.request.RequestContextHolder;
 import org.springframework.web.context.request.ServletRequestAttributes;
 import project.vegist.entities.User;
 import project.vegist.models.CustomUserDetail;
+import project.vegist.models.VerifiedToken;
 import project.vegist.repositories.UserRepository;
 
 import javax.crypto.SecretKey;
-import java.util.Collection;
-import java.util.Date;
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.*;
 import java.util.stream.Collectors;
 
 @Service
@@ -28,14 +37,42 @@ public class JwtService {
     private final UserRepository userRepository;
     private final SecretKey secretKey;
     private final Long expiration;
+    // Immutable once built, shared by every request thread
+    private final JwtParser parser;
+    // SHA-256 of the token -> its verified claims, each entry expires with its token
+    private final Cache<String, VerifiedToken> verifiedTokens;
 
     @Autowired
     public JwtService(UserRepository userRepository,
                       @Value("${jwt.secret.key}") String secretKey,
-                      @Value("${jwt.expiration}") Long expiration) {
+                      @Value("${jwt.expiration}") Long expiration,
+                      @Value("${jwt.verified-cache.maximum-size:10000}") long verifiedCacheSize) {
         this.userRepository = userRepository;
         this.secretKey = Keys.hmacShaKeyFor(secretKey.getBytes());
         this.expiration = expiration;
+        this.parser = Jwts.parserBuilder().setSigningKey(this.secretKey).build();
+        this.verifiedTokens = Caffeine.newBuilder()
+                .maximumSize(verifiedCacheSize)
+                .expireAfter(new Expiry<String, VerifiedToken>() {
+                    @Override
+                    public long expireAfterCreate(String key, VerifiedToken token, long currentTime) {
+                        if (token.getExpiration() == null) {
+                            return Duration.ofMillis(expiration).toNanos();
+                        }
+                        return Math.max(0, Duration.between(Instant.now(), token.getExpiration()).toNanos());
+                    }
+
+                    @Override
+                    public long expireAfterUpdate(String key, VerifiedToken token, long currentTime, long currentDuration) {
+                        return currentDuration;
+                    }
+
+                    @Override
+                    public long expireAfterRead(String key, VerifiedToken token, long currentTime, long currentDuration) {
+                        return currentDuration;
+                    }
+                })
+                .build();
     }
 
     private String getUserAgentFromRequest() {
@@ -64,9 +101,9 @@ public class JwtService {
 
     @Transactional
     public String refreshAccessToken(String refreshToken) {
-        if (isTokenValid(refreshToken)) {
-            Claims claims = getClaims(refreshToken);
-            String userEmail = claims.getSubject();
+        Optional<VerifiedToken> verifiedToken = tryVerify(refreshToken);
+        if (verifiedToken.isPresent()) {
+            String userEmail = verifiedToken.get().getSubject();
 
             User user = userRepository.findByEmail(userEmail)
                     .orElseThrow(() -> new UsernameNotFoundException("User not found: " + userEmail));
@@ -125,49 +162,81 @@ public class JwtService {
         return expiredToken;
     }
 
-    public boolean isTokenValid(String token) {
-        try {
-            Jwts.parserBuilder().setSigningKey(secretKey).build().parseClaimsJws(removeBearerPrefix(token));
-            return true;
-        } catch (Exception e) {
-            return false;
-        }
-    }
-
-    public Long getUserIdFromToken(String token) {
+    /**
+     * Verifies the signature and expiry once and returns the token's claims.
+     * Tokens that already passed are answered from a cache keyed by their SHA-256 until they expire.
+     */
+    public VerifiedToken verify(String token) {
         if (StringUtils.isEmpty(token)) {
             throw new IllegalArgumentException("JWT token is null or empty");
         }
 
         String cleanedToken = removeBearerPrefix(token);
+        String tokenHash = hash(cleanedToken);
 
-        Claims claims = Jwts.parserBuilder().setSigningKey(secretKey).build().parseClaimsJws(cleanedToken).getBody();
+        VerifiedToken cached = verifiedTokens.getIfPresent(tokenHash);
+        if (cached != null) {
+            return cached;
+        }
 
-        // Get the user ID from the "userId" claim
-        return claims.get("userId", Long.class);
+        VerifiedToken verified = toVerifiedToken(parser.parseClaimsJws(cleanedToken).getBody());
+        verifiedTokens.put(tokenHash, verified);
+        return verified;
     }
 
-    public String getEmailFromToken(String token) {
-        if (StringUtils.isEmpty(token)) {
-            throw new IllegalArgumentException("JWT token is null or empty");
+    public Optional<VerifiedToken> tryVerify(String token) {
+        try {
+            return Optional.of(verify(token));
+        } catch (Exception e) {
+            return Optional.empty();
         }
+    }
 
-        String cleanedToken = removeBearerPrefix(token);
+    public boolean isTokenValid(String token) {
+        return tryVerify(token).isPresent();
+    }
 
-        Claims claims = Jwts.parserBuilder().setSigningKey(secretKey).build().parseClaimsJws(cleanedToken).getBody();
+    public Long getUserIdFromToken(String token) {
+        return verify(token).getUserId();
+    }
 
-        return claims.get("email", String.class);
+    public String getEmailFromToken(String token) {
+        return verify(token).getEmail();
     }
 
     public Claims getClaims(String token) {
         try {
             String tokenWithoutPrefix = removeBearerPrefix(token);
-            return Jwts.parserBuilder().setSigningKey(secretKey).build().parseClaimsJws(tokenWithoutPrefix).getBody();
+            return parser.parseClaimsJws(tokenWithoutPrefix).getBody();
         } catch (Exception e) {
             throw new RuntimeException("Invalid token or expired token", e);
         }
     }
 
+    private VerifiedToken toVerifiedToken(Claims claims) {
+        Collection<?> roles = claims.get("roles", Collection.class);
+        Set<String> roleNames = roles == null ? Collections.emptySet() : roles.stream()
+                .map(Object::toString)
+                .collect(Collectors.toUnmodifiableSet());
+
+        return new VerifiedToken(
+                claims.get("userId", Long.class),
+                claims.get("email", String.class),
+                claims.getSubject(),
+                roleNames,
+                claims.getIssuedAt() != null ? claims.getIssuedAt().toInstant() : null,
+                claims.getExpiration() != null ? claims.getExpiration().toInstant() : null);
+    }
+
+    private static String hash(String token) {
+        try {
+            MessageDigest digest = MessageDigest.getInstance("SHA-256");
+            return HexFormat.of().formatHex(digest.digest(token.getBytes(StandardCharsets.US_ASCII)));
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException("SHA-256 not available", e);
+        }
+    }
+
     private String removeBearerPrefix(String token) {
         return token.replace("Bearer ", "");
     }
@@ -2,17 +2,21 @@ package project.vegist.services;
 
 import org.apache.commons.lang3.StringUtils;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.cache.annotation.CacheEvict;
+import org.springframework.cache.annotation.Cacheable;
 import org.springframework.dao.DataAccessException;
-import org.springframework.data.domain.PageRequest;
 import org.springframework.data.domain.Pageable;
 import org.springframework.data.jpa.domain.Specification;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
+import project.vegist.configs.CacheConfig;
 import project.vegist.dtos.LabelDTO;
 import project.vegist.entities.Label;
+import project.vegist.models.CursorPage;
 import project.vegist.models.LabelModel;
 import project.vegist.repositories.LabelRepository;
 import project.vegist.services.impls.CrudService;
+import project.vegist.utils.KeysetPager;
 import project.vegist.utils.SpecificationsBuilder;
 
 import java.util.List;
@@ -23,10 +27,12 @@ import java.util.stream.Collectors;
 @Service
 public class LabelService implements CrudService<Label, LabelDTO, LabelModel> {
     private final LabelRepository labelRepository;
+    private final KeysetPager keysetPager;
 
     @Autowired
-    public LabelService(LabelRepository labelRepository) {
+    public LabelService(LabelRepository labelRepository, KeysetPager keysetPager) {
         this.labelRepository = labelRepository;
+        this.keysetPager = keysetPager;
     }
 
     @Transactional(readOnly = true)
@@ -44,7 +50,7 @@ public class LabelService implements CrudService<Label, LabelDTO, LabelModel> {
     @Override
     @Transactional(readOnly = true)
     public List<LabelModel> findAll(int page, int size) {
-        Pageable pageable = PageRequest.of(page, size);
+        Pageable pageable = KeysetPager.pageRequest(page, size);
         return labelRepository.findAll(pageable).getContent().stream()
                 .map(this::convertToModel)
                 .collect(Collectors.toList());
@@ -52,12 +58,24 @@ public class LabelService implements CrudService<Label, LabelDTO, LabelModel> {
 
     @Override
     @Transactional(readOnly = true)
+    public CursorPage<LabelModel> findAll(String cursor, int size) {
+        return keysetPager.page(Label.class, cursor, size, this::convertToModel);
+    }
+
+    @Override
+    @Cacheable(cacheNames = CacheConfig.LABELS, key = "#id", unless = "#result == null")
+    @Transactional(readOnly = true)
     public Optional<LabelModel> findById(Long id) {
         return labelRepository.findById(id).map(this::convertToModel);
     }
 
+    public Label getReference(Long id) {
+        return labelRepository.getReferenceById(id);
+    }
+
     @Override
     @Transactional
+    @CacheEvict(cacheNames = CacheConfig.LABELS, allEntries = true)
     public Optional<LabelModel> create(LabelDTO labelDTO) {
         Label newLabel = new Label();
         convertToEntity(labelDTO, newLabel);
@@ -66,6 +84,7 @@ public class LabelService implements CrudService<Label, LabelDTO, LabelModel> {
 
     @Override
     @Transactional
+    @CacheEvict(cacheNames = CacheConfig.LABELS, allEntries = true)
     public List<LabelModel> createAll(List<LabelDTO> labelDTOS) {
         List<Label> newLabels = labelDTOS.stream()
                 .map(labelDTO -> {
@@ -82,6 +101,7 @@ public class LabelService implements CrudService<Label, LabelDTO, LabelModel> {
 
     @Override
     @Transactional
+    @CacheEvict(cacheNames = CacheConfig.LABELS, allEntries = true)
     public Optional<LabelModel> update(Long id, LabelDTO labelDTO) {
         return labelRepository.findById(id)
                 .map(existingLabel -> {
@@ -92,6 +112,7 @@ public class LabelService implements CrudService<Label, LabelDTO, LabelModel> {
 
     @Override
     @Transactional
+    @CacheEvict(cacheNames = CacheConfig.LABELS, allEntries = true)
     public List<LabelModel> updateAll(Map<Long, LabelDTO> longLabelDTOMap) {
         return longLabelDTOMap.entrySet().stream()
                 .map(entry -> update(entry.getKey(), entry.getValue()))
@@ -101,6 +122,7 @@ public class LabelService implements CrudService<Label, LabelDTO, LabelModel> {
 
     @Override
     @Transactional
+    @CacheEvict(cacheNames = CacheConfig.LABELS, allEntries = true)
     public boolean deleteById(Long id) {
         if (labelRepository.existsById(id)) {
             labelRepository.deleteById(id);
@@ -111,6 +133,7 @@ public class LabelService implements CrudService<Label, LabelDTO, LabelModel> {
 
     @Override
     @Transactional
+    @CacheEvict(cacheNames = CacheConfig.LABELS, allEntries = true)
     public boolean deleteAll(List<Long> ids) {
         List<Label> labelsToDelete = labelRepository.findAllById(ids);
         labelRepository.deleteAll(labelsToDelete);
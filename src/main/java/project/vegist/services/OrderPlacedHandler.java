@@ -0,0 +1,26 @@
+package project.vegist.services;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Component;
+import project.vegist.entities.OutboxEvent;
+
+// Moves the stock reserved by a placed order out of the reserved column; a replay finds nothing left to commit
+@Component
+public class OrderPlacedHandler implements OutboxHandler {
+    private final InventoryService inventoryService;
+
+    @Autowired
+    public OrderPlacedHandler(InventoryService inventoryService) {
+        this.inventoryService = inventoryService;
+    }
+
+    @Override
+    public String eventType() {
+        return OutboxService.ORDER_PLACED;
+    }
+
+    @Override
+    public void handle(OutboxEvent event) {
+        inventoryService.commitOrder(event.getAggregateId());
+    }
+}
@@ -1,29 +1,47 @@
 package project.vegist.services;
 
 import jakarta.persistence.EntityNotFoundException;
+import jakarta.persistence.criteria.Join;
+import jakarta.persistence.criteria.JoinType;
+import jakarta.persistence.criteria.Predicate;
 import org.apache.commons.lang3.StringUtils;
 import org.hibernate.Hibernate;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.data.domain.PageRequest;
 import org.springframework.data.domain.Pageable;
 import org.springframework.data.jpa.domain.Specification;
+import org.springframework.http.HttpStatus;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 import project.vegist.dtos.OrderDTO;
 import project.vegist.entities.*;
 import project.vegist.enums.CartStatus;
+import project.vegist.enums.ExportFormat;
 import project.vegist.enums.OrderStatus;
+import project.vegist.exceptions.BadRequestException;
+import project.vegist.exceptions.UnauthorizedException;
+import project.vegist.models.CouponValidationModel;
+import project.vegist.models.CursorPage;
 import project.vegist.models.OrderDetailModel;
+import project.vegist.models.OrderLineModel;
 import project.vegist.models.OrderModel;
+import project.vegist.models.OrderSummaryModel;
+import project.vegist.projections.OrderSummary;
 import project.vegist.repositories.*;
 import project.vegist.services.impls.CrudService;
 import project.vegist.utils.DateTimeUtils;
+import project.vegist.utils.KeysetPager;
+import project.vegist.utils.PricingEngine;
 import project.vegist.utils.SpecificationsBuilder;
+import project.vegist.utils.TransactionUtils;
 
 import java.io.IOException;
+import java.io.OutputStream;
 import java.math.BigDecimal;
+import java.time.LocalDateTime;
 import java.util.*;
 import java.util.stream.Collectors;
+import java.util.stream.Stream;
 
 @Service
 public class OrderService implements CrudService<Order, OrderDTO, OrderModel> {
@@ -35,9 +53,17 @@ public class OrderService implements CrudService<Order, OrderDTO, OrderModel> {
     private final UserRepository userRepository;
     private final CouponRepository couponRepository;
     private final PaymentRepository paymentRepository;
+    private final InventoryService inventoryService;
+    private final KeysetPager keysetPager;
+    private final ExportService exportService;
+    private final CouponIndex couponIndex;
+    private final CouponRedemptionService couponRedemptionService;
+    private final OutboxService outboxService;
 
     @Autowired
-    public OrderService(OrderRepository orderRepository, OrderDetailRepository orderDetailRepository, CartService cartService, CartRepository cartRepository, CartItemRepository cartItemRepository, UserRepository userRepository, CouponRepository couponRepository, PaymentRepository paymentRepository) {
+    public OrderService(OrderRepository orderRepository, OrderDetailRepository orderDetailRepository, CartService cartService, CartRepository cartRepository, CartItemRepository cartItemRepository, UserRepository userRepository, CouponRepository couponRepository, PaymentRepository paymentRepository,
+                        InventoryService inventoryService, KeysetPager keysetPager, ExportService exportService, CouponIndex couponIndex,
+                        CouponRedemptionService couponRedemptionService, OutboxService outboxService) {
         this.orderRepository = orderRepository;
         this.orderDetailRepository = orderDetailRepository;
         this.cartService = cartService;
@@ -46,6 +72,12 @@ public class OrderService implements CrudService<Order, OrderDTO, OrderModel> {
         this.userRepository = userRepository;
         this.couponRepository = couponRepository;
         this.paymentRepository = paymentRepository;
+        this.inventoryService = inventoryService;
+        this.keysetPager = keysetPager;
+        this.exportService = exportService;
+        this.couponIndex = couponIndex;
+        this.couponRedemptionService = couponRedemptionService;
+        this.outboxService = outboxService;
     }
 
 
@@ -56,10 +88,77 @@ public class OrderService implements CrudService<Order, OrderDTO, OrderModel> {
 
     @Override
     public List<OrderModel> findAll(int page, int size) {
-        Pageable pageable = PageRequest.of(page, size);
+        Pageable pageable = KeysetPager.pageRequest(page, size);
         return orderRepository.findAll(pageable).getContent().stream().map(this::convertToModel).collect(Collectors.toList());
     }
 
+    @Override
+    @Transactional(readOnly = true)
+    public CursorPage<OrderModel> findAll(String cursor, int size) {
+        return keysetPager.page(Order.class, cursor, size, this::convertToModel);
+    }
+
+    /**
+     * One page of the user's orders, newest first.
+     * Orders are read as projections joined with their payment and the lines of the whole page come from one
+     * more query, so a page costs two index range reads however many orders the user has.
+     */
+    @Transactional(readOnly = true)
+    public CursorPage<OrderSummaryModel> findHistory(Long userId, String cursor, int size) {
+        KeysetPager.TimeCursor after = KeysetPager.decodeTimeCursor(cursor);
+        int limit = KeysetPager.clampSize(size);
+        List<OrderSummary> rows = orderRepository.findSummariesByUserId(userId,
+                after == null ? null : after.createdAt(), after == null ? null : after.id(), PageRequest.of(0, limit + 1));
+        return toSummaryPage(rows, limit);
+    }
+
+    // Admin search, newest first; null filters are ignored and the date range is [from, to)
+    @Transactional(readOnly = true)
+    public CursorPage<OrderSummaryModel> searchSummaries(OrderStatus status, Long userId, Long couponId,
+                                                         LocalDateTime from, LocalDateTime to, String cursor, int size) {
+        if (from != null && to != null && !from.isBefore(to)) {
+            throw new BadRequestException("from must be before to");
+        }
+        KeysetPager.TimeCursor after = KeysetPager.decodeTimeCursor(cursor);
+        int limit = KeysetPager.clampSize(size);
+        List<OrderSummary> rows = orderRepository.searchSummaries(status, userId, couponId, from, to,
+                after == null ? null : after.createdAt(), after == null ? null : after.id(), PageRequest.of(0, limit + 1));
+        return toSummaryPage(rows, limit);
+    }
+
+    private CursorPage<OrderSummaryModel> toSummaryPage(List<OrderSummary> rows, int limit) {
+        boolean hasNext = rows.size() > limit;
+        List<OrderSummary> items = hasNext ? rows.subList(0, limit) : rows;
+
+        Map<Long, List<OrderLineModel>> linesByOrderId = new HashMap<>();
+        if (!items.isEmpty()) {
+            orderDetailRepository.findLineSummariesByOrderIds(items.stream().map(OrderSummary::getId).toList())
+                    .forEach(line -> linesByOrderId.computeIfAbsent(line.getOrderId(), orderId -> new ArrayList<>())
+                            .add(new OrderLineModel(line.getProductId(), line.getProductName(), line.getProductPrice(), line.getQuantity())));
+        }
+
+        List<OrderSummaryModel> models = items.stream()
+                .map(row -> new OrderSummaryModel(row.getId(), row.getUserId(), row.getOrderStatus(), row.getCouponId(),
+                        row.getShippingAmount(), row.getTotalAmount(), linesByOrderId.getOrDefault(row.getId(), Collections.emptyList()),
+                        DateTimeUtils.formatLocalDateTime(row.getCreatedAt())))
+                .collect(Collectors.toList());
+
+        String nextCursor = null;
+        if (hasNext) {
+            OrderSummary last = items.get(items.size() - 1);
+            nextCursor = KeysetPager.encodeCursor(last.getCreatedAt(), last.getId());
+        }
+        return new CursorPage<>(models, nextCursor, hasNext);
+    }
+
+    // Streams every order to the output without loading them all, see ExportService
+    @Transactional(readOnly = true)
+    public long export(ExportFormat format, OutputStream outputStream) throws IOException {
+        try (Stream<Order> orders = orderRepository.streamAll()) {
+            return exportService.write(orders, rows -> rows.stream().map(this::convertToModel).collect(Collectors.toList()), format, outputStream);
+        }
+    }
+
     @Override
     public Optional<OrderModel> findById(Long id) {
         return orderRepository.findById(id).map(order -> {
@@ -68,72 +167,101 @@ public class OrderService implements CrudService<Order, OrderDTO, OrderModel> {
         }).map(this::convertToModel);
     }
 
+    /**
+     * Places the order of the user's pending cart.
+     * The cart row is locked first, so a concurrent checkout of the same cart waits and then finds it completed.
+     * The cart is priced in one pass, and the payment, order and details get pooled ids and are written by one
+     * batched flush. A request carrying an idempotency key the user already placed an order with returns that order.
+     * Side effects of the placed order are written to the outbox with it and run by {@link OutboxDispatcher}.
+     */
     @Override
     @Transactional
     public Optional<OrderModel> create(OrderDTO orderDTO) throws IOException {
-        // Check the user's cart with PENDING status
-        Cart userCart = cartRepository.findByUserIdAndStatus(orderDTO.getUserId(), CartStatus.PENDING)
-                .stream()
-                .findFirst()
-                .orElseThrow(() -> new EntityNotFoundException("User's cart with PENDING status not found"));
+        Long userId = orderDTO.getUserId();
+        String idempotencyKey = StringUtils.trimToNull(orderDTO.getIdempotencyKey());
+
+        // The locking read must come first: later plain reads then see what a checkout we waited for committed
+        Optional<Long> cartId = cartRepository.lockPendingCartId(userId);
+
+        if (idempotencyKey != null) {
+            Optional<Order> placedOrder = orderRepository.findByUser_IdAndIdempotencyKey(userId, idempotencyKey);
+            if (placedOrder.isPresent()) {
+                return placedOrder.map(this::convertToModel);
+            }
+        }
+
+        List<CartItem> cartItems = cartItemRepository.findWithProductByCartId(cartId
+                .orElseThrow(() -> new EntityNotFoundException("User's cart with PENDING status not found")));
+        if (cartItems.isEmpty()) {
+            throw new BadRequestException("Cart is empty");
+        }
 
-        // Create a new order and populate it
         Order newOrder = new Order();
         convertToEntity(orderDTO, newOrder);
+        newOrder.setIdempotencyKey(idempotencyKey);
+
+        // One pass over the cart: the order lines priced from the current products, the total and the stock to reserve.
+        // The cart view prices the same way, see CartService.totalsOf
+        PricingEngine.Totals totals = new PricingEngine.Totals()
+                .shipping(PricingEngine.toMinor(orderDTO.getShippingAmount()))
+                .couponPercent(couponPercentOf(newOrder));
+        Map<Long, Integer> quantitiesByProductId = new HashMap<>();
+        List<OrderDetail> orderDetails = new ArrayList<>(cartItems.size());
+        for (CartItem cartItem : cartItems) {
+            long unitPrice = PricingEngine.unitPrice(cartItem.getProduct());
+            totals.addLine(unitPrice, cartItem.getQuantity());
+            quantitiesByProductId.merge(cartItem.getProduct().getId(), cartItem.getQuantity(), Integer::sum);
+            orderDetails.add(convertToOrderDetailEntity(cartItem, PricingEngine.toDecimal(unitPrice), newOrder));
+        }
+        BigDecimal totalAmount = PricingEngine.toDecimal(totals.total());
+
+        // The coupon limits are checked before anything else; the redemption itself is taken last, see record
+        CouponRedemptionService.Reservation couponReservation = newOrder.getCoupon() == null
+                ? null
+                : couponRedemptionService.reserve(newOrder.getCoupon().getId(), userId);
+        if (couponReservation != null) {
+            TransactionUtils.afterRollback(() -> couponRedemptionService.release(couponReservation));
+        }
 
-        // Create payment data
         Payment newPayment = new Payment();
         newPayment.setPaymentMethod(orderDTO.getPaymentMethod());
-        newPayment.setAmount(calculateTotalAmount(userCart.getCartItems(), orderDTO.getShippingAmount()));
+        newPayment.setAmount(totalAmount);
         newPayment.setStatus(orderDTO.getPaymentStatus());
 
-        // Save and set the payment for the order
         newOrder.setPayment(paymentRepository.save(newPayment));
+        newOrder.setOrderDetails(orderDetails);
+        newOrder = orderRepository.save(newOrder);
 
-        // Save the order and flush
-        newOrder = orderRepository.saveAndFlush(newOrder);
-
-        // Save orderDetails and update userCart status
-        List<OrderDetail> savedOrderDetails = saveOrderDetails(newOrder, userCart);
-        newOrder.setOrderDetails(savedOrderDetails);
-        userCart.setStatus(CartStatus.COMPLETED);
-        cartRepository.save(userCart);
+        cartRepository.updateStatus(cartId.get(), CartStatus.COMPLETED);
+        // Committing the stock runs on the outbox workers once the order has committed
+        outboxService.publish(OutboxService.ORDER_PLACED, newOrder.getId(), Map.of("userId", userId));
 
-        // Convert to OrderModel
-        return Optional.ofNullable(convertToModel(newOrder));
-    }
+        // Payment, order, details and outbox event go out together here
+        orderRepository.flush();
 
-    private BigDecimal calculateTotalAmount(List<CartItem> cartItems, BigDecimal shippingAmount) {
-        BigDecimal totalAmount = BigDecimal.ZERO;
-
-        for (CartItem cartItem : cartItems) {
-            totalAmount = totalAmount.add(cartItem.getPrice().multiply(BigDecimal.valueOf(cartItem.getQuantity())));
+        // The hot rows are locked last, so they are held only until the commit: the stock in product id order, then
+        // the coupon. Both are taken in this transaction and come back by themselves if the order is not placed
+        inventoryService.reserve(quantitiesByProductId, newOrder);
+        if (couponReservation != null) {
+            couponRedemptionService.record(couponReservation, newOrder.getId());
         }
 
-        return totalAmount.add(shippingAmount);
-    }
-
-    @Transactional
-    public List<OrderDetail> saveOrderDetails(Order order, Cart cart) {
-        if (cart != null) {
-            List<OrderDetail> orderDetails = cart.getCartItems().stream()
-                    .map(cartItem -> convertToOrderDetailEntity(cartItem, order))
-                    .collect(Collectors.toList());
-
-            // Save orderDetails
-            return orderDetailRepository.saveAll(orderDetails);
-        } else {
-            throw new IllegalArgumentException("Cart cannot be null");
-        }
+        // Only the in-memory state of this instance is updated on the request thread
+        TransactionUtils.afterCommit(() -> {
+            if (couponReservation != null) {
+                couponRedemptionService.commit(couponReservation);
+            }
+            cartService.evictPendingCart(userId);
+        });
+        return Optional.ofNullable(convertToModel(newOrder));
     }
 
-
-    private OrderDetail convertToOrderDetailEntity(CartItem cartItem, Order order) {
+    private OrderDetail convertToOrderDetailEntity(CartItem cartItem, BigDecimal unitPrice, Order order) {
         OrderDetail orderDetail = new OrderDetail();
         // Cài đặt các giá trị cho orderDetail từ cartItem và order
         orderDetail.setOrder(order);
         orderDetail.setProduct(cartItem.getProduct());
-        orderDetail.setProductPrice(cartItem.getPrice());
+        orderDetail.setProductPrice(unitPrice);
         orderDetail.setQuantity(cartItem.getQuantity());
 
         return orderDetail;
@@ -173,10 +301,31 @@ public class OrderService implements CrudService<Order, OrderDTO, OrderModel> {
         return updatedOrders;
     }
 
+    /**
+     * Cancelling puts the order's stock back, whether it was still reserved or already committed.
+     * With an owner id, only that user's order can be cancelled; null is for admins.
+     */
+    @Transactional
+    public Optional<OrderModel> cancel(Long id, Long ownerId) {
+        return orderRepository.findById(id).map(existingOrder -> {
+            if (ownerId != null && !ownerId.equals(existingOrder.getUser().getId())) {
+                throw new UnauthorizedException("You can only cancel your own orders", HttpStatus.FORBIDDEN);
+            }
+            if (existingOrder.getOrderStatus() != OrderStatus.CANCELLED) {
+                existingOrder.setOrderStatus(OrderStatus.CANCELLED);
+                inventoryService.releaseOrder(id);
+                couponRedemptionService.releaseOrders(List.of(id));
+            }
+            return convertToModel(orderRepository.save(existingOrder));
+        });
+    }
+
     @Override
     @Transactional
     public boolean deleteById(Long id) {
         if (orderRepository.existsById(id)) {
+            inventoryService.removeOrderReservations(id);
+            couponRedemptionService.releaseOrders(List.of(id));
             orderRepository.deleteById(id);
             return true;
         }
@@ -188,6 +337,8 @@ public class OrderService implements CrudService<Order, OrderDTO, OrderModel> {
     public boolean deleteAll(List<Long> ids) {
         List<Order> ordersToDelete = orderRepository.findAllById(ids);
         if (!ordersToDelete.isEmpty()) {
+            ordersToDelete.forEach(order -> inventoryService.removeOrderReservations(order.getId()));
+            couponRedemptionService.releaseOrders(ordersToDelete.stream().map(Order::getId).toList());
             orderRepository.deleteAll(ordersToDelete);
             return true;
         }
@@ -200,14 +351,21 @@ public class OrderService implements CrudService<Order, OrderDTO, OrderModel> {
         SpecificationsBuilder<Order> specificationsBuilder = new SpecificationsBuilder<>();
 
         if (!StringUtils.isEmpty(keywords)) {
-            specificationsBuilder
-                    .or(builder -> {
-                        builder.like("user.username", keywords);
-                        builder.like("orderStatus", keywords);
-                        builder.like("coupon.code", keywords);
-                        // Add additional search conditions if needed
-                        // builder.like("anotherField", keywords);
-                    });
+            // Matches the user's email or name, the coupon code, or the status by name
+            String pattern = "%" + keywords + "%";
+            specificationsBuilder.with((root, query, criteriaBuilder) -> {
+                Join<Order, User> user = root.join("user");
+                Join<Order, Coupon> coupon = root.join("coupon", JoinType.LEFT);
+                List<Predicate> matches = new ArrayList<>(List.of(
+                        criteriaBuilder.like(user.get("email"), pattern),
+                        criteriaBuilder.like(user.get("fullName"), pattern),
+                        criteriaBuilder.like(coupon.get("value"), pattern)));
+                Arrays.stream(OrderStatus.values())
+                        .filter(status -> status.name().equalsIgnoreCase(keywords.trim()))
+                        .findFirst()
+                        .ifPresent(status -> matches.add(criteriaBuilder.equal(root.get("orderStatus"), status)));
+                return criteriaBuilder.or(matches.toArray(new Predicate[0]));
+            });
         }
 
         Specification<Order> spec = specificationsBuilder.build();
@@ -241,12 +399,32 @@ public class OrderService implements CrudService<Order, OrderDTO, OrderModel> {
 
         order.setOrderStatus(OrderStatus.DELIVERING);
 
-        if (orderDTO.getCouponId() != null) {
-            order.setCoupon(couponRepository.findById(orderDTO.getCouponId()).orElseThrow(() -> new EntityNotFoundException("Coupon not found with ID: " + orderDTO.getCouponId())));
+        if (orderDTO.getCouponCode() != null || orderDTO.getCouponId() != null) {
+            applyCoupon(orderDTO, order);
         }
 
         order.setShippingAmount(orderDTO.getShippingAmount());
 
     }
 
+    // Read from the coupon index, the order only holds a reference to the coupon
+    private int couponPercentOf(Order order) {
+        if (order.getCoupon() == null) {
+            return 0;
+        }
+        Integer percent = couponIndex.validate(order.getCoupon().getId(), LocalDateTime.now()).getPercent();
+        return percent == null ? 0 : percent;
+    }
+
+    // Checked against the in-memory coupon index; an order keeping the coupon it already has is not checked again
+    private void applyCoupon(OrderDTO orderDTO, Order order) {
+        CouponValidationModel validation = orderDTO.getCouponCode() != null
+                ? couponIndex.validate(orderDTO.getCouponCode(), LocalDateTime.now())
+                : couponIndex.validate(orderDTO.getCouponId(), LocalDateTime.now());
+
+        if (validation.getCouponId() != null && order.getCoupon() != null && validation.getCouponId().equals(order.getCoupon().getId())) {
+            return;
+        }
+        order.setCoupon(couponRepository.getReferenceById(CouponIndex.requireValid(validation).getCouponId()));
+    }
 }
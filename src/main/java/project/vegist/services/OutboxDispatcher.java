@@ -0,0 +1,216 @@
+package project.vegist.services;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.scheduling.concurrent.ThreadPoolTaskExecutor;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionTemplate;
+import project.vegist.entities.OutboxEvent;
+import project.vegist.enums.OutboxStatus;
+import project.vegist.repositories.OutboxEventRepository;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.*;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Background workers delivering outbox events to their {@link OutboxHandler}.
+ * Each worker claims a batch in a short transaction: the due rows are locked with {@code FOR UPDATE SKIP LOCKED},
+ * so workers on any instance never wait on each other, and leased to the worker until {@code available_at}.
+ * A lease that runs out, because its worker died, makes the event claimable again. A failed event is retried with
+ * exponential backoff and jitter and parked as FAILED after the last attempt.
+ * Lag (age of the oldest undelivered event) and backlog size are published as gauges.
+ */
+@Service
+public class OutboxDispatcher {
+    private static final Logger log = LoggerFactory.getLogger(OutboxDispatcher.class);
+
+    private static final List<OutboxStatus> UNDELIVERED = List.of(OutboxStatus.PENDING, OutboxStatus.PROCESSING);
+    private static final int MAX_ERROR_LENGTH = 1000;
+
+    private final OutboxEventRepository outboxEventRepository;
+    private final TransactionTemplate transactionTemplate;
+    private final ThreadPoolTaskExecutor outboxExecutor;
+    private final Map<String, OutboxHandler> handlers = new HashMap<>();
+    private final int workers;
+    private final int batchSize;
+    private final long pollIntervalMs;
+    private final Duration lease;
+    private final int maxAttempts;
+    private final long initialBackoffMs;
+    private final long maxBackoffMs;
+    private final long retentionDays;
+
+    private final Counter delivered;
+    private final Counter retried;
+    private final Counter failed;
+    private final Timer handleTimer;
+    private final AtomicLong lagMillis = new AtomicLong();
+    private final AtomicLong backlog = new AtomicLong();
+
+    private volatile boolean running;
+
+    @Autowired
+    public OutboxDispatcher(OutboxEventRepository outboxEventRepository, TransactionTemplate transactionTemplate,
+                            @Qualifier("outboxExecutor") ThreadPoolTaskExecutor outboxExecutor,
+                            List<OutboxHandler> outboxHandlers, MeterRegistry meterRegistry,
+                            @Value("${outbox.workers:2}") int workers,
+                            @Value("${outbox.batch-size:50}") int batchSize,
+                            @Value("${outbox.poll-interval-ms:500}") long pollIntervalMs,
+                            @Value("${outbox.lease-seconds:60}") long leaseSeconds,
+                            @Value("${outbox.max-attempts:10}") int maxAttempts,
+                            @Value("${outbox.backoff.initial-ms:1000}") long initialBackoffMs,
+                            @Value("${outbox.backoff.max-ms:300000}") long maxBackoffMs,
+                            @Value("${outbox.retention-days:7}") long retentionDays) {
+        this.outboxEventRepository = outboxEventRepository;
+        this.transactionTemplate = transactionTemplate;
+        this.outboxExecutor = outboxExecutor;
+        outboxHandlers.forEach(handler -> {
+            if (handlers.putIfAbsent(handler.eventType(), handler) != null) {
+                throw new IllegalStateException("Two outbox handlers for event type " + handler.eventType());
+            }
+        });
+        this.workers = workers;
+        this.batchSize = batchSize;
+        this.pollIntervalMs = pollIntervalMs;
+        this.lease = Duration.ofSeconds(leaseSeconds);
+        this.maxAttempts = maxAttempts;
+        this.initialBackoffMs = initialBackoffMs;
+        this.maxBackoffMs = maxBackoffMs;
+        this.retentionDays = retentionDays;
+
+        this.delivered = meterRegistry.counter("outbox.events", "result", "delivered");
+        this.retried = meterRegistry.counter("outbox.events", "result", "retried");
+        this.failed = meterRegistry.counter("outbox.events", "result", "failed");
+        this.handleTimer = meterRegistry.timer("outbox.events.handle");
+        Gauge.builder("outbox.lag.seconds", lagMillis, lag -> lag.get() / 1000.0).register(meterRegistry);
+        Gauge.builder("outbox.backlog", backlog, AtomicLong::get).register(meterRegistry);
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void start() {
+        running = true;
+        String instance = UUID.randomUUID().toString();
+        for (int i = 0; i < workers; i++) {
+            String owner = instance + "-" + i;
+            outboxExecutor.execute(() -> runWorker(owner));
+        }
+        log.info("Started {} outbox workers for event types {}", workers, handlers.keySet());
+    }
+
+    // Workers finish the batch in hand; its events are claimed again once their leases run out
+    @PreDestroy
+    public void stop() {
+        running = false;
+    }
+
+    // The gauges read these values, a metrics scrape never queries the database
+    @Scheduled(fixedDelayString = "${outbox.metrics-interval-ms:10000}")
+    public void refreshMetrics() {
+        LocalDateTime oldest = outboxEventRepository.findOldestCreatedAt(UNDELIVERED);
+        lagMillis.set(oldest == null ? 0 : Math.max(0, Duration.between(oldest, LocalDateTime.now()).toMillis()));
+        backlog.set(outboxEventRepository.countByStatusIn(UNDELIVERED));
+    }
+
+    @Scheduled(cron = "${outbox.cleanup-cron:0 0 4 * * *}")
+    public void deleteDeliveredEvents() {
+        Integer deleted = transactionTemplate.execute(status ->
+                outboxEventRepository.deleteProcessedBefore(OutboxStatus.DONE, LocalDateTime.now().minusDays(retentionDays)));
+        log.info("Deleted {} delivered outbox events", deleted);
+    }
+
+    private void runWorker(String owner) {
+        while (running) {
+            List<OutboxEvent> batch;
+            try {
+                batch = claim(owner);
+            } catch (RuntimeException e) {
+                log.warn("Failed to claim outbox events", e);
+                batch = Collections.emptyList();
+            }
+
+            if (batch.isEmpty()) {
+                try {
+                    Thread.sleep(pollIntervalMs);
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                    return;
+                }
+                continue;
+            }
+            batch.forEach(event -> deliver(event, owner));
+        }
+    }
+
+    private List<OutboxEvent> claim(String owner) {
+        return transactionTemplate.execute(status -> {
+            LocalDateTime now = LocalDateTime.now();
+            List<Long> ids = outboxEventRepository.lockClaimable(now, batchSize);
+            if (ids.isEmpty()) {
+                return Collections.<OutboxEvent>emptyList();
+            }
+            outboxEventRepository.lease(ids, OutboxStatus.PROCESSING, owner, now.plus(lease));
+            List<OutboxEvent> events = new ArrayList<>(outboxEventRepository.findAllById(ids));
+            events.sort(Comparator.comparing(OutboxEvent::getId));
+            return events;
+        });
+    }
+
+    private void deliver(OutboxEvent event, String owner) {
+        OutboxHandler handler = handlers.get(event.getEventType());
+        try {
+            if (handler == null) {
+                throw new IllegalStateException("No outbox handler for event type " + event.getEventType());
+            }
+            handleTimer.record(() -> handler.handle(event));
+            transactionTemplate.executeWithoutResult(status ->
+                    outboxEventRepository.complete(event.getId(), owner, OutboxStatus.DONE, LocalDateTime.now()));
+            delivered.increment();
+        } catch (RuntimeException e) {
+            // attempts already counts this delivery, it was bumped when the event was leased
+            boolean lastAttempt = event.getAttempts() >= maxAttempts;
+            LocalDateTime retryAt = LocalDateTime.now().plus(Duration.ofMillis(backoffMillis(event.getAttempts())));
+            try {
+                transactionTemplate.executeWithoutResult(status -> outboxEventRepository.reschedule(event.getId(), owner,
+                        lastAttempt ? OutboxStatus.FAILED : OutboxStatus.PENDING, retryAt, errorOf(e)));
+            } catch (RuntimeException rescheduleFailure) {
+                log.warn("Could not reschedule outbox event {}, it is retried when its lease runs out", event.getId(), rescheduleFailure);
+            }
+            if (lastAttempt) {
+                failed.increment();
+                log.error("Outbox event {} ({}) failed after {} attempts", event.getId(), event.getEventType(), event.getAttempts(), e);
+            } else {
+                retried.increment();
+                log.warn("Outbox event {} ({}) failed, retrying at {}", event.getId(), event.getEventType(), retryAt, e);
+            }
+        }
+    }
+
+    // initial * 2^(attempts - 1), capped, with up to 20% jitter so failed events do not retry in lockstep
+    private long backoffMillis(int attempts) {
+        int shift = Math.min(Math.max(attempts - 1, 0), 30);
+        long backoff = Math.min(maxBackoffMs, initialBackoffMs << shift);
+        if (backoff <= 0) {
+            backoff = maxBackoffMs;
+        }
+        return backoff + ThreadLocalRandom.current().nextLong(backoff / 5 + 1);
+    }
+
+    private static String errorOf(Exception e) {
+        String error = e.toString();
+        return error.length() > MAX_ERROR_LENGTH ? error.substring(0, MAX_ERROR_LENGTH) : error;
+    }
+}
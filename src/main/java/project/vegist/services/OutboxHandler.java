@@ -0,0 +1,14 @@
+package project.vegist.services;
+
+import project.vegist.entities.OutboxEvent;
+
+/**
+ * Runs the side effect of one outbox event type.
+ * Delivery is at least once: an event is handled again when its worker dies or fails to mark it done,
+ * so a handler must be idempotent. A thrown exception schedules a retry with backoff.
+ */
+public interface OutboxHandler {
+    String eventType();
+
+    void handle(OutboxEvent event);
+}
@@ -0,0 +1,55 @@
+package project.vegist.services;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+import project.vegist.entities.OutboxEvent;
+import project.vegist.enums.OutboxStatus;
+import project.vegist.repositories.OutboxEventRepository;
+
+import java.io.UncheckedIOException;
+import java.time.LocalDateTime;
+
+/**
+ * Writes outbox events in the caller's transaction, so an event exists exactly when the change that raised it
+ * committed. {@link OutboxDispatcher} workers pick the events up afterwards.
+ */
+@Service
+public class OutboxService {
+    public static final String ORDER_PLACED = "ORDER_PLACED";
+
+    private final OutboxEventRepository outboxEventRepository;
+    private final ObjectMapper objectMapper;
+
+    @Autowired
+    public OutboxService(OutboxEventRepository outboxEventRepository, ObjectMapper objectMapper) {
+        this.outboxEventRepository = outboxEventRepository;
+        this.objectMapper = objectMapper;
+    }
+
+    // The payload is stored as JSON; the event is inserted with the caller's next flush
+    @Transactional(propagation = Propagation.MANDATORY)
+    public void publish(String eventType, Long aggregateId, Object payload) {
+        OutboxEvent event = new OutboxEvent();
+        event.setEventType(eventType);
+        event.setAggregateId(aggregateId);
+        event.setPayload(toJson(payload));
+        event.setStatus(OutboxStatus.PENDING);
+        event.setAvailableAt(LocalDateTime.now());
+        outboxEventRepository.save(event);
+    }
+
+    private String toJson(Object payload) {
+        if (payload == null) {
+            return null;
+        }
+        try {
+            return objectMapper.writeValueAsString(payload);
+        } catch (JsonProcessingException e) {
+            throw new UncheckedIOException("Failed to serialize outbox payload", e);
+        }
+    }
+}
@@ -0,0 +1,65 @@
+package project.vegist.services;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.security.core.userdetails.UserDetails;
+import org.springframework.stereotype.Service;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.util.function.Supplier;
+
+/**
+ * Principals of authenticated access tokens, keyed by user id and token issue time.
+ * A token issued before the user's roles last changed is reported as stale so the caller rebuilds
+ * the principal from the database instead of trusting the roles claim.
+ */
+@Service
+public class PrincipalCache {
+    private final boolean enabled;
+    private final Cache<Key, UserDetails> principals;
+    // userId -> last time the user's roles or account changed; older tokens have expired once the entry does
+    private final Cache<Long, Long> changedAt;
+    private volatile long allChangedAt;
+
+    public PrincipalCache(@Value("${jwt.principal-cache.enabled:true}") boolean enabled,
+                          @Value("${jwt.principal-cache.maximum-size:10000}") long maximumSize,
+                          @Value("${jwt.expiration}") long expiration) {
+        this.enabled = enabled;
+        this.principals = Caffeine.newBuilder()
+                .maximumSize(maximumSize)
+                .expireAfterWrite(Duration.ofMillis(expiration))
+                .build();
+        this.changedAt = Caffeine.newBuilder()
+                .expireAfterWrite(Duration.ofMillis(expiration))
+                .build();
+    }
+
+    public UserDetails get(Long userId, Instant issuedAt, Supplier<UserDetails> loader) {
+        if (!enabled) {
+            return loader.get();
+        }
+        return principals.get(new Key(userId, issuedAt.toEpochMilli()), key -> loader.get());
+    }
+
+    public boolean isStale(Long userId, Instant issuedAt) {
+        long issued = issuedAt.toEpochMilli();
+        Long userChangedAt = changedAt.getIfPresent(userId);
+        return issued < allChangedAt || (userChangedAt != null && issued < userChangedAt);
+    }
+
+    public void invalidateUser(Long userId) {
+        changedAt.put(userId, System.currentTimeMillis());
+        principals.asMap().keySet().removeIf(key -> key.userId.equals(userId));
+    }
+
+    // A role itself changed, every principal may carry it
+    public void invalidateAll() {
+        allChangedAt = System.currentTimeMillis();
+        principals.invalidateAll();
+    }
+
+    private record Key(Long userId, long issuedAt) {
+    }
+}
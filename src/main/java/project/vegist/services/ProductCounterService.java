@@ -0,0 +1,141 @@
+package project.vegist.services;
+
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionTemplate;
+import project.vegist.entities.CounterFlush;
+import project.vegist.repositories.CounterFlushRepository;
+import project.vegist.repositories.ProductRepository;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * In-memory view and wishlist counters of products, flushed to the products table as deltas.
+ * Increments only touch a striped {@link LongAdder}; a scheduled flush moves the accumulated deltas into one
+ * batched {@code UPDATE ... SET view_count = view_count + ?}. Each flush is recorded under its own id in the same
+ * transaction and a failed flush is retried with the same id and deltas, so an update that committed before the
+ * failure was seen is never applied twice. Increments not flushed yet are lost on a crash, never counted twice.
+ */
+@Service
+public class ProductCounterService {
+    private static final Logger log = LoggerFactory.getLogger(ProductCounterService.class);
+
+    private static final String UPDATE_SQL = "UPDATE products SET view_count = COALESCE(view_count, 0) + ?, "
+            + "wishlist_count = GREATEST(COALESCE(wishlist_count, 0) + ?, 0) WHERE id = ?";
+
+    private final ProductRepository productRepository;
+    private final CounterFlushRepository counterFlushRepository;
+    private final JdbcTemplate jdbcTemplate;
+    private final TransactionTemplate transactionTemplate;
+
+    private final Map<Long, Counters> counters = new ConcurrentHashMap<>();
+    // The flush that failed with an unknown outcome, retried as is before new deltas are taken; guarded by this
+    private PendingFlush pendingFlush;
+
+    @Autowired
+    public ProductCounterService(ProductRepository productRepository, CounterFlushRepository counterFlushRepository,
+                                 JdbcTemplate jdbcTemplate, TransactionTemplate transactionTemplate) {
+        this.productRepository = productRepository;
+        this.counterFlushRepository = counterFlushRepository;
+        this.jdbcTemplate = jdbcTemplate;
+        this.transactionTemplate = transactionTemplate;
+    }
+
+    // Returns false for an unknown product; only its first increment checks the database
+    public boolean incrementViews(Long productId) {
+        Counters productCounters = countersOf(productId);
+        if (productCounters == null) {
+            return false;
+        }
+        productCounters.views.increment();
+        return true;
+    }
+
+    // Called after a wishlist entry commits (+1) or is deleted (-1)
+    public void addWishlist(Long productId, long delta) {
+        Counters productCounters = countersOf(productId);
+        if (productCounters != null) {
+            productCounters.wishlists.add(delta);
+        }
+    }
+
+    @Scheduled(fixedDelayString = "${product-counter.flush-interval-ms:5000}")
+    public synchronized void flush() {
+        if (pendingFlush == null) {
+            List<Object[]> deltas = new ArrayList<>();
+            counters.forEach((productId, productCounters) -> {
+                long views = productCounters.views.sumThenReset();
+                long wishlists = productCounters.wishlists.sumThenReset();
+                if (views != 0 || wishlists != 0) {
+                    deltas.add(new Object[]{views, wishlists, productId});
+                }
+            });
+            if (deltas.isEmpty()) {
+                return;
+            }
+            pendingFlush = new PendingFlush(UUID.randomUUID().toString(), deltas);
+        }
+
+        PendingFlush flush = pendingFlush;
+        try {
+            transactionTemplate.executeWithoutResult(status -> {
+                if (counterFlushRepository.existsById(flush.id())) {
+                    return;
+                }
+                counterFlushRepository.save(new CounterFlush(flush.id(), LocalDateTime.now()));
+                jdbcTemplate.batchUpdate(UPDATE_SQL, flush.deltas());
+            });
+            pendingFlush = null;
+        } catch (RuntimeException e) {
+            log.warn("Failed to flush counters of {} products, retrying on the next run", flush.deltas().size(), e);
+        }
+    }
+
+    @Scheduled(cron = "${product-counter.cleanup-cron:0 30 3 * * *}")
+    @Transactional
+    public void deleteOldFlushes() {
+        counterFlushRepository.deleteFlushedBefore(LocalDateTime.now().minusDays(1));
+    }
+
+    @PreDestroy
+    public void flushOnShutdown() {
+        flush();
+        // A second run takes the deltas left behind when the first one retried a pending flush
+        flush();
+    }
+
+    public void remove(Long productId) {
+        counters.remove(productId);
+    }
+
+    private Counters countersOf(Long productId) {
+        Counters productCounters = counters.get(productId);
+        if (productCounters == null) {
+            if (!productRepository.existsById(productId)) {
+                return null;
+            }
+            productCounters = counters.computeIfAbsent(productId, id -> new Counters());
+        }
+        return productCounters;
+    }
+
+    private static final class Counters {
+        private final LongAdder views = new LongAdder();
+        private final LongAdder wishlists = new LongAdder();
+    }
+
+    private record PendingFlush(String id, List<Object[]> deltas) {
+    }
+}
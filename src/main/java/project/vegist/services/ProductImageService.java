@@ -2,17 +2,18 @@ package project.vegist.services;
 
 import org.apache.commons.lang3.StringUtils;
 import org.springframework.beans.factory.annotation.Autowired;
-import org.springframework.data.domain.PageRequest;
 import org.springframework.data.domain.Pageable;
 import org.springframework.data.jpa.domain.Specification;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 import project.vegist.dtos.ProductImageDTO;
 import project.vegist.entities.ProductImage;
+import project.vegist.models.CursorPage;
 import project.vegist.models.ProductImageModel;
 import project.vegist.repositories.ProductImageRepository;
 import project.vegist.repositories.ProductRepository;
 import project.vegist.services.impls.CrudService;
+import project.vegist.utils.KeysetPager;
 import project.vegist.utils.SpecificationsBuilder;
 
 import java.io.IOException;
@@ -25,11 +26,13 @@ import java.util.stream.Collectors;
 public class ProductImageService implements CrudService<ProductImage, ProductImageDTO, ProductImageModel> {
     private final ProductImageRepository productImageRepository;
     private final ProductRepository productRepository;
+    private final KeysetPager keysetPager;
 
     @Autowired
-    public ProductImageService(ProductImageRepository productImageRepository, ProductRepository productRepository) {
+    public ProductImageService(ProductImageRepository productImageRepository, ProductRepository productRepository, KeysetPager keysetPager) {
         this.productImageRepository = productImageRepository;
         this.productRepository = productRepository;
+        this.keysetPager = keysetPager;
     }
 
     @Override
@@ -41,12 +44,18 @@ public class ProductImageService implements CrudService<ProductImage, ProductIma
 
     @Override
     public List<ProductImageModel> findAll(int page, int size) {
-        Pageable pageable = PageRequest.of(page, size);
+        Pageable pageable = KeysetPager.pageRequest(page, size);
         return productImageRepository.findAll(pageable).getContent().stream()
                 .map(this::convertToModel)
                 .collect(Collectors.toList());
     }
 
+    @Override
+    @Transactional(readOnly = true)
+    public CursorPage<ProductImageModel> findAll(String cursor, int size) {
+        return keysetPager.page(ProductImage.class, cursor, size, this::convertToModel);
+    }
+
     @Override
     public Optional<ProductImageModel> findById(Long id) {
         return productImageRepository.findById(id).map(this::convertToModel);
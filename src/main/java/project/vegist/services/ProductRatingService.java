@@ -0,0 +1,171 @@
+package project.vegist.services;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+import project.vegist.entities.ProductRatingSummary;
+import project.vegist.entities.Review;
+import project.vegist.models.ProductRatingModel;
+import project.vegist.repositories.ProductRatingSummaryRepository;
+import project.vegist.utils.TransactionUtils;
+
+import java.util.*;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Rating summaries of products (review count, rating sum and a 5 bucket histogram).
+ * Review writes add their deltas to the product's summary row in the same transaction, so a listing reads one
+ * row per product instead of aggregating its reviews. Summaries are cached in memory and evicted once the
+ * change commits; a summary loaded before that is not cached, see {@link #findByProductIds}.
+ */
+@Service
+public class ProductRatingService {
+    private static final Logger log = LoggerFactory.getLogger(ProductRatingService.class);
+
+    public static final int MIN_RATING = 1;
+    public static final int MAX_RATING = 5;
+
+    private static final ProductRatingModel NO_RATINGS = toModel(null);
+    private static final int GENERATION_STRIPES = 1024;
+
+    private final ProductRatingSummaryRepository productRatingSummaryRepository;
+    private final Cache<Long, ProductRatingModel> summaries;
+    // Bumped before a product's summary is evicted, so a load that read the row earlier cannot cache it
+    private final AtomicLong[] cacheGenerations = new AtomicLong[GENERATION_STRIPES];
+
+    @Autowired
+    public ProductRatingService(ProductRatingSummaryRepository productRatingSummaryRepository,
+                                @Value("${product-rating.cache.spec:maximumSize=10000,expireAfterWrite=10m}") String cacheSpec) {
+        this.productRatingSummaryRepository = productRatingSummaryRepository;
+        this.summaries = Caffeine.from(cacheSpec).build();
+        for (int i = 0; i < cacheGenerations.length; i++) {
+            cacheGenerations[i] = new AtomicLong();
+        }
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    @Transactional
+    public void insertMissingSummaries() {
+        int inserted = productRatingSummaryRepository.insertMissing();
+        if (inserted > 0) {
+            log.info("Built rating summaries of {} products from their reviews", inserted);
+        }
+    }
+
+    public ProductRatingModel findByProductId(Long productId) {
+        return findByProductIds(Collections.singletonList(productId)).get(productId);
+    }
+
+    /**
+     * Products without reviews map to an empty summary; the misses of the batch are loaded with one IN query.
+     * A loaded summary is cached only if no change of the product committed since the load started, and is taken
+     * out again if one committed while it was being put.
+     */
+    public Map<Long, ProductRatingModel> findByProductIds(Collection<Long> productIds) {
+        Map<Long, ProductRatingModel> found = new HashMap<>(summaries.getAllPresent(productIds));
+        List<Long> missingIds = productIds.stream()
+                .filter(productId -> !found.containsKey(productId))
+                .distinct()
+                .toList();
+        if (missingIds.isEmpty()) {
+            return found;
+        }
+
+        long[] loadedAt = new long[missingIds.size()];
+        for (int i = 0; i < loadedAt.length; i++) {
+            loadedAt[i] = generationOf(missingIds.get(i)).get();
+        }
+        Map<Long, ProductRatingModel> loaded = new HashMap<>();
+        productRatingSummaryRepository.findAllById(missingIds)
+                .forEach(summary -> loaded.put(summary.getProductId(), toModel(summary)));
+
+        for (int i = 0; i < loadedAt.length; i++) {
+            Long productId = missingIds.get(i);
+            ProductRatingModel summary = loaded.getOrDefault(productId, NO_RATINGS);
+            found.put(productId, summary);
+            AtomicLong generation = generationOf(productId);
+            if (generation.get() == loadedAt[i] && summaries.asMap().putIfAbsent(productId, summary) == null
+                    && generation.get() != loadedAt[i]) {
+                summaries.asMap().remove(productId, summary);
+            }
+        }
+        return found;
+    }
+
+    /**
+     * Moves the summaries from the {@code removed} ratings to the {@code added} ones.
+     * An updated review is passed in both, with its values before and after the update.
+     * Must run in the transaction writing the reviews.
+     */
+    public void recordChanges(Collection<Rating> removed, Collection<Rating> added) {
+        Map<Long, long[]> deltasByProductId = new HashMap<>();
+        removed.forEach(rating -> addDelta(deltasByProductId, rating, -1));
+        added.forEach(rating -> addDelta(deltasByProductId, rating, 1));
+
+        List<Long> changedProductIds = new ArrayList<>();
+        deltasByProductId.forEach((productId, deltas) -> {
+            if (Arrays.stream(deltas).allMatch(delta -> delta == 0)) {
+                return;
+            }
+            productRatingSummaryRepository.addDeltas(productId, deltas[0], deltas[1],
+                    deltas[2], deltas[3], deltas[4], deltas[5], deltas[6]);
+            changedProductIds.add(productId);
+        });
+
+        if (!changedProductIds.isEmpty()) {
+            TransactionUtils.afterCommit(() -> evict(changedProductIds));
+        }
+    }
+
+    // Called when products are deleted, their reviews go with them
+    public void deleteByProductIds(Collection<Long> productIds) {
+        if (productIds.isEmpty()) {
+            return;
+        }
+        productRatingSummaryRepository.deleteByProductIds(productIds);
+        TransactionUtils.afterCommit(() -> evict(productIds));
+    }
+
+    private void evict(Collection<Long> productIds) {
+        productIds.forEach(productId -> generationOf(productId).incrementAndGet());
+        summaries.invalidateAll(productIds);
+    }
+
+    private AtomicLong generationOf(Long productId) {
+        return cacheGenerations[Math.floorMod(productId.hashCode(), cacheGenerations.length)];
+    }
+
+    // deltas: count, sum, then one bucket per star; ratings outside 1..5 were never counted
+    private static void addDelta(Map<Long, long[]> deltasByProductId, Rating rating, int sign) {
+        if (rating.rating() == null || rating.rating() < MIN_RATING || rating.rating() > MAX_RATING) {
+            return;
+        }
+        long[] deltas = deltasByProductId.computeIfAbsent(rating.productId(), productId -> new long[2 + MAX_RATING]);
+        deltas[0] += sign;
+        deltas[1] += (long) sign * rating.rating();
+        deltas[1 + rating.rating()] += sign;
+    }
+
+    private static ProductRatingModel toModel(ProductRatingSummary summary) {
+        if (summary == null || summary.getRatingCount() <= 0) {
+            return new ProductRatingModel(0L, 0.0, List.of(0L, 0L, 0L, 0L, 0L));
+        }
+        double average = Math.round(summary.getRatingSum() * 100.0 / summary.getRatingCount()) / 100.0;
+        return new ProductRatingModel(summary.getRatingCount(), average,
+                List.of(summary.getStars1(), summary.getStars2(), summary.getStars3(), summary.getStars4(), summary.getStars5()));
+    }
+
+    // The product and star rating of a review, taken before the review is changed
+    public record Rating(Long productId, Integer rating) {
+        public static Rating of(Review review) {
+            return new Rating(review.getProduct().getId(), review.getRating());
+        }
+    }
+}
@@ -0,0 +1,206 @@
+package project.vegist.services;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Slice;
+import org.springframework.data.domain.Sort;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+import project.vegist.entities.Product;
+import project.vegist.repositories.ProductRepository;
+import project.vegist.utils.TextUtils;
+
+import java.util.*;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+
+/**
+ * In-memory inverted index over product name, SKU and description.
+ * Terms are folded (lower case, no Vietnamese diacritics), the last characters typed match as a prefix,
+ * and hits are ranked with BM25.
+ */
+@Service
+public class ProductSearchIndex {
+    private static final Logger log = LoggerFactory.getLogger(ProductSearchIndex.class);
+
+    private static final double K1 = 1.2;
+    private static final double B = 0.75;
+    private static final double PREFIX_BOOST = 0.5;
+    private static final int MAX_PREFIX_EXPANSIONS = 64;
+    private static final int REBUILD_BATCH_SIZE = 500;
+
+    // Field weights are applied as repeated term frequency
+    private static final int NAME_WEIGHT = 3;
+    private static final int SKU_WEIGHT = 2;
+    private static final int DESCRIPTION_WEIGHT = 1;
+
+    private final ProductRepository productRepository;
+    private final ReadWriteLock lock = new ReentrantReadWriteLock();
+
+    // term -> (productId -> weighted term frequency)
+    private final NavigableMap<String, Map<Long, Integer>> postings = new TreeMap<>();
+    // productId -> (term -> weighted term frequency), kept to remove a product's postings on update/delete
+    private final Map<Long, Map<String, Integer>> documents = new HashMap<>();
+    private final Map<Long, Integer> documentLengths = new HashMap<>();
+    private long totalLength;
+
+    @Autowired
+    public ProductSearchIndex(ProductRepository productRepository) {
+        this.productRepository = productRepository;
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    @Transactional(readOnly = true)
+    public void rebuild() {
+        long start = System.currentTimeMillis();
+        int page = 0;
+        Slice<Product> slice;
+        do {
+            slice = productRepository.findAll(PageRequest.of(page++, REBUILD_BATCH_SIZE, Sort.by("id")));
+            slice.getContent().forEach(this::index);
+        } while (slice.hasNext());
+        log.info("Product search index built with {} products in {} ms", size(), System.currentTimeMillis() - start);
+    }
+
+    public void index(Product product) {
+        Map<String, Integer> termFrequencies = new HashMap<>();
+        addTerms(termFrequencies, product.getProductName(), NAME_WEIGHT);
+        addTerms(termFrequencies, product.getSKU(), SKU_WEIGHT);
+        addTerms(termFrequencies, product.getDescription(), DESCRIPTION_WEIGHT);
+
+        lock.writeLock().lock();
+        try {
+            removeLocked(product.getId());
+            int length = 0;
+            for (Map.Entry<String, Integer> entry : termFrequencies.entrySet()) {
+                postings.computeIfAbsent(entry.getKey(), key -> new HashMap<>()).put(product.getId(), entry.getValue());
+                length += entry.getValue();
+            }
+            documents.put(product.getId(), termFrequencies);
+            documentLengths.put(product.getId(), length);
+            totalLength += length;
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    public void remove(Long productId) {
+        lock.writeLock().lock();
+        try {
+            removeLocked(productId);
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    public int size() {
+        lock.readLock().lock();
+        try {
+            return documents.size();
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    /**
+     * Returns the ids of the best matching products for the requested page, best match first.
+     */
+    public List<Long> search(String keywords, int page, int size) {
+        List<String> queryTokens = TextUtils.tokenize(keywords);
+        if (queryTokens.isEmpty() || size <= 0 || page < 0) {
+            return Collections.emptyList();
+        }
+
+        Map<Long, Double> scores = new HashMap<>();
+        lock.readLock().lock();
+        try {
+            if (documents.isEmpty()) {
+                return Collections.emptyList();
+            }
+            double averageLength = (double) totalLength / documents.size();
+
+            for (String token : new LinkedHashSet<>(queryTokens)) {
+                // A document matching a token through several expansions only keeps its best one
+                Map<Long, Double> tokenScores = new HashMap<>();
+                int expansions = 0;
+                for (Map.Entry<String, Map<Long, Integer>> entry : postings.subMap(token, true, token + Character.MAX_VALUE, true).entrySet()) {
+                    if (expansions++ >= MAX_PREFIX_EXPANSIONS) {
+                        break;
+                    }
+                    double boost = entry.getKey().equals(token) ? 1.0 : PREFIX_BOOST;
+                    double idf = idf(entry.getValue().size());
+                    entry.getValue().forEach((productId, frequency) -> {
+                        double length = documentLengths.getOrDefault(productId, 0);
+                        double tf = frequency * (K1 + 1) / (frequency + K1 * (1 - B + B * length / averageLength));
+                        tokenScores.merge(productId, boost * idf * tf, Math::max);
+                    });
+                }
+                tokenScores.forEach((productId, score) -> scores.merge(productId, score, Double::sum));
+            }
+        } finally {
+            lock.readLock().unlock();
+        }
+
+        return topHits(scores, page, size);
+    }
+
+    private List<Long> topHits(Map<Long, Double> scores, int page, int size) {
+        long limit = (long) (page + 1) * size;
+        if (scores.isEmpty() || (long) page * size >= scores.size()) {
+            return Collections.emptyList();
+        }
+
+        Comparator<Map.Entry<Long, Double>> ranking = Map.Entry.<Long, Double>comparingByValue()
+                .thenComparing(Map.Entry.<Long, Double>comparingByKey().reversed());
+
+        // Keep only the (page + 1) * size best hits instead of sorting every match
+        PriorityQueue<Map.Entry<Long, Double>> best = new PriorityQueue<>(ranking);
+        for (Map.Entry<Long, Double> entry : scores.entrySet()) {
+            best.offer(entry);
+            if (best.size() > limit) {
+                best.poll();
+            }
+        }
+
+        List<Long> ranked = new ArrayList<>(best.size());
+        while (!best.isEmpty()) {
+            ranked.add(best.poll().getKey());
+        }
+        Collections.reverse(ranked);
+
+        int from = page * size;
+        return ranked.subList(Math.min(from, ranked.size()), ranked.size());
+    }
+
+    private double idf(int documentFrequency) {
+        int documentCount = documents.size();
+        return Math.log(1 + (documentCount - documentFrequency + 0.5) / (documentFrequency + 0.5));
+    }
+
+    private void removeLocked(Long productId) {
+        Map<String, Integer> termFrequencies = documents.remove(productId);
+        if (termFrequencies == null) {
+            return;
+        }
+        totalLength -= documentLengths.remove(productId);
+        termFrequencies.keySet().forEach(term -> {
+            Map<Long, Integer> posting = postings.get(term);
+            if (posting != null) {
+                posting.remove(productId);
+                if (posting.isEmpty()) {
+                    postings.remove(term);
+                }
+            }
+        });
+    }
+
+    private static void addTerms(Map<String, Integer> termFrequencies, String text, int weight) {
+        for (String token : TextUtils.tokenize(text)) {
+            termFrequencies.merge(token, weight, Integer::sum);
+        }
+    }
+}
@@ -2,71 +2,101 @@ package project.vegist.services;
 
 import org.apache.commons.lang3.StringUtils;
 import org.springframework.beans.factory.annotation.Autowired;
-import org.springframework.data.domain.PageRequest;
 import org.springframework.data.domain.Pageable;
-import org.springframework.data.jpa.domain.Specification;
 import org.springframework.http.HttpStatus;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionTemplate;
 import org.springframework.web.multipart.MultipartFile;
+import project.vegist.common.AppConstants;
 import project.vegist.dtos.ProductDTO;
 import project.vegist.entities.Product;
 import project.vegist.entities.ProductImage;
 import project.vegist.entities.ProductUnit;
 import project.vegist.entities.Unit;
+import project.vegist.enums.ExportFormat;
 import project.vegist.exceptions.ResourceNotFoundException;
+import project.vegist.models.CursorPage;
 import project.vegist.models.ProductImageModel;
 import project.vegist.models.ProductModel;
+import project.vegist.models.ProductRatingModel;
 import project.vegist.models.ProductUnitModel;
 import project.vegist.repositories.*;
 import project.vegist.services.impls.CrudService;
 import project.vegist.utils.DateTimeUtils;
 import project.vegist.utils.FileUtils;
-import project.vegist.utils.SpecificationsBuilder;
+import project.vegist.utils.KeysetPager;
+import project.vegist.utils.TransactionUtils;
 
 import java.io.IOException;
+import java.io.OutputStream;
 import java.util.*;
 import java.util.stream.Collectors;
+import java.util.stream.Stream;
 
 @Service
 public class ProductService implements CrudService<Product, ProductDTO, ProductModel> {
 
     private final ProductRepository productRepository;
     private final ProductImageRepository productImageRepository;
-    private final CategoryRepository categoryRepository;
-    private final LabelRepository labelRepository;
+    private final CategoryService categoryService;
+    private final LabelService labelService;
     private final ProductUnitRepository productUnitRepository;
-    private final UnitRepository unitRepository;
+    private final UnitService unitService;
     private final FileUtils fileUtils;
+    private final ProductSearchIndex productSearchIndex;
+    private final TransactionTemplate transactionTemplate;
+    private final KeysetPager keysetPager;
+    private final ExportService exportService;
+    private final ProductCounterService productCounterService;
+    private final ProductRatingService productRatingService;
 
     @Autowired
     public ProductService(ProductRepository productRepository, ProductImageRepository productImageRepository,
-                          CategoryRepository categoryRepository, LabelRepository labelRepository, FileUtils fileUtils, ProductUnitRepository productUnitRepository, UnitRepository unitRepository) {
+                          CategoryService categoryService, LabelService labelService, FileUtils fileUtils, ProductUnitRepository productUnitRepository, UnitService unitService,
+                          ProductSearchIndex productSearchIndex, TransactionTemplate transactionTemplate, KeysetPager keysetPager, ExportService exportService,
+                          ProductCounterService productCounterService, ProductRatingService productRatingService) {
         this.productRepository = productRepository;
         this.productImageRepository = productImageRepository;
-        this.categoryRepository = categoryRepository;
-        this.labelRepository = labelRepository;
+        this.categoryService = categoryService;
+        this.labelService = labelService;
         this.fileUtils = fileUtils;
         this.productUnitRepository = productUnitRepository;
-        this.unitRepository = unitRepository;
+        this.unitService = unitService;
+        this.productSearchIndex = productSearchIndex;
+        this.transactionTemplate = transactionTemplate;
+        this.keysetPager = keysetPager;
+        this.exportService = exportService;
+        this.productCounterService = productCounterService;
+        this.productRatingService = productRatingService;
     }
 
 
     @Override
     @Transactional(readOnly = true)
     public List<ProductModel> findAll() {
-        return productRepository.findAll().stream()
-                .map(this::convertToModel)
-                .collect(Collectors.toList());
+        return convertToModels(productRepository.findAll());
     }
 
     @Override
     @Transactional(readOnly = true)
     public List<ProductModel> findAll(int page, int size) {
-        Pageable pageable = PageRequest.of(page, size);
-        return productRepository.findAll(pageable).getContent().stream()
-                .map(this::convertToModel)
-                .collect(Collectors.toList());
+        Pageable pageable = KeysetPager.pageRequest(page, size);
+        return convertToModels(productRepository.findAll(pageable).getContent());
+    }
+
+    @Override
+    @Transactional(readOnly = true)
+    public CursorPage<ProductModel> findAll(String cursor, int size) {
+        return keysetPager.pageBatched(Product.class, cursor, size, this::convertToModels);
+    }
+
+    // Streams every product to the output without loading them all, see ExportService
+    @Transactional(readOnly = true)
+    public long export(ExportFormat format, OutputStream outputStream) throws IOException {
+        try (Stream<Product> products = productRepository.streamAll()) {
+            return exportService.write(products, this::convertToModels, format, outputStream);
+        }
     }
 
     @Override
@@ -76,91 +106,99 @@ public class ProductService implements CrudService<Product, ProductDTO, ProductM
     }
 
     @Override
-    @Transactional
     public Optional<ProductModel> create(ProductDTO productDTO) throws IOException {
+        List<String> uploadedFiles = Collections.emptyList();
         try {
-            // Save the new product
-            String thumbnailFileName = fileUtils.uploadFile(productDTO.getThumbnail(), true);
-            Product newProduct = new Product();
-            convertToEntity(productDTO, newProduct);
-            newProduct.setThumbnail(thumbnailFileName);
-            newProduct = productRepository.save(newProduct);
-
-            final Product finalProduct = newProduct;
-
-            // Save the product units
-            List<ProductUnit> productUnits = productDTO.getUnitIds().stream()
-                    .map(unitId -> new ProductUnit(finalProduct, getUnitById(unitId)))
-                    .collect(Collectors.toList());
+            // Upload the thumbnail and images concurrently before a database connection is taken
+            uploadedFiles = fileUtils.uploadFiles(filesOf(productDTO), true);
+            List<String> storedFiles = uploadedFiles;
 
-            productUnitRepository.saveAll(productUnits);
-
-            // Save the product images
-            List<ProductImage> productImages = productDTO.getImagesProduct().stream()
-                    .map(productFile -> {
-                        try {
-                            String productFileName = fileUtils.uploadFile(productFile, true);
-                            if (productFileName != null) {
-                                return new ProductImage(finalProduct, productFileName);
-                            } else {
-                                throw new RuntimeException("Failed to upload product image: " + productFile.getOriginalFilename());
-                            }
-                        } catch (IOException e) {
-                            throw new RuntimeException(e);
-                        }
-                    })
-                    .collect(Collectors.toList());
-
-            productImageRepository.saveAll(productImages);
-
-            return Optional.ofNullable(convertToModel(finalProduct));
+            ProductModel createdProduct = transactionTemplate.execute(status ->
+                    convertToModel(saveProduct(productDTO, storedFiles)));
+            return Optional.ofNullable(createdProduct);
         } catch (Exception e) {
             e.printStackTrace();
+            // Nothing references the uploaded files when the transaction did not commit
+            uploadedFiles.forEach(fileUtils::deleteFile);
             return Optional.empty(); // or throw a custom exception with a meaningful message
         }
     }
 
 
     private Unit getUnitById(Long unitId) {
-        return unitRepository.findById(unitId)
+        return unitService.findById(unitId)
+                .map(unit -> unitService.getReference(unit.getId()))
                 .orElseThrow(() -> new NoSuchElementException("Unit not found"));
     }
 
     @Override
-    @Transactional
     public List<ProductModel> createAll(List<ProductDTO> productDTOS) throws IOException {
-        List<ProductModel> createdProducts = new ArrayList<>();
+        // All files of the batch go through one upload stage, then one short transaction persists the paths
+        List<List<MultipartFile>> filesPerProduct = productDTOS.stream()
+                .map(this::filesOf)
+                .collect(Collectors.toList());
+        List<String> uploadedFiles = fileUtils.uploadFiles(filesPerProduct.stream()
+                .flatMap(List::stream)
+                .collect(Collectors.toList()), true);
 
-        for (ProductDTO productDTO : productDTOS) {
-            String thumbnailFileName = fileUtils.uploadFile(productDTO.getThumbnail(), true);
-            Product newProduct = new Product();
-            convertToEntity(productDTO, newProduct);
-            newProduct.setThumbnail(thumbnailFileName);
-            newProduct = productRepository.save(newProduct);
+        try {
+            return transactionTemplate.execute(status -> {
+                List<Product> createdProducts = new ArrayList<>();
+                int offset = 0;
+                for (int i = 0; i < productDTOS.size(); i++) {
+                    int fileCount = filesPerProduct.get(i).size();
+                    createdProducts.add(saveProduct(productDTOS.get(i), uploadedFiles.subList(offset, offset + fileCount)));
+                    offset += fileCount;
+                }
+                return convertToModels(createdProducts);
+            });
+        } catch (RuntimeException e) {
+            uploadedFiles.forEach(fileUtils::deleteFile);
+            throw e;
+        }
+    }
 
-            List<ProductImage> productImages = new ArrayList<>();
-            for (MultipartFile productFile : productDTO.getImagesProduct()) {
-                String productFileName = fileUtils.uploadFile(productFile, true);
+    // The thumbnail (when present) comes first, followed by the product images
+    private List<MultipartFile> filesOf(ProductDTO productDTO) {
+        List<MultipartFile> files = new ArrayList<>();
+        if (productDTO.getThumbnail() != null) {
+            files.add(productDTO.getThumbnail());
+        }
+        if (productDTO.getImagesProduct() != null) {
+            files.addAll(productDTO.getImagesProduct());
+        }
+        return files;
+    }
 
-                ProductImage productImage = new ProductImage();
-                productImage.setProduct(newProduct);
-                productImage.setImagePath(productFileName);
-                productImages.add(productImage);
-            }
+    // Persists a product whose files were already uploaded, storedFiles is laid out like filesOf(productDTO)
+    private Product saveProduct(ProductDTO productDTO, List<String> storedFiles) {
+        boolean hasThumbnail = productDTO.getThumbnail() != null;
 
-            productImageRepository.saveAll(productImages);
+        Product newProduct = new Product();
+        convertToEntity(productDTO, newProduct);
+        newProduct.setThumbnail(hasThumbnail ? storedFiles.get(0) : null);
+        Product savedProduct = productRepository.save(newProduct);
 
-            ProductModel createdProductModel = convertToModel(newProduct);
-            createdProducts.add(createdProductModel);
-        }
+        // Save the product units
+        List<ProductUnit> productUnits = Optional.ofNullable(productDTO.getUnitIds()).orElse(Collections.emptyList()).stream()
+                .map(unitId -> new ProductUnit(savedProduct, getUnitById(unitId)))
+                .collect(Collectors.toList());
+        productUnitRepository.saveAll(productUnits);
 
-        return createdProducts;
+        // Save the product images
+        List<ProductImage> productImages = storedFiles.subList(hasThumbnail ? 1 : 0, storedFiles.size()).stream()
+                .map(productFileName -> new ProductImage(savedProduct, productFileName))
+                .collect(Collectors.toList());
+        productImageRepository.saveAll(productImages);
+
+        TransactionUtils.afterCommit(() -> productSearchIndex.index(savedProduct));
+        return savedProduct;
     }
 
     @Override
     @Transactional
     public Optional<ProductModel> update(Long id, ProductDTO productDTO) {
-        return productRepository.findById(id).map(existingProduct -> {
+        return productRepository.findWithUnitsById(id).map(existingProduct -> {
             convertToEntity(productDTO, existingProduct);
 
             List<ProductUnit> existingProductUnits = existingProduct.getProductUnits();
@@ -178,7 +216,8 @@ public class ProductService implements CrudService<Product, ProductDTO, ProductM
             // Remove unwanted units from the repository
             existingProductUnits.removeIf(productUnit -> unitsToRemove.contains(productUnit.getUnit().getId()));
             unitsToRemove.forEach(unitId -> {
-                Unit unitToRemove = unitRepository.findById(unitId)
+                Unit unitToRemove = unitService.findById(unitId)
+                        .map(unit -> unitService.getReference(unit.getId()))
                         .orElseThrow(() -> new ResourceNotFoundException("Unit", unitId, HttpStatus.CONFLICT));
                 ProductUnit productUnitToRemove = new ProductUnit(existingProduct, unitToRemove);
                 productUnitRepository.delete(productUnitToRemove);
@@ -218,6 +257,12 @@ public class ProductService implements CrudService<Product, ProductDTO, ProductM
                     .filter(fileName -> !updatedImageFileNames.contains(fileName))
                     .collect(Collectors.toSet());
 
+            // Every current image row is dropped below, their blobs lose a reference once the update commits
+            List<String> releasedImagePaths = existingProductImages.stream()
+                    .map(ProductImage::getImagePath)
+                    .collect(Collectors.toList());
+            TransactionUtils.afterCommit(() -> releasedImagePaths.forEach(fileUtils::deleteFile));
+
             // Remove unwanted images from the repository
             existingProductImages.removeIf(productImage -> imagesToRemove.contains(FileUtils.getFileNameFromUrl(productImage.getImagePath())));
             existingProductImages.forEach(productImage -> productImageRepository.deleteByProduct_IdAndImagePath(id, productImage.getImagePath()));
@@ -235,6 +280,8 @@ public class ProductService implements CrudService<Product, ProductDTO, ProductM
                         try {
                             // Ensure the complete URL is stored in the database
                             String productFileName = fileUtils.uploadFile(productFile, true);
+                            // Only a committed image row keeps the reference
+                            TransactionUtils.afterRollback(() -> fileUtils.deleteFile(productFileName));
                             return new ProductImage(existingProduct, productFileName);
                         } catch (IOException e) {
                             throw new RuntimeException(e);
@@ -247,6 +294,7 @@ public class ProductService implements CrudService<Product, ProductDTO, ProductM
 
             // Save changes to the product
             Product updatedProduct = productRepository.save(existingProduct);
+            TransactionUtils.afterCommit(() -> productSearchIndex.index(updatedProduct));
 
             return convertToModel(updatedProduct);
         });
@@ -272,62 +320,135 @@ public class ProductService implements CrudService<Product, ProductDTO, ProductM
     @Override
     @Transactional
     public boolean deleteById(Long id) {
-        if (productRepository.existsById(id)) {
-            productRepository.deleteById(id);
-            return true;
-        }
-        return false;
+        return productRepository.findById(id)
+                .map(product -> {
+                    List<String> releasedFilePaths = collectFilePaths(Collections.singletonList(product));
+                    productRepository.delete(product);
+                    productRatingService.deleteByProductIds(Collections.singletonList(id));
+                    TransactionUtils.afterCommit(() -> {
+                        productSearchIndex.remove(id);
+                        productCounterService.remove(id);
+                        releasedFilePaths.forEach(fileUtils::deleteFile);
+                    });
+                    return true;
+                })
+                .orElse(false);
     }
 
     @Override
     @Transactional
     public boolean deleteAll(List<Long> ids) {
         List<Product> productsToDelete = productRepository.findAllById(ids);
+        List<String> releasedFilePaths = collectFilePaths(productsToDelete);
         productRepository.deleteAll(productsToDelete);
+        productRatingService.deleteByProductIds(productsToDelete.stream().map(Product::getId).collect(Collectors.toList()));
+        TransactionUtils.afterCommit(() -> {
+            productsToDelete.forEach(product -> {
+                productSearchIndex.remove(product.getId());
+                productCounterService.remove(product.getId());
+            });
+            releasedFilePaths.forEach(fileUtils::deleteFile);
+        });
         return true;
     }
 
+    // Thumbnails and image paths of the given products, one IN query for all images
+    private List<String> collectFilePaths(List<Product> products) {
+        if (products.isEmpty()) {
+            return Collections.emptyList();
+        }
+
+        List<String> filePaths = products.stream()
+                .map(Product::getThumbnail)
+                .filter(Objects::nonNull)
+                .collect(Collectors.toList());
+
+        List<Long> productIds = products.stream().map(Product::getId).collect(Collectors.toList());
+        productImageRepository.findByProduct_IdIn(productIds).forEach(productImage -> filePaths.add(productImage.getImagePath()));
+        return filePaths;
+    }
+
+    // Unpaged callers get the first page at the largest page size
     @Override
     @Transactional(readOnly = true)
     public List<ProductModel> search(String keywords) {
-        SpecificationsBuilder<Product> specificationsBuilder = new SpecificationsBuilder<>();
-
-        if (!StringUtils.isEmpty(keywords)) {
-            specificationsBuilder
-                    .or(builder -> {
-                        builder.like("productName", keywords);
-                        builder.like("description", keywords);
-                        builder.like("sku", keywords);
-                        // Add additional search conditions if needed
-                        // builder.like("anotherField", keywords);
-                    });
+        if (StringUtils.isEmpty(keywords)) {
+            return findAll(0, AppConstants.MAX_PAGE_SIZE);
+        }
+        return search(keywords, 0, AppConstants.MAX_PAGE_SIZE);
+    }
+
+    // Products of the category and all of its subcategories, one query on the category path
+    @Transactional(readOnly = true)
+    public List<ProductModel> findByCategoryTree(Long categoryId, int page, int size) {
+        String path = categoryService.findPath(categoryId)
+                .orElseThrow(() -> new ResourceNotFoundException("Category", categoryId, HttpStatus.NOT_FOUND));
+        return convertToModels(productRepository.findByCategoryPath(path, KeysetPager.pageRequest(page, size)));
+    }
+
+    // Ranking happens in the in-memory index, the database is only hit for the ids of the requested page
+    @Transactional(readOnly = true)
+    public List<ProductModel> search(String keywords, int page, int size) {
+        return findRanked(productSearchIndex.search(keywords, Math.max(page, 0), KeysetPager.clampSize(size)));
+    }
+
+    private List<ProductModel> findRanked(List<Long> rankedIds) {
+        if (rankedIds.isEmpty()) {
+            return Collections.emptyList();
         }
 
-        Specification<Product> spec = specificationsBuilder.build();
+        Map<Long, Product> productsById = productRepository.findAllById(rankedIds).stream()
+                .collect(Collectors.toMap(Product::getId, product -> product));
 
-        return productRepository.findAll(spec).stream()
-                .map(this::convertToModel)
+        List<Product> rankedProducts = rankedIds.stream()
+                .map(productsById::get)
+                .filter(Objects::nonNull)
                 .collect(Collectors.toList());
+
+        return convertToModels(rankedProducts);
     }
 
     @Override
     public ProductModel convertToModel(Product product) {
-        List<ProductImage> productImages = productImageRepository.findByProduct_Id(product.getId());
-        List<ProductImageModel> productImageModels = productImages.stream()
-                .map(productImage -> new ProductImageModel(productImage.getId(), productImage.getProduct().getId(), productImage.getImagePath()))
+        return convertToModels(Collections.singletonList(product)).get(0);
+    }
+
+    // Images and units of the whole batch are loaded with one IN query each instead of two queries per product
+    public List<ProductModel> convertToModels(List<Product> products) {
+        if (products.isEmpty()) {
+            return Collections.emptyList();
+        }
+
+        List<Long> productIds = products.stream()
+                .map(Product::getId)
                 .collect(Collectors.toList());
 
-        List<ProductUnit> productUnits = productUnitRepository.findByProduct_Id(product.getId());
-        List<ProductUnitModel> productUnitModels = productUnits.stream()
+        Map<Long, List<ProductImageModel>> imagesByProductId = productImageRepository.findByProduct_IdIn(productIds).stream()
+                .map(productImage -> new ProductImageModel(productImage.getId(), productImage.getProduct().getId(), productImage.getImagePath()))
+                .collect(Collectors.groupingBy(ProductImageModel::getProductId));
+
+        Map<Long, List<ProductUnitModel>> unitsByProductId = productUnitRepository.findByProduct_IdIn(productIds).stream()
                 .map(productUnit -> new ProductUnitModel(productUnit.getId(), productUnit.getProduct().getId(), productUnit.getUnit().getId()))
+                .collect(Collectors.groupingBy(ProductUnitModel::getProductId));
+
+        Map<Long, ProductRatingModel> ratingsByProductId = productRatingService.findByProductIds(productIds);
+
+        return products.stream()
+                .map(product -> convertToModel(product,
+                        imagesByProductId.getOrDefault(product.getId(), Collections.emptyList()),
+                        unitsByProductId.getOrDefault(product.getId(), Collections.emptyList()),
+                        ratingsByProductId.get(product.getId())))
                 .collect(Collectors.toList());
+    }
 
+    private ProductModel convertToModel(Product product, List<ProductImageModel> productImageModels, List<ProductUnitModel> productUnitModels,
+                                        ProductRatingModel productRating) {
         return new ProductModel(
                 product.getId(), product.getProductName(), product.getDescription(), product.getPrice(), product.getSalePrice(),
                 product.getSKU(), product.getThumbnail(), product.getIframeVideo(), product.getViewCount(), product.getWishlistCount(),
                 product.getCategory().getId(), product.getLabel().getId(), product.getDiscount(), product.getSeoTitle(),
                 product.getMetaKeys(), product.getMetaDesc(), DateTimeUtils.formatLocalDateTime(product.getCreatedAt()),
-                DateTimeUtils.formatLocalDateTime(product.getUpdatedAt()), productImageModels, productUnitModels);
+                DateTimeUtils.formatLocalDateTime(product.getUpdatedAt()), productImageModels, productUnitModels, productRating);
     }
 
 
@@ -341,10 +462,12 @@ public class ProductService implements CrudService<Product, ProductDTO, ProductM
         product.setViewCount(productDTO.getViewCount());
         product.setWishlistCount(productDTO.getWishlistCount());
 
-        product.setCategory(categoryRepository.findById(productDTO.getCategoryId())
+        product.setCategory(categoryService.findById(productDTO.getCategoryId())
+                .map(category -> categoryService.getReference(category.getId()))
                 .orElseThrow(() -> new NoSuchElementException("Category not found")));
 
-        product.setLabel(labelRepository.findById(productDTO.getLabelId())
+        product.setLabel(labelService.findById(productDTO.getLabelId())
+                .map(label -> labelService.getReference(label.getId()))
                 .orElseThrow(() -> new NoSuchElementException("Label not found")));
 
         product.setDiscount(productDTO.getDiscount());
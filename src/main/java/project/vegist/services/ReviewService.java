@@ -2,7 +2,6 @@ package project.vegist.services;
 
 import org.apache.commons.lang3.StringUtils;
 import org.springframework.beans.factory.annotation.Autowired;
-import org.springframework.data.domain.PageRequest;
 import org.springframework.data.domain.Pageable;
 import org.springframework.data.jpa.domain.Specification;
 import org.springframework.http.HttpStatus;
@@ -13,15 +12,18 @@ import project.vegist.entities.Product;
 import project.vegist.entities.Review;
 import project.vegist.entities.User;
 import project.vegist.exceptions.ResourceNotFoundException;
+import project.vegist.models.CursorPage;
 import project.vegist.models.ReviewModel;
 import project.vegist.repositories.ProductRepository;
 import project.vegist.repositories.ReviewRepository;
 import project.vegist.repositories.UserRepository;
 import project.vegist.services.impls.CrudService;
 import project.vegist.utils.DateTimeUtils;
+import project.vegist.utils.KeysetPager;
 import project.vegist.utils.SpecificationsBuilder;
 
 import java.io.IOException;
+import java.util.ArrayList;
 import java.util.Collections;
 import java.util.List;
 import java.util.Map;
@@ -33,12 +35,17 @@ public class ReviewService implements CrudService<Review, ReviewDTO, ReviewModel
     private final UserRepository userRepository;
     private final ProductRepository productRepository;
     private final ReviewRepository reviewRepository;
+    private final KeysetPager keysetPager;
+    private final ProductRatingService productRatingService;
 
     @Autowired
-    public ReviewService(UserRepository userRepository, ProductRepository productRepository, ReviewRepository reviewRepository) {
+    public ReviewService(UserRepository userRepository, ProductRepository productRepository, ReviewRepository reviewRepository, KeysetPager keysetPager,
+                         ProductRatingService productRatingService) {
         this.userRepository = userRepository;
         this.productRepository = productRepository;
         this.reviewRepository = reviewRepository;
+        this.keysetPager = keysetPager;
+        this.productRatingService = productRatingService;
     }
 
     @Override
@@ -52,12 +59,18 @@ public class ReviewService implements CrudService<Review, ReviewDTO, ReviewModel
     @Override
     @Transactional(readOnly = true)
     public List<ReviewModel> findAll(int page, int size) {
-        Pageable pageable = PageRequest.of(page, size);
+        Pageable pageable = KeysetPager.pageRequest(page, size);
         return reviewRepository.findAll(pageable).getContent().stream()
                 .map(this::convertToModel)
                 .collect(Collectors.toList());
     }
 
+    @Override
+    @Transactional(readOnly = true)
+    public CursorPage<ReviewModel> findAll(String cursor, int size) {
+        return keysetPager.page(Review.class, cursor, size, this::convertToModel);
+    }
+
     @Override
     @Transactional(readOnly = true)
     public Optional<ReviewModel> findById(Long id) {
@@ -69,7 +82,9 @@ public class ReviewService implements CrudService<Review, ReviewDTO, ReviewModel
     public Optional<ReviewModel> create(ReviewDTO reviewDTO) throws IOException {
         Review newReview = new Review();
         convertToEntity(reviewDTO, newReview);
-        return Optional.ofNullable(convertToModel(reviewRepository.save(newReview)));
+        Review savedReview = reviewRepository.save(newReview);
+        productRatingService.recordChanges(Collections.emptyList(), List.of(ProductRatingService.Rating.of(savedReview)));
+        return Optional.ofNullable(convertToModel(savedReview));
     }
 
     @Override
@@ -84,6 +99,7 @@ public class ReviewService implements CrudService<Review, ReviewDTO, ReviewModel
                 .collect(Collectors.toList());
 
         List<Review> savedReviews = reviewRepository.saveAll(newReviews);
+        productRatingService.recordChanges(Collections.emptyList(), toRatings(savedReviews));
         return savedReviews.stream()
                 .map(this::convertToModel)
                 .collect(Collectors.toList());
@@ -94,8 +110,10 @@ public class ReviewService implements CrudService<Review, ReviewDTO, ReviewModel
     public Optional<ReviewModel> update(Long id, ReviewDTO reviewDTO) {
         return reviewRepository.findById(id)
                 .map(existingReview -> {
+                    ProductRatingService.Rating previousRating = ProductRatingService.Rating.of(existingReview);
                     convertToEntity(reviewDTO, existingReview);
                     Review updatedReview = reviewRepository.save(existingReview);
+                    productRatingService.recordChanges(List.of(previousRating), List.of(ProductRatingService.Rating.of(updatedReview)));
                     return convertToModel(updatedReview);
                 });
     }
@@ -103,6 +121,7 @@ public class ReviewService implements CrudService<Review, ReviewDTO, ReviewModel
     @Override
     @Transactional
     public List<ReviewModel> updateAll(Map<Long, ReviewDTO> longReviewDTOMap) {
+        List<ProductRatingService.Rating> previousRatings = new ArrayList<>();
         List<Review> reviewsToUpdate = longReviewDTOMap.entrySet().stream()
                 .map(entry -> {
                     Long reviewId = entry.getKey();
@@ -110,12 +129,14 @@ public class ReviewService implements CrudService<Review, ReviewDTO, ReviewModel
                     Review existingReview = reviewRepository.findById(reviewId)
                             .orElseThrow(() -> new ResourceNotFoundException("Review", reviewId, HttpStatus.NOT_FOUND));
 
+                    previousRatings.add(ProductRatingService.Rating.of(existingReview));
                     convertToEntity(reviewDTO, existingReview);
                     return existingReview;
                 })
                 .collect(Collectors.toList());
 
         List<Review> updatedReviews = reviewRepository.saveAll(reviewsToUpdate);
+        productRatingService.recordChanges(previousRatings, toRatings(updatedReviews));
         return updatedReviews.stream()
                 .map(this::convertToModel)
                 .collect(Collectors.toList());
@@ -124,11 +145,13 @@ public class ReviewService implements CrudService<Review, ReviewDTO, ReviewModel
     @Override
     @Transactional
     public boolean deleteById(Long id) {
-        if (reviewRepository.existsById(id)) {
-            reviewRepository.deleteById(id);
-            return true;
-        }
-        return false;
+        return reviewRepository.findById(id)
+                .map(review -> {
+                    reviewRepository.delete(review);
+                    productRatingService.recordChanges(List.of(ProductRatingService.Rating.of(review)), Collections.emptyList());
+                    return true;
+                })
+                .orElse(false);
     }
 
     @Override
@@ -136,9 +159,16 @@ public class ReviewService implements CrudService<Review, ReviewDTO, ReviewModel
     public boolean deleteAll(List<Long> ids) {
         List<Review> reviewsToDelete = reviewRepository.findAllById(ids);
         reviewRepository.deleteAll(reviewsToDelete);
+        productRatingService.recordChanges(toRatings(reviewsToDelete), Collections.emptyList());
         return true;
     }
 
+    private static List<ProductRatingService.Rating> toRatings(List<Review> reviews) {
+        return reviews.stream()
+                .map(ProductRatingService.Rating::of)
+                .collect(Collectors.toList());
+    }
+
     @Override
     @Transactional(readOnly = true)
     public List<ReviewModel> search(String keywords) {
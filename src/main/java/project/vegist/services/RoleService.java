@@ -2,17 +2,22 @@ package project.vegist.services;
 
 import org.apache.commons.lang3.StringUtils;
 import org.springframework.beans.factory.annotation.Autowired;
-import org.springframework.data.domain.PageRequest;
+import org.springframework.cache.annotation.CacheEvict;
+import org.springframework.cache.annotation.Cacheable;
 import org.springframework.data.domain.Pageable;
 import org.springframework.data.jpa.domain.Specification;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
+import project.vegist.configs.CacheConfig;
 import project.vegist.dtos.RoleDTO;
 import project.vegist.entities.Role;
+import project.vegist.models.CursorPage;
 import project.vegist.models.RoleModel;
 import project.vegist.repositories.RoleRepository;
 import project.vegist.services.impls.CrudService;
+import project.vegist.utils.KeysetPager;
 import project.vegist.utils.SpecificationsBuilder;
+import project.vegist.utils.TransactionUtils;
 
 import java.util.Collections;
 import java.util.List;
@@ -23,10 +28,14 @@ import java.util.stream.Collectors;
 @Service
 public class RoleService implements CrudService<Role, RoleDTO, RoleModel> {
     private final RoleRepository roleRepository;
+    private final PrincipalCache principalCache;
+    private final KeysetPager keysetPager;
 
     @Autowired
-    public RoleService(RoleRepository roleRepository) {
+    public RoleService(RoleRepository roleRepository, PrincipalCache principalCache, KeysetPager keysetPager) {
         this.roleRepository = roleRepository;
+        this.principalCache = principalCache;
+        this.keysetPager = keysetPager;
     }
 
     @Override
@@ -40,7 +49,7 @@ public class RoleService implements CrudService<Role, RoleDTO, RoleModel> {
     @Override
     @Transactional(readOnly = true)
     public List<RoleModel> findAll(int page, int size) {
-        Pageable pageable = PageRequest.of(page, size);
+        Pageable pageable = KeysetPager.pageRequest(page, size);
         return roleRepository.findAll(pageable).getContent().stream()
                 .map(this::convertToModel)
                 .collect(Collectors.toList());
@@ -48,12 +57,30 @@ public class RoleService implements CrudService<Role, RoleDTO, RoleModel> {
 
     @Override
     @Transactional(readOnly = true)
+    public CursorPage<RoleModel> findAll(String cursor, int size) {
+        return keysetPager.page(Role.class, cursor, size, this::convertToModel);
+    }
+
+    @Override
+    @Cacheable(cacheNames = CacheConfig.ROLES, key = "#id", unless = "#result == null")
+    @Transactional(readOnly = true)
     public Optional<RoleModel> findById(Long id) {
         return roleRepository.findById(id).map(this::convertToModel);
     }
 
+    public Role getReference(Long id) {
+        return roleRepository.getReferenceById(id);
+    }
+
+    @Cacheable(cacheNames = CacheConfig.ROLES_BY_NAME, key = "#roleName", unless = "#result == null")
+    @Transactional(readOnly = true)
+    public Optional<RoleModel> findByName(String roleName) {
+        return roleRepository.findByRoleName(roleName).map(this::convertToModel);
+    }
+
     @Override
     @Transactional
+    @CacheEvict(cacheNames = {CacheConfig.ROLES, CacheConfig.ROLES_BY_NAME}, allEntries = true)
     public Optional<RoleModel> create(RoleDTO roleDTO) {
         Role newRole = new Role();
         convertToEntity(roleDTO, newRole);
@@ -61,8 +88,18 @@ public class RoleService implements CrudService<Role, RoleDTO, RoleModel> {
         return Optional.ofNullable(convertToModel(savedRole));
     }
 
+    // Used when another aggregate needs a role that does not exist yet
+    @Transactional
+    @CacheEvict(cacheNames = {CacheConfig.ROLES, CacheConfig.ROLES_BY_NAME}, allEntries = true)
+    public Role createEntity(String roleName) {
+        Role newRole = new Role();
+        newRole.setRoleName(roleName);
+        return roleRepository.save(newRole);
+    }
+
     @Override
     @Transactional
+    @CacheEvict(cacheNames = {CacheConfig.ROLES, CacheConfig.ROLES_BY_NAME}, allEntries = true)
     public List<RoleModel> createAll(List<RoleDTO> roleDTOS) {
         List<Role> newRoles = roleDTOS.stream()
                 .map(roleDTO -> {
@@ -80,17 +117,21 @@ public class RoleService implements CrudService<Role, RoleDTO, RoleModel> {
 
     @Override
     @Transactional
+    @CacheEvict(cacheNames = {CacheConfig.ROLES, CacheConfig.ROLES_BY_NAME}, allEntries = true)
     public Optional<RoleModel> update(Long id, RoleDTO roleDTO) {
         return roleRepository.findById(id)
                 .map(existingRole -> {
                     convertToEntity(roleDTO, existingRole);
                     Role updatedRole = roleRepository.save(existingRole);
+                    // Tokens carry role names, a renamed role makes every issued roles claim suspect
+                    TransactionUtils.afterCommit(principalCache::invalidateAll);
                     return convertToModel(updatedRole);
                 });
     }
 
     @Override
     @Transactional
+    @CacheEvict(cacheNames = {CacheConfig.ROLES, CacheConfig.ROLES_BY_NAME}, allEntries = true)
     public List<RoleModel> updateAll(Map<Long, RoleDTO> longRoleDTOMap) {
         return longRoleDTOMap.entrySet().stream()
                 .map(entry -> update(entry.getKey(), entry.getValue()))
@@ -101,9 +142,11 @@ public class RoleService implements CrudService<Role, RoleDTO, RoleModel> {
 
     @Override
     @Transactional
+    @CacheEvict(cacheNames = {CacheConfig.ROLES, CacheConfig.ROLES_BY_NAME}, allEntries = true)
     public boolean deleteById(Long id) {
         if (roleRepository.existsById(id)) {
             roleRepository.deleteById(id);
+            TransactionUtils.afterCommit(principalCache::invalidateAll);
             return true;
         }
         return false;
@@ -111,9 +154,11 @@ public class RoleService implements CrudService<Role, RoleDTO, RoleModel> {
 
     @Override
     @Transactional
+    @CacheEvict(cacheNames = {CacheConfig.ROLES, CacheConfig.ROLES_BY_NAME}, allEntries = true)
     public boolean deleteAll(List<Long> ids) {
         List<Role> rolesToDelete = roleRepository.findAllById(ids);
         roleRepository.deleteAll(rolesToDelete);
+        TransactionUtils.afterCommit(principalCache::invalidateAll);
         return true;
     }
 
@@ -2,17 +2,21 @@ package project.vegist.services;
 
 import org.apache.commons.lang3.StringUtils;
 import org.springframework.beans.factory.annotation.Autowired;
-import org.springframework.data.domain.PageRequest;
+import org.springframework.cache.annotation.CacheEvict;
+import org.springframework.cache.annotation.Cacheable;
 import org.springframework.data.domain.Pageable;
 import org.springframework.data.jpa.domain.Specification;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
+import project.vegist.configs.CacheConfig;
 import project.vegist.dtos.TagDTO;
 import project.vegist.entities.Tag;
+import project.vegist.models.CursorPage;
 import project.vegist.models.TagModel;
 import project.vegist.repositories.TagRepository;
 import project.vegist.services.impls.CrudService;
 import project.vegist.utils.DateTimeUtils;
+import project.vegist.utils.KeysetPager;
 import project.vegist.utils.SpecificationsBuilder;
 
 import java.util.List;
@@ -23,10 +27,12 @@ import java.util.stream.Collectors;
 @Service
 public class TagService implements CrudService<Tag, TagDTO, TagModel> {
     private final TagRepository tagRepository;
+    private final KeysetPager keysetPager;
 
     @Autowired
-    public TagService(TagRepository tagRepository) {
+    public TagService(TagRepository tagRepository, KeysetPager keysetPager) {
         this.tagRepository = tagRepository;
+        this.keysetPager = keysetPager;
     }
 
     @Override
@@ -40,7 +46,7 @@ public class TagService implements CrudService<Tag, TagDTO, TagModel> {
     @Override
     @Transactional(readOnly = true)
     public List<TagModel> findAll(int page, int size) {
-        Pageable pageable = PageRequest.of(page, size);
+        Pageable pageable = KeysetPager.pageRequest(page, size);
         return tagRepository.findAll(pageable).getContent().stream()
                 .map(this::convertToModel)
                 .collect(Collectors.toList());
@@ -48,12 +54,24 @@ public class TagService implements CrudService<Tag, TagDTO, TagModel> {
 
     @Override
     @Transactional(readOnly = true)
+    public CursorPage<TagModel> findAll(String cursor, int size) {
+        return keysetPager.page(Tag.class, cursor, size, this::convertToModel);
+    }
+
+    @Override
+    @Cacheable(cacheNames = CacheConfig.TAGS, key = "#id", unless = "#result == null")
+    @Transactional(readOnly = true)
     public Optional<TagModel> findById(Long id) {
         return tagRepository.findById(id).map(this::convertToModel);
     }
 
+    public Tag getReference(Long id) {
+        return tagRepository.getReferenceById(id);
+    }
+
     @Override
     @Transactional
+    @CacheEvict(cacheNames = CacheConfig.TAGS, allEntries = true)
     public Optional<TagModel> create(TagDTO tagDTO) {
         Tag newTag = new Tag();
         convertToEntity(tagDTO, newTag);
@@ -63,6 +81,7 @@ public class TagService implements CrudService<Tag, TagDTO, TagModel> {
 
     @Override
     @Transactional
+    @CacheEvict(cacheNames = CacheConfig.TAGS, allEntries = true)
     public List<TagModel> createAll(List<TagDTO> tagDTOS) {
         List<Tag> tagsToSave = tagDTOS.stream()
                 .map(tagDTO -> {
@@ -80,6 +99,7 @@ public class TagService implements CrudService<Tag, TagDTO, TagModel> {
 
     @Override
     @Transactional
+    @CacheEvict(cacheNames = CacheConfig.TAGS, allEntries = true)
     public Optional<TagModel> update(Long id, TagDTO tagDTO) {
         return tagRepository.findById(id)
                 .map(existingTag -> {
@@ -91,6 +111,7 @@ public class TagService implements CrudService<Tag, TagDTO, TagModel> {
 
     @Override
     @Transactional
+    @CacheEvict(cacheNames = CacheConfig.TAGS, allEntries = true)
     public List<TagModel> updateAll(Map<Long, TagDTO> longTagDTOMap) {
         return longTagDTOMap.entrySet().stream()
                 .map(entry -> update(entry.getKey(), entry.getValue()))
@@ -101,6 +122,7 @@ public class TagService implements CrudService<Tag, TagDTO, TagModel> {
 
     @Override
     @Transactional
+    @CacheEvict(cacheNames = CacheConfig.TAGS, allEntries = true)
     public boolean deleteById(Long id) {
         if (tagRepository.existsById(id)) {
             tagRepository.deleteById(id);
@@ -111,6 +133,7 @@ public class TagService implements CrudService<Tag, TagDTO, TagModel> {
 
     @Override
     @Transactional
+    @CacheEvict(cacheNames = CacheConfig.TAGS, allEntries = true)
     public boolean deleteAll(List<Long> ids) {
         List<Tag> tagsToDelete = tagRepository.findAllById(ids);
         if (!tagsToDelete.isEmpty()) {
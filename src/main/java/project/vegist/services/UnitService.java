@@ -2,16 +2,20 @@ package project.vegist.services;
 
 import org.apache.commons.lang3.StringUtils;
 import org.springframework.beans.factory.annotation.Autowired;
-import org.springframework.data.domain.PageRequest;
+import org.springframework.cache.annotation.CacheEvict;
+import org.springframework.cache.annotation.Cacheable;
 import org.springframework.data.domain.Pageable;
 import org.springframework.data.jpa.domain.Specification;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
+import project.vegist.configs.CacheConfig;
 import project.vegist.dtos.UnitDTO;
 import project.vegist.entities.Unit;
+import project.vegist.models.CursorPage;
 import project.vegist.models.UnitModel;
 import project.vegist.repositories.UnitRepository;
 import project.vegist.services.impls.CrudService;
+import project.vegist.utils.KeysetPager;
 import project.vegist.utils.SpecificationsBuilder;
 
 import java.util.List;
@@ -23,10 +27,12 @@ import java.util.stream.Collectors;
 @Transactional
 public class UnitService implements CrudService<Unit, UnitDTO, UnitModel> {
     private final UnitRepository unitRepository;
+    private final KeysetPager keysetPager;
 
     @Autowired
-    public UnitService(UnitRepository unitRepository) {
+    public UnitService(UnitRepository unitRepository, KeysetPager keysetPager) {
         this.unitRepository = unitRepository;
+        this.keysetPager = keysetPager;
     }
 
     @Override
@@ -40,7 +46,7 @@ public class UnitService implements CrudService<Unit, UnitDTO, UnitModel> {
     @Override
     @Transactional(readOnly = true)
     public List<UnitModel> findAll(int page, int size) {
-        Pageable pageable = PageRequest.of(page, size);
+        Pageable pageable = KeysetPager.pageRequest(page, size);
         return unitRepository.findAll(pageable).getContent().stream()
                 .map(this::convertToModel)
                 .collect(Collectors.toList());
@@ -48,12 +54,24 @@ public class UnitService implements CrudService<Unit, UnitDTO, UnitModel> {
 
     @Override
     @Transactional(readOnly = true)
+    public CursorPage<UnitModel> findAll(String cursor, int size) {
+        return keysetPager.page(Unit.class, cursor, size, this::convertToModel);
+    }
+
+    @Override
+    @Cacheable(cacheNames = CacheConfig.UNITS, key = "#id", unless = "#result == null")
+    @Transactional(readOnly = true)
     public Optional<UnitModel> findById(Long id) {
         return unitRepository.findById(id).map(this::convertToModel);
     }
 
+    public Unit getReference(Long id) {
+        return unitRepository.getReferenceById(id);
+    }
+
     @Override
     @Transactional
+    @CacheEvict(cacheNames = CacheConfig.UNITS, allEntries = true)
     public Optional<UnitModel> create(UnitDTO unitDTO) {
         Unit newUnit = new Unit();
         convertToEntity(unitDTO, newUnit);
@@ -63,6 +81,7 @@ public class UnitService implements CrudService<Unit, UnitDTO, UnitModel> {
 
     @Override
     @Transactional
+    @CacheEvict(cacheNames = CacheConfig.UNITS, allEntries = true)
     public List<UnitModel> createAll(List<UnitDTO> unitDTOS) {
         List<Unit> unitsToSave = unitDTOS.stream()
                 .map(unitDTO -> {
@@ -79,6 +98,7 @@ public class UnitService implements CrudService<Unit, UnitDTO, UnitModel> {
 
     @Override
     @Transactional
+    @CacheEvict(cacheNames = CacheConfig.UNITS, allEntries = true)
     public Optional<UnitModel> update(Long id, UnitDTO unitDTO) {
         return unitRepository.findById(id)
                 .map(existingUnit -> {
@@ -90,6 +110,7 @@ public class UnitService implements CrudService<Unit, UnitDTO, UnitModel> {
 
     @Override
     @Transactional
+    @CacheEvict(cacheNames = CacheConfig.UNITS, allEntries = true)
     public List<UnitModel> updateAll(Map<Long, UnitDTO> longUnitDTOMap) {
         List<UnitModel> updatedUnitModels = longUnitDTOMap.entrySet().stream()
                 .map(entry -> update(entry.getKey(), entry.getValue()))
@@ -101,6 +122,7 @@ public class UnitService implements CrudService<Unit, UnitDTO, UnitModel> {
 
     @Override
     @Transactional
+    @CacheEvict(cacheNames = CacheConfig.UNITS, allEntries = true)
     public boolean deleteById(Long id) {
         if (unitRepository.existsById(id)) {
             unitRepository.deleteById(id);
@@ -111,6 +133,7 @@ public class UnitService implements CrudService<Unit, UnitDTO, UnitModel> {
 
     @Override
     @Transactional
+    @CacheEvict(cacheNames = CacheConfig.UNITS, allEntries = true)
     public boolean deleteAll(List<Long> ids) {
         List<Unit> unitsToDelete = unitRepository.findAllById(ids);
         unitRepository.deleteAll(unitsToDelete);
@@ -0,0 +1,192 @@
+package project.vegist.services;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.PersistenceContext;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.concurrent.ThreadPoolTaskExecutor;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionTemplate;
+import project.vegist.entities.Action;
+import project.vegist.entities.User;
+import project.vegist.entities.UserAction;
+import project.vegist.repositories.ActionRepository;
+import project.vegist.repositories.UserActionRepository;
+import project.vegist.repositories.UserRepository;
+import project.vegist.utils.RingBuffer;
+
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.locks.LockSupport;
+import java.util.stream.Collectors;
+
+/**
+ * Write-behind ingestion of user actions.
+ * Request threads only append an event to a bounded lock-free ring buffer; a single flusher on the user action
+ * executor drains it and inserts the events in JDBC batches once a batch is full or the flush interval has passed.
+ * When the buffer is full a producer spins briefly and then drops the event, so a slow database never blocks a request.
+ * Events whose user or action no longer exists are rejected at flush time instead of failing the batch.
+ */
+@Service
+public class UserActionIngestor {
+    private static final Logger log = LoggerFactory.getLogger(UserActionIngestor.class);
+
+    private final UserActionRepository userActionRepository;
+    private final UserRepository userRepository;
+    private final ActionRepository actionRepository;
+    private final TransactionTemplate transactionTemplate;
+    private final ThreadPoolTaskExecutor userActionExecutor;
+    private final RingBuffer<Event> buffer;
+    private final int batchSize;
+    private final long flushIntervalNanos;
+    private final int offerSpins;
+
+    private final Counter accepted;
+    private final Counter dropped;
+    private final Counter rejected;
+    private final Counter flushed;
+    private final Counter flushFailures;
+
+    @PersistenceContext
+    private EntityManager entityManager;
+
+    private volatile boolean running;
+    private volatile Thread flusher;
+    private Future<?> flushing;
+
+    @Autowired
+    public UserActionIngestor(UserActionRepository userActionRepository, UserRepository userRepository, ActionRepository actionRepository,
+                              TransactionTemplate transactionTemplate, MeterRegistry meterRegistry,
+                              @Qualifier("userActionExecutor") ThreadPoolTaskExecutor userActionExecutor,
+                              @Value("${user-action.buffer.capacity:65536}") int capacity,
+                              @Value("${user-action.buffer.batch-size:500}") int batchSize,
+                              @Value("${user-action.buffer.flush-interval-ms:1000}") long flushIntervalMs,
+                              @Value("${user-action.buffer.offer-spins:100}") int offerSpins) {
+        this.userActionRepository = userActionRepository;
+        this.userRepository = userRepository;
+        this.actionRepository = actionRepository;
+        this.transactionTemplate = transactionTemplate;
+        this.userActionExecutor = userActionExecutor;
+        this.buffer = new RingBuffer<>(capacity);
+        this.batchSize = batchSize;
+        this.flushIntervalNanos = TimeUnit.MILLISECONDS.toNanos(flushIntervalMs);
+        this.offerSpins = offerSpins;
+
+        this.accepted = meterRegistry.counter("user.actions.ingest", "result", "accepted");
+        this.dropped = meterRegistry.counter("user.actions.ingest", "result", "dropped");
+        this.rejected = meterRegistry.counter("user.actions.ingest", "result", "rejected");
+        this.flushed = meterRegistry.counter("user.actions.ingest", "result", "flushed");
+        this.flushFailures = meterRegistry.counter("user.actions.ingest.flush.failures");
+        Gauge.builder("user.actions.ingest.buffer.size", buffer, RingBuffer::size).register(meterRegistry);
+    }
+
+    @PostConstruct
+    public void start() {
+        running = true;
+        flushing = userActionExecutor.submit(this::runFlusher);
+    }
+
+    // Flushes whatever is still buffered before the datasource goes away
+    @PreDestroy
+    public void stop() throws InterruptedException {
+        running = false;
+        LockSupport.unpark(flusher);
+        try {
+            flushing.get(30, TimeUnit.SECONDS);
+        } catch (ExecutionException | TimeoutException e) {
+            log.error("User action flusher did not finish, {} actions are lost", buffer.size(), e);
+        }
+    }
+
+    /**
+     * Queues one action for insertion and returns false when the buffer stayed full and the event was dropped.
+     * Never touches the database.
+     */
+    public boolean track(long userId, long actionId) {
+        Event event = new Event(userId, actionId);
+        for (int spin = 0; spin <= offerSpins; spin++) {
+            if (buffer.offer(event)) {
+                accepted.increment();
+                if (buffer.size() >= batchSize) {
+                    LockSupport.unpark(flusher);
+                }
+                return true;
+            }
+            Thread.onSpinWait();
+        }
+        dropped.increment();
+        return false;
+    }
+
+    public int buffered() {
+        return buffer.size();
+    }
+
+    private void runFlusher() {
+        flusher = Thread.currentThread();
+        List<Event> batch = new ArrayList<>(batchSize);
+        long lastFlush = System.nanoTime();
+        while (running || buffer.size() > 0 || !batch.isEmpty()) {
+            buffer.drainTo(batch, batchSize - batch.size());
+
+            long sinceLastFlush = System.nanoTime() - lastFlush;
+            boolean due = batch.size() >= batchSize || (!batch.isEmpty() && (sinceLastFlush >= flushIntervalNanos || !running));
+            if (due) {
+                if (flush(batch)) {
+                    batch.clear();
+                } else if (!running) {
+                    log.error("Dropping {} buffered user actions at shutdown", batch.size() + buffer.size());
+                    return;
+                } else {
+                    // Keep the batch and let the buffer absorb new events until the database is back
+                    LockSupport.parkNanos(flushIntervalNanos);
+                }
+                lastFlush = System.nanoTime();
+            } else if (batch.size() < batchSize && running) {
+                LockSupport.parkNanos(batch.isEmpty() ? flushIntervalNanos : flushIntervalNanos - sinceLastFlush);
+            }
+        }
+    }
+
+    private boolean flush(List<Event> batch) {
+        try {
+            int inserted = transactionTemplate.execute(status -> {
+                Set<Long> userIds = new HashSet<>(userRepository.findExistingIds(batch.stream().map(Event::userId).collect(Collectors.toSet())));
+                Set<Long> actionIds = new HashSet<>(actionRepository.findExistingIds(batch.stream().map(Event::actionId).collect(Collectors.toSet())));
+
+                // References only, the user and action rows are never loaded
+                List<UserAction> userActions = batch.stream()
+                        .filter(event -> userIds.contains(event.userId()) && actionIds.contains(event.actionId()))
+                        .map(event -> new UserAction(entityManager.getReference(User.class, event.userId()),
+                                entityManager.getReference(Action.class, event.actionId())))
+                        .collect(Collectors.toList());
+                userActionRepository.saveAll(userActions);
+                return userActions.size();
+            });
+            flushed.increment(inserted);
+            rejected.increment(batch.size() - inserted);
+            return true;
+        } catch (RuntimeException e) {
+            flushFailures.increment();
+            log.warn("Failed to flush {} user actions, retrying", batch.size(), e);
+            return false;
+        }
+    }
+
+    private record Event(long userId, long actionId) {
+    }
+}
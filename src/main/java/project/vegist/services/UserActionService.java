@@ -2,7 +2,6 @@ package project.vegist.services;
 
 import org.apache.commons.lang3.StringUtils;
 import org.springframework.beans.factory.annotation.Autowired;
-import org.springframework.data.domain.PageRequest;
 import org.springframework.data.domain.Pageable;
 import org.springframework.data.jpa.domain.Specification;
 import org.springframework.stereotype.Service;
@@ -11,31 +10,44 @@ import project.vegist.dtos.UserActionDTO;
 import project.vegist.entities.Action;
 import project.vegist.entities.User;
 import project.vegist.entities.UserAction;
+import project.vegist.enums.ExportFormat;
+import project.vegist.models.CursorPage;
 import project.vegist.models.UserActionModel;
 import project.vegist.repositories.ActionRepository;
 import project.vegist.repositories.UserActionRepository;
 import project.vegist.repositories.UserRepository;
 import project.vegist.services.impls.CrudService;
 import project.vegist.utils.DateTimeUtils;
+import project.vegist.utils.KeysetPager;
 import project.vegist.utils.SpecificationsBuilder;
 
+import java.io.IOException;
+import java.io.OutputStream;
 import java.util.List;
 import java.util.Map;
 import java.util.Objects;
 import java.util.Optional;
 import java.util.stream.Collectors;
+import java.util.stream.Stream;
 
 @Service
 public class UserActionService implements CrudService<UserAction, UserActionDTO, UserActionModel> {
     private final UserRepository userRepository;
     private final ActionRepository actionRepository;
     private final UserActionRepository userActionRepository;
+    private final KeysetPager keysetPager;
+    private final ExportService exportService;
+    private final UserActionIngestor userActionIngestor;
 
     @Autowired
-    public UserActionService(UserRepository userRepository, ActionRepository actionRepository, UserActionRepository userActionRepository) {
+    public UserActionService(UserRepository userRepository, ActionRepository actionRepository, UserActionRepository userActionRepository, KeysetPager keysetPager, ExportService exportService,
+                             UserActionIngestor userActionIngestor) {
         this.userRepository = userRepository;
         this.actionRepository = actionRepository;
         this.userActionRepository = userActionRepository;
+        this.keysetPager = keysetPager;
+        this.exportService = exportService;
+        this.userActionIngestor = userActionIngestor;
     }
 
     @Override
@@ -49,12 +61,26 @@ public class UserActionService implements CrudService<UserAction, UserActionDTO,
     @Override
     @Transactional(readOnly = true)
     public List<UserActionModel> findAll(int page, int size) {
-        Pageable pageable = PageRequest.of(page, size);
+        Pageable pageable = KeysetPager.pageRequest(page, size);
         return userActionRepository.findAll(pageable).getContent().stream()
                 .map(this::convertToModel)
                 .collect(Collectors.toList());
     }
 
+    @Override
+    @Transactional(readOnly = true)
+    public CursorPage<UserActionModel> findAll(String cursor, int size) {
+        return keysetPager.page(UserAction.class, cursor, size, this::convertToModel);
+    }
+
+    // Streams every user action to the output without loading them all, see ExportService
+    @Transactional(readOnly = true)
+    public long export(ExportFormat format, OutputStream outputStream) throws IOException {
+        try (Stream<UserAction> userActions = userActionRepository.streamAll()) {
+            return exportService.write(userActions, rows -> rows.stream().map(this::convertToModel).collect(Collectors.toList()), format, outputStream);
+        }
+    }
+
     @Override
     @Transactional(readOnly = true)
     public Optional<UserActionModel> findById(Long id) {
@@ -79,6 +105,11 @@ public class UserActionService implements CrudService<UserAction, UserActionDTO,
         return Optional.empty();
     }
 
+    // Fire-and-forget tracking, the action is inserted later in a batch (see UserActionIngestor)
+    public boolean track(UserActionDTO userActionDTO) {
+        return userActionIngestor.track(userActionDTO.getUserId(), userActionDTO.getActionId());
+    }
+
     @Override
     @Transactional
     public List<UserActionModel> createAll(List<UserActionDTO> userActionDTOS) {
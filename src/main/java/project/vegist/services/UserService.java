@@ -3,7 +3,6 @@ package project.vegist.services;
 import org.apache.commons.lang3.StringUtils;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.data.domain.Page;
-import org.springframework.data.domain.PageRequest;
 import org.springframework.data.domain.Pageable;
 import org.springframework.data.jpa.domain.Specification;
 import org.springframework.security.authentication.AuthenticationManager;
@@ -20,15 +19,19 @@ import project.vegist.dtos.UserDTO;
 import project.vegist.entities.Role;
 import project.vegist.entities.User;
 import project.vegist.entities.UserRole;
+import project.vegist.models.CursorPage;
 import project.vegist.models.CustomUserDetail;
 import project.vegist.models.UserModel;
-import project.vegist.repositories.RoleRepository;
+import project.vegist.repositories.ReviewRepository;
 import project.vegist.repositories.UserRepository;
+import project.vegist.repositories.UserWishlistRepository;
 import project.vegist.requests.LoginRequest;
 import project.vegist.requests.RegisterRequest;
 import project.vegist.services.impls.CrudService;
 import project.vegist.utils.DateTimeUtils;
+import project.vegist.utils.KeysetPager;
 import project.vegist.utils.SpecificationsBuilder;
+import project.vegist.utils.TransactionUtils;
 
 import java.util.*;
 import java.util.stream.Collectors;
@@ -36,18 +39,33 @@ import java.util.stream.Collectors;
 @Service
 public class UserService implements CrudService<User, UserDTO, UserModel> {
     private final UserRepository userRepository;
-    private final RoleRepository roleRepository;
+    private final RoleService roleService;
     private final PasswordEncoder passwordEncoder;
     private final JwtService jwtService;
     private final AuthenticationManager authenticationManager;
+    private final PrincipalCache principalCache;
+    private final KeysetPager keysetPager;
+    private final ReviewRepository reviewRepository;
+    private final ProductRatingService productRatingService;
+    private final UserWishlistRepository userWishlistRepository;
+    private final ProductCounterService productCounterService;
 
     @Autowired
-    public UserService(UserRepository userRepository, RoleRepository roleRepository, PasswordEncoder passwordEncoder, JwtService jwtService, AuthenticationManager authenticationManager) {
+    public UserService(UserRepository userRepository, RoleService roleService, PasswordEncoder passwordEncoder, JwtService jwtService, AuthenticationManager authenticationManager,
+                       PrincipalCache principalCache, KeysetPager keysetPager, ReviewRepository reviewRepository,
+                       ProductRatingService productRatingService, UserWishlistRepository userWishlistRepository,
+                       ProductCounterService productCounterService) {
         this.userRepository = userRepository;
-        this.roleRepository = roleRepository;
+        this.roleService = roleService;
         this.passwordEncoder = passwordEncoder;
         this.jwtService = jwtService;
         this.authenticationManager = authenticationManager;
+        this.principalCache = principalCache;
+        this.keysetPager = keysetPager;
+        this.reviewRepository = reviewRepository;
+        this.productRatingService = productRatingService;
+        this.userWishlistRepository = userWishlistRepository;
+        this.productCounterService = productCounterService;
     }
 
     public String login(LoginRequest loginRequest) {
@@ -100,14 +118,9 @@ public class UserService implements CrudService<User, UserDTO, UserModel> {
     private void addRoleToUser(User user) {
         List<UserRole> userRoles = Optional.ofNullable(user.getUserRoles()).orElseGet(ArrayList::new);
 
-        Optional<Role> userRole = roleRepository.findByRoleName("USER");
-
-        if (userRole.isEmpty()) {
-            Role newUserRole = new Role();
-            newUserRole.setRoleName("USER");
-            roleRepository.save(newUserRole);
-            userRole = Optional.of(newUserRole);
-        }
+        Role userRole = roleService.findByName("USER")
+                .map(role -> roleService.getReference(role.getId()))
+                .orElseGet(() -> roleService.createEntity("USER"));
 
         boolean hasUserRole = userRoles.stream()
                 .anyMatch(userRoleEntity -> userRoleEntity.getRole().getRoleName().equals("USER"));
@@ -115,7 +128,7 @@ public class UserService implements CrudService<User, UserDTO, UserModel> {
         if (!hasUserRole) {
             UserRole userRoleRegister = new UserRole();
             userRoleRegister.setUser(user);
-            userRoleRegister.setRole(userRole.get());
+            userRoleRegister.setRole(userRole);
             userRoles.add(userRoleRegister);
             user.setUserRoles(userRoles);
         }
@@ -134,13 +147,19 @@ public class UserService implements CrudService<User, UserDTO, UserModel> {
     @Override
     @Transactional(readOnly = true)
     public List<UserModel> findAll(int page, int size) {
-        Pageable pageable = PageRequest.of(page, size);
+        Pageable pageable = KeysetPager.pageRequest(page, size);
         Page<User> userPage = userRepository.findAll(pageable);
         return userPage.getContent().stream()
                 .map(this::convertToModel)
                 .collect(Collectors.toList());
     }
 
+    @Override
+    @Transactional(readOnly = true)
+    public CursorPage<UserModel> findAll(String cursor, int size) {
+        return keysetPager.page(User.class, cursor, size, this::convertToModel);
+    }
+
     @Override
     @Transactional(readOnly = true)
     public Optional<UserModel> findById(Long id) {
@@ -181,6 +200,7 @@ public class UserService implements CrudService<User, UserDTO, UserModel> {
                 .map(existingUser -> {
                     convertToEntity(userDTO, existingUser);
                     User updatedUser = userRepository.save(existingUser);
+                    TransactionUtils.afterCommit(() -> principalCache.invalidateUser(id));
                     return convertToModel(updatedUser);
                 });
     }
@@ -196,6 +216,7 @@ public class UserService implements CrudService<User, UserDTO, UserModel> {
                     return userRepository.findById(userId)
                             .map(existingUser -> {
                                 convertToEntity(userDTO, existingUser);
+                                TransactionUtils.afterCommit(() -> principalCache.invalidateUser(userId));
                                 return userRepository.save(existingUser);
                             })
                             .map(this::convertToModel)
@@ -209,7 +230,10 @@ public class UserService implements CrudService<User, UserDTO, UserModel> {
     @Transactional
     public boolean deleteById(Long id) {
         if (userRepository.existsById(id)) {
+            removeReviewRatings(Collections.singletonList(id));
+            removeWishlistCounts(Collections.singletonList(id));
             userRepository.deleteById(id);
+            TransactionUtils.afterCommit(() -> principalCache.invalidateUser(id));
             return true;
         }
         return false;
@@ -218,10 +242,27 @@ public class UserService implements CrudService<User, UserDTO, UserModel> {
     @Override
     @Transactional
     public boolean deleteAll(List<Long> ids) {
+        removeReviewRatings(ids);
+        removeWishlistCounts(ids);
         userRepository.deleteAllById(ids);
+        TransactionUtils.afterCommit(() -> ids.forEach(principalCache::invalidateUser));
         return true;
     }
 
+    // The users' reviews are deleted with them, take their ratings out of the product summaries
+    private void removeReviewRatings(List<Long> userIds) {
+        List<ProductRatingService.Rating> ratings = reviewRepository.findByUser_IdIn(userIds).stream()
+                .map(ProductRatingService.Rating::of)
+                .collect(Collectors.toList());
+        productRatingService.recordChanges(ratings, Collections.emptyList());
+    }
+
+    // The users' wishlist entries go with them too, take them out of the products' wishlist counts once that commits
+    private void removeWishlistCounts(List<Long> userIds) {
+        List<Long> productIds = userWishlistRepository.findProductIdsByUserIdIn(userIds);
+        TransactionUtils.afterCommit(() -> productIds.forEach(productId -> productCounterService.addWishlist(productId, -1)));
+    }
+
 
     @Override
     @Transactional(readOnly = true)
@@ -2,7 +2,6 @@ package project.vegist.services;
 
 import org.apache.commons.lang3.StringUtils;
 import org.springframework.beans.factory.annotation.Autowired;
-import org.springframework.data.domain.PageRequest;
 import org.springframework.data.domain.Pageable;
 import org.springframework.data.jpa.domain.Specification;
 import org.springframework.http.HttpStatus;
@@ -13,15 +12,19 @@ import project.vegist.entities.Product;
 import project.vegist.entities.User;
 import project.vegist.entities.UserWishlist;
 import project.vegist.exceptions.ResourceNotFoundException;
+import project.vegist.models.CursorPage;
 import project.vegist.models.UserWishlistModel;
 import project.vegist.repositories.ProductRepository;
 import project.vegist.repositories.UserRepository;
 import project.vegist.repositories.UserWishlistRepository;
 import project.vegist.services.impls.CrudService;
 import project.vegist.utils.DateTimeUtils;
+import project.vegist.utils.KeysetPager;
 import project.vegist.utils.SpecificationsBuilder;
+import project.vegist.utils.TransactionUtils;
 
 import java.io.IOException;
+import java.util.Collections;
 import java.util.List;
 import java.util.Map;
 import java.util.Optional;
@@ -32,12 +35,17 @@ public class UserWishlistService implements CrudService<UserWishlist, UserWishli
     private final UserRepository userRepository;
     private final ProductRepository productRepository;
     private final UserWishlistRepository userWishlistRepository;
+    private final KeysetPager keysetPager;
+    private final ProductCounterService productCounterService;
 
     @Autowired
-    public UserWishlistService(UserRepository userRepository, ProductRepository productRepository, UserWishlistRepository userWishlistRepository) {
+    public UserWishlistService(UserRepository userRepository, ProductRepository productRepository, UserWishlistRepository userWishlistRepository, KeysetPager keysetPager,
+                               ProductCounterService productCounterService) {
         this.userRepository = userRepository;
         this.productRepository = productRepository;
         this.userWishlistRepository = userWishlistRepository;
+        this.keysetPager = keysetPager;
+        this.productCounterService = productCounterService;
     }
 
     @Override
@@ -51,12 +59,18 @@ public class UserWishlistService implements CrudService<UserWishlist, UserWishli
     @Override
     @Transactional(readOnly = true)
     public List<UserWishlistModel> findAll(int page, int size) {
-        Pageable pageable = PageRequest.of(page, size);
+        Pageable pageable = KeysetPager.pageRequest(page, size);
         return userWishlistRepository.findAll(pageable).getContent().stream()
                 .map(this::convertToModel)
                 .collect(Collectors.toList());
     }
 
+    @Override
+    @Transactional(readOnly = true)
+    public CursorPage<UserWishlistModel> findAll(String cursor, int size) {
+        return keysetPager.page(UserWishlist.class, cursor, size, this::convertToModel);
+    }
+
     @Override
     @Transactional(readOnly = true)
     public Optional<UserWishlistModel> findById(Long id) {
@@ -68,7 +82,9 @@ public class UserWishlistService implements CrudService<UserWishlist, UserWishli
     public Optional<UserWishlistModel> create(UserWishlistDTO userWishlistDTO) throws IOException {
         UserWishlist newUserWishlist = new UserWishlist();
         convertToEntity(userWishlistDTO, newUserWishlist);
-        return Optional.ofNullable(convertToModel(userWishlistRepository.save(newUserWishlist)));
+        UserWishlist savedUserWishlist = userWishlistRepository.save(newUserWishlist);
+        countWishlists(Collections.singletonList(savedUserWishlist), 1);
+        return Optional.ofNullable(convertToModel(savedUserWishlist));
     }
 
     @Override
@@ -82,8 +98,9 @@ public class UserWishlistService implements CrudService<UserWishlist, UserWishli
                 })
                 .collect(Collectors.toList());
 
-        return userWishlistRepository.saveAll(newUserWishlists)
-                .stream().map(this::convertToModel)
+        List<UserWishlist> savedUserWishlists = userWishlistRepository.saveAll(newUserWishlists);
+        countWishlists(savedUserWishlists, 1);
+        return savedUserWishlists.stream().map(this::convertToModel)
                 .collect(Collectors.toList());
     }
 
@@ -92,7 +109,9 @@ public class UserWishlistService implements CrudService<UserWishlist, UserWishli
     public Optional<UserWishlistModel> update(Long id, UserWishlistDTO userWishlistDTO) {
         return userWishlistRepository.findById(id)
                 .map(existingUserWishlist -> {
+                    countWishlists(Collections.singletonList(existingUserWishlist), -1);
                     convertToEntity(userWishlistDTO, existingUserWishlist);
+                    countWishlists(Collections.singletonList(existingUserWishlist), 1);
                     return convertToModel(userWishlistRepository.save(existingUserWishlist));
                 });
     }
@@ -105,7 +124,9 @@ public class UserWishlistService implements CrudService<UserWishlist, UserWishli
         userWishlistsToUpdate.forEach(existingUserWishlist -> {
             UserWishlistDTO wishlistDTO = longUserWishlistDTOMap.get(existingUserWishlist.getId());
             if (wishlistDTO != null) {
+                countWishlists(Collections.singletonList(existingUserWishlist), -1);
                 convertToEntity(wishlistDTO, existingUserWishlist);
+                countWishlists(Collections.singletonList(existingUserWishlist), 1);
             }
         });
 
@@ -119,11 +140,13 @@ public class UserWishlistService implements CrudService<UserWishlist, UserWishli
     @Override
     @Transactional
     public boolean deleteById(Long id) {
-        if (userWishlistRepository.existsById(id)) {
-            userWishlistRepository.deleteById(id);
-            return true;
-        }
-        return false;
+        return userWishlistRepository.findById(id)
+                .map(userWishlist -> {
+                    userWishlistRepository.delete(userWishlist);
+                    countWishlists(Collections.singletonList(userWishlist), -1);
+                    return true;
+                })
+                .orElse(false);
     }
 
     @Override
@@ -131,6 +154,7 @@ public class UserWishlistService implements CrudService<UserWishlist, UserWishli
     public boolean deleteAll(List<Long> ids) {
         List<UserWishlist> userWishlistsToDelete = userWishlistRepository.findAllById(ids);
         userWishlistRepository.deleteAll(userWishlistsToDelete);
+        countWishlists(userWishlistsToDelete, -1);
         return true;
     }
 
@@ -158,6 +182,15 @@ public class UserWishlistService implements CrudService<UserWishlist, UserWishli
         return result;
     }
 
+    // Product wishlist counters follow the wishlist rows once the transaction commits
+    private void countWishlists(List<UserWishlist> userWishlists, long delta) {
+        List<Long> productIds = userWishlists.stream()
+                .filter(userWishlist -> userWishlist.getProduct() != null)
+                .map(userWishlist -> userWishlist.getProduct().getId())
+                .collect(Collectors.toList());
+        TransactionUtils.afterCommit(() -> productIds.forEach(productId -> productCounterService.addWishlist(productId, delta)));
+    }
+
     @Override
     public UserWishlistModel convertToModel(UserWishlist userWishlist) {
         return new UserWishlistModel(userWishlist.getId(),
@@ -1,6 +1,7 @@
 package project.vegist.services.impls;
 
 import org.springframework.transaction.annotation.Transactional;
+import project.vegist.models.CursorPage;
 
 import java.io.IOException;
 import java.util.List;
@@ -14,6 +15,10 @@ public interface CrudService<Entity, DTO, Model> {
     @Transactional(readOnly = true)
     List<Model> findAll(int page, int size);
 
+    // Keyset pagination: seeks past the row the cursor points at instead of skipping page * size rows
+    @Transactional(readOnly = true)
+    CursorPage<Model> findAll(String cursor, int size);
+
     @Transactional(readOnly = true)
     Optional<Model> findById(Long id);
 
@@ -0,0 +1,226 @@
+package project.vegist.utils;
+
+import jakarta.annotation.PostConstruct;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.*;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Content-addressed store for uploaded files.
+ * A blob lives at {@code <subFolder>/<hh>/<sha256>.<ext>} and is shared by every upload with the same bytes.
+ * The index (hash -> path, size, refcount) is kept in memory and journaled to {@code .blob-index},
+ * so a lookup never touches the stored file. A blob is deleted once its last reference is released.
+ * The journal is rewritten with only the live entries on startup and whenever it has grown past
+ * {@code blob-index.compact-after-lines} and twice the number of live entries.
+ */
+@Component
+public class BlobStore {
+    private static final Logger log = LoggerFactory.getLogger(BlobStore.class);
+
+    private static final String INDEX_FILE_NAME = ".blob-index";
+    private static final String SEPARATOR = "\t";
+
+    @Value("${upload-path}")
+    private String uploadDirectory;
+
+    @Value("${blob-index.compact-after-lines:10000}")
+    private int compactAfterLines;
+
+    private Path root;
+    private Path indexFile;
+    private BufferedWriter journal;
+    private int journalLines;
+
+    // Guarded by this
+    private final Map<String, Entry> entriesByHash = new HashMap<>();
+    private final Map<String, String> hashesByPath = new HashMap<>();
+
+    @PostConstruct
+    public synchronized void open() throws IOException {
+        root = Paths.get(uploadDirectory).toAbsolutePath().normalize();
+        Files.createDirectories(root);
+        indexFile = root.resolve(INDEX_FILE_NAME);
+
+        if (Files.exists(indexFile)) {
+            // The journal holds one line per change, the last line of a hash wins
+            for (String line : Files.readAllLines(indexFile, StandardCharsets.UTF_8)) {
+                String[] parts = line.split(SEPARATOR);
+                if (parts.length != 4) {
+                    continue;
+                }
+                Entry entry = new Entry(parts[0], parts[1], Long.parseLong(parts[2]), Integer.parseInt(parts[3]));
+                if (entry.refCount > 0) {
+                    putEntry(entry);
+                } else {
+                    removeEntry(entry.hash);
+                }
+            }
+        }
+
+        compact();
+        log.info("Blob index loaded with {} blobs", entriesByHash.size());
+    }
+
+    /**
+     * Adds one reference to the blob holding the content of {@code tempFile} and returns its path relative to the upload root.
+     * The temp file is moved into place for new content and deleted when the content is already stored.
+     */
+    public String store(Path tempFile, String hash, long size, String subFolder, String extension) throws IOException {
+        String relativePath = subFolder + "/" + hash.substring(0, 2) + "/" + hash + (extension.isEmpty() ? "" : "." + extension);
+        Path target = root.resolve(relativePath).normalize();
+
+        synchronized (this) {
+            Entry entry = entriesByHash.get(hash);
+            if (entry != null) {
+                Path stored = root.resolve(entry.path);
+                if (Files.exists(stored)) {
+                    Files.deleteIfExists(tempFile);
+                } else {
+                    // The file went missing under its references; they still count, only the bytes are put back
+                    moveIntoPlace(tempFile, stored);
+                }
+                entry.refCount++;
+                append(entry);
+                return entry.path;
+            }
+
+            moveIntoPlace(tempFile, target);
+
+            Entry created = new Entry(hash, relativePath, size, 1);
+            putEntry(created);
+            append(created);
+            return relativePath;
+        }
+    }
+
+    /**
+     * Drops one reference to the blob at {@code relativePath} and deletes the file when none are left.
+     * A path that is not in the index was uploaded before blobs were counted and is deleted directly,
+     * as long as it resolves to a file under the upload root.
+     */
+    public synchronized void release(String relativePath) {
+        String hash = hashesByPath.get(relativePath);
+        if (hash == null) {
+            deleteUnindexed(relativePath);
+            return;
+        }
+
+        Entry entry = entriesByHash.get(hash);
+        entry.refCount--;
+        append(entry);
+
+        if (entry.refCount <= 0) {
+            removeEntry(hash);
+            try {
+                Files.deleteIfExists(root.resolve(entry.path));
+            } catch (IOException e) {
+                log.warn("Could not delete orphaned blob {}", entry.path, e);
+            }
+        }
+    }
+
+    private void deleteUnindexed(String relativePath) {
+        Path file = root.resolve(relativePath).normalize();
+        if (!file.startsWith(root) || file.equals(root) || file.getFileName().toString().startsWith(INDEX_FILE_NAME)) {
+            log.warn("Refusing to delete {}, it is not an upload", relativePath);
+            return;
+        }
+        try {
+            if (Files.isRegularFile(file)) {
+                Files.deleteIfExists(file);
+            }
+        } catch (IOException e) {
+            log.warn("Could not delete unindexed upload {}", relativePath, e);
+        }
+    }
+
+    private static void moveIntoPlace(Path source, Path target) throws IOException {
+        Files.createDirectories(target.getParent());
+        try {
+            Files.move(source, target, StandardCopyOption.ATOMIC_MOVE, StandardCopyOption.REPLACE_EXISTING);
+        } catch (AtomicMoveNotSupportedException e) {
+            Files.move(source, target, StandardCopyOption.REPLACE_EXISTING);
+        }
+    }
+
+    public synchronized boolean contains(String hash) {
+        return entriesByHash.containsKey(hash);
+    }
+
+    public synchronized int size() {
+        return entriesByHash.size();
+    }
+
+    // Rewrites the journal with only the live entries
+    private void compact() throws IOException {
+        if (journal != null) {
+            journal.close();
+        }
+
+        Path tempIndex = root.resolve(INDEX_FILE_NAME + ".tmp");
+        try (BufferedWriter writer = Files.newBufferedWriter(tempIndex, StandardCharsets.UTF_8)) {
+            for (Entry entry : entriesByHash.values()) {
+                writer.write(entry.toLine());
+                writer.newLine();
+            }
+        }
+        Files.move(tempIndex, indexFile, StandardCopyOption.ATOMIC_MOVE, StandardCopyOption.REPLACE_EXISTING);
+
+        journal = Files.newBufferedWriter(indexFile, StandardCharsets.UTF_8, StandardOpenOption.APPEND);
+        journalLines = entriesByHash.size();
+    }
+
+    private void append(Entry entry) {
+        try {
+            journal.write(entry.toLine());
+            journal.newLine();
+            journal.flush();
+            journalLines++;
+            if (journalLines > compactAfterLines && journalLines > 2 * entriesByHash.size()) {
+                compact();
+            }
+        } catch (IOException e) {
+            throw new UncheckedIOException("Failed to write blob index", e);
+        }
+    }
+
+    private void putEntry(Entry entry) {
+        entriesByHash.put(entry.hash, entry);
+        hashesByPath.put(entry.path, entry.hash);
+    }
+
+    private void removeEntry(String hash) {
+        Entry removed = entriesByHash.remove(hash);
+        if (removed != null) {
+            hashesByPath.remove(removed.path);
+        }
+    }
+
+    private static final class Entry {
+        private final String hash;
+        private final String path;
+        private final long size;
+        private int refCount;
+
+        private Entry(String hash, String path, long size, int refCount) {
+            this.hash = hash;
+            this.path = path;
+            this.size = size;
+            this.refCount = refCount;
+        }
+
+        private String toLine() {
+            return String.join(SEPARATOR, List.of(hash, path, Long.toString(size), Integer.toString(refCount)));
+        }
+    }
+}
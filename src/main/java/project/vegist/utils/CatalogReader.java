@@ -0,0 +1,190 @@
+package project.vegist.utils;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import project.vegist.enums.ExportFormat;
+
+import java.io.BufferedReader;
+import java.io.Closeable;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Reads a catalog file one row at a time as column -> value.
+ * CSV files start with a header row and may quote values (RFC 4180, quoted values can span lines);
+ * NDJSON files hold one object per line, arrays are joined with {@link #LIST_SEPARATOR}.
+ * Blank lines are skipped and do not count as rows. An NDJSON line that does not parse still counts as a row:
+ * {@link #next()} throws {@link MalformedRowException} for it and the following call reads on from the next line.
+ */
+public class CatalogReader implements Closeable {
+    public static final String LIST_SEPARATOR = "|";
+
+    private final BufferedReader reader;
+    private final ExportFormat format;
+    private final ObjectMapper objectMapper;
+    private List<String> header;
+    private long rowNumber;
+
+    public CatalogReader(Path path, ExportFormat format, ObjectMapper objectMapper) throws IOException {
+        this.reader = Files.newBufferedReader(path, StandardCharsets.UTF_8);
+        this.format = format;
+        this.objectMapper = objectMapper;
+        if (format == ExportFormat.CSV) {
+            header = readCsvRecord();
+            if (header != null && !header.isEmpty()) {
+                // Drop a UTF-8 byte order mark left by spreadsheet exports
+                header.set(0, header.get(0).replace("\uFEFF", ""));
+            }
+        }
+    }
+
+    // Returns the next row, or null at the end of the file
+    public Map<String, String> next() throws IOException {
+        Map<String, String> row;
+        try {
+            row = format == ExportFormat.CSV ? nextCsvRow() : nextJsonRow();
+        } catch (MalformedRowException e) {
+            rowNumber++;
+            throw e;
+        }
+        if (row != null) {
+            rowNumber++;
+        }
+        return row;
+    }
+
+    // 1-based number of the row last returned by next()
+    public long getRowNumber() {
+        return rowNumber;
+    }
+
+    // Moves past the given number of rows without building them
+    public void skip(long rows) throws IOException {
+        while (rowNumber < rows) {
+            try {
+                if (next() == null) {
+                    return;
+                }
+            } catch (MalformedRowException e) {
+                // counted, and already reported when the row was first read
+            }
+        }
+    }
+
+    @Override
+    public void close() throws IOException {
+        reader.close();
+    }
+
+    private Map<String, String> nextCsvRow() throws IOException {
+        if (header == null) {
+            return null;
+        }
+        List<String> values;
+        do {
+            values = readCsvRecord();
+            if (values == null) {
+                return null;
+            }
+        } while (values.size() == 1 && values.get(0).isEmpty());
+
+        Map<String, String> row = new HashMap<>();
+        for (int i = 0; i < header.size() && i < values.size(); i++) {
+            row.put(header.get(i).trim(), values.get(i));
+        }
+        return row;
+    }
+
+    private Map<String, String> nextJsonRow() throws IOException {
+        String line;
+        do {
+            line = reader.readLine();
+            if (line == null) {
+                return null;
+            }
+        } while (line.isBlank());
+
+        JsonNode node;
+        try {
+            node = objectMapper.readTree(line);
+        } catch (JsonProcessingException e) {
+            throw new MalformedRowException("malformed JSON: " + e.getOriginalMessage());
+        }
+        if (!node.isObject()) {
+            throw new MalformedRowException("not a JSON object");
+        }
+        Map<String, String> row = new HashMap<>();
+        Iterator<Map.Entry<String, JsonNode>> fields = node.fields();
+        while (fields.hasNext()) {
+            Map.Entry<String, JsonNode> field = fields.next();
+            JsonNode value = field.getValue();
+            if (value.isNull()) {
+                continue;
+            }
+            if (value.isArray()) {
+                List<String> items = new ArrayList<>();
+                value.forEach(item -> items.add(item.asText()));
+                row.put(field.getKey(), String.join(LIST_SEPARATOR, items));
+            } else {
+                row.put(field.getKey(), value.asText());
+            }
+        }
+        return row;
+    }
+
+    private List<String> readCsvRecord() throws IOException {
+        int c = reader.read();
+        if (c == -1) {
+            return null;
+        }
+
+        List<String> values = new ArrayList<>();
+        StringBuilder value = new StringBuilder();
+        boolean quoted = false;
+        while (c != -1) {
+            if (quoted) {
+                if (c == '"') {
+                    reader.mark(1);
+                    int next = reader.read();
+                    if (next == '"') {
+                        value.append('"');
+                    } else {
+                        quoted = false;
+                        if (next != -1) {
+                            reader.reset();
+                        }
+                    }
+                } else {
+                    value.append((char) c);
+                }
+            } else if (c == '"') {
+                quoted = true;
+            } else if (c == ',') {
+                values.add(value.toString());
+                value.setLength(0);
+            } else if (c == '\n') {
+                break;
+            } else if (c != '\r') {
+                value.append((char) c);
+            }
+            c = reader.read();
+        }
+        values.add(value.toString());
+        return values;
+    }
+
+    // A row that could not be read; the reader has moved past it
+    public static class MalformedRowException extends IOException {
+        public MalformedRowException(String message) {
+            super(message);
+        }
+    }
+}
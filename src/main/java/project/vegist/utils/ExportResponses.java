@@ -0,0 +1,43 @@
+package project.vegist.utils;
+
+import jakarta.servlet.http.HttpServletResponse;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.http.HttpHeaders;
+import org.springframework.scheduling.concurrent.ThreadPoolTaskExecutor;
+import org.springframework.stereotype.Component;
+import org.springframework.web.context.request.async.WebAsyncTask;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
+import project.vegist.enums.ExportFormat;
+
+import java.io.OutputStream;
+
+/**
+ * Streams exports on the export pool, leaving every other async request on the default MVC executor.
+ * The body is written from the pool thread to the async response, as Spring does for a returned
+ * {@link StreamingResponseBody}, but with the executor and timeout of the export. When the pool and its queue
+ * are full the export is rejected and answered with 503 by the exception handler.
+ */
+@Component
+public class ExportResponses {
+    private final ThreadPoolTaskExecutor exportExecutor;
+    private final long timeoutMs;
+
+    public ExportResponses(@Qualifier("exportExecutor") ThreadPoolTaskExecutor exportExecutor,
+                           @Value("${export.request-timeout-ms:1800000}") long timeoutMs) {
+        this.exportExecutor = exportExecutor;
+        this.timeoutMs = timeoutMs;
+    }
+
+    // fileName is without extension, the format adds it
+    public WebAsyncTask<Void> stream(HttpServletResponse response, String fileName, ExportFormat format, StreamingResponseBody body) {
+        return new WebAsyncTask<>(timeoutMs, exportExecutor, () -> {
+            response.setContentType(format.getContentType());
+            response.setHeader(HttpHeaders.CONTENT_DISPOSITION, "attachment; filename=\"" + fileName + "." + format.getExtension() + "\"");
+            OutputStream outputStream = response.getOutputStream();
+            body.writeTo(outputStream);
+            outputStream.flush();
+            return null;
+        });
+    }
+}
@@ -1,28 +1,49 @@
 package project.vegist.utils;
 
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Qualifier;
 import org.springframework.beans.factory.annotation.Value;
 import org.springframework.stereotype.Component;
 import org.springframework.web.multipart.MultipartFile;
 
 import java.io.FileNotFoundException;
 import java.io.IOException;
+import java.io.InputStream;
 import java.io.OutputStream;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.channels.ReadableByteChannel;
 import java.nio.charset.StandardCharsets;
 import java.nio.file.*;
 import java.security.MessageDigest;
 import java.security.NoSuchAlgorithmException;
-import java.util.Arrays;
-import java.util.Base64;
-import java.util.Objects;
+import java.util.*;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.Executor;
+import java.util.stream.Collectors;
 
 import static project.vegist.common.AppConstants.BASE_URL;
 
 @Component
 public class FileUtils {
+    private static final int COPY_BUFFER_SIZE = 64 * 1024;
+
     // Remove the static keyword
     @Value("${upload-path}")
     private String uploadDirectory;
 
+    private final BlobStore blobStore;
+    private final Executor uploadExecutor;
+
+    @Autowired
+    public FileUtils(BlobStore blobStore, @Qualifier("uploadExecutor") Executor uploadExecutor) {
+        this.blobStore = blobStore;
+        this.uploadExecutor = uploadExecutor;
+    }
+
     public static String generateUniqueFileName(String originalFileName) {
         try {
             int lastDotIndex = originalFileName.lastIndexOf(".");
@@ -54,81 +75,108 @@ public class FileUtils {
         }
     }
 
+    // Uploads are content addressed, identical bytes always resolve to the same stored file whatever checkDuplicate says
     public String uploadFile(MultipartFile file, boolean checkDuplicate) throws IOException {
-        try {
-            String originalFileName = Objects.requireNonNull(file.getOriginalFilename());
-            String fileExtension = getFileExtension(originalFileName);
-            String subFolder = determineSubFolder(fileExtension);
+        return store(file.getInputStream(), Objects.requireNonNull(file.getOriginalFilename()));
+    }
 
-            // Sử dụng đường dẫn tương đối từ thư mục làm việc hiện tại
-            String relativePath = subFolder + "/" + generateUniqueFileName(originalFileName, file);
+    // Stores a file that is already on the server, e.g. an image of a bulk catalog import
+    public String storeFile(Path source) throws IOException {
+        return store(Files.newInputStream(source), source.getFileName().toString());
+    }
 
-            Path filePath = Paths.get(uploadDirectory, relativePath).normalize();
-            Files.createDirectories(filePath.getParent());
+    /**
+     * Uploads the files concurrently on the upload executor and returns their URLs in the same order.
+     * If any upload fails, the ones that succeeded are released again before the failure is rethrown.
+     */
+    public List<String> uploadFiles(List<MultipartFile> files, boolean checkDuplicate) {
+        return storeAll(files, file -> uploadFile(file, checkDuplicate));
+    }
 
-            if (checkDuplicate) {
-                String existingFilePath = findExistingFilePath(filePath, file);
-                if (existingFilePath != null) {
-                    return existingFilePath;
-                }
-            }
+    // Same as uploadFiles, for files that are already on the server
+    public List<String> storeFiles(List<Path> sources) {
+        return storeAll(sources, this::storeFile);
+    }
+
+    private String store(InputStream content, String originalFileName) throws IOException {
+        Path tempFile = null;
+        try (InputStream in = content) {
+            String fileExtension = getFileExtension(originalFileName);
+            String subFolder = determineSubFolder(fileExtension);
 
-            byte[] fileBytes = file.getBytes();
-            String base64File = encodeFileToBase64(fileBytes);
+            Path uploadRoot = Paths.get(uploadDirectory).toAbsolutePath().normalize();
+            Files.createDirectories(uploadRoot);
 
-            saveFileAsBase64(base64File, filePath.toString());
+            // Stream into a temp file next to the target so the final move stays on the same file store
+            tempFile = Files.createTempFile(uploadRoot, ".upload-", ".tmp");
+            byte[] contentHash = copyAndHash(in, tempFile);
+
+            // Sử dụng đường dẫn tương đối từ thư mục làm việc hiện tại
+            String relativePath = blobStore.store(tempFile, HexFormat.of().formatHex(contentHash), Files.size(tempFile), subFolder, fileExtension);
+            tempFile = null;
 
             return BASE_URL + relativePath;
         } catch (Exception e) {
             e.printStackTrace();
             throw new RuntimeException("Failed to upload file: " + e.getMessage(), e);
+        } finally {
+            if (tempFile != null) {
+                Files.deleteIfExists(tempFile);
+            }
         }
     }
 
-    private String findExistingFilePath(Path filePath, MultipartFile file) {
-        try {
-            if (Files.exists(filePath)) {
-                // Check if the content of the existing file matches the new file
-                byte[] existingFileBytes = Files.readAllBytes(filePath);
-                byte[] newFileBytes = file.getBytes();
-
-                if (Arrays.equals(existingFileBytes, newFileBytes)) {
-                    // Extract the relative path from the absolute path
-                    String relativePath = filePath.toString().replace(uploadDirectory, "").replace("\\", "/");
-                    int startIndex = relativePath.indexOf("src/main/resources/static/");
-
-                    if (startIndex != -1) {
-                        return BASE_URL + relativePath.substring(startIndex + "src/main/resources/static/".length());
+    private <T> List<String> storeAll(List<T> sources, FileStorer<T> storer) {
+        List<CompletableFuture<String>> uploads = sources.stream()
+                .map(source -> CompletableFuture.supplyAsync(() -> {
+                    try {
+                        return storer.store(source);
+                    } catch (IOException e) {
+                        throw new UncheckedIOException(e);
                     }
-                }
-            }
-        } catch (IOException e) {
-            e.printStackTrace();
+                }, uploadExecutor))
+                .collect(Collectors.toList());
+
+        try {
+            CompletableFuture.allOf(uploads.toArray(new CompletableFuture<?>[0])).join();
+        } catch (CompletionException e) {
+            uploads.stream()
+                    .filter(upload -> !upload.isCompletedExceptionally())
+                    .map(CompletableFuture::join)
+                    .forEach(this::deleteFile);
+            Throwable cause = e.getCause() != null ? e.getCause() : e;
+            throw new RuntimeException("Failed to upload files: " + cause.getMessage(), cause);
         }
-        return null;
-    }
 
-    private String encodeFileToBase64(byte[] fileBytes) {
-        return Base64.getEncoder().encodeToString(fileBytes);
+        return uploads.stream()
+                .map(CompletableFuture::join)
+                .collect(Collectors.toList());
     }
 
+    // Copies the upload through a fixed-size buffer and hashes the same bytes on the way, the file is never held in memory
+    private static byte[] copyAndHash(InputStream content, Path target) throws IOException, NoSuchAlgorithmException {
+        MessageDigest digest = MessageDigest.getInstance("SHA-256");
+        ByteBuffer buffer = ByteBuffer.allocateDirect(COPY_BUFFER_SIZE);
+
+        try (ReadableByteChannel in = Channels.newChannel(content);
+             FileChannel out = FileChannel.open(target, StandardOpenOption.WRITE, StandardOpenOption.TRUNCATE_EXISTING)) {
+            while (in.read(buffer) != -1) {
+                buffer.flip();
+                digest.update(buffer.duplicate());
+                while (buffer.hasRemaining()) {
+                    out.write(buffer);
+                }
+                buffer.clear();
+            }
+            out.force(false);
+        }
+        return digest.digest();
+    }
 
-    // Modify this method to generate a unique filename based on content
-    public static String generateUniqueFileName(String originalFileName, MultipartFile file) {
-        try {
-            int lastDotIndex = originalFileName.lastIndexOf(".");
-            String baseName = (lastDotIndex >= 0) ? originalFileName.substring(0, lastDotIndex) : originalFileName;
-            String extension = (lastDotIndex >= 0) ? originalFileName.substring(lastDotIndex) : "";
-
-            // Thêm mã băm của nội dung file vào tên để đảm bảo tính duy nhất
-            byte[] contentBytes = file.getBytes();
-            MessageDigest contentDigest = MessageDigest.getInstance("SHA-256");
-            byte[] contentHash = contentDigest.digest(contentBytes);
-            String contentHashString = Base64.getUrlEncoder().encodeToString(contentHash).replaceAll("[^a-zA-Z0-9]", "");
-
-            return (baseName + "_" + contentHashString + extension).toLowerCase();
-        } catch (IOException | NoSuchAlgorithmException e) {
-            throw new RuntimeException("Error generating unique file name", e);
+    // Releases the reference a stored upload URL holds, the blob is deleted with its last reference
+    public void deleteFile(String fileUrl) {
+        if (fileUrl != null && fileUrl.startsWith(BASE_URL)) {
+            blobStore.release(fileUrl.substring(BASE_URL.length()));
         }
     }
 
@@ -281,4 +329,9 @@ public class FileUtils {
             return "";
         }
     }
+
+    @FunctionalInterface
+    private interface FileStorer<T> {
+        String store(T source) throws IOException;
+    }
 }
@@ -0,0 +1,148 @@
+package project.vegist.utils;
+
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.PersistenceContext;
+import jakarta.persistence.criteria.CriteriaBuilder;
+import jakarta.persistence.criteria.CriteriaQuery;
+import jakarta.persistence.criteria.Path;
+import jakarta.persistence.criteria.Root;
+import org.springframework.beans.PropertyAccessorFactory;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Pageable;
+import org.springframework.stereotype.Component;
+import project.vegist.common.AppConstants;
+import project.vegist.exceptions.BadRequestException;
+import project.vegist.models.CursorPage;
+
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDateTime;
+import java.time.format.DateTimeParseException;
+import java.util.Base64;
+import java.util.List;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+
+/**
+ * Keyset pagination in creation order.
+ * A page is {@code WHERE (created_at, id) > (:createdAt, :lastId) ORDER BY created_at, id LIMIT size + 1}, so it costs
+ * one seek on the {@code (created_at, id)} index however deep it is; the extra row only tells whether there is a next
+ * page. Ids alone are not in creation order once they come from pooled generators, a row inserted behind a page could
+ * be skipped. Entities without a creation time are paged on the id. The cursor handed to clients is the last row's
+ * key, Base64 encoded.
+ */
+@Component
+public class KeysetPager {
+    private static final String CURSOR_PREFIX = "id:";
+    private static final String TIME_CURSOR_PREFIX = "ts:";
+    private static final char TIME_CURSOR_SEPARATOR = '/';
+    private static final String ID = "id";
+    private static final String CREATED_AT = "createdAt";
+
+    @PersistenceContext
+    private EntityManager entityManager;
+
+    public <E, M> CursorPage<M> page(Class<E> entityClass, String cursor, int size, Function<? super E, ? extends M> converter) {
+        return pageBatched(entityClass, cursor, size, rows -> rows.stream().<M>map(converter).collect(Collectors.toList()));
+    }
+
+    // The whole page goes through the converter at once, for models that load their associations in batches
+    public <E, M> CursorPage<M> pageBatched(Class<E> entityClass, String cursor, int size, Function<List<E>, List<M>> converter) {
+        int limit = clampSize(size);
+        boolean byCreatedAt = hasCreatedAt(entityClass);
+
+        CriteriaBuilder cb = entityManager.getCriteriaBuilder();
+        CriteriaQuery<E> query = cb.createQuery(entityClass);
+        Root<E> root = query.from(entityClass);
+        Path<Long> id = root.get(ID);
+        if (byCreatedAt) {
+            Path<LocalDateTime> createdAt = root.get(CREATED_AT);
+            TimeCursor after = decodeTimeCursor(cursor);
+            if (after != null) {
+                query.where(cb.or(cb.greaterThan(createdAt, after.createdAt()),
+                        cb.and(cb.equal(createdAt, after.createdAt()), cb.greaterThan(id, after.id()))));
+            }
+            query.orderBy(cb.asc(createdAt), cb.asc(id));
+        } else {
+            Long afterId = decodeCursor(cursor);
+            if (afterId != null) {
+                query.where(cb.greaterThan(id, afterId));
+            }
+            query.orderBy(cb.asc(id));
+        }
+
+        List<E> rows = entityManager.createQuery(query).setMaxResults(limit + 1).getResultList();
+        boolean hasNext = rows.size() > limit;
+        List<E> items = hasNext ? rows.subList(0, limit) : rows;
+
+        String nextCursor = null;
+        if (hasNext) {
+            E last = items.get(items.size() - 1);
+            Long lastId = (Long) entityManager.getEntityManagerFactory().getPersistenceUnitUtil().getIdentifier(last);
+            nextCursor = byCreatedAt
+                    ? encodeCursor((LocalDateTime) PropertyAccessorFactory.forDirectFieldAccess(last).getPropertyValue(CREATED_AT), lastId)
+                    : encodeCursor(lastId);
+        }
+        return new CursorPage<>(converter.apply(items), nextCursor, hasNext);
+    }
+
+    public static int clampSize(int size) {
+        return Math.max(1, Math.min(size, AppConstants.MAX_PAGE_SIZE));
+    }
+
+    // Offset pages get the same size cap as cursor pages
+    public static Pageable pageRequest(int page, int size) {
+        return PageRequest.of(Math.max(page, 0), clampSize(size));
+    }
+
+    public static String encodeCursor(Long lastId) {
+        return Base64.getUrlEncoder().withoutPadding().encodeToString((CURSOR_PREFIX + lastId).getBytes(StandardCharsets.UTF_8));
+    }
+
+    // A missing cursor starts from the first row
+    public static Long decodeCursor(String cursor) {
+        if (cursor == null || cursor.isBlank()) {
+            return null;
+        }
+        try {
+            String decoded = new String(Base64.getUrlDecoder().decode(cursor), StandardCharsets.UTF_8);
+            if (!decoded.startsWith(CURSOR_PREFIX)) {
+                throw new BadRequestException("Invalid cursor");
+            }
+            return Long.parseLong(decoded.substring(CURSOR_PREFIX.length()));
+        } catch (IllegalArgumentException e) {
+            throw new BadRequestException("Invalid cursor");
+        }
+    }
+
+    // Cursor of a page ordered by creation time then id
+    public static String encodeCursor(LocalDateTime createdAt, Long lastId) {
+        String value = TIME_CURSOR_PREFIX + createdAt + TIME_CURSOR_SEPARATOR + lastId;
+        return Base64.getUrlEncoder().withoutPadding().encodeToString(value.getBytes(StandardCharsets.UTF_8));
+    }
+
+    // A missing cursor starts from the first row
+    public static TimeCursor decodeTimeCursor(String cursor) {
+        if (cursor == null || cursor.isBlank()) {
+            return null;
+        }
+        try {
+            String decoded = new String(Base64.getUrlDecoder().decode(cursor), StandardCharsets.UTF_8);
+            int separator = decoded.lastIndexOf(TIME_CURSOR_SEPARATOR);
+            if (!decoded.startsWith(TIME_CURSOR_PREFIX) || separator < 0) {
+                throw new BadRequestException("Invalid cursor");
+            }
+            return new TimeCursor(LocalDateTime.parse(decoded.substring(TIME_CURSOR_PREFIX.length(), separator)),
+                    Long.parseLong(decoded.substring(separator + 1)));
+        } catch (IllegalArgumentException | DateTimeParseException e) {
+            throw new BadRequestException("Invalid cursor");
+        }
+    }
+
+    private boolean hasCreatedAt(Class<?> entityClass) {
+        return entityManager.getMetamodel().entity(entityClass).getAttributes().stream()
+                .anyMatch(attribute -> attribute.getName().equals(CREATED_AT) && attribute.getJavaType() == LocalDateTime.class);
+    }
+
+    public record TimeCursor(LocalDateTime createdAt, Long id) {
+    }
+}
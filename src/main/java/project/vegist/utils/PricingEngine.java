@@ -0,0 +1,117 @@
+package project.vegist.utils;
+
+import project.vegist.entities.Product;
+
+import java.math.BigDecimal;
+import java.math.RoundingMode;
+
+/**
+ * Cart and order pricing in fixed-point minor units (hundredths, the scale of the money columns).
+ * Amounts are plain longs while lines are added up, so pricing a cart allocates nothing per line; a
+ * {@link BigDecimal} is only read from or made for the entities and models at the edges. Percentages are
+ * taken off with half-up rounding, which gives the same result as {@code BigDecimal} arithmetic rounded to
+ * two decimals. Overflowing amounts throw {@link ArithmeticException} instead of wrapping.
+ */
+public final class PricingEngine {
+    public static final int SCALE = 2;
+
+    private static final long PERCENT = 100;
+
+    private PricingEngine() {
+    }
+
+    public static long toMinor(BigDecimal amount) {
+        return amount == null ? 0 : amount.setScale(SCALE, RoundingMode.HALF_UP).unscaledValue().longValueExact();
+    }
+
+    public static BigDecimal toDecimal(long minor) {
+        return BigDecimal.valueOf(minor, SCALE);
+    }
+
+    /**
+     * The lowest of the list price, the sale price and the list price less the product discount, so a sale
+     * price and a discount never stack. A missing or non-positive sale price, and a discount outside 1..100,
+     * are ignored.
+     */
+    public static long unitPrice(long listPrice, long salePrice, int discountPercent) {
+        long price = listPrice;
+        if (salePrice > 0 && salePrice < price) {
+            price = salePrice;
+        }
+        if (discountPercent > 0) {
+            long discounted = applyPercent(listPrice, discountPercent);
+            if (discounted < price) {
+                price = discounted;
+            }
+        }
+        return price;
+    }
+
+    public static long unitPrice(Product product) {
+        return unitPrice(toMinor(product.getPrice()), toMinor(product.getSalePrice()),
+                product.getDiscount() == null ? 0 : product.getDiscount());
+    }
+
+    public static long lineTotal(long unitPrice, int quantity) {
+        return Math.multiplyExact(unitPrice, quantity);
+    }
+
+    // The part of a non-negative amount that a percentage takes off, rounded half up; the percentage is capped at 100
+    public static long percentOf(long amount, int percent) {
+        if (percent <= 0 || amount <= 0) {
+            return 0;
+        }
+        long capped = Math.min(percent, PERCENT);
+        return Math.addExact(Math.multiplyExact(amount, capped), PERCENT / 2) / PERCENT;
+    }
+
+    public static long applyPercent(long amount, int percent) {
+        return amount - percentOf(amount, percent);
+    }
+
+    /**
+     * Running totals of one cart or order. Reused across lines and reset between orders; not thread-safe.
+     * The coupon percentage is taken off the items and not off shipping.
+     */
+    public static final class Totals {
+        private long subtotal;
+        private long shipping;
+        private int couponPercent;
+
+        public Totals reset() {
+            subtotal = 0;
+            shipping = 0;
+            couponPercent = 0;
+            return this;
+        }
+
+        // Adds a line and returns its total
+        public long addLine(long unitPrice, int quantity) {
+            long lineTotal = lineTotal(unitPrice, quantity);
+            subtotal = Math.addExact(subtotal, lineTotal);
+            return lineTotal;
+        }
+
+        public Totals shipping(long shipping) {
+            this.shipping = shipping;
+            return this;
+        }
+
+        public Totals couponPercent(int couponPercent) {
+            this.couponPercent = couponPercent;
+            return this;
+        }
+
+        public long subtotal() {
+            return subtotal;
+        }
+
+        public long couponDiscount() {
+            return percentOf(subtotal, couponPercent);
+        }
+
+        public long total() {
+            return Math.addExact(subtotal - couponDiscount(), shipping);
+        }
+    }
+}
@@ -0,0 +1,78 @@
+package project.vegist.benchmarks;
+
+import io.jsonwebtoken.Claims;
+import io.jsonwebtoken.JwtParser;
+import io.jsonwebtoken.Jwts;
+import io.jsonwebtoken.SignatureAlgorithm;
+import io.jsonwebtoken.security.Keys;
+import org.openjdk.jmh.annotations.*;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+import project.vegist.models.VerifiedToken;
+import project.vegist.services.JwtService;
+
+import javax.crypto.SecretKey;
+import java.util.Date;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Token checks per second on one thread, i.e. per core, of what the auth filter does for each request.
+ * {@code parserPerCall} is the old filter: two accessors each building a parser and checking the signature.
+ * {@code sharedParser} is a first sight of a token with the shared parser, {@code verify} a token seen before.
+ * Run with {@code mvn test-compile} and then this class's main method, from the IDE or with the test classpath.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Threads(1)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class JwtVerificationBenchmark {
+    private static final String SECRET = "aLongSecretStringWhoseBitnessIsEqualToOrGreaterThanTheBitnessOfTheTokenEncryptionAlgorithm";
+
+    private SecretKey key;
+    private String token;
+    private JwtParser parser;
+    private JwtService jwtService;
+
+    @Setup
+    public void setUp() {
+        key = Keys.hmacShaKeyFor(SECRET.getBytes());
+        token = Jwts.builder()
+                .claim("typeToken", "Bearer")
+                .claim("userId", 42L)
+                .claim("email", "user42@vegist.test")
+                .claim("roles", List.of("ROLE_USER"))
+                .setIssuedAt(new Date())
+                .setExpiration(new Date(System.currentTimeMillis() + TimeUnit.DAYS.toMillis(1)))
+                .signWith(key, SignatureAlgorithm.HS512)
+                .compact();
+        parser = Jwts.parserBuilder().setSigningKey(key).build();
+        jwtService = new JwtService(null, SECRET, TimeUnit.DAYS.toMillis(1), 10_000);
+        jwtService.verify(token);
+    }
+
+    @Benchmark
+    public Object parserPerCall() {
+        Claims valid = Jwts.parserBuilder().setSigningKey(key).build().parseClaimsJws(token).getBody();
+        Claims userId = Jwts.parserBuilder().setSigningKey(key).build().parseClaimsJws(token).getBody();
+        return valid.getExpiration().before(new Date()) ? null : userId.get("userId", Long.class);
+    }
+
+    @Benchmark
+    public Claims sharedParser() {
+        return parser.parseClaimsJws(token).getBody();
+    }
+
+    @Benchmark
+    public VerifiedToken verify() {
+        return jwtService.verify(token);
+    }
+
+    public static void main(String[] args) throws RunnerException {
+        new Runner(new OptionsBuilder().include(JwtVerificationBenchmark.class.getSimpleName()).build()).run();
+    }
+}
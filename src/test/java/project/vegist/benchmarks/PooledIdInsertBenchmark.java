@@ -0,0 +1,104 @@
+package project.vegist.benchmarks;
+
+import jakarta.persistence.*;
+import org.hibernate.Session;
+import org.hibernate.SessionFactory;
+import org.hibernate.Transaction;
+import org.hibernate.cfg.Configuration;
+import org.openjdk.jmh.annotations.*;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+import project.vegist.common.IdGenerators;
+
+import java.util.concurrent.TimeUnit;
+import java.util.function.Supplier;
+
+/**
+ * Rows inserted per second through Hibernate with IDENTITY ids against the pooled table generator the
+ * high-volume tables use, with the application's batching settings. Runs on in-memory H2 by default; to
+ * measure MySQL pass {@code -Dbenchmark.jdbc.url=jdbc:mysql://.../scratch?rewriteBatchedStatements=true}
+ * (and {@code benchmark.jdbc.user}, {@code benchmark.jdbc.password}) pointing at a scratch schema, the
+ * benchmark tables are created and dropped.
+ * Run with {@code mvn test-compile} and then this class's main method, from the IDE or with the test classpath.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class PooledIdInsertBenchmark {
+    private static final int ROWS = 500;
+
+    private SessionFactory sessionFactory;
+
+    @Setup
+    public void setUp() {
+        sessionFactory = new Configuration()
+                .addAnnotatedClass(IdentityRow.class)
+                .addAnnotatedClass(PooledRow.class)
+                .setProperty("jakarta.persistence.jdbc.url",
+                        System.getProperty("benchmark.jdbc.url", "jdbc:h2:mem:benchmark;MODE=MySQL;DB_CLOSE_DELAY=-1"))
+                .setProperty("jakarta.persistence.jdbc.user", System.getProperty("benchmark.jdbc.user", "sa"))
+                .setProperty("jakarta.persistence.jdbc.password", System.getProperty("benchmark.jdbc.password", ""))
+                .setProperty("hibernate.hbm2ddl.auto", "create-drop")
+                .setProperty("hibernate.jdbc.batch_size", "50")
+                .setProperty("hibernate.order_inserts", "true")
+                .buildSessionFactory();
+    }
+
+    @TearDown
+    public void tearDown() {
+        sessionFactory.close();
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(ROWS)
+    public void identity() {
+        insert(IdentityRow::new);
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(ROWS)
+    public void pooled() {
+        insert(PooledRow::new);
+    }
+
+    private void insert(Supplier<Object> rows) {
+        try (Session session = sessionFactory.openSession()) {
+            Transaction transaction = session.beginTransaction();
+            for (int i = 0; i < ROWS; i++) {
+                session.persist(rows.get());
+            }
+            transaction.commit();
+        }
+    }
+
+    public static void main(String[] args) throws RunnerException {
+        new Runner(new OptionsBuilder().include(PooledIdInsertBenchmark.class.getSimpleName()).build()).run();
+    }
+
+    @Entity(name = "IdentityRow")
+    @Table(name = "benchmark_identity_rows")
+    public static class IdentityRow {
+        @Id
+        @GeneratedValue(strategy = GenerationType.IDENTITY)
+        private Long id;
+
+        private int quantity = 1;
+    }
+
+    // Mapped like CartItem and the other pooled tables, with its own generator table so no real one is touched
+    @Entity(name = "PooledRow")
+    @Table(name = "benchmark_pooled_rows")
+    public static class PooledRow {
+        @Id
+        @GeneratedValue(strategy = GenerationType.TABLE, generator = "benchmark_pooled_rows")
+        @TableGenerator(name = "benchmark_pooled_rows", table = "benchmark_id_generators", pkColumnName = IdGenerators.SEGMENT_COLUMN,
+                valueColumnName = IdGenerators.VALUE_COLUMN, pkColumnValue = "benchmark_pooled_rows", allocationSize = IdGenerators.ALLOCATION_SIZE)
+        private Long id;
+
+        private int quantity = 1;
+    }
+}
@@ -0,0 +1,70 @@
+package project.vegist.benchmarks;
+
+import org.openjdk.jmh.annotations.*;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+import project.vegist.utils.PricingEngine;
+
+import java.math.BigDecimal;
+import java.math.RoundingMode;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Pricing a cart in minor units against the BigDecimal arithmetic it replaced.
+ * Run with {@code mvn test-compile} and then this class's main method, from the IDE or with the test classpath.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class PricingEngineBenchmark {
+    private static final BigDecimal HUNDRED = BigDecimal.valueOf(100);
+
+    @Param({"5", "50"})
+    private int lines;
+
+    private long[] unitPrices;
+    private BigDecimal[] decimalUnitPrices;
+    private int[] quantities;
+    private final PricingEngine.Totals totals = new PricingEngine.Totals();
+
+    @Setup
+    public void setUp() {
+        Random random = new Random(42);
+        unitPrices = new long[lines];
+        decimalUnitPrices = new BigDecimal[lines];
+        quantities = new int[lines];
+        for (int i = 0; i < lines; i++) {
+            unitPrices[i] = 100 + random.nextInt(10_000_000);
+            decimalUnitPrices[i] = PricingEngine.toDecimal(unitPrices[i]);
+            quantities[i] = 1 + random.nextInt(10);
+        }
+    }
+
+    @Benchmark
+    public long minorUnits() {
+        totals.reset();
+        for (int i = 0; i < lines; i++) {
+            totals.addLine(unitPrices[i], quantities[i]);
+        }
+        return totals.shipping(3_000).couponPercent(15).total();
+    }
+
+    @Benchmark
+    public BigDecimal bigDecimal() {
+        BigDecimal subtotal = BigDecimal.ZERO;
+        for (int i = 0; i < lines; i++) {
+            subtotal = subtotal.add(decimalUnitPrices[i].multiply(BigDecimal.valueOf(quantities[i])));
+        }
+        BigDecimal discount = subtotal.multiply(BigDecimal.valueOf(15)).divide(HUNDRED, 2, RoundingMode.HALF_UP);
+        return subtotal.subtract(discount).add(BigDecimal.valueOf(3_000, 2));
+    }
+
+    public static void main(String[] args) throws RunnerException {
+        new Runner(new OptionsBuilder().include(PricingEngineBenchmark.class.getSimpleName()).build()).run();
+    }
+}
@@ -0,0 +1,87 @@
+package project.vegist.configs;
+
+import jakarta.persistence.Entity;
+import jakarta.persistence.Table;
+import jakarta.persistence.TableGenerator;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.config.BeanDefinition;
+import org.springframework.context.annotation.ClassPathScanningCandidateComponentProvider;
+import org.springframework.core.type.filter.AnnotationTypeFilter;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.datasource.DriverManagerDataSource;
+import project.vegist.common.IdGenerators;
+
+import java.lang.reflect.Field;
+import java.util.HashSet;
+import java.util.Set;
+import java.util.UUID;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+// Runs the seeder against an in-memory H2 database in MySQL mode
+class IdGeneratorSeederTests {
+    private JdbcTemplate jdbcTemplate;
+
+    @BeforeEach
+    void createTables() {
+        jdbcTemplate = new JdbcTemplate(new DriverManagerDataSource(
+                "jdbc:h2:mem:" + UUID.randomUUID() + ";MODE=MySQL;DB_CLOSE_DELAY=-1", "sa", ""));
+        jdbcTemplate.execute("CREATE TABLE " + IdGenerators.TABLE + " (" + IdGenerators.SEGMENT_COLUMN
+                + " VARCHAR(255) PRIMARY KEY, " + IdGenerators.VALUE_COLUMN + " BIGINT)");
+        IdGenerators.TABLES.forEach(table -> jdbcTemplate.execute("CREATE TABLE " + table + " (id BIGINT PRIMARY KEY)"));
+    }
+
+    @Test
+    void generatorsStartPastTheHighestExistingId() {
+        jdbcTemplate.update("INSERT INTO " + IdGenerators.ORDER_DETAILS + " (id) VALUES (1), (7), (120)");
+
+        new IdGeneratorSeeder(jdbcTemplate, null).seed();
+
+        // The pooled optimizer hands out the ALLOCATION_SIZE ids below the stored value, all above 120
+        assertEquals(120 + IdGenerators.ALLOCATION_SIZE + 1, nextValueOf(IdGenerators.ORDER_DETAILS));
+        assertEquals(IdGenerators.ALLOCATION_SIZE + 1, nextValueOf(IdGenerators.CART_ITEMS));
+        assertEquals(IdGenerators.TABLES.size(),
+                jdbcTemplate.queryForObject("SELECT COUNT(*) FROM " + IdGenerators.TABLE, Integer.class));
+    }
+
+    @Test
+    void generatorsAreNeverMovedBack() {
+        jdbcTemplate.update("INSERT INTO " + IdGenerators.TABLE + " VALUES (?, ?)", IdGenerators.CART_ITEMS, 10_000L);
+        jdbcTemplate.update("INSERT INTO " + IdGenerators.CART_ITEMS + " (id) VALUES (42)");
+
+        IdGeneratorSeeder seeder = new IdGeneratorSeeder(jdbcTemplate, null);
+        seeder.seed();
+        seeder.seed();
+
+        assertEquals(10_000L, nextValueOf(IdGenerators.CART_ITEMS));
+    }
+
+    @Test
+    void everyPooledEntityIsSeeded() throws ClassNotFoundException {
+        ClassPathScanningCandidateComponentProvider scanner = new ClassPathScanningCandidateComponentProvider(false);
+        scanner.addIncludeFilter(new AnnotationTypeFilter(Entity.class));
+
+        Set<String> pooledTables = new HashSet<>();
+        for (BeanDefinition entity : scanner.findCandidateComponents("project.vegist.entities")) {
+            Class<?> entityClass = Class.forName(entity.getBeanClassName());
+            for (Field field : entityClass.getDeclaredFields()) {
+                TableGenerator generator = field.getAnnotation(TableGenerator.class);
+                if (generator == null) {
+                    continue;
+                }
+                assertEquals(IdGenerators.TABLE, generator.table(), entityClass.getSimpleName());
+                assertEquals(IdGenerators.ALLOCATION_SIZE, generator.allocationSize(), entityClass.getSimpleName());
+                assertEquals(entityClass.getAnnotation(Table.class).name(), generator.pkColumnValue(), entityClass.getSimpleName());
+                pooledTables.add(generator.pkColumnValue());
+            }
+        }
+
+        assertEquals(new HashSet<>(IdGenerators.TABLES), pooledTables);
+    }
+
+    private long nextValueOf(String table) {
+        return jdbcTemplate.queryForObject("SELECT " + IdGenerators.VALUE_COLUMN + " FROM " + IdGenerators.TABLE
+                + " WHERE " + IdGenerators.SEGMENT_COLUMN + " = ?", Long.class, table);
+    }
+}
@@ -0,0 +1,169 @@
+package project.vegist.services;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.jdbc.AutoConfigureTestDatabase;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.context.annotation.Import;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+import project.vegist.dtos.CartItemQuantityDTO;
+import project.vegist.exceptions.BadRequestException;
+import project.vegist.exceptions.ResourceNotFoundException;
+import project.vegist.models.CartItemModel;
+import project.vegist.models.CartModel;
+import project.vegist.utils.KeysetPager;
+
+import java.math.BigDecimal;
+import java.util.List;
+import java.util.Map;
+import java.util.stream.Collectors;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+// Item-level cart changes and the per-user cart cache against an in-memory H2 database
+@DataJpaTest(properties = {
+        "spring.datasource.url=jdbc:h2:mem:carts;MODE=MySQL;DB_CLOSE_DELAY=-1;NON_KEYWORDS=VALUE",
+        "spring.jpa.properties.hibernate.dialect=org.hibernate.dialect.H2Dialect",
+        "spring.jpa.hibernate.ddl-auto=create-drop"
+})
+@AutoConfigureTestDatabase(replace = AutoConfigureTestDatabase.Replace.NONE)
+@Import({CartService.class, CouponIndex.class, KeysetPager.class})
+@Transactional(propagation = Propagation.NOT_SUPPORTED)
+class CartServiceTests {
+    private static final long USER_ID = 1L;
+    private static final long APPLE = 1L;
+    private static final long PEAR = 2L;
+
+    @Autowired
+    private CartService cartService;
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @BeforeEach
+    void createUserAndProducts() {
+        jdbcTemplate.update("DELETE FROM cart_items");
+        jdbcTemplate.update("DELETE FROM carts");
+        jdbcTemplate.update("DELETE FROM products");
+        jdbcTemplate.update("DELETE FROM categories");
+        jdbcTemplate.update("DELETE FROM labels");
+        jdbcTemplate.update("DELETE FROM users");
+        cartService.evictPendingCart(USER_ID);
+
+        jdbcTemplate.update("INSERT INTO users (id, full_name, gender, email, created_at, updated_at) "
+                + "VALUES (?, 'Buyer', 'NOT_GIVEN', 'buyer@example.com', NOW(), NOW())", USER_ID);
+        jdbcTemplate.update("INSERT INTO categories (id, name, status, created_at, updated_at) VALUES (1, 'Fruit', TRUE, NOW(), NOW())");
+        jdbcTemplate.update("INSERT INTO labels (id, label_name) VALUES (1, 'New')");
+        jdbcTemplate.update("INSERT INTO products (id, product_name, price, category_id, label_id, created_at, updated_at) "
+                + "VALUES (?, 'Apple', 2.00, 1, 1, NOW(), NOW())", APPLE);
+        jdbcTemplate.update("INSERT INTO products (id, product_name, price, sale_price, category_id, label_id, created_at, updated_at) "
+                + "VALUES (?, 'Pear', 3.00, 2.50, 1, 1, NOW(), NOW())", PEAR);
+    }
+
+    @Test
+    void addedQuantitiesMergeIntoOnePendingCart() {
+        CartModel cart = cartService.addItems(USER_ID, List.of(
+                new CartItemQuantityDTO(APPLE, 2), new CartItemQuantityDTO(APPLE, 1), new CartItemQuantityDTO(PEAR, 1)));
+
+        assertEquals(Map.of(APPLE, 3, PEAR, 1), quantitiesOf(cart));
+        assertEquals(0, new BigDecimal("8.50").compareTo(cart.getTotalAmount()));
+
+        CartModel again = cartService.addItems(USER_ID, List.of(new CartItemQuantityDTO(APPLE, 1)));
+
+        assertEquals(cart.getId(), again.getId());
+        assertEquals(Map.of(APPLE, 4, PEAR, 1), quantitiesOf(again));
+        assertEquals(1, count("carts"));
+        assertEquals(2, count("cart_items"));
+        assertEquals(4, jdbcTemplate.queryForObject("SELECT quantity FROM cart_items WHERE product_id = ?", Integer.class, APPLE));
+    }
+
+    @Test
+    void settingAQuantityReplacesItAndZeroRemovesTheItem() {
+        cartService.addItems(USER_ID, List.of(new CartItemQuantityDTO(APPLE, 2), new CartItemQuantityDTO(PEAR, 1)));
+
+        assertEquals(Map.of(APPLE, 5, PEAR, 1), quantitiesOf(cartService.setItemQuantity(USER_ID, APPLE, 5)));
+        assertEquals(Map.of(APPLE, 5), quantitiesOf(cartService.setItemQuantity(USER_ID, PEAR, 0)));
+        assertEquals(Map.of(), quantitiesOf(cartService.removeItem(USER_ID, APPLE)));
+        assertEquals(0, count("cart_items"));
+        assertThrows(BadRequestException.class, () -> cartService.setItemQuantity(USER_ID, APPLE, -1));
+    }
+
+    @Test
+    void invalidChangesLeaveNoCartBehind() {
+        assertThrows(BadRequestException.class,
+                () -> cartService.addItems(USER_ID, List.of(new CartItemQuantityDTO(APPLE, 0))));
+        assertThrows(ResourceNotFoundException.class,
+                () -> cartService.addItems(USER_ID, List.of(new CartItemQuantityDTO(APPLE, 1), new CartItemQuantityDTO(99L, 1))));
+        assertThrows(ResourceNotFoundException.class,
+                () -> cartService.addItems(99L, List.of(new CartItemQuantityDTO(APPLE, 1))));
+        assertThrows(ResourceNotFoundException.class, () -> cartService.removeItem(USER_ID, APPLE));
+
+        assertEquals(0, count("carts"));
+        assertEquals(0, count("cart_items"));
+        assertTrue(cartService.findPendingCartByUserId(USER_ID).isEmpty());
+    }
+
+    @Test
+    void theCachedCartFollowsItemChanges() {
+        cartService.addItems(USER_ID, List.of(new CartItemQuantityDTO(APPLE, 1)));
+        assertEquals(Map.of(APPLE, 1), quantitiesOf(cartService.findPendingCartByUserId(USER_ID).orElseThrow()));
+
+        cartService.addItems(USER_ID, List.of(new CartItemQuantityDTO(PEAR, 2)));
+        cartService.setItemQuantity(USER_ID, APPLE, 3);
+
+        CartModel cached = cartService.findPendingCartByUserId(USER_ID).orElseThrow();
+        assertEquals(Map.of(APPLE, 3, PEAR, 2), quantitiesOf(cached));
+        assertEquals(0, new BigDecimal("11.00").compareTo(cached.getTotalAmount()));
+        assertEquals(quantitiesOf(cached), quantitiesOf(loadAfterEviction()));
+    }
+
+    @Test
+    void readsAreServedFromTheCacheUntilEvicted() {
+        cartService.addItems(USER_ID, List.of(new CartItemQuantityDTO(APPLE, 1)));
+        cartService.findPendingCartByUserId(USER_ID);
+
+        // A change made behind the service is not seen until the entry is evicted
+        jdbcTemplate.update("UPDATE cart_items SET quantity = 7 WHERE product_id = ?", APPLE);
+        assertEquals(Map.of(APPLE, 1), quantitiesOf(cartService.findPendingCartByUserId(USER_ID).orElseThrow()));
+
+        assertEquals(Map.of(APPLE, 7), quantitiesOf(loadAfterEviction()));
+    }
+
+    @Test
+    void aFailedChangeKeepsTheCachedCart() {
+        cartService.addItems(USER_ID, List.of(new CartItemQuantityDTO(APPLE, 1)));
+        cartService.findPendingCartByUserId(USER_ID);
+
+        assertThrows(ResourceNotFoundException.class,
+                () -> cartService.addItems(USER_ID, List.of(new CartItemQuantityDTO(APPLE, 4), new CartItemQuantityDTO(99L, 1))));
+
+        assertEquals(Map.of(APPLE, 1), quantitiesOf(cartService.findPendingCartByUserId(USER_ID).orElseThrow()));
+        assertEquals(Map.of(APPLE, 1), quantitiesOf(loadAfterEviction()));
+    }
+
+    @Test
+    void deletingACartEvictsIt() {
+        CartModel cart = cartService.addItems(USER_ID, List.of(new CartItemQuantityDTO(APPLE, 1)));
+        cartService.findPendingCartByUserId(USER_ID);
+
+        assertTrue(cartService.deleteById(cart.getId()));
+
+        assertTrue(cartService.findPendingCartByUserId(USER_ID).isEmpty());
+        assertThrows(ResourceNotFoundException.class, () -> cartService.findPendingCartByUserId(99L));
+    }
+
+    private CartModel loadAfterEviction() {
+        cartService.evictPendingCart(USER_ID);
+        return cartService.findPendingCartByUserId(USER_ID).orElseThrow();
+    }
+
+    private int count(String table) {
+        return jdbcTemplate.queryForObject("SELECT COUNT(*) FROM " + table, Integer.class);
+    }
+
+    private static Map<Long, Integer> quantitiesOf(CartModel cart) {
+        return cart.getCartItems().stream().collect(Collectors.toMap(CartItemModel::getProductId, CartItemModel::getQuantity));
+    }
+}
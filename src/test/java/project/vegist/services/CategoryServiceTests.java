@@ -0,0 +1,177 @@
+package project.vegist.services;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.jdbc.AutoConfigureTestDatabase;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.context.annotation.Import;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+import project.vegist.dtos.CategoryDTO;
+import project.vegist.entities.Product;
+import project.vegist.exceptions.BadRequestException;
+import project.vegist.models.CategoryTreeModel;
+import project.vegist.repositories.ProductRepository;
+import project.vegist.utils.KeysetPager;
+
+import java.util.List;
+import java.util.Map;
+import java.util.stream.Collectors;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+// Category paths and the in-memory tree against an in-memory H2 database
+@DataJpaTest(properties = {
+        "spring.datasource.url=jdbc:h2:mem:categories;MODE=MySQL;DB_CLOSE_DELAY=-1;NON_KEYWORDS=VALUE",
+        "spring.jpa.properties.hibernate.dialect=org.hibernate.dialect.H2Dialect",
+        "spring.jpa.hibernate.ddl-auto=create-drop"
+})
+@AutoConfigureTestDatabase(replace = AutoConfigureTestDatabase.Replace.NONE)
+@Import({CategoryService.class, CategoryTreeIndex.class, KeysetPager.class})
+@Transactional(propagation = Propagation.NOT_SUPPORTED)
+class CategoryServiceTests {
+
+    @Autowired
+    private CategoryService categoryService;
+    @Autowired
+    private CategoryTreeIndex categoryTreeIndex;
+    @Autowired
+    private ProductRepository productRepository;
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @BeforeEach
+    void clearCategories() {
+        jdbcTemplate.update("DELETE FROM products");
+        jdbcTemplate.update("UPDATE categories SET parent_id = NULL");
+        jdbcTemplate.update("DELETE FROM categories");
+        jdbcTemplate.update("DELETE FROM labels");
+        jdbcTemplate.update("INSERT INTO labels (id, label_name) VALUES (1, 'New')");
+        categoryTreeIndex.refresh();
+    }
+
+    @Test
+    void createdCategoriesGetTheirPathAndShowUpInTheTree() {
+        Long fruit = create("Fruit", null);
+        Long citrus = create("Citrus", fruit);
+        Long lemons = create("Lemons", citrus);
+
+        assertEquals("/" + fruit + "/", pathOf(fruit));
+        assertEquals("/" + fruit + "/" + citrus + "/" + lemons + "/", pathOf(lemons));
+        assertEquals(pathOf(lemons), categoryService.findPath(lemons).orElseThrow());
+        assertEquals(List.of(fruit, citrus, lemons),
+                categoryService.findBreadcrumb(lemons).stream().map(CategoryTreeModel::getId).toList());
+    }
+
+    @Test
+    void movingACategoryReRootsItsWholeSubtree() {
+        Long fruit = create("Fruit", null);
+        Long citrus = create("Citrus", fruit);
+        Long lemons = create("Lemons", citrus);
+        Long sale = create("Sale", null);
+        insertProduct(100L, lemons);
+
+        categoryService.update(citrus, new CategoryDTO("Citrus", true, sale, null, null, null));
+
+        String citrusPath = "/" + sale + "/" + citrus + "/";
+        assertEquals(citrusPath, pathOf(citrus));
+        assertEquals(citrusPath + lemons + "/", pathOf(lemons));
+        assertEquals(citrusPath + lemons + "/", categoryService.findPath(lemons).orElseThrow());
+        assertEquals(List.of(sale, citrus, lemons),
+                categoryService.findBreadcrumb(lemons).stream().map(CategoryTreeModel::getId).toList());
+
+        // The product query on the path prefix follows the move
+        assertEquals(List.of(100L), productIdsUnder(sale));
+        assertEquals(List.of(), productIdsUnder(fruit));
+    }
+
+    @Test
+    void aCategoryCannotBeMovedUnderItsOwnSubtree() {
+        Long fruit = create("Fruit", null);
+        Long citrus = create("Citrus", fruit);
+        Long lemons = create("Lemons", citrus);
+
+        assertThrows(BadRequestException.class,
+                () -> categoryService.update(fruit, new CategoryDTO("Fruit", true, lemons, null, null, null)));
+        assertThrows(BadRequestException.class,
+                () -> categoryService.update(fruit, new CategoryDTO("Fruit", true, fruit, null, null, null)));
+
+        assertEquals("/" + fruit + "/", pathOf(fruit));
+        assertNull(jdbcTemplate.queryForObject("SELECT parent_id FROM categories WHERE id = ?", Long.class, fruit));
+        assertEquals(List.of(fruit), categoryTreeIndex.roots().stream().map(CategoryTreeIndex.Node::id).toList());
+    }
+
+    @Test
+    void treeProductCountsIncludeDescendants() {
+        Long fruit = create("Fruit", null);
+        Long citrus = create("Citrus", fruit);
+        Long lemons = create("Lemons", citrus);
+        Long apples = create("Apples", fruit);
+        insertProduct(100L, fruit);
+        insertProduct(101L, lemons);
+        insertProduct(102L, lemons);
+        insertProduct(103L, apples);
+
+        List<CategoryTreeModel> tree = categoryService.findTree();
+
+        assertEquals(1, tree.size());
+        CategoryTreeModel root = tree.get(0);
+        assertEquals(4, root.getProductCount());
+        Map<Long, Long> childCounts = root.getChildren().stream()
+                .collect(Collectors.toMap(CategoryTreeModel::getId, CategoryTreeModel::getProductCount));
+        assertEquals(Map.of(citrus, 2L, apples, 1L), childCounts);
+        assertEquals(2, categoryService.findTree(citrus).orElseThrow().getProductCount());
+    }
+
+    @Test
+    void missingPathsAreRepairedOnStartup() {
+        jdbcTemplate.update("INSERT INTO categories (id, name, status, created_at, updated_at) VALUES (1, 'Fruit', TRUE, NOW(), NOW())");
+        jdbcTemplate.update("INSERT INTO categories (id, name, status, parent_id, created_at, updated_at) VALUES (2, 'Citrus', TRUE, 1, NOW(), NOW())");
+        jdbcTemplate.update("INSERT INTO categories (id, name, status, parent_id, path, created_at, updated_at) "
+                + "VALUES (3, 'Lemons', TRUE, 2, '/9/3/', NOW(), NOW())");
+
+        categoryTreeIndex.repairPathsAndRefresh();
+
+        assertEquals("/1/", pathOf(1L));
+        assertEquals("/1/2/", pathOf(2L));
+        assertEquals("/1/2/3/", pathOf(3L));
+        assertEquals(List.of(1L, 2L, 3L), categoryTreeIndex.breadcrumb(3L).stream().map(CategoryTreeIndex.Node::id).toList());
+    }
+
+    @Test
+    void aLoopingParentChainEndsInARoot() {
+        jdbcTemplate.update("INSERT INTO categories (id, name, status, created_at, updated_at) VALUES (1, 'Fruit', TRUE, NOW(), NOW())");
+        jdbcTemplate.update("INSERT INTO categories (id, name, status, parent_id, created_at, updated_at) VALUES (2, 'Citrus', TRUE, 1, NOW(), NOW())");
+        jdbcTemplate.update("UPDATE categories SET parent_id = 2 WHERE id = 1");
+
+        categoryTreeIndex.repairPathsAndRefresh();
+
+        List<CategoryTreeIndex.Node> roots = categoryTreeIndex.roots();
+        assertEquals(1, roots.size());
+        assertEquals(1, categoryTreeIndex.children(roots.get(0)).size());
+        assertEquals(2, categoryTreeIndex.breadcrumb(1L).size() + categoryTreeIndex.breadcrumb(2L).size() - 1);
+        assertNotNull(pathOf(1L));
+        assertNotNull(pathOf(2L));
+    }
+
+    private Long create(String name, Long parentId) {
+        return categoryService.create(new CategoryDTO(name, true, parentId, null, null, null)).orElseThrow().getId();
+    }
+
+    private String pathOf(Long id) {
+        return jdbcTemplate.queryForObject("SELECT path FROM categories WHERE id = ?", String.class, id);
+    }
+
+    private void insertProduct(Long id, Long categoryId) {
+        jdbcTemplate.update("INSERT INTO products (id, product_name, price, category_id, label_id, created_at, updated_at) "
+                + "VALUES (?, 'Product', 1.00, ?, 1, NOW(), NOW())", id, categoryId);
+    }
+
+    private List<Long> productIdsUnder(Long categoryId) {
+        String path = categoryService.findPath(categoryId).orElseThrow();
+        return productRepository.findByCategoryPath(path, PageRequest.of(0, 10)).stream().map(Product::getId).toList();
+    }
+}
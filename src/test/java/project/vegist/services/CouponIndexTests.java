@@ -0,0 +1,193 @@
+package project.vegist.services;
+
+import org.junit.jupiter.api.Test;
+import project.vegist.entities.Coupon;
+import project.vegist.enums.CouponStatus;
+import project.vegist.exceptions.BadRequestException;
+import project.vegist.models.CouponValidationModel;
+import project.vegist.repositories.CouponRepository;
+
+import java.lang.reflect.Proxy;
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.function.Supplier;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class CouponIndexTests {
+    private static final long RETENTION_DAYS = 30;
+    private static final LocalDateTime NOW = LocalDateTime.of(2024, 6, 1, 12, 0);
+
+    @Test
+    void statusFollowsTheCouponWindow() {
+        CouponIndex couponIndex = new CouponIndex(null, RETENTION_DAYS);
+        couponIndex.put(coupon(1L, "SOON", NOW.plusDays(1), NOW.plusDays(10)));
+        couponIndex.put(coupon(2L, "NOW", NOW.minusDays(1), NOW.plusDays(1)));
+        couponIndex.put(coupon(3L, "ENDED", NOW.minusDays(10), NOW));
+        couponIndex.put(coupon(4L, "ALWAYS", null, null));
+
+        assertEquals(CouponStatus.NOT_STARTED, statusOf(couponIndex, "SOON"));
+        assertEquals(CouponStatus.VALID, statusOf(couponIndex, "NOW"));
+        // The end date itself is already past the window
+        assertEquals(CouponStatus.EXPIRED, statusOf(couponIndex, "ENDED"));
+        assertEquals(CouponStatus.VALID, statusOf(couponIndex, "ALWAYS"));
+        assertEquals(CouponStatus.NOT_FOUND, statusOf(couponIndex, "UNKNOWN"));
+        assertEquals(CouponStatus.NOT_FOUND, statusOf(couponIndex, null));
+        assertEquals(CouponStatus.VALID, couponIndex.validate(1L, NOW.plusDays(1)).getStatus());
+        assertEquals(CouponStatus.NOT_FOUND, couponIndex.validate(99L, NOW).getStatus());
+        assertEquals(CouponStatus.NOT_FOUND, couponIndex.validate((Long) null, NOW).getStatus());
+    }
+
+    @Test
+    void validationCarriesTheCouponTerms() {
+        CouponIndex couponIndex = new CouponIndex(null, RETENTION_DAYS);
+        Coupon coupon = coupon(1L, " SAVE10 ", null, NOW.plusDays(1));
+        coupon.setPercent(10);
+        coupon.setMaxRedemptions(100);
+        coupon.setMaxRedemptionsPerUser(1);
+        couponIndex.put(coupon);
+
+        CouponValidationModel validation = couponIndex.validate("  SAVE10", NOW);
+
+        assertEquals(CouponStatus.VALID, validation.getStatus());
+        assertEquals(1L, validation.getCouponId());
+        assertEquals("SAVE10", validation.getValue());
+        assertEquals(10, validation.getPercent());
+        assertEquals(100, validation.getMaxRedemptions());
+        assertEquals(1, validation.getMaxRedemptionsPerUser());
+    }
+
+    @Test
+    void requireValidRejectsEveryOtherStatus() {
+        CouponIndex couponIndex = new CouponIndex(null, RETENTION_DAYS);
+        couponIndex.put(coupon(1L, "SOON", NOW.plusDays(1), null));
+        couponIndex.put(coupon(2L, "ENDED", null, NOW.minusDays(1)));
+        couponIndex.put(coupon(3L, "NOW", null, null));
+
+        for (String code : List.of("SOON", "ENDED", "UNKNOWN")) {
+            assertThrows(BadRequestException.class, () -> CouponIndex.requireValid(couponIndex.validate(code, NOW)), code);
+        }
+        assertEquals(3L, CouponIndex.requireValid(couponIndex.validate("NOW", NOW)).getCouponId());
+    }
+
+    @Test
+    void aChangedCodeReplacesTheOldOne() {
+        CouponIndex couponIndex = new CouponIndex(null, RETENTION_DAYS);
+        couponIndex.put(coupon(1L, "OLD", null, null));
+
+        couponIndex.put(coupon(1L, "NEW", null, null));
+
+        assertEquals(CouponStatus.NOT_FOUND, statusOf(couponIndex, "OLD"));
+        assertEquals(1L, couponIndex.validate("NEW", NOW).getCouponId());
+        assertEquals(1, couponIndex.size());
+    }
+
+    @Test
+    void removingACouponKeepsACodeTakenOverByAnother() {
+        CouponIndex couponIndex = new CouponIndex(null, RETENTION_DAYS);
+        couponIndex.put(coupon(1L, "SUMMER", null, null));
+        couponIndex.put(coupon(1L, "SUMMER-OLD", null, null));
+        couponIndex.put(coupon(2L, "SUMMER", null, null));
+
+        couponIndex.remove(1L);
+
+        assertEquals(CouponStatus.NOT_FOUND, statusOf(couponIndex, "SUMMER-OLD"));
+        assertEquals(2L, couponIndex.validate("SUMMER", NOW).getCouponId());
+        assertEquals(CouponStatus.NOT_FOUND, couponIndex.validate(1L, NOW).getStatus());
+    }
+
+    @Test
+    void purgeDropsOnlyCouponsThatEndedBeforeTheRetentionPeriod() {
+        LocalDateTime today = LocalDateTime.now();
+        CouponIndex couponIndex = new CouponIndex(null, RETENTION_DAYS);
+        couponIndex.put(coupon(1L, "LONG-GONE", null, today.minusDays(RETENTION_DAYS + 10)));
+        couponIndex.put(coupon(2L, "RECENT", null, today.minusDays(RETENTION_DAYS - 10)));
+        couponIndex.put(coupon(3L, "EXTENDED", null, today.minusDays(RETENTION_DAYS + 5)));
+        couponIndex.put(coupon(3L, "EXTENDED", null, today.plusDays(5)));
+        couponIndex.put(coupon(4L, "ALWAYS", null, null));
+
+        couponIndex.purgeExpired();
+
+        assertEquals(CouponStatus.NOT_FOUND, couponIndex.validate("LONG-GONE", today).getStatus());
+        // A late code is still reported as expired within the retention period
+        assertEquals(CouponStatus.EXPIRED, couponIndex.validate("RECENT", today).getStatus());
+        assertEquals(CouponStatus.VALID, couponIndex.validate("EXTENDED", today).getStatus());
+        assertEquals(CouponStatus.VALID, couponIndex.validate("ALWAYS", today).getStatus());
+        assertEquals(3, couponIndex.size());
+    }
+
+    @Test
+    void reloadReplacesTheIndexWithTheStoredCoupons() {
+        List<Coupon> stored = List.of(coupon(1L, "STORED", null, null));
+        CouponIndex couponIndex = new CouponIndex(repositoryReturning(() -> stored), RETENTION_DAYS);
+        couponIndex.put(coupon(2L, "DELETED-OUTSIDE", null, null));
+
+        couponIndex.reload();
+
+        assertEquals(CouponStatus.VALID, statusOf(couponIndex, "STORED"));
+        assertEquals(CouponStatus.NOT_FOUND, statusOf(couponIndex, "DELETED-OUTSIDE"));
+        assertEquals(1, couponIndex.size());
+    }
+
+    @Test
+    void changesCommittedDuringAReloadAreKept() {
+        CouponIndex[] holder = new CouponIndex[1];
+        // The rows are read before the concurrent changes committed, so they are missing from the result
+        CouponIndex couponIndex = new CouponIndex(repositoryReturning(() -> {
+            holder[0].put(coupon(3L, "CREATED", null, null));
+            holder[0].remove(1L);
+            return List.of(coupon(1L, "REMOVED", null, null), coupon(2L, "KEPT", null, null));
+        }), RETENTION_DAYS);
+        holder[0] = couponIndex;
+
+        couponIndex.reload();
+
+        assertEquals(CouponStatus.VALID, statusOf(couponIndex, "CREATED"));
+        assertEquals(CouponStatus.VALID, statusOf(couponIndex, "KEPT"));
+        assertEquals(CouponStatus.NOT_FOUND, statusOf(couponIndex, "REMOVED"));
+    }
+
+    @Test
+    void aFailedReloadKeepsTheIndexAndAllowsTheNextOne() {
+        boolean[] fail = {true};
+        CouponIndex couponIndex = new CouponIndex(repositoryReturning(() -> {
+            if (fail[0]) {
+                throw new IllegalStateException("database down");
+            }
+            return List.of(coupon(2L, "RELOADED", null, null));
+        }), RETENTION_DAYS);
+        couponIndex.put(coupon(1L, "CACHED", null, null));
+
+        assertThrows(IllegalStateException.class, couponIndex::reload);
+        assertEquals(CouponStatus.VALID, statusOf(couponIndex, "CACHED"));
+
+        fail[0] = false;
+        couponIndex.reload();
+        assertEquals(CouponStatus.VALID, statusOf(couponIndex, "RELOADED"));
+        assertEquals(CouponStatus.NOT_FOUND, statusOf(couponIndex, "CACHED"));
+    }
+
+    private static CouponStatus statusOf(CouponIndex couponIndex, String code) {
+        return couponIndex.validate(code, NOW).getStatus();
+    }
+
+    private static Coupon coupon(Long id, String value, LocalDateTime startDate, LocalDateTime endDate) {
+        Coupon coupon = new Coupon();
+        coupon.setId(id);
+        coupon.setValue(value);
+        coupon.setStartDate(startDate);
+        coupon.setEndDate(endDate);
+        return coupon;
+    }
+
+    // Only findEndingAfter is called by the index
+    private static CouponRepository repositoryReturning(Supplier<List<Coupon>> coupons) {
+        return (CouponRepository) Proxy.newProxyInstance(CouponRepository.class.getClassLoader(), new Class<?>[]{CouponRepository.class},
+                (proxy, method, args) -> {
+                    if (method.getName().equals("findEndingAfter")) {
+                        return coupons.get();
+                    }
+                    throw new UnsupportedOperationException(method.getName());
+                });
+    }
+}
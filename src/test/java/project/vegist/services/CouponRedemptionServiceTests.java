@@ -0,0 +1,253 @@
+package project.vegist.services;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.jdbc.AutoConfigureTestDatabase;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.context.annotation.Import;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.transaction.IllegalTransactionStateException;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionTemplate;
+import project.vegist.entities.Coupon;
+import project.vegist.exceptions.ConflictException;
+import project.vegist.utils.TransactionUtils;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+// Checkouts with a limited coupon against an in-memory H2 database, placed the way OrderService places them
+@DataJpaTest(properties = {
+        "spring.datasource.url=jdbc:h2:mem:redemptions;MODE=MySQL;DB_CLOSE_DELAY=-1;LOCK_TIMEOUT=10000;NON_KEYWORDS=VALUE",
+        "spring.jpa.properties.hibernate.dialect=org.hibernate.dialect.H2Dialect",
+        "spring.jpa.hibernate.ddl-auto=create-drop",
+        "coupon-redemption.stripes=4"
+})
+@AutoConfigureTestDatabase(replace = AutoConfigureTestDatabase.Replace.NONE)
+@Import({CouponRedemptionService.class, CouponIndex.class})
+@Transactional(propagation = Propagation.NOT_SUPPORTED)
+class CouponRedemptionServiceTests {
+    private static final int CHECKOUTS = 60;
+
+    @Autowired
+    private CouponRedemptionService couponRedemptionService;
+    @Autowired
+    private CouponIndex couponIndex;
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+    @Autowired
+    private PlatformTransactionManager transactionManager;
+
+    private TransactionTemplate transactionTemplate;
+    private final AtomicLong orderIds = new AtomicLong();
+    // Each test uses its own coupon ids, the service keeps its hints between tests
+    private static final AtomicLong COUPON_IDS = new AtomicLong();
+
+    @BeforeEach
+    void clearCoupons() {
+        transactionTemplate = new TransactionTemplate(transactionManager);
+        jdbcTemplate.update("DELETE FROM coupon_redemptions");
+        jdbcTemplate.update("DELETE FROM coupons");
+    }
+
+    @Test
+    void concurrentCheckoutsNeverRedeemPastTheLimit() throws Exception {
+        Long couponId = createCoupon(10, null);
+        AtomicInteger placed = new AtomicInteger();
+        AtomicInteger rejected = new AtomicInteger();
+        CountDownLatch start = new CountDownLatch(1);
+        ExecutorService executor = Executors.newFixedThreadPool(16);
+        try {
+            List<Future<?>> checkouts = new ArrayList<>();
+            for (int i = 0; i < CHECKOUTS; i++) {
+                long userId = i;
+                checkouts.add(executor.submit(() -> {
+                    start.await();
+                    try {
+                        checkout(couponId, userId);
+                        placed.incrementAndGet();
+                    } catch (ConflictException e) {
+                        rejected.incrementAndGet();
+                    }
+                    return null;
+                }));
+            }
+            start.countDown();
+            for (Future<?> checkout : checkouts) {
+                checkout.get(30, TimeUnit.SECONDS);
+            }
+        } finally {
+            executor.shutdownNow();
+        }
+
+        assertEquals(10, placed.get());
+        assertEquals(CHECKOUTS - 10, rejected.get());
+        assertEquals(10, redeemedOf(couponId));
+        assertEquals(10, redemptionsOf(couponId));
+    }
+
+    @Test
+    void eachUserGetsTheirShareOnly() {
+        Long couponId = createCoupon(null, 2);
+
+        checkout(couponId, 1L);
+        checkout(couponId, 1L);
+        assertThrows(ConflictException.class, () -> checkout(couponId, 1L));
+        checkout(couponId, 2L);
+
+        assertEquals(3, redeemedOf(couponId));
+        assertEquals(3, redemptionsOf(couponId));
+    }
+
+    @Test
+    void aRolledBackCheckoutGivesItsRedemptionBack() {
+        Long couponId = createCoupon(1, null);
+
+        assertThrows(IllegalStateException.class, () -> transactionTemplate.executeWithoutResult(status -> {
+            place(couponId, 1L);
+            throw new IllegalStateException("payment declined");
+        }));
+        assertEquals(0, redeemedOf(couponId));
+
+        checkout(couponId, 2L);
+        assertThrows(ConflictException.class, () -> checkout(couponId, 3L));
+        assertEquals(1, redeemedOf(couponId));
+    }
+
+    @Test
+    void aCouponUsedUpElsewhereIsRejectedByTheDatabaseAndThenByTheHint() {
+        Long couponId = createCoupon(2, null);
+        checkout(couponId, 1L);
+
+        // Another instance takes the last redemption; this one still believes one is left
+        jdbcTemplate.update("UPDATE coupons SET redeemed = 2 WHERE id = ?", couponId);
+        assertThrows(ConflictException.class, () -> checkout(couponId, 2L));
+        assertEquals(1, redemptionsOf(couponId));
+
+        // The hint was drained, so the next checkout is refused before any update
+        jdbcTemplate.update("UPDATE coupons SET redeemed = 1 WHERE id = ?", couponId);
+        assertThrows(ConflictException.class, () -> checkout(couponId, 3L));
+        assertEquals(1, redeemedOf(couponId));
+    }
+
+    @Test
+    void reconcileRefreshesTheHintFromTheTable() {
+        Long couponId = createCoupon(1, null);
+        checkout(couponId, 1L);
+        assertThrows(ConflictException.class, () -> checkout(couponId, 2L));
+
+        // The redemption was given back on another instance
+        jdbcTemplate.update("UPDATE coupons SET redeemed = 0 WHERE id = ?", couponId);
+        assertThrows(ConflictException.class, () -> checkout(couponId, 2L));
+
+        couponRedemptionService.reconcile();
+        checkout(couponId, 2L);
+        assertEquals(1, redeemedOf(couponId));
+    }
+
+    @Test
+    void aChangedLimitIsAppliedToTheHint() {
+        Long couponId = createCoupon(1, null);
+        checkout(couponId, 1L);
+
+        updateLimit(couponId, 3);
+        checkout(couponId, 2L);
+        checkout(couponId, 3L);
+        assertThrows(ConflictException.class, () -> checkout(couponId, 4L));
+
+        // Lowered below what was redeemed, the hint owes the difference and refuses until it is paid back
+        updateLimit(couponId, 1);
+        couponRedemptionService.reconcile();
+        assertThrows(ConflictException.class, () -> checkout(couponId, 4L));
+        assertEquals(3, redeemedOf(couponId));
+    }
+
+    @Test
+    void cancelledOrdersMakeTheirRedemptionsAvailableAgain() {
+        Long couponId = createCoupon(1, 1);
+        long orderId = checkout(couponId, 1L);
+        assertThrows(ConflictException.class, () -> checkout(couponId, 2L));
+
+        transactionTemplate.executeWithoutResult(status -> couponRedemptionService.releaseOrders(List.of(orderId)));
+
+        assertEquals(0, redeemedOf(couponId));
+        assertEquals(0, redemptionsOf(couponId));
+        checkout(couponId, 1L);
+    }
+
+    @Test
+    void aRolledBackCancellationKeepsTheRedemption() {
+        Long couponId = createCoupon(1, null);
+        long orderId = checkout(couponId, 1L);
+
+        assertThrows(IllegalStateException.class, () -> transactionTemplate.executeWithoutResult(status -> {
+            couponRedemptionService.releaseOrders(List.of(orderId));
+            throw new IllegalStateException("cancellation failed");
+        }));
+
+        assertEquals(1, redeemedOf(couponId));
+        assertThrows(ConflictException.class, () -> checkout(couponId, 2L));
+        couponRedemptionService.reconcile();
+        assertThrows(ConflictException.class, () -> checkout(couponId, 2L));
+    }
+
+    @Test
+    void reservationsOutsideACheckoutAreRefused() {
+        Long couponId = createCoupon(1, null);
+
+        assertThrows(IllegalTransactionStateException.class, () -> couponRedemptionService.reserve(couponId, 1L));
+    }
+
+    // Reserve first, record last, commit or release with the transaction
+    private long checkout(Long couponId, Long userId) {
+        return transactionTemplate.execute(status -> place(couponId, userId));
+    }
+
+    private long place(Long couponId, Long userId) {
+        long orderId = orderIds.incrementAndGet();
+        CouponRedemptionService.Reservation reservation = couponRedemptionService.reserve(couponId, userId);
+        TransactionUtils.afterRollback(() -> couponRedemptionService.release(reservation));
+        couponRedemptionService.record(reservation, orderId);
+        TransactionUtils.afterCommit(() -> couponRedemptionService.commit(reservation));
+        return orderId;
+    }
+
+    private Long createCoupon(Integer maxRedemptions, Integer maxRedemptionsPerUser) {
+        Long couponId = COUPON_IDS.incrementAndGet();
+        jdbcTemplate.update("INSERT INTO coupons (id, value, percent, max_redemptions, max_redemptions_per_user, redeemed) "
+                + "VALUES (?, ?, 10, ?, ?, 0)", couponId, "SAVE" + couponId, maxRedemptions, maxRedemptionsPerUser);
+        couponIndex.put(coupon(couponId, maxRedemptions, maxRedemptionsPerUser));
+        return couponId;
+    }
+
+    private void updateLimit(Long couponId, int maxRedemptions) {
+        jdbcTemplate.update("UPDATE coupons SET max_redemptions = ? WHERE id = ?", maxRedemptions, couponId);
+        couponIndex.put(coupon(couponId, maxRedemptions, null));
+    }
+
+    private static Coupon coupon(Long couponId, Integer maxRedemptions, Integer maxRedemptionsPerUser) {
+        Coupon coupon = new Coupon();
+        coupon.setId(couponId);
+        coupon.setValue("SAVE" + couponId);
+        coupon.setPercent(10);
+        coupon.setMaxRedemptions(maxRedemptions);
+        coupon.setMaxRedemptionsPerUser(maxRedemptionsPerUser);
+        return coupon;
+    }
+
+    private int redeemedOf(Long couponId) {
+        return jdbcTemplate.queryForObject("SELECT redeemed FROM coupons WHERE id = ?", Integer.class, couponId);
+    }
+
+    private int redemptionsOf(Long couponId) {
+        return jdbcTemplate.queryForObject("SELECT COUNT(*) FROM coupon_redemptions WHERE coupon_id = ?", Integer.class, couponId);
+    }
+}
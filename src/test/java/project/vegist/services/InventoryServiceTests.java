@@ -0,0 +1,128 @@
+package project.vegist.services;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.jdbc.AutoConfigureTestDatabase;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.context.annotation.Import;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.transaction.IllegalTransactionStateException;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionTemplate;
+import project.vegist.exceptions.ConflictException;
+import project.vegist.utils.KeysetPager;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+// Checkouts racing for the same product on an in-memory H2 database, each in its own transaction
+@DataJpaTest(properties = {
+        "spring.datasource.url=jdbc:h2:mem:inventory;MODE=MySQL;DB_CLOSE_DELAY=-1;LOCK_TIMEOUT=10000;NON_KEYWORDS=VALUE",
+        "spring.jpa.properties.hibernate.dialect=org.hibernate.dialect.H2Dialect",
+        "spring.jpa.hibernate.ddl-auto=create-drop"
+})
+@AutoConfigureTestDatabase(replace = AutoConfigureTestDatabase.Replace.NONE)
+@Import({InventoryService.class, KeysetPager.class})
+@Transactional(propagation = Propagation.NOT_SUPPORTED)
+class InventoryServiceTests {
+    private static final int STOCK = 25;
+    private static final int CHECKOUTS = 100;
+
+    @Autowired
+    private InventoryService inventoryService;
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+    @Autowired
+    private PlatformTransactionManager transactionManager;
+
+    private TransactionTemplate transactionTemplate;
+
+    @BeforeEach
+    void createProducts() {
+        transactionTemplate = new TransactionTemplate(transactionManager);
+        jdbcTemplate.update("DELETE FROM inventory_reservations");
+        jdbcTemplate.update("DELETE FROM inventories");
+        jdbcTemplate.update("DELETE FROM products");
+        jdbcTemplate.update("DELETE FROM categories");
+        jdbcTemplate.update("DELETE FROM labels");
+
+        jdbcTemplate.update("INSERT INTO categories (id, name, status, created_at, updated_at) VALUES (1, 'Fruit', TRUE, NOW(), NOW())");
+        jdbcTemplate.update("INSERT INTO labels (id, label_name) VALUES (1, 'New')");
+        for (long productId = 1; productId <= 2; productId++) {
+            jdbcTemplate.update("INSERT INTO products (id, product_name, price, category_id, label_id, created_at, updated_at) "
+                    + "VALUES (?, 'Apple', 1.00, 1, 1, NOW(), NOW())", productId);
+        }
+        jdbcTemplate.update("INSERT INTO inventories (product_id, quantity, reserved, version, created_at, updated_at) "
+                + "VALUES (1, ?, 0, 0, NOW(), NOW())", STOCK);
+        jdbcTemplate.update("INSERT INTO inventories (product_id, quantity, reserved, version, created_at, updated_at) "
+                + "VALUES (2, 1, 0, 0, NOW(), NOW())");
+    }
+
+    @Test
+    void concurrentCheckoutsNeverOversellAProduct() throws Exception {
+        AtomicInteger reserved = new AtomicInteger();
+        AtomicInteger rejected = new AtomicInteger();
+        CountDownLatch start = new CountDownLatch(1);
+        ExecutorService executor = Executors.newFixedThreadPool(16);
+        try {
+            List<Future<?>> checkouts = new ArrayList<>();
+            for (int i = 0; i < CHECKOUTS; i++) {
+                checkouts.add(executor.submit(() -> {
+                    start.await();
+                    try {
+                        transactionTemplate.executeWithoutResult(status -> inventoryService.reserve(Map.of(1L, 1), null));
+                        reserved.incrementAndGet();
+                    } catch (ConflictException e) {
+                        rejected.incrementAndGet();
+                    }
+                    return null;
+                }));
+            }
+            start.countDown();
+            for (Future<?> checkout : checkouts) {
+                checkout.get(30, TimeUnit.SECONDS);
+            }
+        } finally {
+            executor.shutdownNow();
+        }
+
+        assertEquals(STOCK, reserved.get());
+        assertEquals(CHECKOUTS - STOCK, rejected.get());
+        assertEquals(0, stockOf(1L));
+        assertEquals(STOCK, reservedOf(1L));
+        assertEquals(STOCK, jdbcTemplate.queryForObject("SELECT COUNT(*) FROM inventory_reservations", Integer.class));
+    }
+
+    @Test
+    void aShortProductRollsBackTheWholeReservation() {
+        assertThrows(ConflictException.class, () -> transactionTemplate.executeWithoutResult(status ->
+                inventoryService.reserve(Map.of(1L, 3, 2L, 2), null)));
+
+        assertEquals(STOCK, stockOf(1L));
+        assertEquals(0, reservedOf(1L));
+        assertEquals(1, stockOf(2L));
+        assertEquals(0, jdbcTemplate.queryForObject("SELECT COUNT(*) FROM inventory_reservations", Integer.class));
+    }
+
+    @Test
+    void reservationsOutsideACheckoutAreRefused() {
+        assertThrows(IllegalTransactionStateException.class, () -> inventoryService.reserve(Map.of(1L, 1), null));
+        assertEquals(STOCK, stockOf(1L));
+    }
+
+    private int stockOf(Long productId) {
+        return jdbcTemplate.queryForObject("SELECT quantity FROM inventories WHERE product_id = ?", Integer.class, productId);
+    }
+
+    private int reservedOf(Long productId) {
+        return jdbcTemplate.queryForObject("SELECT reserved FROM inventories WHERE product_id = ?", Integer.class, productId);
+    }
+}
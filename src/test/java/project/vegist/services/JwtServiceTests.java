@@ -0,0 +1,91 @@
+package project.vegist.services;
+
+import io.jsonwebtoken.ExpiredJwtException;
+import io.jsonwebtoken.JwtException;
+import io.jsonwebtoken.Jwts;
+import io.jsonwebtoken.SignatureAlgorithm;
+import io.jsonwebtoken.security.Keys;
+import org.junit.jupiter.api.Test;
+import project.vegist.models.VerifiedToken;
+
+import java.time.Instant;
+import java.time.temporal.ChronoUnit;
+import java.util.Date;
+import java.util.List;
+import java.util.Set;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class JwtServiceTests {
+    private static final String SECRET = "aLongSecretStringWhoseBitnessIsEqualToOrGreaterThanTheBitnessOfTheTokenEncryptionAlgorithm";
+    private static final String OTHER_SECRET = "anotherLongSecretStringWhoseBitnessIsEqualToOrGreaterThanTheBitnessOfTheTokenAlgorithm";
+
+    private final JwtService jwtService = new JwtService(null, SECRET, 86_400_000L, 100);
+
+    @Test
+    void verifyReturnsTheClaimsOfTheToken() {
+        Instant expiration = Instant.now().plus(1, ChronoUnit.HOURS).truncatedTo(ChronoUnit.SECONDS);
+        VerifiedToken token = jwtService.verify(token(SECRET, 7L, expiration));
+
+        assertEquals(7L, token.getUserId());
+        assertEquals("user7@vegist.test", token.getEmail());
+        assertEquals(Set.of("ROLE_USER", "ROLE_ADMIN"), token.getRoles());
+        assertEquals(expiration, token.getExpiration());
+    }
+
+    @Test
+    void verifiedTokensAreAnsweredFromTheCache() {
+        String token = token(SECRET, 7L, Instant.now().plus(1, ChronoUnit.HOURS));
+
+        VerifiedToken first = jwtService.verify(token);
+        assertSame(first, jwtService.verify(token));
+        assertSame(first, jwtService.verify(token.substring("Bearer ".length())));
+        assertEquals(7L, jwtService.getUserIdFromToken(token));
+    }
+
+    @Test
+    void tokensSignedWithAnotherKeyAreRejected() {
+        String forged = token(OTHER_SECRET, 7L, Instant.now().plus(1, ChronoUnit.HOURS));
+
+        assertThrows(JwtException.class, () -> jwtService.verify(forged));
+        // A failed verification is not cached, the token keeps failing
+        assertTrue(jwtService.tryVerify(forged).isEmpty());
+        assertFalse(jwtService.isTokenValid(forged));
+    }
+
+    @Test
+    void tokensWithAChangedPayloadAreRejected() {
+        String[] genuine = token(SECRET, 7L, Instant.now().plus(1, ChronoUnit.HOURS)).split("\\.");
+        String[] other = token(SECRET, 8L, Instant.now().plus(1, ChronoUnit.HOURS)).split("\\.");
+        String tampered = genuine[0] + "." + other[1] + "." + genuine[2];
+
+        assertThrows(JwtException.class, () -> jwtService.verify(tampered));
+    }
+
+    @Test
+    void expiredTokensAreRejected() {
+        String expired = token(SECRET, 7L, Instant.now().minus(1, ChronoUnit.MINUTES));
+
+        assertThrows(ExpiredJwtException.class, () -> jwtService.verify(expired));
+        assertTrue(jwtService.tryVerify(expired).isEmpty());
+    }
+
+    @Test
+    void missingTokensAreRejected() {
+        assertThrows(IllegalArgumentException.class, () -> jwtService.verify(null));
+        assertThrows(IllegalArgumentException.class, () -> jwtService.verify(""));
+    }
+
+    // Shaped like the access tokens JwtService issues
+    static String token(String secret, Long userId, Instant expiration) {
+        return "Bearer " + Jwts.builder()
+                .claim("typeToken", "Bearer")
+                .claim("userId", userId)
+                .claim("email", "user" + userId + "@vegist.test")
+                .claim("roles", List.of("ROLE_USER", "ROLE_ADMIN"))
+                .setIssuedAt(Date.from(expiration.minus(1, ChronoUnit.DAYS)))
+                .setExpiration(Date.from(expiration))
+                .signWith(Keys.hmacShaKeyFor(secret.getBytes()), SignatureAlgorithm.HS512)
+                .compact();
+    }
+}
@@ -0,0 +1,309 @@
+package project.vegist.services;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.jdbc.AutoConfigureTestDatabase;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.scheduling.concurrent.ThreadPoolTaskExecutor;
+import org.springframework.test.util.ReflectionTestUtils;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionTemplate;
+import project.vegist.entities.OutboxEvent;
+import project.vegist.repositories.OutboxEventRepository;
+
+import java.sql.Timestamp;
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.*;
+import java.util.concurrent.*;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+// Claims and deliveries against an in-memory H2 database; claim and deliver are driven directly where timing matters
+@DataJpaTest(properties = {
+        "spring.datasource.url=jdbc:h2:mem:outbox;MODE=MySQL;DB_CLOSE_DELAY=-1;LOCK_TIMEOUT=10000;NON_KEYWORDS=VALUE",
+        "spring.jpa.properties.hibernate.dialect=org.hibernate.dialect.H2Dialect",
+        "spring.jpa.hibernate.ddl-auto=create-drop"
+})
+@AutoConfigureTestDatabase(replace = AutoConfigureTestDatabase.Replace.NONE)
+@Transactional(propagation = Propagation.NOT_SUPPORTED)
+class OutboxDispatcherTests {
+    private static final String EVENT_TYPE = "TEST_EVENT";
+    private static final int BATCH_SIZE = 5;
+    private static final long LEASE_SECONDS = 60;
+    private static final int MAX_ATTEMPTS = 3;
+    private static final long INITIAL_BACKOFF_MS = 1000;
+    private static final long MAX_BACKOFF_MS = 8000;
+
+    @Autowired
+    private OutboxEventRepository outboxEventRepository;
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+    @Autowired
+    private PlatformTransactionManager transactionManager;
+
+    private final RecordingHandler handler = new RecordingHandler();
+    private final SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+    private ThreadPoolTaskExecutor outboxExecutor;
+    private OutboxDispatcher dispatcher;
+
+    @BeforeEach
+    void createDispatcher() {
+        jdbcTemplate.update("DELETE FROM outbox_events");
+        outboxExecutor = new ThreadPoolTaskExecutor();
+        outboxExecutor.setCorePoolSize(2);
+        outboxExecutor.setThreadNamePrefix("outbox-test-");
+        outboxExecutor.initialize();
+        dispatcher = new OutboxDispatcher(outboxEventRepository, new TransactionTemplate(transactionManager), outboxExecutor,
+                List.of(handler), meterRegistry, 2, BATCH_SIZE, 20, LEASE_SECONDS, MAX_ATTEMPTS,
+                INITIAL_BACKOFF_MS, MAX_BACKOFF_MS, 7);
+    }
+
+    @AfterEach
+    void stopDispatcher() {
+        dispatcher.stop();
+        outboxExecutor.shutdown();
+    }
+
+    @Test
+    void claimLeasesTheDueEventsOldestFirst() {
+        LocalDateTime now = LocalDateTime.now();
+        insertEvent(1L, EVENT_TYPE, now.minusSeconds(10));
+        insertEvent(2L, EVENT_TYPE, now.minusSeconds(20));
+        insertEvent(3L, EVENT_TYPE, now.plusMinutes(5));
+
+        List<OutboxEvent> claimed = claim("worker-a");
+
+        assertEquals(List.of(1L, 2L), claimed.stream().map(OutboxEvent::getId).toList());
+        for (long id : new long[]{1, 2}) {
+            assertEquals("PROCESSING", columnOf(id, "status"));
+            assertEquals("worker-a", columnOf(id, "lease_owner"));
+            assertEquals("1", columnOf(id, "attempts"));
+            assertTrue(availableAtOf(id).isAfter(now.plusSeconds(LEASE_SECONDS - 5)));
+        }
+        assertEquals("PENDING", columnOf(3L, "status"));
+        // Leased events are not handed to anyone else
+        assertTrue(claim("worker-b").isEmpty());
+    }
+
+    @Test
+    void claimsAreLimitedToTheBatchSize() {
+        for (long id = 1; id <= BATCH_SIZE + 2; id++) {
+            insertEvent(id, EVENT_TYPE, LocalDateTime.now().minusSeconds(1));
+        }
+
+        assertEquals(BATCH_SIZE, claim("worker-a").size());
+        assertEquals(2, claim("worker-b").size());
+    }
+
+    @Test
+    void concurrentClaimersNeverShareAnEvent() throws Exception {
+        int events = 200;
+        for (long id = 1; id <= events; id++) {
+            insertEvent(id, EVENT_TYPE, LocalDateTime.now().minusSeconds(1));
+        }
+
+        Map<Long, String> owners = new ConcurrentHashMap<>();
+        List<Long> duplicates = Collections.synchronizedList(new ArrayList<>());
+        CountDownLatch start = new CountDownLatch(1);
+        ExecutorService claimers = Executors.newFixedThreadPool(8);
+        try {
+            List<Future<?>> futures = new ArrayList<>();
+            for (int i = 0; i < 8; i++) {
+                String owner = "worker-" + i;
+                futures.add(claimers.submit(() -> {
+                    start.await();
+                    List<OutboxEvent> batch;
+                    do {
+                        batch = claim(owner);
+                        batch.forEach(event -> {
+                            if (owners.putIfAbsent(event.getId(), owner) != null) {
+                                duplicates.add(event.getId());
+                            }
+                        });
+                    } while (!batch.isEmpty());
+                    return null;
+                }));
+            }
+            start.countDown();
+            for (Future<?> future : futures) {
+                future.get(60, TimeUnit.SECONDS);
+            }
+        } finally {
+            claimers.shutdownNow();
+        }
+
+        assertEquals(List.of(), duplicates);
+        assertEquals(events, owners.size());
+        assertEquals(events, jdbcTemplate.queryForObject("SELECT COUNT(*) FROM outbox_events WHERE attempts = 1", Integer.class));
+    }
+
+    @Test
+    void anExpiredLeaseIsClaimedAgainAndOnlyTheNewOwnerFinishesIt() {
+        insertEvent(1L, EVENT_TYPE, LocalDateTime.now().minusSeconds(1));
+        OutboxEvent first = claim("worker-a").get(0);
+
+        // worker-a stalled past its lease
+        jdbcTemplate.update("UPDATE outbox_events SET available_at = ? WHERE id = 1", Timestamp.valueOf(LocalDateTime.now().minusSeconds(1)));
+        OutboxEvent second = claim("worker-b").get(0);
+        assertEquals(2, second.getAttempts());
+
+        deliver(first, "worker-a");
+        assertEquals("PROCESSING", columnOf(1L, "status"));
+        assertEquals("worker-b", columnOf(1L, "lease_owner"));
+
+        deliver(second, "worker-b");
+        assertEquals("DONE", columnOf(1L, "status"));
+        assertNull(columnOf(1L, "lease_owner"));
+        assertEquals(List.of(1L, 1L), handler.handledIds());
+    }
+
+    @Test
+    void aFailedDeliveryIsRetriedWithBackoffAndThenParked() {
+        insertEvent(1L, EVENT_TYPE, LocalDateTime.now().minusSeconds(1));
+        handler.failuresLeft = MAX_ATTEMPTS;
+
+        for (int attempt = 1; attempt < MAX_ATTEMPTS; attempt++) {
+            LocalDateTime before = LocalDateTime.now();
+            deliver(claim("worker-a").get(0), "worker-a");
+
+            long backoff = INITIAL_BACKOFF_MS << (attempt - 1);
+            assertEquals("PENDING", columnOf(1L, "status"));
+            assertNull(columnOf(1L, "lease_owner"));
+            assertTrue(columnOf(1L, "last_error").contains("handler failed"));
+            LocalDateTime availableAt = availableAtOf(1L);
+            assertFalse(availableAt.isBefore(before.plus(Duration.ofMillis(backoff))), "attempt " + attempt);
+            assertTrue(availableAt.isBefore(LocalDateTime.now().plus(Duration.ofMillis(backoff * 6 / 5 + 1))), "attempt " + attempt);
+            // Not due before its backoff ran out
+            assertTrue(claim("worker-a").isEmpty());
+            jdbcTemplate.update("UPDATE outbox_events SET available_at = ? WHERE id = 1", Timestamp.valueOf(LocalDateTime.now().minusSeconds(1)));
+        }
+
+        deliver(claim("worker-a").get(0), "worker-a");
+        assertEquals("FAILED", columnOf(1L, "status"));
+        assertEquals(String.valueOf(MAX_ATTEMPTS), columnOf(1L, "attempts"));
+        assertTrue(claim("worker-a").isEmpty());
+        assertEquals(MAX_ATTEMPTS - 1, meterRegistry.get("outbox.events").tag("result", "retried").counter().count());
+        assertEquals(1, meterRegistry.get("outbox.events").tag("result", "failed").counter().count());
+    }
+
+    @Test
+    void eventsWithoutAHandlerAreRetriedLikeFailures() {
+        insertEvent(1L, "UNKNOWN_EVENT", LocalDateTime.now().minusSeconds(1));
+
+        deliver(claim("worker-a").get(0), "worker-a");
+
+        assertEquals("PENDING", columnOf(1L, "status"));
+        assertTrue(columnOf(1L, "last_error").contains("No outbox handler"));
+        assertTrue(handler.handledIds().isEmpty());
+    }
+
+    @Test
+    void backoffDoublesUpToTheCapWithBoundedJitter() {
+        for (int attempts = 0; attempts <= 40; attempts++) {
+            long expected = Math.min(MAX_BACKOFF_MS, INITIAL_BACKOFF_MS << Math.min(Math.max(attempts - 1, 0), 30));
+            for (int i = 0; i < 20; i++) {
+                long backoff = ReflectionTestUtils.invokeMethod(dispatcher, "backoffMillis", attempts);
+                assertTrue(backoff >= expected && backoff <= expected + expected / 5, attempts + " attempts: " + backoff);
+            }
+        }
+    }
+
+    @Test
+    void lagAndBacklogCountUndeliveredEventsOnly() {
+        LocalDateTime now = LocalDateTime.now();
+        insertEvent(1L, EVENT_TYPE, now, now.minusMinutes(2), "PENDING");
+        insertEvent(2L, EVENT_TYPE, now, now.minusMinutes(1), "PROCESSING");
+        insertEvent(3L, EVENT_TYPE, now, now.minusMinutes(30), "DONE");
+        insertEvent(4L, EVENT_TYPE, now, now.minusMinutes(40), "FAILED");
+
+        dispatcher.refreshMetrics();
+
+        double lag = meterRegistry.get("outbox.lag.seconds").gauge().value();
+        assertTrue(lag >= 120 && lag < 180, "lag " + lag);
+        assertEquals(2, meterRegistry.get("outbox.backlog").gauge().value());
+
+        jdbcTemplate.update("UPDATE outbox_events SET status = 'DONE' WHERE id IN (1, 2)");
+        dispatcher.refreshMetrics();
+        assertEquals(0, meterRegistry.get("outbox.lag.seconds").gauge().value());
+        assertEquals(0, meterRegistry.get("outbox.backlog").gauge().value());
+    }
+
+    @Test
+    void workersDeliverEveryEventOnce() throws Exception {
+        int events = 30;
+        for (long id = 1; id <= events; id++) {
+            insertEvent(id, EVENT_TYPE, LocalDateTime.now().minusSeconds(1));
+        }
+
+        dispatcher.start();
+        long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(30);
+        while (countWithStatus("DONE") < events && System.nanoTime() < deadline) {
+            Thread.sleep(20);
+        }
+
+        assertEquals(events, countWithStatus("DONE"));
+        List<Long> handled = handler.handledIds();
+        assertEquals(events, handled.size());
+        assertEquals(events, new HashSet<>(handled).size());
+    }
+
+    @SuppressWarnings("unchecked")
+    private List<OutboxEvent> claim(String owner) {
+        return (List<OutboxEvent>) ReflectionTestUtils.invokeMethod(dispatcher, "claim", owner);
+    }
+
+    private void deliver(OutboxEvent event, String owner) {
+        ReflectionTestUtils.invokeMethod(dispatcher, "deliver", event, owner);
+    }
+
+    private void insertEvent(Long id, String eventType, LocalDateTime availableAt) {
+        insertEvent(id, eventType, availableAt, LocalDateTime.now(), "PENDING");
+    }
+
+    private void insertEvent(Long id, String eventType, LocalDateTime availableAt, LocalDateTime createdAt, String status) {
+        jdbcTemplate.update("INSERT INTO outbox_events (id, event_type, aggregate_id, status, available_at, attempts, created_at) "
+                + "VALUES (?, ?, ?, ?, ?, 0, ?)", id, eventType, id, status, Timestamp.valueOf(availableAt), Timestamp.valueOf(createdAt));
+    }
+
+    private String columnOf(Long id, String column) {
+        return jdbcTemplate.queryForObject("SELECT " + column + " FROM outbox_events WHERE id = ?", String.class, id);
+    }
+
+    private LocalDateTime availableAtOf(Long id) {
+        return jdbcTemplate.queryForObject("SELECT available_at FROM outbox_events WHERE id = ?", Timestamp.class, id).toLocalDateTime();
+    }
+
+    private int countWithStatus(String status) {
+        return jdbcTemplate.queryForObject("SELECT COUNT(*) FROM outbox_events WHERE status = ?", Integer.class, status);
+    }
+
+    private static final class RecordingHandler implements OutboxHandler {
+        private final Queue<Long> handled = new ConcurrentLinkedQueue<>();
+        private volatile int failuresLeft;
+
+        @Override
+        public String eventType() {
+            return EVENT_TYPE;
+        }
+
+        @Override
+        public void handle(OutboxEvent event) {
+            if (failuresLeft > 0) {
+                failuresLeft--;
+                throw new IllegalStateException("handler failed");
+            }
+            handled.add(event.getId());
+        }
+
+        private List<Long> handledIds() {
+            return new ArrayList<>(handled);
+        }
+    }
+}
@@ -0,0 +1,206 @@
+package project.vegist.services;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.jdbc.AutoConfigureTestDatabase;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.dao.TransientDataAccessResourceException;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.TransactionException;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionCallback;
+import org.springframework.transaction.support.TransactionTemplate;
+import project.vegist.repositories.CounterFlushRepository;
+import project.vegist.repositories.ProductRepository;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+// Flushes against an in-memory H2 database; the failures are injected around the flush transaction
+@DataJpaTest(properties = {
+        "spring.datasource.url=jdbc:h2:mem:counters;MODE=MySQL;DB_CLOSE_DELAY=-1;NON_KEYWORDS=VALUE",
+        "spring.jpa.properties.hibernate.dialect=org.hibernate.dialect.H2Dialect",
+        "spring.jpa.hibernate.ddl-auto=create-drop"
+})
+@AutoConfigureTestDatabase(replace = AutoConfigureTestDatabase.Replace.NONE)
+@Transactional(propagation = Propagation.NOT_SUPPORTED)
+class ProductCounterServiceTests {
+    private static final long PRODUCT_ID = 1L;
+
+    @Autowired
+    private ProductRepository productRepository;
+    @Autowired
+    private CounterFlushRepository counterFlushRepository;
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+    @Autowired
+    private PlatformTransactionManager transactionManager;
+
+    @BeforeEach
+    void createProduct() {
+        jdbcTemplate.update("DELETE FROM counter_flushes");
+        jdbcTemplate.update("DELETE FROM products");
+        jdbcTemplate.update("DELETE FROM categories");
+        jdbcTemplate.update("DELETE FROM labels");
+
+        jdbcTemplate.update("INSERT INTO categories (id, name, status, created_at, updated_at) VALUES (1, 'Fruit', TRUE, NOW(), NOW())");
+        jdbcTemplate.update("INSERT INTO labels (id, label_name) VALUES (1, 'New')");
+        jdbcTemplate.update("INSERT INTO products (id, product_name, price, category_id, label_id, created_at, updated_at) "
+                + "VALUES (?, 'Apple', 1.00, 1, 1, NOW(), NOW())", PRODUCT_ID);
+    }
+
+    @Test
+    void deltasAreFlushedOnce() {
+        ProductCounterService counterService = open(new TransactionTemplate(transactionManager));
+        for (int i = 0; i < 3; i++) {
+            assertTrue(counterService.incrementViews(PRODUCT_ID));
+        }
+        counterService.addWishlist(PRODUCT_ID, 1);
+        counterService.addWishlist(PRODUCT_ID, 1);
+        counterService.addWishlist(PRODUCT_ID, -1);
+
+        counterService.flush();
+        counterService.flush();
+
+        assertEquals(3, viewsOf(PRODUCT_ID));
+        assertEquals(1, wishlistsOf(PRODUCT_ID));
+        assertEquals(1, counterFlushRepository.count());
+    }
+
+    @Test
+    void unknownProductsAreNotCounted() {
+        ProductCounterService counterService = open(new TransactionTemplate(transactionManager));
+
+        assertFalse(counterService.incrementViews(99L));
+        counterService.addWishlist(99L, 1);
+        counterService.flush();
+
+        assertEquals(0, counterFlushRepository.count());
+    }
+
+    @Test
+    void wishlistCountsNeverGoNegative() {
+        ProductCounterService counterService = open(new TransactionTemplate(transactionManager));
+        counterService.addWishlist(PRODUCT_ID, -2);
+
+        counterService.flush();
+
+        assertEquals(0, wishlistsOf(PRODUCT_ID));
+    }
+
+    @Test
+    void aFlushThatCommittedBeforeItFailedIsNotAppliedAgain() {
+        FailingTransactionTemplate transactionTemplate = new FailingTransactionTemplate(transactionManager);
+        ProductCounterService counterService = open(transactionTemplate);
+        for (int i = 0; i < 5; i++) {
+            counterService.incrementViews(PRODUCT_ID);
+        }
+
+        // The update commits, but the caller only sees the connection drop
+        transactionTemplate.failAfterCommit = true;
+        counterService.flush();
+        assertEquals(5, viewsOf(PRODUCT_ID));
+
+        counterService.incrementViews(PRODUCT_ID);
+        counterService.incrementViews(PRODUCT_ID);
+        // The retry finds its flush id and skips the batch, the new views wait for the next run
+        counterService.flush();
+        assertEquals(5, viewsOf(PRODUCT_ID));
+
+        counterService.flush();
+        assertEquals(7, viewsOf(PRODUCT_ID));
+        assertEquals(2, counterFlushRepository.count());
+    }
+
+    @Test
+    void aFlushThatRolledBackIsRetriedWithTheSameDeltas() {
+        FailingTransactionTemplate transactionTemplate = new FailingTransactionTemplate(transactionManager);
+        ProductCounterService counterService = open(transactionTemplate);
+        for (int i = 0; i < 5; i++) {
+            counterService.incrementViews(PRODUCT_ID);
+        }
+
+        transactionTemplate.failBeforeCommit = true;
+        counterService.flush();
+        assertEquals(0, viewsOf(PRODUCT_ID));
+        assertEquals(0, counterFlushRepository.count());
+
+        counterService.flush();
+        assertEquals(5, viewsOf(PRODUCT_ID));
+        assertEquals(1, counterFlushRepository.count());
+    }
+
+    @Test
+    void aRestartNeitherLosesFlushedCountsNorCountsThemTwice() {
+        ProductCounterService beforeRestart = open(new TransactionTemplate(transactionManager));
+        for (int i = 0; i < 4; i++) {
+            beforeRestart.incrementViews(PRODUCT_ID);
+        }
+        beforeRestart.addWishlist(PRODUCT_ID, 1);
+        beforeRestart.flushOnShutdown();
+
+        ProductCounterService afterRestart = open(new TransactionTemplate(transactionManager));
+        afterRestart.flush();
+        assertEquals(4, viewsOf(PRODUCT_ID));
+        assertEquals(1, wishlistsOf(PRODUCT_ID));
+
+        afterRestart.incrementViews(PRODUCT_ID);
+        afterRestart.flush();
+        assertEquals(5, viewsOf(PRODUCT_ID));
+        assertEquals(1, wishlistsOf(PRODUCT_ID));
+    }
+
+    @Test
+    void shutdownFlushesDeltasLeftBehindByAPendingRetry() {
+        FailingTransactionTemplate transactionTemplate = new FailingTransactionTemplate(transactionManager);
+        ProductCounterService counterService = open(transactionTemplate);
+        counterService.incrementViews(PRODUCT_ID);
+
+        transactionTemplate.failAfterCommit = true;
+        counterService.flush();
+        counterService.incrementViews(PRODUCT_ID);
+        counterService.incrementViews(PRODUCT_ID);
+
+        counterService.flushOnShutdown();
+
+        assertEquals(3, viewsOf(PRODUCT_ID));
+    }
+
+    private ProductCounterService open(TransactionTemplate transactionTemplate) {
+        return new ProductCounterService(productRepository, counterFlushRepository, jdbcTemplate, transactionTemplate);
+    }
+
+    private long viewsOf(Long productId) {
+        return jdbcTemplate.queryForObject("SELECT COALESCE(view_count, 0) FROM products WHERE id = ?", Long.class, productId);
+    }
+
+    private long wishlistsOf(Long productId) {
+        return jdbcTemplate.queryForObject("SELECT COALESCE(wishlist_count, 0) FROM products WHERE id = ?", Long.class, productId);
+    }
+
+    // Fails the next transaction once, either before it runs or after it has committed
+    private static final class FailingTransactionTemplate extends TransactionTemplate {
+        private boolean failBeforeCommit;
+        private boolean failAfterCommit;
+
+        private FailingTransactionTemplate(PlatformTransactionManager transactionManager) {
+            super(transactionManager);
+        }
+
+        @Override
+        public <T> T execute(TransactionCallback<T> action) throws TransactionException {
+            if (failBeforeCommit) {
+                failBeforeCommit = false;
+                throw new TransientDataAccessResourceException("connection refused");
+            }
+            T result = super.execute(action);
+            if (failAfterCommit) {
+                failAfterCommit = false;
+                throw new TransientDataAccessResourceException("connection reset after commit");
+            }
+            return result;
+        }
+    }
+}
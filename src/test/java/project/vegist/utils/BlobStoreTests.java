@@ -0,0 +1,129 @@
+package project.vegist.utils;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.HexFormat;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class BlobStoreTests {
+    private static final int COMPACT_AFTER_LINES = 10;
+
+    @TempDir
+    Path uploadRoot;
+
+    @Test
+    void sameContentIsStoredOnce() throws IOException {
+        BlobStore blobStore = open();
+
+        String first = store(blobStore, "apple");
+        String second = store(blobStore, "apple");
+
+        assertEquals(first, second);
+        assertEquals(1, blobStore.size());
+        assertTrue(Files.exists(uploadRoot.resolve(first)));
+    }
+
+    @Test
+    void refCountsSurviveReopen() throws IOException {
+        BlobStore blobStore = open();
+        String shared = store(blobStore, "apple");
+        store(blobStore, "apple");
+        String single = store(blobStore, "pear");
+
+        BlobStore reopened = open();
+        assertEquals(2, reopened.size());
+
+        reopened.release(shared);
+        assertTrue(Files.exists(uploadRoot.resolve(shared)), "one reference to the shared blob is left");
+        reopened.release(shared);
+        assertFalse(Files.exists(uploadRoot.resolve(shared)));
+        assertTrue(Files.exists(uploadRoot.resolve(single)));
+        assertFalse(reopened.contains(hash("apple")));
+        assertTrue(reopened.contains(hash("pear")));
+    }
+
+    @Test
+    void releaseDeletesOnlyBlobsWithoutReferences() throws IOException {
+        BlobStore blobStore = open();
+        String shared = store(blobStore, "apple");
+        store(blobStore, "apple");
+        String single = store(blobStore, "pear");
+
+        blobStore.release(single);
+        blobStore.release(shared);
+
+        assertFalse(Files.exists(uploadRoot.resolve(single)));
+        assertTrue(Files.exists(uploadRoot.resolve(shared)));
+        assertEquals(1, blobStore.size());
+
+        // A released blob is gone after a reopen as well, the other keeps its last reference
+        BlobStore reopened = open();
+        assertFalse(reopened.contains(hash("pear")));
+        reopened.release(shared);
+        assertFalse(Files.exists(uploadRoot.resolve(shared)));
+    }
+
+    @Test
+    void journalIsCompactedOnceItPassesTheThreshold() throws IOException {
+        BlobStore blobStore = open();
+        String kept = store(blobStore, "apple");
+        for (int i = 0; i < 100; i++) {
+            String path = store(blobStore, "apple");
+            blobStore.release(path);
+        }
+
+        assertTrue(Files.readAllLines(uploadRoot.resolve(".blob-index")).size() <= COMPACT_AFTER_LINES + 1);
+
+        BlobStore reopened = open();
+        assertEquals(1, reopened.size());
+        reopened.release(kept);
+        assertFalse(Files.exists(uploadRoot.resolve(kept)));
+    }
+
+    @Test
+    void unindexedPathsOutsideTheUploadRootAreNotDeleted() throws IOException {
+        Path outside = Files.createTempFile("blob-store-outside-", ".txt");
+        try {
+            BlobStore blobStore = open();
+            blobStore.release("../" + outside.getFileName());
+            blobStore.release(".blob-index");
+
+            assertTrue(Files.exists(outside));
+            assertTrue(Files.exists(uploadRoot.resolve(".blob-index")));
+        } finally {
+            Files.deleteIfExists(outside);
+        }
+    }
+
+    private BlobStore open() throws IOException {
+        BlobStore blobStore = new BlobStore();
+        ReflectionTestUtils.setField(blobStore, "uploadDirectory", uploadRoot.toString());
+        ReflectionTestUtils.setField(blobStore, "compactAfterLines", COMPACT_AFTER_LINES);
+        blobStore.open();
+        return blobStore;
+    }
+
+    private String store(BlobStore blobStore, String content) throws IOException {
+        Path tempFile = Files.createTempFile(uploadRoot, ".upload-", ".tmp");
+        Files.writeString(tempFile, content);
+        return blobStore.store(tempFile, hash(content), Files.size(tempFile), "images", "png");
+    }
+
+    private static String hash(String content) {
+        try {
+            byte[] digest = MessageDigest.getInstance("SHA-256").digest(content.getBytes(StandardCharsets.UTF_8));
+            return HexFormat.of().formatHex(digest);
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+}
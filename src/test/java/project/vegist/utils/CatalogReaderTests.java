@@ -0,0 +1,138 @@
+package project.vegist.utils;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import project.vegist.enums.ExportFormat;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class CatalogReaderTests {
+    private static final ObjectMapper OBJECT_MAPPER = new ObjectMapper();
+
+    @TempDir
+    Path directory;
+
+    @Test
+    void csvRowsAreKeyedByTheHeader() throws IOException {
+        Path catalog = write("\uFEFFsku,name,price\r\nA-1,Apple,1.50\r\n\r\nB-2,\"Pear, green\",2.00\r\n");
+
+        try (CatalogReader reader = open(catalog, ExportFormat.CSV)) {
+            assertEquals(Map.of("sku", "A-1", "name", "Apple", "price", "1.50"), reader.next());
+            assertEquals(1, reader.getRowNumber());
+            // The blank line is not a row
+            assertEquals(Map.of("sku", "B-2", "name", "Pear, green", "price", "2.00"), reader.next());
+            assertEquals(2, reader.getRowNumber());
+            assertNull(reader.next());
+            assertEquals(2, reader.getRowNumber());
+        }
+    }
+
+    @Test
+    void quotedCsvValuesMaySpanLinesAndEscapeQuotes() throws IOException {
+        Path catalog = write("sku,description\nA-1,\"Sweet \"\"red\"\" apples\nfrom the north\"\nB-2,plain\n");
+
+        try (CatalogReader reader = open(catalog, ExportFormat.CSV)) {
+            assertEquals("Sweet \"red\" apples\nfrom the north", reader.next().get("description"));
+            assertEquals("plain", reader.next().get("description"));
+            assertEquals(2, reader.getRowNumber());
+            assertNull(reader.next());
+        }
+    }
+
+    @Test
+    void jsonArraysAreJoinedAndNullsDropped() throws IOException {
+        Path catalog = write("{\"sku\":\"A-1\",\"tags\":[\"fresh\",\"local\"],\"discount\":null,\"price\":1.5}\n\n");
+
+        try (CatalogReader reader = open(catalog, ExportFormat.NDJSON)) {
+            assertEquals(Map.of("sku", "A-1", "tags", "fresh" + CatalogReader.LIST_SEPARATOR + "local", "price", "1.5"),
+                    reader.next());
+            assertNull(reader.next());
+            assertEquals(1, reader.getRowNumber());
+        }
+    }
+
+    @Test
+    void malformedJsonRowsCountAndTheReaderMovesOn() throws IOException {
+        Path catalog = write("{\"sku\":\"A-1\"}\n{\"sku\":\n[1,2]\n{\"sku\":\"D-4\"}\n");
+
+        try (CatalogReader reader = open(catalog, ExportFormat.NDJSON)) {
+            assertEquals("A-1", reader.next().get("sku"));
+            assertThrows(CatalogReader.MalformedRowException.class, reader::next);
+            assertEquals(2, reader.getRowNumber());
+            CatalogReader.MalformedRowException notAnObject = assertThrows(CatalogReader.MalformedRowException.class, reader::next);
+            assertEquals("not a JSON object", notAnObject.getMessage());
+            assertEquals(3, reader.getRowNumber());
+            assertEquals("D-4", reader.next().get("sku"));
+            assertEquals(4, reader.getRowNumber());
+            assertNull(reader.next());
+        }
+    }
+
+    @Test
+    void skipResumesAfterTheLastCommittedRow() throws IOException {
+        Path catalog = write("{\"sku\":\"A-1\"}\n\n{broken\n{\"sku\":\"C-3\"}\n{\"sku\":\"D-4\"}\n");
+
+        // A restarted import skips what was committed before, malformed rows included
+        try (CatalogReader reader = open(catalog, ExportFormat.NDJSON)) {
+            reader.skip(2);
+            assertEquals(2, reader.getRowNumber());
+            assertEquals("C-3", reader.next().get("sku"));
+            assertEquals(3, reader.getRowNumber());
+        }
+
+        try (CatalogReader reader = open(catalog, ExportFormat.NDJSON)) {
+            reader.skip(3);
+            assertEquals("D-4", reader.next().get("sku"));
+            assertEquals(4, reader.getRowNumber());
+        }
+    }
+
+    @Test
+    void skipResumesCsvPastTheHeader() throws IOException {
+        Path catalog = write("sku\nA-1\nB-2\nC-3\n");
+
+        try (CatalogReader reader = open(catalog, ExportFormat.CSV)) {
+            reader.skip(2);
+            assertEquals(Map.of("sku", "C-3"), reader.next());
+            assertEquals(3, reader.getRowNumber());
+        }
+    }
+
+    @Test
+    void skippingPastTheEndStopsAtTheLastRow() throws IOException {
+        Path catalog = write("{\"sku\":\"A-1\"}\n{\"sku\":\"B-2\"}\n");
+
+        try (CatalogReader reader = open(catalog, ExportFormat.NDJSON)) {
+            reader.skip(10);
+            assertEquals(2, reader.getRowNumber());
+            assertNull(reader.next());
+        }
+    }
+
+    @Test
+    void emptyFilesHaveNoRows() throws IOException {
+        Path catalog = write("");
+
+        try (CatalogReader csv = open(catalog, ExportFormat.CSV); CatalogReader ndjson = open(catalog, ExportFormat.NDJSON)) {
+            assertNull(csv.next());
+            assertNull(ndjson.next());
+            assertEquals(0, csv.getRowNumber());
+            assertEquals(0, ndjson.getRowNumber());
+        }
+    }
+
+    private Path write(String content) throws IOException {
+        return Files.writeString(Files.createTempFile(directory, "catalog-", ".txt"), content, StandardCharsets.UTF_8);
+    }
+
+    private static CatalogReader open(Path catalog, ExportFormat format) throws IOException {
+        return new CatalogReader(catalog, format, OBJECT_MAPPER);
+    }
+}
@@ -0,0 +1,107 @@
+package project.vegist.utils;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.data.domain.Pageable;
+import project.vegist.common.AppConstants;
+import project.vegist.exceptions.BadRequestException;
+
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDateTime;
+import java.util.Base64;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class KeysetPagerTests {
+
+    @Test
+    void idCursorsRoundTrip() {
+        for (long id : new long[]{0, 1, 42, Long.MAX_VALUE}) {
+            assertEquals(id, KeysetPager.decodeCursor(KeysetPager.encodeCursor(id)));
+        }
+    }
+
+    @Test
+    void timeCursorsRoundTrip() {
+        List<LocalDateTime> times = List.of(
+                LocalDateTime.of(2024, 1, 31, 23, 59, 59),
+                LocalDateTime.of(2024, 2, 29, 0, 0),
+                LocalDateTime.of(2024, 6, 1, 12, 30, 15, 123_456_000));
+        for (LocalDateTime createdAt : times) {
+            KeysetPager.TimeCursor cursor = KeysetPager.decodeTimeCursor(KeysetPager.encodeCursor(createdAt, 7L));
+            assertEquals(new KeysetPager.TimeCursor(createdAt, 7L), cursor);
+        }
+    }
+
+    @Test
+    void cursorsAreUrlSafe() {
+        String cursor = KeysetPager.encodeCursor(LocalDateTime.of(2024, 6, 1, 12, 30, 15, 999_999_999), Long.MAX_VALUE);
+        assertTrue(cursor.matches("[A-Za-z0-9_-]+"), cursor);
+    }
+
+    @Test
+    void missingCursorsStartFromTheFirstRow() {
+        assertNull(KeysetPager.decodeCursor(null));
+        assertNull(KeysetPager.decodeCursor(""));
+        assertNull(KeysetPager.decodeCursor("   "));
+        assertNull(KeysetPager.decodeTimeCursor(null));
+        assertNull(KeysetPager.decodeTimeCursor(""));
+    }
+
+    @Test
+    void tamperedIdCursorsAreRejected() {
+        List<String> cursors = List.of(
+                "not base64!",
+                encode("42"),
+                encode("id:"),
+                encode("id:forty-two"),
+                encode("ts:2024-06-01T12:30/42"),
+                KeysetPager.encodeCursor(42L).substring(1));
+        for (String cursor : cursors) {
+            assertThrows(BadRequestException.class, () -> KeysetPager.decodeCursor(cursor), cursor);
+        }
+    }
+
+    @Test
+    void tamperedTimeCursorsAreRejected() {
+        List<String> cursors = List.of(
+                "not base64!",
+                encode("2024-06-01T12:30/42"),
+                encode("ts:2024-06-01T12:30"),
+                encode("ts:2024-13-01T12:30/42"),
+                encode("ts:yesterday/42"),
+                encode("ts:2024-06-01T12:30/"),
+                encode("ts:2024-06-01T12:30/42x"),
+                KeysetPager.encodeCursor(42L));
+        for (String cursor : cursors) {
+            assertThrows(BadRequestException.class, () -> KeysetPager.decodeTimeCursor(cursor), cursor);
+        }
+    }
+
+    @Test
+    void clampSizeKeepsPagesBetweenOneAndTheMaximum() {
+        assertEquals(1, KeysetPager.clampSize(Integer.MIN_VALUE));
+        assertEquals(1, KeysetPager.clampSize(-5));
+        assertEquals(1, KeysetPager.clampSize(0));
+        assertEquals(1, KeysetPager.clampSize(1));
+        assertEquals(10, KeysetPager.clampSize(10));
+        assertEquals(AppConstants.MAX_PAGE_SIZE, KeysetPager.clampSize(AppConstants.MAX_PAGE_SIZE));
+        assertEquals(AppConstants.MAX_PAGE_SIZE, KeysetPager.clampSize(AppConstants.MAX_PAGE_SIZE + 1));
+        assertEquals(AppConstants.MAX_PAGE_SIZE, KeysetPager.clampSize(Integer.MAX_VALUE));
+    }
+
+    @Test
+    void offsetPagesAreClampedToo() {
+        Pageable pageable = KeysetPager.pageRequest(-3, 10_000);
+        assertEquals(0, pageable.getPageNumber());
+        assertEquals(AppConstants.MAX_PAGE_SIZE, pageable.getPageSize());
+
+        pageable = KeysetPager.pageRequest(2, 0);
+        assertEquals(2, pageable.getPageNumber());
+        assertEquals(1, pageable.getPageSize());
+    }
+
+    private static String encode(String value) {
+        return Base64.getUrlEncoder().withoutPadding().encodeToString(value.getBytes(StandardCharsets.UTF_8));
+    }
+}
@@ -0,0 +1,172 @@
+package project.vegist.utils;
+
+import org.junit.jupiter.api.Test;
+
+import java.math.BigDecimal;
+import java.math.BigInteger;
+import java.math.RoundingMode;
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+// PricingEngine against the same arithmetic done in BigDecimal, on fixed seeds so a failure can be replayed
+class PricingEngineTests {
+    private static final int ROUNDS = 20_000;
+    private static final BigDecimal HUNDRED = BigDecimal.valueOf(100);
+    private static final BigInteger LONG_MAX = BigInteger.valueOf(Long.MAX_VALUE);
+    private static final BigInteger LONG_MIN = BigInteger.valueOf(Long.MIN_VALUE);
+
+    @Test
+    void toMinorRoundsHalfUpLikeBigDecimal() {
+        Random random = new Random(1);
+        for (int i = 0; i < ROUNDS; i++) {
+            BigDecimal amount = BigDecimal.valueOf(random.nextLong() % 1_000_000_000_000L, 2 + random.nextInt(4));
+            assertEquals(amount.setScale(2, RoundingMode.HALF_UP), PricingEngine.toDecimal(PricingEngine.toMinor(amount)),
+                    amount::toPlainString);
+        }
+        assertEquals(1, PricingEngine.toMinor(new BigDecimal("0.005")));
+        assertEquals(0, PricingEngine.toMinor(new BigDecimal("0.00499")));
+        assertEquals(-1, PricingEngine.toMinor(new BigDecimal("-0.005")));
+        assertEquals(0, PricingEngine.toMinor(null));
+    }
+
+    @Test
+    void percentOfMatchesBigDecimal() {
+        Random random = new Random(2);
+        for (int i = 0; i < ROUNDS; i++) {
+            long amount = randomAmount(random);
+            int percent = random.nextInt(241) - 20;
+            assertEquals(referencePercentOf(amount, percent), PricingEngine.percentOf(amount, percent),
+                    () -> amount + " * " + percent + "%");
+        }
+    }
+
+    @Test
+    void percentOfRoundsHalvesUp() {
+        // 0.01 * 50% = 0.005, 0.03 * 50% = 0.015, 0.01 * 49% = 0.0049
+        assertEquals(1, PricingEngine.percentOf(1, 50));
+        assertEquals(2, PricingEngine.percentOf(3, 50));
+        assertEquals(0, PricingEngine.percentOf(1, 49));
+        assertEquals(referencePercentOf(12_345, 15), PricingEngine.percentOf(12_345, 15));
+    }
+
+    @Test
+    void percentOfIgnoresOutOfRangeInputs() {
+        assertEquals(0, PricingEngine.percentOf(10_000, 0));
+        assertEquals(0, PricingEngine.percentOf(10_000, -5));
+        assertEquals(0, PricingEngine.percentOf(-10_000, 20));
+        assertEquals(10_000, PricingEngine.percentOf(10_000, 100));
+        assertEquals(10_000, PricingEngine.percentOf(10_000, 250));
+        assertEquals(0, PricingEngine.applyPercent(10_000, 150));
+    }
+
+    @Test
+    void unitPriceMatchesBigDecimal() {
+        Random random = new Random(3);
+        for (int i = 0; i < ROUNDS; i++) {
+            long listPrice = randomAmount(random);
+            long salePrice = random.nextInt(4) == 0 ? 0 : randomAmount(random);
+            int discount = random.nextInt(4) == 0 ? 0 : random.nextInt(121) - 10;
+            assertEquals(referenceUnitPrice(listPrice, salePrice, discount),
+                    PricingEngine.toDecimal(PricingEngine.unitPrice(listPrice, salePrice, discount)),
+                    () -> listPrice + " / " + salePrice + " / " + discount + "%");
+        }
+    }
+
+    @Test
+    void saleAndDiscountNeverStack() {
+        // 100.00 on sale for 90.00 with 20% off gives 80.00, not 72.00
+        assertEquals(8_000, PricingEngine.unitPrice(10_000, 9_000, 20));
+        assertEquals(9_000, PricingEngine.unitPrice(10_000, 9_000, 5));
+        assertEquals(10_000, PricingEngine.unitPrice(10_000, 12_000, 0));
+        assertEquals(0, PricingEngine.unitPrice(10_000, 0, 100));
+    }
+
+    @Test
+    void totalsMatchBigDecimal() {
+        Random random = new Random(4);
+        PricingEngine.Totals totals = new PricingEngine.Totals();
+        for (int i = 0; i < ROUNDS / 10; i++) {
+            totals.reset();
+            BigDecimal subtotal = BigDecimal.ZERO.setScale(2);
+            int lines = 1 + random.nextInt(30);
+            for (int line = 0; line < lines; line++) {
+                long unitPrice = randomAmount(random);
+                int quantity = 1 + random.nextInt(50);
+                totals.addLine(unitPrice, quantity);
+                subtotal = subtotal.add(PricingEngine.toDecimal(unitPrice).multiply(BigDecimal.valueOf(quantity)));
+            }
+            long shipping = random.nextInt(5_000);
+            int couponPercent = random.nextInt(130) - 10;
+            totals.shipping(shipping).couponPercent(couponPercent);
+
+            BigDecimal discount = couponPercent <= 0 ? BigDecimal.ZERO.setScale(2)
+                    : subtotal.multiply(BigDecimal.valueOf(Math.min(couponPercent, 100)))
+                    .divide(HUNDRED, 2, RoundingMode.HALF_UP);
+            BigDecimal total = subtotal.subtract(discount).add(PricingEngine.toDecimal(shipping));
+
+            assertEquals(subtotal, PricingEngine.toDecimal(totals.subtotal()));
+            assertEquals(discount, PricingEngine.toDecimal(totals.couponDiscount()));
+            assertEquals(total, PricingEngine.toDecimal(totals.total()));
+        }
+    }
+
+    @Test
+    void overflowThrowsInsteadOfWrapping() {
+        Random random = new Random(5);
+        for (int i = 0; i < ROUNDS; i++) {
+            long unitPrice = Long.MAX_VALUE / (1 + random.nextInt(1_000));
+            int quantity = 1 + random.nextInt(2_000);
+            BigInteger exact = BigInteger.valueOf(unitPrice).multiply(BigInteger.valueOf(quantity));
+            if (exact.compareTo(LONG_MAX) > 0) {
+                assertThrows(ArithmeticException.class, () -> PricingEngine.lineTotal(unitPrice, quantity));
+            } else {
+                assertEquals(exact.longValueExact(), PricingEngine.lineTotal(unitPrice, quantity));
+            }
+        }
+
+        // The intermediate product of a percentage can overflow before the division brings it back in range
+        assertThrows(ArithmeticException.class, () -> PricingEngine.percentOf(Long.MAX_VALUE / 10, 50));
+
+        PricingEngine.Totals totals = new PricingEngine.Totals();
+        totals.addLine(Long.MAX_VALUE - 1, 1);
+        assertThrows(ArithmeticException.class, () -> totals.addLine(2, 1));
+        assertThrows(ArithmeticException.class, () -> totals.shipping(2).total());
+
+        assertThrows(ArithmeticException.class,
+                () -> PricingEngine.toMinor(new BigDecimal(LONG_MAX).add(BigDecimal.ONE).movePointLeft(2)));
+        assertThrows(ArithmeticException.class,
+                () -> PricingEngine.toMinor(new BigDecimal(LONG_MIN).subtract(BigDecimal.ONE).movePointLeft(2)));
+    }
+
+    // Spread over cents to millions, so rounding is exercised at every magnitude
+    private static long randomAmount(Random random) {
+        return switch (random.nextInt(4)) {
+            case 0 -> random.nextInt(100);
+            case 1 -> random.nextInt(100_000);
+            case 2 -> random.nextInt(100_000_000);
+            default -> random.nextLong(1_000_000_000_000L);
+        };
+    }
+
+    private static long referencePercentOf(long amount, int percent) {
+        if (percent <= 0 || amount <= 0) {
+            return 0;
+        }
+        return BigDecimal.valueOf(amount, 2).multiply(BigDecimal.valueOf(Math.min(percent, 100)))
+                .divide(HUNDRED, 2, RoundingMode.HALF_UP).unscaledValue().longValueExact();
+    }
+
+    private static BigDecimal referenceUnitPrice(long listPrice, long salePrice, int discount) {
+        BigDecimal list = BigDecimal.valueOf(listPrice, 2);
+        BigDecimal price = list;
+        if (salePrice > 0 && salePrice < listPrice) {
+            price = BigDecimal.valueOf(salePrice, 2);
+        }
+        if (discount > 0) {
+            BigDecimal off = list.multiply(BigDecimal.valueOf(Math.min(discount, 100))).divide(HUNDRED, 2, RoundingMode.HALF_UP);
+            price = price.min(list.subtract(off));
+        }
+        return price;
+    }
+}
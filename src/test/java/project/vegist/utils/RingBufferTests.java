@@ -0,0 +1,151 @@
+package project.vegist.utils;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class RingBufferTests {
+    private static final int PRODUCERS = 8;
+    private static final int PER_PRODUCER = 10_000;
+
+    @Test
+    void capacityIsRoundedUpToAPowerOfTwo() {
+        assertEquals(2, new RingBuffer<>(2).capacity());
+        assertEquals(8, new RingBuffer<>(5).capacity());
+        assertEquals(8, new RingBuffer<>(8).capacity());
+        assertEquals(65_536, new RingBuffer<>(65_536).capacity());
+        assertThrows(IllegalArgumentException.class, () -> new RingBuffer<>(1));
+    }
+
+    @Test
+    void aFullBufferRejectsOffersUntilTheConsumerCatchesUp() {
+        RingBuffer<Integer> buffer = new RingBuffer<>(4);
+        for (int i = 0; i < 4; i++) {
+            assertTrue(buffer.offer(i));
+        }
+        assertFalse(buffer.offer(4));
+        assertEquals(4, buffer.size());
+
+        assertEquals(0, buffer.poll());
+        assertTrue(buffer.offer(4));
+        assertFalse(buffer.offer(5));
+
+        List<Integer> drained = new ArrayList<>();
+        assertEquals(4, buffer.drainTo(drained, 10));
+        assertEquals(List.of(1, 2, 3, 4), drained);
+        assertNull(buffer.poll());
+        assertEquals(0, buffer.size());
+    }
+
+    @Test
+    void drainToStopsAtMax() {
+        RingBuffer<Integer> buffer = new RingBuffer<>(8);
+        for (int i = 0; i < 6; i++) {
+            buffer.offer(i);
+        }
+
+        List<Integer> drained = new ArrayList<>();
+        assertEquals(4, buffer.drainTo(drained, 4));
+        assertEquals(List.of(0, 1, 2, 3), drained);
+        assertEquals(2, buffer.size());
+    }
+
+    @Test
+    void racingProducersFillAFullBufferExactlyOnce() throws Exception {
+        RingBuffer<Integer> buffer = new RingBuffer<>(1024);
+        AtomicInteger accepted = new AtomicInteger();
+
+        runProducers(producer -> {
+            for (int i = 0; i < 1000; i++) {
+                if (buffer.offer(producer * 1000 + i)) {
+                    accepted.incrementAndGet();
+                }
+            }
+        });
+
+        assertEquals(buffer.capacity(), accepted.get());
+        List<Integer> drained = new ArrayList<>();
+        buffer.drainTo(drained, Integer.MAX_VALUE);
+        assertEquals(buffer.capacity(), drained.size());
+        assertEquals(drained.size(), drained.stream().distinct().count());
+    }
+
+    @Test
+    void noElementIsLostOrDuplicatedWhileProducersRace() throws Exception {
+        RingBuffer<Long> buffer = new RingBuffer<>(256);
+        int total = PRODUCERS * PER_PRODUCER;
+        long[] lastSeen = new long[PRODUCERS];
+        Arrays.fill(lastSeen, -1);
+
+        // The single consumer checks that each producer's elements arrive once and in the order they were offered
+        ExecutorService consumer = Executors.newSingleThreadExecutor();
+        Future<Integer> consumed = consumer.submit(() -> {
+            int received = 0;
+            while (received < total) {
+                Long element = buffer.poll();
+                if (element == null) {
+                    Thread.onSpinWait();
+                    continue;
+                }
+                int producer = (int) (element / PER_PRODUCER);
+                long sequence = element % PER_PRODUCER;
+                assertEquals(lastSeen[producer] + 1, sequence, "producer " + producer);
+                lastSeen[producer] = sequence;
+                received++;
+            }
+            return received;
+        });
+
+        try {
+            runProducers(producer -> {
+                for (int i = 0; i < PER_PRODUCER; i++) {
+                    long element = (long) producer * PER_PRODUCER + i;
+                    while (!buffer.offer(element)) {
+                        Thread.onSpinWait();
+                    }
+                }
+            });
+            assertEquals(total, consumed.get(60, TimeUnit.SECONDS));
+        } finally {
+            consumer.shutdownNow();
+        }
+
+        for (long last : lastSeen) {
+            assertEquals(PER_PRODUCER - 1, last);
+        }
+        assertNull(buffer.poll());
+        assertEquals(0, buffer.size());
+    }
+
+    private static void runProducers(ProducerTask task) throws Exception {
+        CountDownLatch start = new CountDownLatch(1);
+        ExecutorService producers = Executors.newFixedThreadPool(PRODUCERS);
+        try {
+            List<Future<?>> futures = new ArrayList<>();
+            for (int producer = 0; producer < PRODUCERS; producer++) {
+                int id = producer;
+                futures.add(producers.submit(() -> {
+                    start.await();
+                    task.run(id);
+                    return null;
+                }));
+            }
+            start.countDown();
+            for (Future<?> future : futures) {
+                future.get(60, TimeUnit.SECONDS);
+            }
+        } finally {
+            producers.shutdownNow();
+        }
+    }
+
+    private interface ProducerTask {
+        void run(int producer);
+    }
+}